@@ -0,0 +1,371 @@
+package controlador;
+
+import controlador.LimitadorAcciones.ClaseAccion;
+import controlador.juego.CtrlMoverFicha;
+import controlador.juego.CtrlTirarDado;
+import controlador.juego.CtrlUnirse;
+import controlador.juego.SincronizacionTablero;
+import controlador.servidor.CamposMensaje;
+import controlador.servidor.ClienteHandler;
+import controlador.servidor.CompresionMensajes;
+import controlador.servidor.EventoPartida;
+import controlador.servidor.MensajeCodificado;
+import controlador.servidor.PlantillaMensaje;
+import controlador.servidor.ProtocoloBinario;
+import modelo.Jugador.Jugador;
+import modelo.partida.Partida;
+import modelo.servicios.PersistenciaServicio;
+import java.util.Optional;
+
+/**
+ * Acciones del servidor: los manejadores que antes estaban en el switch
+ * del Dispatcher. Una sola instancia (con sus controladores) para todas
+ * las conexiones; el estado de sesion llega en el ClienteHandler.
+ */
+final class AccionesServidor {
+    
+    // ✅ NUEVO: Respuestas con la parte fija ya serializada
+    private static final PlantillaMensaje PONG = PlantillaMensaje.de("pong");
+    private static final String PROTOCOLO_JSON = protocoloAceptado("json", null);
+    private static final String PROTOCOLO_BINARIO = protocoloAceptado("binario", null);
+    private static final String PROTOCOLO_JSON_DEFLATE = protocoloAceptado("json", CompresionMensajes.DEFLATE);
+    private static final String PROTOCOLO_BINARIO_DEFLATE = protocoloAceptado("binario", CompresionMensajes.DEFLATE);
+    private static final PlantillaMensaje TU_TURNO = PlantillaMensaje.de("tu_turno");
+    
+    private final CtrlUnirse ctrlUnirse;
+    private final CtrlTirarDado ctrlTirarDado;
+    private final CtrlMoverFicha ctrlMoverFicha;
+    
+    AccionesServidor() {
+        this.ctrlUnirse = new CtrlUnirse();
+        this.ctrlTirarDado = new CtrlTirarDado();
+        this.ctrlMoverFicha = new CtrlMoverFicha();
+    }
+    
+    void registrarEn(RegistroAcciones r) {
+        // Juego
+        r.registrar("tirar_dado", ClaseAccion.JUEGO, Solicitud.Simple.class, (c, s) -> manejarTirarDado(c));
+        r.registrar("mover_ficha", ClaseAccion.JUEGO, Solicitud.MoverFicha.class, this::manejarMoverFicha);
+        r.registrar("mover_ficha_un_dado", ClaseAccion.JUEGO, Solicitud.MoverFichaUnDado.class, this::manejarMoverFichaUnDado);
+        r.registrar("usar_bonus", ClaseAccion.JUEGO, Solicitud.UsarBonus.class, this::manejarUsarBonus);
+        r.registrar("obtener_estado", ClaseAccion.JUEGO, Solicitud.Simple.class, (c, s) -> manejarObtenerEstado(c));
+        r.registrar("saltar_turno", ClaseAccion.JUEGO, Solicitud.Simple.class, (c, s) -> manejarSaltarTurno(c));
+        r.registrar("obtener_tablero", ClaseAccion.JUEGO, Solicitud.Simple.class, (c, s) -> manejarObtenerTablero(c));
+        r.registrar("lote", ClaseAccion.JUEGO, Solicitud.Lote.class, this::manejarLote);
+        
+        r.asociarOpcode(ProtocoloBinario.OP_TIRAR_DADO, "tirar_dado");
+        r.asociarOpcode(ProtocoloBinario.OP_MOVER_FICHA, "mover_ficha");
+        r.asociarOpcode(ProtocoloBinario.OP_MOVER_FICHA_UN_DADO, "mover_ficha_un_dado");
+        r.asociarOpcode(ProtocoloBinario.OP_USAR_BONUS, "usar_bonus");
+        
+        // Latido
+        r.registrar("ping", ClaseAccion.PING, Solicitud.Simple.class, (c, s) -> manejarPing());
+        r.registrar("pong", ClaseAccion.PING, Solicitud.Simple.class, (c, s) -> null);  // respuesta al latido del servidor
+        
+        // Lobby
+        r.registrar("registrar", ClaseAccion.LOBBY, Solicitud.Registrar.class, this::manejarRegistro);
+        r.registrar("protocolo", ClaseAccion.LOBBY, Solicitud.Protocolo.class, this::manejarProtocolo);
+        r.registrar("reanudar", ClaseAccion.LOBBY, Solicitud.Reanudar.class, this::manejarReanudar);
+        r.registrar("registrar_puerto_peer", ClaseAccion.LOBBY, Solicitud.RegistrarPuertoPeer.class, this::manejarRegistroPuertoPeer);
+        r.registrar("desconectar", ClaseAccion.LOBBY, Solicitud.Simple.class, (c, s) -> manejarDesconexion(c));
+        r.registrar("crear_sala", ClaseAccion.LOBBY, Solicitud.CrearSala.class, this::manejarCrearSala);
+        r.registrar("unirse", ClaseAccion.LOBBY, Solicitud.Unirse.class, this::manejarUnirse);
+        r.registrar("listar_salas", ClaseAccion.LOBBY, Solicitud.Simple.class, (c, s) -> manejarListarSalas(c));
+        r.registrar("salir_sala", ClaseAccion.LOBBY, Solicitud.Simple.class, (c, s) -> manejarSalirSala(c));
+        r.registrar("listo", ClaseAccion.LOBBY, Solicitud.Simple.class, (c, s) -> manejarMarcarListo(c));
+    }
+    
+    private String manejarRegistro(ClienteHandler cliente, Solicitud.Registrar datos) {
+        try {
+            if (datos.nombre() == null) {
+                return Dispatcher.crearRespuestaError("Error en registro: falta el campo 'nombre'");
+            }
+            return ctrlUnirse.registrarJugador(cliente, datos.nombre());
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error en registro: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: El cliente elige formato. Con "binario" los mensajes
+     * calientes viajan como tramas (ProtocoloBinario); el resto sigue en JSON.
+     *
+     * ✅ ACTUALIZADO: Con "compresion":"deflate" ademas los mensajes grandes
+     * salen comprimidos (CompresionMensajes). El cliente debe aceptar tramas
+     * comprimidas desde que envia la solicitud (un broadcast puede llegar
+     * antes que la respuesta).
+     */
+    private String manejarProtocolo(ClienteHandler cliente, Solicitud.Protocolo datos) {
+        String formato = datos.formato() != null ? datos.formato() : "json";
+        if (!"binario".equals(formato) && !"json".equals(formato)) {
+            return Dispatcher.crearRespuestaError("Formato no soportado: " + formato);
+        }
+        if (datos.compresion() != null && !CompresionMensajes.DEFLATE.equals(datos.compresion())) {
+            return Dispatcher.crearRespuestaError("Compresion no soportada: " + datos.compresion());
+        }
+        boolean binario = "binario".equals(formato);
+        if (binario) {
+            cliente.activarSalidaBinaria();
+        }
+        if (datos.compresion() != null) {
+            cliente.activarCompresion();
+            return binario ? PROTOCOLO_BINARIO_DEFLATE : PROTOCOLO_JSON_DEFLATE;
+        }
+        return binario ? PROTOCOLO_BINARIO : PROTOCOLO_JSON;
+    }
+    
+    private static String protocoloAceptado(String formato, String compresion) {
+        PlantillaMensaje plantilla = PlantillaMensaje.de("protocolo_aceptado")
+            .fijo("exito", true).fijo("formato", formato);
+        if (compresion != null) {
+            plantilla = plantilla.fijo("compresion", compresion);
+        }
+        return plantilla.constante();
+    }
+    
+    /**
+     * ✅ NUEVO: Reanuda una sesion caida con el token de su bienvenida
+     */
+    private String manejarReanudar(ClienteHandler cliente, Solicitud.Reanudar datos) {
+        try {
+            if (datos.token() == null) {
+                return Dispatcher.crearRespuestaError("Falta el token de reanudacion");
+            }
+            return cliente.getServidor().reanudarSesion(cliente, datos.token(), datos.ultimoSeq());
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error reanudando sesion: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Registra el puerto P2P del cliente
+     */
+    private String manejarRegistroPuertoPeer(ClienteHandler cliente, Solicitud.RegistrarPuertoPeer datos) {
+    try {
+        Jugador jugador = cliente.getJugador();
+        if (jugador == null) {
+            return Dispatcher.crearRespuestaError("Debes registrarte primero");
+        }
+        
+        if (datos.puertoP2P() == Solicitud.AUSENTE) {
+            return Dispatcher.crearRespuestaError("Error registrando puerto P2P: falta el campo 'puertoP2P'");
+        }
+        int puertoPeer = datos.puertoP2P();
+        
+        // ✅ CORREGIDO: Usar IP enviada por el cliente
+        String ip = datos.ipLocal() != null 
+            ? datos.ipLocal() 
+            : cliente.getSocket().getInetAddress().getHostAddress();
+        
+        // Registrar en el servidor
+        cliente.getServidor().registrarInfoPeer(jugador.getId(), ip, puertoPeer);
+            
+            // Si está en una partida, enviar info de peers
+            Optional<Partida> partidaOpt = PersistenciaServicio.getInstancia()
+                .obtenerPartidaDeJugador(jugador.getId());
+            
+            if (partidaOpt.isPresent()) {
+                cliente.getServidor().enviarInfoPeersAJugador(
+                    jugador.getId(), 
+                    partidaOpt.get().getId()
+                );
+            }
+            
+            return Dispatcher.crearRespuestaExito("Puerto P2P registrado");
+            
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error registrando puerto P2P: " + e.getMessage());
+        }
+    }
+    
+    private String manejarPing() {
+        return PONG.iniciar().entero(CamposMensaje.TIMESTAMP, System.currentTimeMillis()).json();
+    }
+    
+    private String manejarDesconexion(ClienteHandler cliente) {
+        cliente.desconectar();
+        return null;
+    }
+    
+    private String manejarCrearSala(ClienteHandler cliente, Solicitud.CrearSala datos) {
+        try {
+            String nombreSala = datos.nombre() != null ? datos.nombre() : "Sala Nueva";
+            int maxJugadores = datos.maxJugadores() != Solicitud.AUSENTE ? datos.maxJugadores() : 4;
+            return ctrlUnirse.crearSala(cliente, nombreSala, maxJugadores);
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error creando sala: " + e.getMessage());
+        }
+    }
+    
+    private String manejarUnirse(ClienteHandler cliente, Solicitud.Unirse datos) {
+        try {
+            if (datos.partidaId() != Solicitud.AUSENTE) {
+                return ctrlUnirse.unirseAPartida(cliente, datos.partidaId());
+            } else {
+                return ctrlUnirse.unirseAPartidaDisponible(cliente);
+            }
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error uniendose: " + e.getMessage());
+        }
+    }
+    
+    private String manejarMoverFichaUnDado(ClienteHandler cliente, Solicitud.MoverFichaUnDado datos) {
+        if (datos.fichaId() == Solicitud.AUSENTE || datos.valorDado() == Solicitud.AUSENTE) {
+            return Dispatcher.crearRespuestaError("Faltan parametros: fichaId y valorDado requeridos");
+        }
+
+        try {
+            return ctrlMoverFicha.moverConUnDado(cliente,
+                datos.fichaId(), datos.valorDado(), datos.pasarTurno());
+
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error moviendo ficha con un dado: " + e.getMessage());
+        }
+    }
+    
+    private String manejarListarSalas(ClienteHandler cliente) {
+        try {
+            return ctrlUnirse.listarSalasDisponibles(cliente);
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error listando salas: " + e.getMessage());
+        }
+    }
+    
+    private String manejarSalirSala(ClienteHandler cliente) {
+        try {
+            return ctrlUnirse.salirDePartida(cliente);
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error saliendo: " + e.getMessage());
+        }
+    }
+    
+    private String manejarMarcarListo(ClienteHandler cliente) {
+        // Log especifico para 'listo' (util)
+        System.out.println("[DEBUG] [" + cliente.getSessionId() + "] se solicito marcar listo.");
+        try {
+            return ctrlUnirse.marcarListo(cliente);
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error marcando listo: " + e.getMessage());
+        }
+    }
+    
+    private String manejarTirarDado(ClienteHandler cliente) {
+        try {
+            return ctrlTirarDado.ejecutar(cliente);
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error tirando dado: " + e.getMessage());
+        }
+    }
+    
+    private String manejarMoverFicha(ClienteHandler cliente, Solicitud.MoverFicha datos) {
+        try {
+            if (datos.fichaId() == Solicitud.AUSENTE || datos.dado1() == Solicitud.AUSENTE
+                    || datos.dado2() == Solicitud.AUSENTE) {
+                return Dispatcher.crearRespuestaError("Faltan parametros: fichaId, dado1 y dado2");
+            }
+            return ctrlMoverFicha.ejecutar(cliente, datos.fichaId(), datos.dado1(), datos.dado2());
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error moviendo ficha: " + e.getMessage());
+        }
+    }
+    
+    private String manejarUsarBonus(ClienteHandler cliente, Solicitud.UsarBonus datos) {
+        try {
+            if (datos.fichaId() == Solicitud.AUSENTE || datos.pasos() == Solicitud.AUSENTE) {
+                return Dispatcher.crearRespuestaError("Faltan parametros: fichaId y pasos");
+            }
+            return ctrlMoverFicha.usarBonus(cliente, datos.fichaId(), datos.pasos());
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error usando bonus: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Varias jugadas en un solo mensaje, todas o ninguna
+     */
+    private String manejarLote(ClienteHandler cliente, Solicitud.Lote datos) {
+        try {
+            return ctrlMoverFicha.ejecutarLote(cliente, datos.acciones());
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error aplicando lote: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * ✅ IMPLEMENTADO: Estado completo de la partida (estado_completo). Se
+     * encola el mensaje cacheado tal cual, sin volver a serializarlo ni
+     * codificarlo por sesion. Con reqId se devuelve como respuesta directa
+     * (una copia con el reqId delante).
+     */
+    private String manejarObtenerEstado(ClienteHandler cliente) {
+        Jugador jugador = cliente.getJugador();
+        if (jugador == null) return Dispatcher.crearRespuestaError("Debes registrarte primero");
+        
+        Optional<Partida> partidaOpt = PersistenciaServicio.getInstancia().obtenerPartidaDeJugador(jugador.getId());
+        if (!partidaOpt.isPresent()) return Dispatcher.crearRespuestaError("No estas en ninguna partida");
+        
+        MensajeCodificado estado = cliente.getServidor().getEstadoCompleto(partidaOpt.get());
+        if (cliente.getReqIdEnCurso() != DecodificadorSolicitud.SIN_REQ_ID) {
+            return estado.getJson();
+        }
+        cliente.enviarMensaje(estado);
+        return null;
+    }
+    
+    /**
+     * ✅ NUEVO: Estado completo del tablero (con su version) para el cliente
+     * que detecto un salto en los tablero_delta.
+     */
+    private String manejarObtenerTablero(ClienteHandler cliente) {
+        Jugador jugador = cliente.getJugador();
+        if (jugador == null) return Dispatcher.crearRespuestaError("Debes registrarte primero");
+        
+        Optional<Partida> partidaOpt = PersistenciaServicio.getInstancia().obtenerPartidaDeJugador(jugador.getId());
+        if (!partidaOpt.isPresent()) return Dispatcher.crearRespuestaError("No estas en ninguna partida");
+        
+        Partida partida = partidaOpt.get();
+        if (partida.getTablero() == null) return Dispatcher.crearRespuestaError("La partida no tiene tablero");
+        
+        EventoPartida estado = SincronizacionTablero.crearMensajeEstado(partida.getTablero());
+        if (cliente.getReqIdEnCurso() != DecodificadorSolicitud.SIN_REQ_ID) {
+            return estado.getJson();
+        }
+        cliente.enviarMensaje(estado.codificar());
+        return null;
+    }
+    
+    private String manejarSaltarTurno(ClienteHandler cliente) {
+        try {
+            Jugador jugador = cliente.getJugador();
+            if (jugador == null) return Dispatcher.crearRespuestaError("Debes registrarte primero");
+            
+            PersistenciaServicio persistencia = PersistenciaServicio.getInstancia();
+            Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
+            if (!partidaOpt.isPresent()) return Dispatcher.crearRespuestaError("No estas en ninguna partida");
+            
+            Partida partida = partidaOpt.get();
+            if (!partida.esTurnoDeJugador(jugador.getId())) return Dispatcher.crearRespuestaError("No es tu turno");
+            
+            partida.avanzarTurno();
+             
+            Jugador siguienteJugador = partida.getJugadorActual();
+            if (siguienteJugador != null) {
+                String tuTurno = TU_TURNO.iniciar()
+                    .entero(CamposMensaje.JUGADOR_ID, siguienteJugador.getId())
+                    .texto(CamposMensaje.JUGADOR_NOMBRE, siguienteJugador.getNombre())
+                    .json();
+                
+                cliente.getServidor().enviarAJugadorDePartida(
+                    partida.getId(), siguienteJugador.getSessionId(), tuTurno);
+                
+                EventoPartida cambioTurno = EventoPartida.cambioTurno(
+                    siguienteJugador.getId(), siguienteJugador.getNombre(), null);
+                
+                cliente.getServidor().broadcastAPartida(partida.getId(), cambioTurno, siguienteJugador.getSessionId());
+            }
+            return Dispatcher.crearRespuestaExito("Turno saltado");
+        } catch (Exception e) {
+            return Dispatcher.crearRespuestaError("Error saltando turno: " + e.getMessage());
+        }
+    }
+}
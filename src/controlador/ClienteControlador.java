@@ -5,9 +5,20 @@ import vista.TableroVista;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import controlador.peer.ClientePeer;
+import controlador.servidor.LectorEntrada;
+import controlador.servidor.CompresionMensajes;
+import controlador.servidor.ProtocoloBinario;
+import controlador.servidor.TramaBinaria;
 import java.io.*;
 import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
 import javax.swing.SwingUtilities;
 
 /**
@@ -25,8 +36,8 @@ public class ClienteControlador {
     private TableroVista tableroVista;
     
     private Socket socket;
-    private BufferedReader entrada;
-    private PrintWriter salida;
+    private LectorEntrada entrada;
+    private OutputStream salida;
     private Thread hiloEscucha;
     private boolean conectado;
     private int jugadorId;
@@ -39,13 +50,42 @@ public class ClienteControlador {
     private int dadoDisponible = 0;
     private boolean tieneFichasEnJuego = false;
     
+    // ✅ NUEVO: Ultima lista "movimientos" del servidor (null = sin lista)
+    private volatile JsonArray movimientosLegales = null;
+    
     private JsonObject ultimoEstadoTablero = null;
     
+    // ✅ NUEVO: Version de ultimoEstadoTablero (-1 = sin estado) y si ya se
+    // pidio el estado completo tras un salto de version
+    private long versionTablero = -1;
+    private boolean tableroSolicitado = false;
+    
     private ClientePeer clientePeer;
     private int miPuertoPeer;
     
     private String[] nombresGuardados = null;
     
+    // ✅ NUEVO: Reanudacion de sesion si se cae el socket
+    private static final int MAX_INTENTOS_REANUDAR = 5;
+    private static final long ESPERA_REANUDAR_MS = 1000;
+    private String ipServidor;
+    private int puertoServidor;
+    private volatile String tokenReanudacion;
+    private volatile long ultimoSeq = 0;
+    
+    // ✅ NUEVO: Protocolo binario para los mensajes calientes (-Dparchis.protocolo=binario)
+    private static final boolean PEDIR_BINARIO = "binario".equals(System.getProperty("parchis.protocolo"));
+    private volatile boolean protocoloBinario = false;
+    
+    // ✅ NUEVO: Compresion de los mensajes grandes (desactivar con -Dparchis.compresion=no)
+    private static final boolean PEDIR_COMPRESION = !"no".equals(System.getProperty("parchis.compresion"));
+    private volatile CompresionMensajes compresion;
+    
+    // ✅ NUEVO: Solicitudes enviadas con reqId que esperan su respuesta directa
+    private static final long TIEMPO_MAXIMO_RESPUESTA_MS = 10000;
+    private final AtomicLong siguienteReqId = new AtomicLong();
+    private final Map<Long, CompletableFuture<JsonObject>> solicitudesPendientes = new ConcurrentHashMap<>();
+    
     // ✅ Sistema de tracking de movimientos procesados
     private final java.util.Set<String> movimientosProcesados = 
         java.util.Collections.synchronizedSet(new java.util.HashSet<>());
@@ -97,14 +137,9 @@ public class ClienteControlador {
             clientePeer.setVista(vista);
             
             System.out.println("[DEBUG] Conectando al servidor " + ip + ":" + puerto);
-            socket = new Socket(ip, puerto);
-            entrada = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), "UTF-8")
-            );
-            salida = new PrintWriter(
-                new OutputStreamWriter(socket.getOutputStream(), "UTF-8"),
-                true
-            );
+            abrirSocket(ip, puerto);
+            ipServidor = ip;
+            puertoServidor = puerto;
             
             conectado = true;
             System.out.println(">>> Conectado al servidor: " + ip + ":" + puerto);
@@ -145,26 +180,97 @@ public class ClienteControlador {
         return puertoBase + (int)(Math.random() * 1000);
     }
     
+    private void abrirSocket(String ip, int puerto) throws IOException {
+        socket = new Socket(ip, puerto);
+        entrada = new LectorEntrada(socket.getInputStream());
+        salida = new BufferedOutputStream(socket.getOutputStream());
+        // Cada conexion nueva empieza en JSON hasta negociar otra vez
+        protocoloBinario = false;
+        if (compresion != null) {
+            compresion.cerrar();
+            compresion = null;
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Linea JSON de una trama comprimida. Una trama corrupta (o
+     * sin compresion negociada) se trata como un fallo de la conexion.
+     */
+    private String descomprimir(TramaBinaria trama) throws IOException {
+        CompresionMensajes c = compresion;
+        if (c == null) {
+            throw new IOException("Trama comprimida sin compresion negociada");
+        }
+        try {
+            return c.descomprimir(trama);
+        } catch (DataFormatException e) {
+            throw new IOException("Trama comprimida invalida: " + e.getMessage(), e);
+        }
+    }
+    
     private void iniciarHiloEscucha() {
         hiloEscucha = new Thread(() -> {
-            try {
-                String mensaje;
-                while (conectado && (mensaje = entrada.readLine()) != null) {
-                    procesarMensajeServidor(mensaje);
-                }
-            } catch (IOException e) {
-                if (conectado) {
-                    System.err.println("Error en comunicacion: " + e.getMessage());
+            do {
+                try {
+                    Object mensaje;
+                    while (conectado && (mensaje = entrada.siguiente()) != null) {
+                        if (mensaje instanceof TramaBinaria
+                                && ((TramaBinaria) mensaje).getOpcode() == ProtocoloBinario.OP_JSON_DEFLATE) {
+                            procesarMensajeServidor(descomprimir((TramaBinaria) mensaje));
+                        } else if (mensaje instanceof TramaBinaria) {
+                            procesarMensajeServidor(ProtocoloBinario.decodificar((TramaBinaria) mensaje));
+                        } else {
+                            procesarMensajeServidor(mensaje.toString());
+                        }
+                    }
+                } catch (IOException e) {
+                    if (conectado) {
+                        System.err.println("Error en comunicacion: " + e.getMessage());
+                    }
                 }
-            }
+                // Las respuestas pendientes se perdieron con el socket
+                fallarSolicitudesPendientes("Conexion con el servidor perdida");
+                // ✅ NUEVO: Si la caida no la pidio el usuario, se intenta reanudar
+            } while (conectado && intentarReanudar());
         });
         
         hiloEscucha.setDaemon(true);
         hiloEscucha.start();
     }
     
+    /**
+     * ✅ NUEVO: Reconecta y pide al servidor reanudar la sesion con el
+     * token de la bienvenida; el servidor reenvia los eventos posteriores
+     * a ultimoSeq (o el estado completo).
+     */
+    private boolean intentarReanudar() {
+        if (tokenReanudacion == null || ipServidor == null) return false;
+        
+        for (int intento = 1; intento <= MAX_INTENTOS_REANUDAR && conectado; intento++) {
+            try {
+                Thread.sleep(ESPERA_REANUDAR_MS * intento);
+                abrirSocket(ipServidor, puertoServidor);
+                
+                JsonObject mensaje = new JsonObject();
+                mensaje.addProperty("tipo", "reanudar");
+                mensaje.addProperty("token", tokenReanudacion);
+                mensaje.addProperty("ultimoSeq", ultimoSeq);
+                
+                System.out.println(">>> Reconectado, reanudando sesion (seq " + ultimoSeq + ")");
+                return enviarMensaje(mensaje);
+            } catch (IOException e) {
+                System.err.println("Reintento " + intento + " fallido: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+    
     public void desconectar() {
         conectado = false;
+        fallarSolicitudesPendientes("Desconectado");
         
         if (clientePeer != null) {
             clientePeer.cerrar();
@@ -177,29 +283,165 @@ public class ClienteControlador {
         } catch (IOException e) { }
     }
     
+    /**
+     * ✅ ACTUALIZADO: Con el protocolo binario negociado, las solicitudes
+     * calientes salen como trama; el resto como linea JSON. Las que llevan
+     * reqId van siempre en JSON (la trama no tiene donde llevarlo).
+     */
     private boolean enviarMensaje(JsonObject mensaje) {
         if (!conectado || salida == null) {
             return false;
         }
         
         try {
-            salida.println(mensaje.toString());
-            return !salida.checkError();
+            byte[] datos = protocoloBinario && !mensaje.has("reqId")
+                ? ProtocoloBinario.codificarSolicitud(mensaje) : null;
+            if (datos == null) {
+                datos = (mensaje.toString() + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            }
+            synchronized (this) {
+                salida.write(datos);
+                salida.flush();
+            }
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
+    
+    /**
+     * ✅ NUEVO: Envia la solicitud con un reqId nuevo y vuelve enseguida; se
+     * pueden encadenar varias sin esperar. El servidor procesa las de la
+     * sesion en orden y devuelve el reqId en la respuesta directa.
+     *
+     * El future se completa con esa respuesta (de exito o {"tipo":"error"})
+     * despues de procesarla aqui, y como el servidor la envia detras de
+     * los eventos que provoco la solicitud, el estado del controlador ya
+     * los incluye. Falla si no se pudo enviar, si se cae la conexion o si
+     * no llega en TIEMPO_MAXIMO_RESPUESTA_MS.
+     */
+    private CompletableFuture<JsonObject> enviarSolicitud(JsonObject mensaje) {
+        long reqId = siguienteReqId.incrementAndGet();
+        CompletableFuture<JsonObject> respuesta = new CompletableFuture<>();
+        solicitudesPendientes.put(reqId, respuesta);
+        respuesta.whenComplete((r, e) -> solicitudesPendientes.remove(reqId));
+        
+        mensaje.addProperty("reqId", reqId);
+        if (!enviarMensaje(mensaje)) {
+            respuesta.completeExceptionally(
+                new IOException("No se pudo enviar " + mensaje.get("tipo").getAsString()));
+            return respuesta;
+        }
+        return respuesta.orTimeout(TIEMPO_MAXIMO_RESPUESTA_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    private void completarSolicitud(JsonObject respuesta) {
+        CompletableFuture<JsonObject> pendiente = solicitudesPendientes.remove(respuesta.get("reqId").getAsLong());
+        if (pendiente != null) {
+            pendiente.complete(respuesta);
+        }
+    }
+    
+    private void fallarSolicitudesPendientes(String motivo) {
+        for (Long reqId : solicitudesPendientes.keySet()) {
+            CompletableFuture<JsonObject> pendiente = solicitudesPendientes.remove(reqId);
+            if (pendiente != null) {
+                pendiente.completeExceptionally(new IOException(motivo));
+            }
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: true si la respuesta directa no es un error.
+     */
+    public static boolean esExito(JsonObject respuesta) {
+        return respuesta != null && respuesta.has("tipo") && !"error".equals(respuesta.get("tipo").getAsString())
+            && (!respuesta.has("exito") || respuesta.get("exito").getAsBoolean());
+    }
 
     private void procesarMensajeServidor(String mensajeJson) {
         try {
-            JsonObject json = JsonParser.parseString(mensajeJson).getAsJsonObject();
+            procesarMensajeServidor(JsonParser.parseString(mensajeJson).getAsJsonObject());
+        } catch (Exception e) {
+            System.err.println("Error procesando mensaje: " + e.getMessage());
+        }
+    }
+
+    private void procesarMensajeServidor(JsonObject json) {
+        try {
             String tipo = json.has("tipo") ? json.get("tipo").getAsString() : "";
+            
+            // ✅ NUEVO: Ultimo evento de partida recibido, para reanudar
+            if (json.has("seq")) {
+                ultimoSeq = json.get("seq").getAsLong();
+            }
 
             switch (tipo) {
                 case "bienvenida":
                     if (json.has("sessionId")) {
                         System.out.println(">>> Session ID: " + json.get("sessionId").getAsString());
                     }
+                    // Al reanudar se conserva el token de la sesion original
+                    if (json.has("token") && jugadorId < 0) {
+                        tokenReanudacion = json.get("token").getAsString();
+                    }
+                    boolean binario = PEDIR_BINARIO && json.has("protocolos") 
+                            && json.getAsJsonArray("protocolos").toString().contains("\"binario\"");
+                    // ✅ NUEVO: Solo si el servidor la anuncia (un servidor antiguo no la conoce)
+                    boolean comprimir = PEDIR_COMPRESION && json.has("compresion")
+                            && json.getAsJsonArray("compresion").toString().contains("\"" + CompresionMensajes.DEFLATE + "\"");
+                    if (binario || comprimir) {
+                        JsonObject protocolo = new JsonObject();
+                        protocolo.addProperty("tipo", "protocolo");
+                        protocolo.addProperty("formato", binario ? "binario" : "json");
+                        if (comprimir) {
+                            // Antes de pedirla: puede llegar una trama comprimida antes que la respuesta
+                            compresion = new CompresionMensajes();
+                            protocolo.addProperty("compresion", CompresionMensajes.DEFLATE);
+                        }
+                        enviarMensaje(protocolo);
+                    }
+                    break;
+                    
+                case "protocolo_aceptado":
+                    protocoloBinario = "binario".equals(json.get("formato").getAsString());
+                    System.out.println(">>> Protocolo: " + json.get("formato").getAsString()
+                        + (json.has("compresion") ? " + " + json.get("compresion").getAsString() : ""));
+                    break;
+                    
+                case "sesion_reanudada":
+                    if (json.has("token")) {
+                        tokenReanudacion = json.get("token").getAsString();
+                    }
+                    System.out.println(">>> Sesion reanudada");
+                    // El servidor olvida la info P2P al caerse la sesion
+                    notificarPuertoP2PAlServidor();
+                    break;
+                    
+                case "estado_completo":
+                    if (json.has("partida")) {
+                        JsonObject partida = json.getAsJsonObject("partida");
+                        if (partida.has("tablero")) {
+                            guardarEstadoTablero(partida.getAsJsonObject("tablero"));
+                        }
+                        // ✅ ACTUALIZADO: obtener_estado trae el jugador en turno
+                        if (partida.has("jugadorActualId")) {
+                            esmiTurno = partida.get("jugadorActualId").getAsInt() == jugadorId;
+                        } else {
+                            JsonArray jugadores = partida.getAsJsonArray("jugadores");
+                            int turno = partida.get("turnoActual").getAsInt();
+                            if (jugadores != null && turno >= 0 && turno < jugadores.size()) {
+                                esmiTurno = jugadores.get(turno).getAsJsonObject().get("id").getAsInt() == jugadorId;
+                            }
+                        }
+                    }
+                    System.out.println("[SERVIDOR] Estado completo recibido");
+                    break;
+                    
+                case "jugador_desconectado":
+                case "jugador_reconectado":
+                    System.out.println("[INFO] " + json.get("nombre").getAsString() + 
+                        (tipo.equals("jugador_reconectado") ? " se reconecto" : " se desconecto"));
                     break;
 
                 case "registro_exitoso":
@@ -233,6 +475,7 @@ public class ClienteControlador {
                     if (json.has("partida")) {
                         JsonObject partida = json.getAsJsonObject("partida");
                         partidaActualId = partida.get("id").getAsInt();
+                        ultimoSeq = 0;
                     }
                     break;
 
@@ -251,6 +494,9 @@ public class ClienteControlador {
                     break;
 
                case "partida_iniciada":
+                    // Tablero nuevo: el primer delta traera el estado completo
+                    ultimoEstadoTablero = null;
+                    versionTablero = -1;
                     if (json.has("turnoJugadorId")) {
                         int turnoId = json.get("turnoJugadorId").getAsInt();
                         esmiTurno = (turnoId == jugadorId);
@@ -294,6 +540,7 @@ public class ClienteControlador {
                     
                 case "tu_turno":
                     esmiTurno = true;
+                    movimientosLegales = null;
                     System.out.println("[DEBUG] Recibido 'tu_turno' - Activando turno");
                     if (vista != null) {
                         vista.notificarTurno();
@@ -302,6 +549,7 @@ public class ClienteControlador {
 
                 case "cambio_turno":
                     esmiTurno = false;
+                    movimientosLegales = null;
                     String nombreTurno = json.get("jugadorNombre").getAsString();
                     int jugadorTurnoId = json.get("jugadorId").getAsInt();
 
@@ -318,9 +566,14 @@ public class ClienteControlador {
                 case "estado_tablero":
                     // ✅ Solo guardar estado, NO actualizar UI (P2P ya lo hizo)
                     JsonObject tableroJson = json.getAsJsonObject("tablero");
-                    ultimoEstadoTablero = tableroJson;
+                    guardarEstadoTablero(tableroJson);
                     System.out.println("[SERVIDOR] Estado tablero recibido (solo validación)");
                     break;
+                    
+                case "tablero_delta":
+                    // ✅ NUEVO: Solo las fichas que cambiaron
+                    aplicarDeltaTablero(json);
+                    break;
 
                case "resultado_dados":
     JsonObject dados = json.getAsJsonObject("dados");
@@ -357,6 +610,9 @@ public class ClienteControlador {
         dadoDisponible = 0;
     }
 
+    // ✅ NUEVO: Jugadas legales (solo en la respuesta, tras las salidas automaticas)
+    movimientosLegales = json.has("movimientos") ? json.getAsJsonArray("movimientos") : null;
+
     if (json.has("tieneFichasEnJuego")) {
         tieneFichasEnJuego = json.get("tieneFichasEnJuego").getAsBoolean();
         System.out.println("[DEBUG] Tiene fichas en juego: " + tieneFichasEnJuego);
@@ -383,6 +639,19 @@ public class ClienteControlador {
                     if (json.has("turnoTerminado") && json.get("turnoTerminado").getAsBoolean()) {
                         esmiTurno = false;
                     }
+                    actualizarMovimientosLegales(json);
+                    break;
+
+                case "lote_exitoso":
+                    // ✅ NUEVO: Respuesta a enviarLoteAsincrono
+                    if (json.has("turnoTerminado") && json.get("turnoTerminado").getAsBoolean()) {
+                        esmiTurno = false;
+                    }
+                    actualizarMovimientosLegales(json);
+                    break;
+
+                case "lote_aplicado":
+                    // ✅ NUEVO: Jugadas de otro jugador; el tablero llega en el tablero_delta
                     break;
 
                 // ✅ CORREGIDO: Procesar bonus de captura
@@ -556,6 +825,11 @@ public class ClienteControlador {
             System.err.println("Error procesando mensaje: " + e.getMessage());
             e.printStackTrace();
         }
+        
+        // ✅ NUEVO: Respuesta directa a una solicitud con reqId
+        if (json.has("reqId")) {
+            completarSolicitud(json);
+        }
     }
     
     private void notificarPuertoP2PAlServidor() {
@@ -712,37 +986,90 @@ public class ClienteControlador {
    }
     
     public boolean registrar(String nombre) {
+        return enviarMensaje(mensajeRegistrar(nombre));
+    }
+    
+    /**
+     * ✅ NUEVO: Como registrar(), pero el future se completa con la
+     * respuesta del servidor (registro_exitoso o error).
+     */
+    public CompletableFuture<JsonObject> registrarAsincrono(String nombre) {
+        return enviarSolicitud(mensajeRegistrar(nombre));
+    }
+    
+    private static JsonObject mensajeRegistrar(String nombre) {
         JsonObject mensaje = new JsonObject();
         mensaje.addProperty("tipo", "registrar");
         mensaje.addProperty("nombre", nombre);
-        return enviarMensaje(mensaje);
+        return mensaje;
     }
     
     public boolean crearPartida(String nombrePartida, int maxJugadores) {
+        return enviarMensaje(mensajeCrearPartida(nombrePartida, maxJugadores));
+    }
+    
+    /**
+     * ✅ NUEVO: Como crearPartida(), completado con sala_creada o error.
+     */
+    public CompletableFuture<JsonObject> crearPartidaAsincrono(String nombrePartida, int maxJugadores) {
+        return enviarSolicitud(mensajeCrearPartida(nombrePartida, maxJugadores));
+    }
+    
+    private static JsonObject mensajeCrearPartida(String nombrePartida, int maxJugadores) {
         JsonObject mensaje = new JsonObject();
         mensaje.addProperty("tipo", "crear_sala");
         mensaje.addProperty("nombre", nombrePartida);
         mensaje.addProperty("maxJugadores", maxJugadores);
-        return enviarMensaje(mensaje);
+        return mensaje;
     }
     
     public boolean unirseAPartida(int partidaId) {
-        JsonObject mensaje = new JsonObject();
-        mensaje.addProperty("tipo", "unirse");
-        mensaje.addProperty("partidaId", partidaId);
-        return enviarMensaje(mensaje);
+        return enviarMensaje(mensajeUnirse(partidaId));
+    }
+    
+    /**
+     * ✅ NUEVO: Como unirseAPartida(), completado con union_exitosa o error.
+     */
+    public CompletableFuture<JsonObject> unirseAPartidaAsincrono(int partidaId) {
+        return enviarSolicitud(mensajeUnirse(partidaId));
     }
     
     public boolean unirseAPartidaDisponible() {
+        return enviarMensaje(mensajeUnirse(null));
+    }
+    
+    /**
+     * ✅ NUEVO: Como unirseAPartidaDisponible(), completado con
+     * union_exitosa o error.
+     */
+    public CompletableFuture<JsonObject> unirseAPartidaDisponibleAsincrono() {
+        return enviarSolicitud(mensajeUnirse(null));
+    }
+    
+    private static JsonObject mensajeUnirse(Integer partidaId) {
         JsonObject mensaje = new JsonObject();
         mensaje.addProperty("tipo", "unirse");
-        return enviarMensaje(mensaje);
+        if (partidaId != null) {
+            mensaje.addProperty("partidaId", partidaId);
+        }
+        return mensaje;
     }
     
     public void listarPartidas() {
+        enviarMensaje(mensajeListarPartidas());
+    }
+    
+    /**
+     * ✅ NUEVO: Como listarPartidas(), completado con lista_salas o error.
+     */
+    public CompletableFuture<JsonObject> listarPartidasAsincrono() {
+        return enviarSolicitud(mensajeListarPartidas());
+    }
+    
+    private static JsonObject mensajeListarPartidas() {
         JsonObject mensaje = new JsonObject();
         mensaje.addProperty("tipo", "listar_salas");
-        enviarMensaje(mensaje);
+        return mensaje;
     }
     
     public boolean marcarListo() {
@@ -759,6 +1086,16 @@ public class ClienteControlador {
         return true;
     }
     
+    /**
+     * ✅ NUEVO: Como tirarDados(), completado con resultado_dados (o error)
+     * cuando getUltimosDados(), esmiTurno()... ya estan actualizados.
+     */
+    public CompletableFuture<JsonObject> tirarDadosAsincrono() {
+        JsonObject mensajeServidor = new JsonObject();
+        mensajeServidor.addProperty("tipo", "tirar_dado");
+        return enviarSolicitud(mensajeServidor);
+    }
+    
     public void notificarDadosAPeers(int dado1, int dado2) {
         if (clientePeer == null) return;
         
@@ -785,9 +1122,31 @@ public class ClienteControlador {
     }
     
     /**
-     * ✅ CORREGIDO: P2P PRIMERO, servidor después (en background)
+     * ✅ NUEVO: Varias jugadas (mover_ficha_un_dado, mover_ficha, usar_bonus)
+     * en un solo mensaje; el servidor las aplica todas o ninguna. El future
+     * se completa con lote_exitoso o con el error de la accion que fallo.
+     */
+    public CompletableFuture<JsonObject> enviarLoteAsincrono(JsonArray acciones) {
+        JsonObject mensaje = new JsonObject();
+        mensaje.addProperty("tipo", "lote");
+        mensaje.add("acciones", acciones);
+        return enviarSolicitud(mensaje);
+    }
+    
+    /**
+     * ✅ CORREGIDO: P2P PRIMERO, servidor después (sin esperar su respuesta)
      */
     public boolean moverFichaConUnDado(int fichaId, int valorDado, boolean pasarTurno) {
+        moverFichaConUnDadoAsincrono(fichaId, valorDado, pasarTurno);
+        return true;
+    }
+    
+    /**
+     * ✅ NUEVO: Mismo movimiento (peers y tablero local al instante); el
+     * future se completa con la validacion del servidor
+     * (movimiento_exitoso o error).
+     */
+    public CompletableFuture<JsonObject> moverFichaConUnDadoAsincrono(int fichaId, int valorDado, boolean pasarTurno) {
         int fichaRelativa = ((fichaId - 1) % 4) + 1;
         
         System.out.println("[DEBUG] moverFichaConUnDado: fichaVisual=" + fichaId + " → fichaRelativa=" + fichaRelativa);
@@ -839,19 +1198,16 @@ public class ClienteControlador {
             }
         }
         
-        // ✅ PASO 3: Enviar al SERVIDOR (en background, solo validación)
-        new Thread(() -> {
-            JsonObject mensajeServidor = new JsonObject();
-            mensajeServidor.addProperty("tipo", "mover_ficha_un_dado");
-            mensajeServidor.addProperty("fichaId", fichaRelativa);
-            mensajeServidor.addProperty("valorDado", valorDado);
-            mensajeServidor.addProperty("pasarTurno", pasarTurno);
-            
-            enviarMensaje(mensajeServidor);
-            System.out.println("[SERVIDOR] Validación enviada (background)");
-        }).start();
+        // ✅ PASO 3: Enviar al SERVIDOR (solo validación, sin esperar)
+        JsonObject mensajeServidor = new JsonObject();
+        mensajeServidor.addProperty("tipo", "mover_ficha_un_dado");
+        mensajeServidor.addProperty("fichaId", fichaRelativa);
+        mensajeServidor.addProperty("valorDado", valorDado);
+        mensajeServidor.addProperty("pasarTurno", pasarTurno);
         
-        return true;
+        CompletableFuture<JsonObject> validacion = enviarSolicitud(mensajeServidor);
+        System.out.println("[SERVIDOR] Validación enviada");
+        return validacion;
     }
     
     /**
@@ -905,6 +1261,94 @@ public class ClienteControlador {
         return enviarMensaje(mensaje);
     }
     
+    private void guardarEstadoTablero(JsonObject tablero) {
+        ultimoEstadoTablero = tablero;
+        versionTablero = tablero.has("version") ? tablero.get("version").getAsLong() : -1;
+        tableroSolicitado = false;
+    }
+    
+    /**
+     * ✅ NUEVO: Aplica un tablero_delta sobre ultimoEstadoTablero. Si falta
+     * alguna version intermedia (o no hay estado) pide el estado completo.
+     * Aplicar es idempotente: la ficha se quita de donde este y se pone en
+     * "hasta".
+     */
+    private void aplicarDeltaTablero(JsonObject delta) {
+        long anterior = delta.get("versionAnterior").getAsLong();
+        long version = delta.get("version").getAsLong();
+        
+        if (ultimoEstadoTablero != null && version <= versionTablero) {
+            return;  // ya incluido en el estado que tenemos
+        }
+        if (ultimoEstadoTablero == null || anterior != versionTablero) {
+            if (!tableroSolicitado) {
+                System.out.println("[SERVIDOR] Salto de version del tablero (" + versionTablero +
+                                   " -> " + anterior + "), pidiendo estado completo");
+                JsonObject mensaje = new JsonObject();
+                mensaje.addProperty("tipo", "obtener_tablero");
+                tableroSolicitado = enviarMensaje(mensaje);
+            }
+            return;
+        }
+        
+        JsonArray casillas = ultimoEstadoTablero.getAsJsonArray("casillas");
+        for (JsonElement elemento : delta.getAsJsonArray("cambios")) {
+            JsonObject cambio = elemento.getAsJsonObject();
+            int fichaId = cambio.get("fichaId").getAsInt();
+            int idJugador = cambio.get("jugadorId").getAsInt();
+            int hasta = cambio.get("hasta").getAsInt();
+            
+            for (JsonElement ec : casillas) {
+                JsonObject casilla = ec.getAsJsonObject();
+                JsonArray fichas = casilla.getAsJsonArray("fichas");
+                for (int i = fichas.size() - 1; i >= 0; i--) {
+                    JsonObject f = fichas.get(i).getAsJsonObject();
+                    if (f.get("id").getAsInt() == fichaId && f.get("jugadorId").getAsInt() == idJugador) {
+                        fichas.remove(i);
+                        actualizarBloqueo(casilla);
+                    }
+                }
+            }
+            
+            if (hasta >= 1) {
+                for (JsonElement ec : casillas) {
+                    JsonObject casilla = ec.getAsJsonObject();
+                    if (casilla.get("indice").getAsInt() == hasta) {
+                        JsonObject ficha = new JsonObject();
+                        ficha.addProperty("id", fichaId);
+                        ficha.addProperty("jugadorId", idJugador);
+                        ficha.addProperty("color", cambio.get("color").getAsString());
+                        ficha.addProperty("estado", cambio.get("estado").getAsString());
+                        casilla.getAsJsonArray("fichas").add(ficha);
+                        actualizarBloqueo(casilla);
+                        break;
+                    }
+                }
+            }
+        }
+        
+        ultimoEstadoTablero.addProperty("version", version);
+        versionTablero = version;
+    }
+    
+    /**
+     * Misma regla que Casilla: bloqueada con 2+ fichas del mismo jugador.
+     */
+    private static void actualizarBloqueo(JsonObject casilla) {
+        JsonArray fichas = casilla.getAsJsonArray("fichas");
+        boolean bloqueada = false;
+        for (int i = 0; i < fichas.size() && !bloqueada; i++) {
+            int jugador = fichas.get(i).getAsJsonObject().get("jugadorId").getAsInt();
+            for (int j = i + 1; j < fichas.size(); j++) {
+                if (fichas.get(j).getAsJsonObject().get("jugadorId").getAsInt() == jugador) {
+                    bloqueada = true;
+                    break;
+                }
+            }
+        }
+        casilla.addProperty("bloqueada", bloqueada);
+    }
+    
     public void mostrarEstadoPartida() {
         if (vista != null) {
             vista.mostrarEstadoCompleto(jugadorId, ultimoEstadoTablero);
@@ -943,6 +1387,54 @@ public class ClienteControlador {
         dadoDisponible = 0;
     }
     
+    /**
+     * ✅ NUEVO: Guarda las jugadas legales de la respuesta (sin lista, el
+     * turno termino) y vuelve a marcar las fichas movibles.
+     */
+    private void actualizarMovimientosLegales(JsonObject json) {
+        movimientosLegales = json.has("movimientos") ? json.getAsJsonArray("movimientos") : null;
+        if (tableroVista != null) {
+            tableroVista.refrescarFichasMovibles();
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Si el servidor dejo mover la ficha (id visual) con alguno de
+     * estos dados (0 = ya usado), segun su ultima lista "movimientos". El
+     * bonus se marca aparte (verificarFichasParaBonus).
+     *
+     * @return null si no hay lista; entonces se valida con ReglasValidador
+     */
+    public Boolean puedeMoverSegunServidor(int fichaId, int dado1, int dado2) {
+        JsonArray movimientos = movimientosLegales;
+        if (movimientos == null) {
+            return null;
+        }
+        
+        int fichaRelativa = ((fichaId - 1) % 4) + 1;
+        for (JsonElement elemento : movimientos) {
+            JsonObject movimiento = elemento.getAsJsonObject();
+            if (movimiento.get("fichaId").getAsInt() != fichaRelativa) {
+                continue;
+            }
+            int valor = movimiento.get("valor").getAsInt();
+            switch (movimiento.get("accion").getAsString()) {
+                case "dado":
+                    if (valor == dado1 || valor == dado2) return true;
+                    break;
+                case "suma":
+                    if (dado1 > 0 && dado2 > 0 && valor == dado1 + dado2) return true;
+                    break;
+                case "sacar":
+                    if (dado1 == 5 || dado2 == 5 || (dado1 > 0 && dado2 > 0 && dado1 + dado2 == 5)) return true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+    
     public void mostrarJugadoresEnSala() {
         System.out.println("  Jugadores en sala: (esperando info del servidor)");
     }
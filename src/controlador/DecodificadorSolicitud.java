@@ -0,0 +1,623 @@
+package controlador;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import controlador.servidor.ProtocoloBinario;
+import controlador.servidor.TramaBinaria;
+
+/**
+ * Decodifica una linea JSON del cliente directamente a una Solicitud, sin
+ * construir el arbol JsonObject de Gson.
+ *
+ * Es un escaner de una sola pasada sobre el String: reconoce las claves
+ * que usa alguna solicitud, convierte los numeros sin crear objetos y
+ * salta el resto. Solo se crean Strings para los campos de texto que se
+ * usan (nombre, token...); el "tipo" se compara con las constantes
+ * conocidas y no se copia. En el camino caliente (tirar_dado,
+ * mover_ficha...) la unica asignacion es el record.
+ *
+ * Si el mensaje se sale de la forma simple (JSON invalido, numeros con
+ * decimales, numeros entre comillas, objetos anidados en campos
+ * conocidos, un tipo sin record propio...) decodificar() devuelve null y el Dispatcher usa el parser
+ * de Gson con desdeJson(), que conserva el comportamiento y los mensajes
+ * de error de siempre.
+ *
+ * El "lote" (alias "batch") siempre va por el camino lento: sus acciones
+ * son objetos anidados y cada una se decodifica con desdeJson().
+ *
+ * El campo opcional "reqId" (entero >= 0) no forma parte de la Solicitud:
+ * queda en getReqId() hasta el siguiente mensaje, para que el Dispatcher lo
+ * devuelva en la respuesta.
+ *
+ * ✅ ACTUALIZADO: Lee cualquier CharSequence; el Dispatcher le pasa la
+ * LineaBytes del DelimitadorEntrada, asi que en el camino caliente la
+ * linea no se convierte a String.
+ *
+ * No es thread-safe: una instancia por Dispatcher (los mensajes de una
+ * sesion se procesan de uno en uno).
+ */
+public final class DecodificadorSolicitud {
+
+    // Claves reconocidas
+    private static final int K_OTRA = 0;
+    private static final int K_TIPO = 1;
+    private static final int K_NOMBRE = 2;
+    private static final int K_FORMATO = 3;
+    private static final int K_TOKEN = 4;
+    private static final int K_ULTIMO_SEQ = 5;
+    private static final int K_PUERTO_P2P = 6;
+    private static final int K_IP_LOCAL = 7;
+    private static final int K_MAX_JUGADORES = 8;
+    private static final int K_PARTIDA_ID = 9;
+    private static final int K_FICHA_ID = 10;
+    private static final int K_DADO1 = 11;
+    private static final int K_DADO2 = 12;
+    private static final int K_VALOR_DADO = 13;
+    private static final int K_PASAR_TURNO = 14;
+    private static final int K_PASOS = 15;
+    private static final int K_REQ_ID = 16;
+    private static final int K_COMPRESION = 17;
+    
+    // ✅ NUEVO: Valor de getReqId() si el mensaje no traia reqId
+    public static final long SIN_REQ_ID = -1L;
+
+    private static final String[] CLAVES = {
+        null, "tipo", "nombre", "formato", "token", "ultimoSeq", "puertoP2P",
+        "ipLocal", "maxJugadores", "partidaId", "fichaId", "dado1", "dado2",
+        "valorDado", "pasarTurno", "pasos", "reqId", "compresion"
+    };
+
+    // Tipos reconocidos (incluidos los alias)
+    private static final String[] TIPOS = {
+        "tirar_dado", "tirar_dados", "mover_ficha", "mover_ficha_un_dado",
+        "usar_bonus", "ping", "pong", "registrar", "login", "protocolo",
+        "reanudar", "registrar_puerto_peer", "desconectar", "crear_sala",
+        "unirse", "unirse_sala", "listar_salas", "salir_sala", "listo",
+        "marcar_listo", "obtener_estado", "estado_partida", "obtener_tablero",
+        "saltar_turno", "lote", "batch"
+    };
+
+    // Estado del mensaje en curso
+    private CharSequence json;
+    private int pos;
+    private boolean fallo;
+
+    private String tipo;
+    private String nombre;
+    private String formato;
+    private String compresion;
+    private String token;
+    private String ipLocal;
+    private long ultimoSeq;
+    private int puertoP2P;
+    private int maxJugadores;
+    private int partidaId;
+    private int fichaId;
+    private int dado1;
+    private int dado2;
+    private int valorDado;
+    private int pasos;
+    private boolean pasarTurno;
+    private long reqId = SIN_REQ_ID;
+
+    /**
+     * Decodifica una linea JSON.
+     *
+     * @return la solicitud, o null si el mensaje no tiene la forma simple
+     *         (el llamador debe usar el parser de Gson y desdeJson)
+     */
+    public Solicitud decodificar(CharSequence mensaje) {
+        reiniciar(mensaje);
+        try {
+            if (!leerObjeto() || tipo == null) {
+                return null;
+            }
+            return construir(null);
+        } finally {
+            this.json = null;
+        }
+    }
+
+    /**
+     * Camino lento: solicitud a partir del JsonObject ya parseado. Solo se
+     * convierten los campos que usa el tipo, con las mismas conversiones
+     * (getAsInt...) que hacia el Dispatcher.
+     *
+     * @return la solicitud, o null si no hay campo "tipo"
+     * @throws RuntimeException si un campo del tipo no se puede convertir
+     */
+    public Solicitud desdeJson(JsonObject datos) {
+        if (!datos.has("tipo")) {
+            return null;
+        }
+        reiniciar(null);
+        reqId = leerReqId(datos);
+        tipo = canonico(datos.get("tipo").getAsString());
+        switch (tipo) {
+            case "mover_ficha":
+                fichaId = entero(datos, "fichaId");
+                dado1 = entero(datos, "dado1");
+                dado2 = entero(datos, "dado2");
+                break;
+            case "mover_ficha_un_dado":
+                fichaId = entero(datos, "fichaId");
+                valorDado = entero(datos, "valorDado");
+                pasarTurno = datos.has("pasarTurno") && datos.get("pasarTurno").getAsBoolean();
+                break;
+            case "usar_bonus":
+                fichaId = entero(datos, "fichaId");
+                pasos = entero(datos, "pasos");
+                break;
+            case "registrar":
+            case "login":
+                nombre = texto(datos, "nombre");
+                break;
+            case "crear_sala":
+                nombre = texto(datos, "nombre");
+                maxJugadores = entero(datos, "maxJugadores");
+                break;
+            case "protocolo":
+                formato = texto(datos, "formato");
+                compresion = texto(datos, "compresion");
+                break;
+            case "reanudar":
+                token = texto(datos, "token");
+                ultimoSeq = datos.has("ultimoSeq") ? datos.get("ultimoSeq").getAsLong() : -1L;
+                break;
+            case "registrar_puerto_peer":
+                puertoP2P = entero(datos, "puertoP2P");
+                ipLocal = texto(datos, "ipLocal");
+                break;
+            case "unirse":
+            case "unirse_sala":
+                partidaId = entero(datos, "partidaId");
+                break;
+            default:
+                break;
+        }
+        return construir(datos);
+    }
+
+    /**
+     * ✅ NUEVO: reqId del ultimo mensaje decodificado (o con el que se
+     * intento), SIN_REQ_ID si no traia.
+     */
+    public long getReqId() {
+        return reqId;
+    }
+
+    /**
+     * Solicitud a partir de una trama del ProtocoloBinario, leyendo la
+     * carga directamente (mismo formato que ProtocoloBinario.decodificar).
+     *
+     * @return la solicitud, o null si el opcode no es de solicitud
+     */
+    public static Solicitud desdeTrama(TramaBinaria trama) {
+        byte[] c = trama.getCarga();
+        switch (trama.getOpcode()) {
+            case ProtocoloBinario.OP_TIRAR_DADO:
+                return Solicitud.Simple.TIRAR_DADO;
+            case ProtocoloBinario.OP_MOVER_FICHA:
+                return new Solicitud.MoverFicha(i16(c, 0), c[2] & 0xFF, c[3] & 0xFF);
+            case ProtocoloBinario.OP_MOVER_FICHA_UN_DADO:
+                return new Solicitud.MoverFichaUnDado(i16(c, 0), c[2] & 0xFF, c[3] != 0);
+            case ProtocoloBinario.OP_USAR_BONUS:
+                return new Solicitud.UsarBonus(i16(c, 0), i16(c, 2));
+            default:
+                return null;
+        }
+    }
+
+    private void reiniciar(CharSequence mensaje) {
+        json = mensaje;
+        pos = 0;
+        fallo = false;
+        tipo = null;
+        nombre = null;
+        formato = null;
+        compresion = null;
+        token = null;
+        ipLocal = null;
+        ultimoSeq = -1L;
+        puertoP2P = Solicitud.AUSENTE;
+        maxJugadores = Solicitud.AUSENTE;
+        partidaId = Solicitud.AUSENTE;
+        fichaId = Solicitud.AUSENTE;
+        dado1 = Solicitud.AUSENTE;
+        dado2 = Solicitud.AUSENTE;
+        valorDado = Solicitud.AUSENTE;
+        pasos = Solicitud.AUSENTE;
+        pasarTurno = false;
+        reqId = SIN_REQ_ID;
+    }
+
+    /**
+     * @param datos mensaje completo (solo en el camino lento); un tipo sin
+     *              record propio devuelve null sin el
+     */
+    private Solicitud construir(JsonObject datos) {
+        switch (tipo) {
+            case "tirar_dado":
+            case "tirar_dados":
+                return Solicitud.Simple.TIRAR_DADO;
+            case "mover_ficha":
+                return new Solicitud.MoverFicha(fichaId, dado1, dado2);
+            case "mover_ficha_un_dado":
+                return new Solicitud.MoverFichaUnDado(fichaId, valorDado, pasarTurno);
+            case "usar_bonus":
+                return new Solicitud.UsarBonus(fichaId, pasos);
+            case "ping":
+                return Solicitud.Simple.PING;
+            case "pong":
+                return Solicitud.Simple.PONG;
+            case "registrar":
+            case "login":
+                return new Solicitud.Registrar(nombre);
+            case "protocolo":
+                return new Solicitud.Protocolo(formato, compresion);
+            case "reanudar":
+                return new Solicitud.Reanudar(token, ultimoSeq);
+            case "registrar_puerto_peer":
+                return new Solicitud.RegistrarPuertoPeer(puertoP2P, ipLocal);
+            case "desconectar":
+                return Solicitud.Simple.DESCONECTAR;
+            case "crear_sala":
+                return new Solicitud.CrearSala(nombre, maxJugadores);
+            case "unirse":
+            case "unirse_sala":
+                return new Solicitud.Unirse(partidaId);
+            case "listar_salas":
+                return Solicitud.Simple.LISTAR_SALAS;
+            case "salir_sala":
+                return Solicitud.Simple.SALIR_SALA;
+            case "listo":
+            case "marcar_listo":
+                return Solicitud.Simple.LISTO;
+            case "obtener_estado":
+            case "estado_partida":
+                return Solicitud.Simple.OBTENER_ESTADO;
+            case "obtener_tablero":
+                return Solicitud.Simple.OBTENER_TABLERO;
+            case "saltar_turno":
+                return Solicitud.Simple.SALTAR_TURNO;
+            case "lote":
+            case "batch":
+                return datos != null ? new Solicitud.Lote(accionesLote(datos)) : null;
+            default:
+                return datos != null ? new Solicitud.Generica(tipo, datos) : null;
+        }
+    }
+
+    /**
+     * Constante de TIPOS que coincide (ignorando mayusculas, como el
+     * antiguo toLowerCase), o el mismo texto si no es un tipo conocido.
+     */
+    private static String canonico(String tipo) {
+        String t = buscarTipo(tipo, 0, tipo.length());
+        return t != null ? t : tipo;
+    }
+
+    private static String buscarTipo(CharSequence s, int desde, int longitud) {
+        for (String t : TIPOS) {
+            if (t.length() == longitud && coincide(s, desde, t, false)) {
+                return t;
+            }
+        }
+        for (String t : TIPOS) {
+            if (t.length() == longitud && coincide(s, desde, t, true)) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * s.startsWith(t, desde) (o regionMatches sin mayusculas) para
+     * cualquier CharSequence.
+     */
+    private static boolean coincide(CharSequence s, int desde, String t, boolean ignorarMayusculas) {
+        if (desde < 0 || desde + t.length() > s.length()) {
+            return false;
+        }
+        for (int i = 0; i < t.length(); i++) {
+            char a = s.charAt(desde + i);
+            char b = t.charAt(i);
+            if (a != b && !(ignorarMayusculas && Character.toLowerCase(a) == Character.toLowerCase(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Acciones de un lote, cada una con un decodificador propio (este
+     * conserva el tipo y el reqId del lote). Sin "acciones" el lote queda
+     * vacio.
+     */
+    private static List<Solicitud> accionesLote(JsonObject datos) {
+        JsonElement e = datos.get("acciones");
+        List<Solicitud> acciones = new ArrayList<>();
+        if (e == null || !e.isJsonArray()) {
+            return acciones;
+        }
+        DecodificadorSolicitud decodificador = new DecodificadorSolicitud();
+        for (JsonElement accion : e.getAsJsonArray()) {
+            acciones.add(accion.isJsonObject() ? decodificador.desdeJson(accion.getAsJsonObject()) : null);
+        }
+        return acciones;
+    }
+
+    private static String texto(JsonObject datos, String clave) {
+        JsonElement e = datos.get(clave);
+        return e != null ? e.getAsString() : null;
+    }
+
+    private static int entero(JsonObject datos, String clave) {
+        JsonElement e = datos.get(clave);
+        return e != null ? e.getAsInt() : Solicitud.AUSENTE;
+    }
+
+    /**
+     * reqId de un mensaje ya parseado; si no es un entero >= 0 se ignora
+     * (igual que en el escaner).
+     */
+    private static long leerReqId(JsonObject datos) {
+        JsonElement e = datos.get("reqId");
+        if (e == null || !e.isJsonPrimitive() || !e.getAsJsonPrimitive().isNumber()) {
+            return SIN_REQ_ID;
+        }
+        try {
+            long v = e.getAsJsonPrimitive().getAsBigDecimal().longValueExact();
+            return v >= 0 ? v : SIN_REQ_ID;
+        } catch (ArithmeticException ex) {
+            return SIN_REQ_ID;
+        }
+    }
+
+    private static int i16(byte[] c, int i) {
+        return (short) (((c[i] & 0xFF) << 8) | (c[i + 1] & 0xFF));
+    }
+
+    // ==================== ESCANER ====================
+
+    private boolean leerObjeto() {
+        saltarEspacios();
+        if (!consumir('{')) return false;
+        saltarEspacios();
+        if (!consumir('}')) {
+            do {
+                saltarEspacios();
+                int clave = leerClave();
+                if (clave < 0) return false;
+                saltarEspacios();
+                if (!consumir(':')) return false;
+                saltarEspacios();
+                leerValor(clave);
+                if (fallo) return false;
+                saltarEspacios();
+            } while (consumir(','));
+            if (!consumir('}')) return false;
+        }
+        saltarEspacios();
+        return pos == json.length();
+    }
+
+    /**
+     * @return indice en CLAVES (K_OTRA si no interesa), o -1 si no es una
+     *         clave simple
+     */
+    private int leerClave() {
+        if (!consumir('"')) return -1;
+        int inicio = pos;
+        int fin = finCadena();
+        if (fin < 0) return -1;
+
+        int longitud = fin - inicio;
+        for (int k = 1; k < CLAVES.length; k++) {
+            String c = CLAVES[k];
+            if (c.length() == longitud && coincide(json, inicio, c, false)) {
+                return k;
+            }
+        }
+        return K_OTRA;
+    }
+
+    private void leerValor(int clave) {
+        switch (clave) {
+            case K_TIPO:
+                leerTipo();
+                break;
+            case K_NOMBRE:
+                nombre = leerTexto();
+                break;
+            case K_FORMATO:
+                formato = leerTexto();
+                break;
+            case K_COMPRESION:
+                compresion = leerTexto();
+                break;
+            case K_TOKEN:
+                token = leerTexto();
+                break;
+            case K_IP_LOCAL:
+                ipLocal = leerTexto();
+                break;
+            case K_ULTIMO_SEQ:
+                ultimoSeq = leerEntero();
+                break;
+            case K_PUERTO_P2P:
+                puertoP2P = leerEnteroInt();
+                break;
+            case K_MAX_JUGADORES:
+                maxJugadores = leerEnteroInt();
+                break;
+            case K_PARTIDA_ID:
+                partidaId = leerEnteroInt();
+                break;
+            case K_FICHA_ID:
+                fichaId = leerEnteroInt();
+                break;
+            case K_DADO1:
+                dado1 = leerEnteroInt();
+                break;
+            case K_DADO2:
+                dado2 = leerEnteroInt();
+                break;
+            case K_VALOR_DADO:
+                valorDado = leerEnteroInt();
+                break;
+            case K_PASOS:
+                pasos = leerEnteroInt();
+                break;
+            case K_PASAR_TURNO:
+                pasarTurno = leerBooleano();
+                break;
+            case K_REQ_ID:
+                long id = leerEntero();
+                reqId = id >= 0 ? id : SIN_REQ_ID;
+                break;
+            default:
+                saltarValor();
+        }
+    }
+
+    private void leerTipo() {
+        if (!consumir('"')) { fallo = true; return; }
+        int inicio = pos;
+        int fin = finCadena();
+        if (fin < 0) { fallo = true; return; }
+        String t = buscarTipo(json, inicio, fin - inicio);
+        tipo = t != null ? t : json.subSequence(inicio, fin).toString();
+    }
+
+    /**
+     * Texto sin escapes (con escapes se deja al parser de Gson).
+     */
+    private String leerTexto() {
+        if (coincide(json, pos, "null", false)) {
+            fallo = true;
+            return null;
+        }
+        if (!consumir('"')) { fallo = true; return null; }
+        int inicio = pos;
+        int fin = finCadena();
+        if (fin < 0) { fallo = true; return null; }
+        return json.subSequence(inicio, fin).toString();
+    }
+
+    /**
+     * Avanza hasta despues de la comilla de cierre.
+     *
+     * @return posicion de la comilla, o -1 si la cadena tiene escapes o no
+     *         se cierra
+     */
+    private int finCadena() {
+        for (int i = pos; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                pos = i + 1;
+                return i;
+            }
+            if (c == '\\') return -1;
+        }
+        return -1;
+    }
+
+    private long leerEntero() {
+        boolean negativo = consumir('-');
+        long valor = 0;
+        int digitos = 0;
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c < '0' || c > '9') break;
+            valor = valor * 10 + (c - '0');
+            pos++;
+            if (++digitos > 18) { fallo = true; return 0; }
+        }
+        if (digitos == 0 || siguienteEsNumerico()) {
+            // Decimales, exponente, comillas...: camino lento
+            fallo = true;
+            return 0;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    private int leerEnteroInt() {
+        long v = leerEntero();
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            fallo = true;
+            return 0;
+        }
+        return (int) v;
+    }
+
+    private boolean siguienteEsNumerico() {
+        if (pos >= json.length()) return false;
+        char c = json.charAt(pos);
+        return c == '.' || c == 'e' || c == 'E';
+    }
+
+    private boolean leerBooleano() {
+        if (coincide(json, pos, "true", false)) {
+            pos += 4;
+            return true;
+        }
+        if (coincide(json, pos, "false", false)) {
+            pos += 5;
+            return false;
+        }
+        fallo = true;
+        return false;
+    }
+
+    /**
+     * Salta un valor que no interesa (anidados incluidos).
+     */
+    private void saltarValor() {
+        int profundidad = 0;
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == '"') {
+                pos++;
+                while (pos < json.length() && json.charAt(pos) != '"') {
+                    if (json.charAt(pos) == '\\') pos++;
+                    pos++;
+                }
+                if (pos >= json.length()) break;
+                pos++;
+                if (profundidad == 0) return;
+            } else if (c == '{' || c == '[') {
+                profundidad++;
+                pos++;
+            } else if (c == '}' || c == ']') {
+                if (profundidad == 0) return;
+                profundidad--;
+                pos++;
+                if (profundidad == 0) return;
+            } else if (c == ',' && profundidad == 0) {
+                return;
+            } else {
+                pos++;
+            }
+        }
+        fallo = true;
+    }
+
+    private void saltarEspacios() {
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+            pos++;
+        }
+    }
+
+    private boolean consumir(char c) {
+        if (pos < json.length() && json.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+}
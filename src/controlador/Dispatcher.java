@@ -1,57 +1,107 @@
 package controlador;
 
 import controlador.servidor.ClienteHandler;
+import controlador.servidor.Respuestas;
+import controlador.servidor.TramaBinaria;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
-import controlador.juego.CtrlMoverFicha;
-import controlador.juego.CtrlTirarDado;
-import controlador.juego.CtrlUnirse;
-import modelo.Jugador.Jugador;
-import modelo.partida.Partida;
-import modelo.servicios.PersistenciaServicio;
-import java.util.Optional;
 
 /**
  * ✅ ACTUALIZADO: Dispatcher con soporte para mensajes P2P
+ *
+ * Uno por conexion y solo con estado de sesion (limitador y decodificador).
+ * Los manejadores son compartidos y estan en RegistroAcciones.
+ *
+ * ✅ NUEVO: El cliente puede enviar varias solicitudes sin esperar la
+ * respuesta de cada una. Los mensajes de una sesion se procesan de uno en
+ * uno y en orden de llegada, asi que las respuestas salen en el mismo
+ * orden; si la solicitud trae "reqId" la respuesta directa (incluidos los
+ * errores) lo lleva como primer campo. Los broadcasts no lo llevan.
+ *
+ * ✅ NUEVO: Las acciones de juego de un jugador que esta en una partida no
+ * se ejecutan aqui: quedan como ComandoPartida (ver tomarComandoPartida)
+ * y el ClienteHandler las encola en el buzon de la partida
+ * (EjecutorPartidas). La sesion no procesa su siguiente mensaje hasta que
+ * el bucle de la partida envia la respuesta.
  */
 public class Dispatcher {
     
+    // ✅ NUEVO: Compartidos por todas las conexiones (Gson es thread-safe)
+    private static final Gson GSON = new Gson();
+    private static final RegistroAcciones REGISTRO = RegistroAcciones.getInstancia();
+    
     private final ClienteHandler clienteHandler;
-    private final Gson gson;
-    private final CtrlUnirse ctrlUnirse;
-    private final CtrlTirarDado ctrlTirarDado;
-    private final CtrlMoverFicha ctrlMoverFicha;
+    
+    // ✅ NUEVO: Limite de solicitudes de esta sesion
+    private final LimitadorAcciones limitador;
+    
+    // ✅ NUEVO: Lectura de solicitudes sin arbol JsonObject
+    private final DecodificadorSolicitud decodificador;
+    
+    // ✅ NUEVO: reqId de la solicitud que se esta ejecutando
+    private long reqIdEnCurso = DecodificadorSolicitud.SIN_REQ_ID;
+    
+    // ✅ NUEVO: Accion de juego pendiente de ejecutar en su partida
+    private ComandoPartida comandoPendiente;
     
     private static final boolean MODO_DEBUG = false;
     
     public Dispatcher(ClienteHandler clienteHandler) {
         this.clienteHandler = clienteHandler;
-        this.gson = new Gson();
-        this.ctrlUnirse = new CtrlUnirse();
-        this.ctrlTirarDado = new CtrlTirarDado();
-        this.ctrlMoverFicha = new CtrlMoverFicha();
+        this.limitador = new LimitadorAcciones();
+        this.decodificador = new DecodificadorSolicitud();
     }
     
-    public String procesarMensaje(String mensajeJson) {
+    /**
+     * ✅ ACTUALIZADO: La linea se decodifica directamente a una Solicitud
+     * (sin arbol JsonObject). Solo los mensajes que se salen de la forma
+     * simple pasan por el parser de Gson, con los mismos errores de antes.
+     *
+     * ✅ ACTUALIZADO: Recibe la linea como CharSequence (LineaBytes, sin
+     * String intermedio); solo el camino lento la convierte.
+     */
+    public String procesarMensaje(CharSequence mensajeJson) {
+        String respuesta;
         try {
-            JsonObject jsonObject = JsonParser.parseString(mensajeJson).getAsJsonObject();
-            
-            if (!jsonObject.has("tipo")) {
-                return crearRespuestaError("Mensaje sin campo 'tipo'");
-            }
-            
-            String tipo = jsonObject.get("tipo").getAsString();
-            
-            if (MODO_DEBUG) {
-                System.out.println("  -> Procesando accion: " + tipo);
+            respuesta = despachar(mensajeJson);
+        } finally {
+            reqIdEnCurso = DecodificadorSolicitud.SIN_REQ_ID;
+        }
+        
+        long reqId = decodificador.getReqId();
+        if (respuesta != null && reqId != DecodificadorSolicitud.SIN_REQ_ID) {
+            return Respuestas.conReqId(respuesta, reqId);
+        }
+        return respuesta;
+    }
+    
+    private String despachar(CharSequence mensajeJson) {
+        Solicitud solicitud = decodificador.decodificar(mensajeJson);
+        
+        if (solicitud == null) {
+            try {
+                JsonObject jsonObject = JsonParser.parseString(mensajeJson.toString()).getAsJsonObject();
+                solicitud = decodificador.desdeJson(jsonObject);
+                
+                if (solicitud == null) {
+                    String rechazo = limitador.comprobar(LimitadorAcciones.ClaseAccion.LOBBY);
+                    return rechazo != null ? rechazo : crearRespuestaError("Mensaje sin campo 'tipo'");
+                }
+                
+            } catch (JsonSyntaxException e) {
+                String rechazo = limitador.comprobar(LimitadorAcciones.ClaseAccion.LOBBY);
+                return rechazo != null ? rechazo : crearRespuestaError("JSON invalido: " + e.getMessage());
+            } catch (Exception e) {
+                String rechazo = limitador.comprobar(LimitadorAcciones.ClaseAccion.LOBBY);
+                return rechazo != null ? rechazo : crearRespuestaError("Error interno: " + e.getMessage());
             }
-            
-            return enrutarAccion(tipo, jsonObject);
-            
-        } catch (JsonSyntaxException e) {
-            return crearRespuestaError("JSON invalido: " + e.getMessage());
+        }
+        
+        reqIdEnCurso = decodificador.getReqId();
+        try {
+            return ejecutar(REGISTRO.buscar(solicitud.tipo()), solicitud);
         } catch (Exception e) {
             System.err.println("X Error procesando mensaje: " + e.getMessage());
             e.printStackTrace();
@@ -59,260 +109,132 @@ public class Dispatcher {
         }
     }
     
-    private String enrutarAccion(String tipo, JsonObject datos) {
-        switch (tipo.toLowerCase()) {
-            case "registrar":
-            case "login":
-                return manejarRegistro(datos);
-            case "registrar_puerto_peer":  // ✅ NUEVO
-                return manejarRegistroPuertoPeer(datos);
-            case "ping":
-                return manejarPing();
-            case "desconectar":
-                return manejarDesconexion();
-            case "crear_sala":
-                return manejarCrearSala(datos);
-            case "unirse":
-            case "unirse_sala":
-                return manejarUnirse(datos);
-            case "listar_salas":
-                return manejarListarSalas();
-            case "salir_sala":
-                return manejarSalirSala();
-            case "listo":
-            case "marcar_listo":
-                return manejarMarcarListo();
-            case "tirar_dado":
-            case "tirar_dados":
-                return manejarTirarDado(datos);
-            case "mover_ficha":
-                return manejarMoverFicha(datos);
-            case "mover_ficha_un_dado":
-                return manejarMoverFichaUnDado(datos);
-            case "usar_bonus":
-                return manejarUsarBonus(datos);
-            case "obtener_estado":
-            case "estado_partida":
-                return manejarObtenerEstado();
-            case "saltar_turno":
-                return manejarSaltarTurno();
-            default:
-                return crearRespuestaError("Accion no reconocida: " + tipo);
+    /**
+     * ✅ NUEVO: Procesa una trama del protocolo binario. Se decodifica a la
+     * misma Solicitud que la linea JSON y sigue la misma ruta.
+     */
+    public String procesarTrama(TramaBinaria trama) {
+        Solicitud solicitud;
+        try {
+            solicitud = DecodificadorSolicitud.desdeTrama(trama);
+        } catch (RuntimeException e) {
+            solicitud = null;
         }
-    }
-    
-    private String manejarRegistro(JsonObject datos) {
+        if (solicitud == null) {
+            return crearRespuestaError("Trama invalida: opcode " + trama.getOpcode());
+        }
+        
         try {
-            String nombre = datos.get("nombre").getAsString();
-            return ctrlUnirse.registrarJugador(clienteHandler, nombre);
+            return ejecutar(REGISTRO.buscar(trama.getOpcode()), solicitud);
         } catch (Exception e) {
-            return crearRespuestaError("Error en registro: " + e.getMessage());
+            System.err.println("X Error procesando trama: " + e.getMessage());
+            return crearRespuestaError("Error interno: " + e.getMessage());
         }
     }
     
     /**
-     * ✅ NUEVO: Registra el puerto P2P del cliente
+     * ✅ ACTUALIZADO: Busca la accion en el RegistroAcciones (sin switch),
+     * aplica el limite de su clase y la ejecuta midiendo su latencia.
      */
-   private String manejarRegistroPuertoPeer(JsonObject datos) {
-    try {
-        Jugador jugador = clienteHandler.getJugador();
-        if (jugador == null) {
-            return crearRespuestaError("Debes registrarte primero");
+    private String ejecutar(RegistroAcciones.Accion accion, Solicitud solicitud) {
+        if (accion == null) {
+            String rechazo = limitador.comprobar(LimitadorAcciones.ClaseAccion.LOBBY);
+            return rechazo != null ? rechazo : crearRespuestaError("Accion no reconocida: " + solicitud.tipo());
         }
         
-        int puertoPeer = datos.get("puertoP2P").getAsInt();
-        
-        // ✅ CORREGIDO: Usar IP enviada por el cliente
-        String ip = datos.has("ipLocal") 
-            ? datos.get("ipLocal").getAsString() 
-            : clienteHandler.getSocket().getInetAddress().getHostAddress();
-        
-        // Registrar en el servidor
-        clienteHandler.getServidor().registrarInfoPeer(jugador.getId(), ip, puertoPeer);
-            
-            // Si está en una partida, enviar info de peers
-            Optional<Partida> partidaOpt = PersistenciaServicio.getInstancia()
-                .obtenerPartidaDeJugador(jugador.getId());
-            
-            if (partidaOpt.isPresent()) {
-                clienteHandler.getServidor().enviarInfoPeersAJugador(
-                    jugador.getId(), 
-                    partidaOpt.get().getId()
-                );
-            }
-            
-            return crearRespuestaExito("Puerto P2P registrado");
-            
-        } catch (Exception e) {
-            return crearRespuestaError("Error registrando puerto P2P: " + e.getMessage());
+        String rechazo = limitador.comprobar(accion.getClase());
+        if (rechazo != null) {
+            return rechazo;
         }
-    }
-    
-    private String manejarPing() {
-        return "{\"tipo\":\"pong\",\"timestamp\":" + System.currentTimeMillis() + "}";
-    }
-    
-    private String manejarDesconexion() {
-        clienteHandler.desconectar();
-        return null;
-    }
-    
-    private String manejarCrearSala(JsonObject datos) {
-        try {
-            String nombreSala = datos.has("nombre") ? datos.get("nombre").getAsString() : "Sala Nueva";
-            int maxJugadores = datos.has("maxJugadores") ? datos.get("maxJugadores").getAsInt() : 4;
-            return ctrlUnirse.crearSala(clienteHandler, nombreSala, maxJugadores);
-        } catch (Exception e) {
-            return crearRespuestaError("Error creando sala: " + e.getMessage());
+        
+        if (MODO_DEBUG) {
+            System.out.println("  -> Procesando accion: " + accion.getNombre());
         }
-    }
-    
-    private String manejarUnirse(JsonObject datos) {
-        try {
-            if (datos.has("partidaId")) {
-                int partidaId = datos.get("partidaId").getAsInt();
-                return ctrlUnirse.unirseAPartida(clienteHandler, partidaId);
-            } else {
-                return ctrlUnirse.unirseAPartidaDisponible(clienteHandler);
+        
+        if (accion.getClase() == LimitadorAcciones.ClaseAccion.JUEGO) {
+            int partidaId = clienteHandler.getPartidaParaComandos();
+            if (partidaId >= 0) {
+                comandoPendiente = new ComandoPartida(partidaId, accion, solicitud, reqIdEnCurso);
+                return null;
             }
-        } catch (Exception e) {
-            return crearRespuestaError("Error uniendose: " + e.getMessage());
-        }
-    }
-    
-    private String manejarMoverFichaUnDado(JsonObject datos) {
-        if (!datos.has("fichaId") || !datos.has("valorDado")) {
-            return crearRespuestaError("Faltan parametros: fichaId y valorDado requeridos");
-        }
-
-        try {
-            int fichaId = datos.get("fichaId").getAsInt();
-            int valorDado = datos.get("valorDado").getAsInt();
-            boolean pasarTurno = datos.has("pasarTurno") && datos.get("pasarTurno").getAsBoolean();
-
-            return ctrlMoverFicha.moverConUnDado(this.clienteHandler, fichaId, valorDado, pasarTurno);
-
-        } catch (Exception e) {
-            return crearRespuestaError("Error moviendo ficha con un dado: " + e.getMessage());
         }
+        
+        return accion.ejecutar(clienteHandler, solicitud);
     }
     
-    private String manejarListarSalas() {
-        try {
-            return ctrlUnirse.listarSalasDisponibles(clienteHandler);
-        } catch (Exception e) {
-            return crearRespuestaError("Error listando salas: " + e.getMessage());
-        }
+    /**
+     * ✅ NUEVO: Comando de juego que dejo el ultimo procesarMensaje o
+     * procesarTrama (null si la accion ya se ejecuto). Lo retira.
+     */
+    public ComandoPartida tomarComandoPartida() {
+        ComandoPartida comando = comandoPendiente;
+        comandoPendiente = null;
+        return comando;
     }
     
-    private String manejarSalirSala() {
+    /**
+     * ✅ NUEVO: Ejecuta el comando en el bucle de su partida, con el mismo
+     * tratamiento de errores y reqId que una accion ejecutada aqui. La
+     * sesion esta en espera mientras tanto, asi que nadie mas usa este
+     * Dispatcher.
+     */
+    public String ejecutarComandoPartida(ComandoPartida comando) {
+        String respuesta;
+        reqIdEnCurso = comando.reqId;
         try {
-            return ctrlUnirse.salirDePartida(clienteHandler);
+            respuesta = comando.accion.ejecutar(clienteHandler, comando.solicitud);
         } catch (Exception e) {
-            return crearRespuestaError("Error saliendo: " + e.getMessage());
+            System.err.println("X Error procesando mensaje: " + e.getMessage());
+            e.printStackTrace();
+            respuesta = crearRespuestaError("Error interno: " + e.getMessage());
+        } finally {
+            reqIdEnCurso = DecodificadorSolicitud.SIN_REQ_ID;
         }
-    }
-    
-    private String manejarMarcarListo() {
-        try {
-            return ctrlUnirse.marcarListo(clienteHandler);
-        } catch (Exception e) {
-            return crearRespuestaError("Error marcando listo: " + e.getMessage());
+        
+        if (respuesta != null && comando.reqId != DecodificadorSolicitud.SIN_REQ_ID) {
+            return Respuestas.conReqId(respuesta, comando.reqId);
         }
+        return respuesta;
     }
     
-    private String manejarTirarDado(JsonObject datos) {
-        try {
-            return ctrlTirarDado.ejecutar(clienteHandler, datos);
-        } catch (Exception e) {
-            return crearRespuestaError("Error tirando dado: " + e.getMessage());
-        }
+    // ✅ ACTUALIZADO: Sin JsonObject intermedio (ver Respuestas)
+    static String crearRespuestaError(String mensaje) {
+        return Respuestas.error(mensaje);
     }
     
-    private String manejarMoverFicha(JsonObject datos) {
-        try {
-            if (!datos.has("fichaId") || !datos.has("dado1") || !datos.has("dado2")) {
-                return crearRespuestaError("Faltan parametros: fichaId, dado1 y dado2");
-            }
-            int fichaId = datos.get("fichaId").getAsInt();
-            int dado1 = datos.get("dado1").getAsInt();
-            int dado2 = datos.get("dado2").getAsInt();
-            return ctrlMoverFicha.ejecutar(clienteHandler, fichaId, dado1, dado2);
-        } catch (Exception e) {
-            return crearRespuestaError("Error moviendo ficha: " + e.getMessage());
-        }
+    public static String crearRespuestaExito(String mensaje) {
+        return Respuestas.exito(mensaje);
     }
     
-    private String manejarUsarBonus(JsonObject datos) {
-        try {
-            if (!datos.has("fichaId") || !datos.has("pasos")) {
-                return crearRespuestaError("Faltan parametros: fichaId y pasos");
-            }
-            int fichaId = datos.get("fichaId").getAsInt();
-            int pasos = datos.get("pasos").getAsInt();
-            return ctrlMoverFicha.usarBonus(clienteHandler, fichaId, pasos);
-        } catch (Exception e) {
-            return crearRespuestaError("Error usando bonus: " + e.getMessage());
-        }
-    }
+    public static Gson getGson() { return GSON; }
+    public LimitadorAcciones getLimitador() { return limitador; }
     
-    private String manejarObtenerEstado() {
-        return crearRespuestaError("Funcion no implementada");
-    }
+    /**
+     * ✅ NUEVO: reqId de la solicitud en curso (SIN_REQ_ID si no trae o es
+     * una trama binaria). Lo usan los manejadores que normalmente no
+     * devuelven respuesta directa.
+     */
+    public long getReqIdEnCurso() { return reqIdEnCurso; }
+    public ClienteHandler getClienteHandler() { return clienteHandler; }
     
-    private String manejarSaltarTurno() {
-        try {
-            Jugador jugador = clienteHandler.getJugador();
-            if (jugador == null) return crearRespuestaError("Debes registrarte primero");
-            
-            PersistenciaServicio persistencia = PersistenciaServicio.getInstancia();
-            Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
-            if (!partidaOpt.isPresent()) return crearRespuestaError("No estas en ninguna partida");
-            
-            Partida partida = partidaOpt.get();
-            if (!partida.esTurnoDeJugador(jugador.getId())) return crearRespuestaError("No es tu turno");
-            
-            partida.avanzarTurno();
-             
-            Jugador siguienteJugador = partida.getJugadorActual();
-            if (siguienteJugador != null) {
-                JsonObject tuTurno = new JsonObject();
-                tuTurno.addProperty("tipo", "tu_turno");
-                tuTurno.addProperty("jugadorId", siguienteJugador.getId());
-                tuTurno.addProperty("jugadorNombre", siguienteJugador.getNombre());
-                
-                ClienteHandler handlerTurno = clienteHandler.getServidor().getCliente(siguienteJugador.getSessionId());
-                if (handlerTurno != null) handlerTurno.enviarMensaje(tuTurno.toString());
-                
-                JsonObject cambioTurno = new JsonObject();
-                cambioTurno.addProperty("tipo", "cambio_turno");
-                cambioTurno.addProperty("jugadorId", siguienteJugador.getId());
-                cambioTurno.addProperty("jugadorNombre", siguienteJugador.getNombre());
-                
-                clienteHandler.getServidor().broadcastAPartida(partida.getId(), cambioTurno.toString(), siguienteJugador.getSessionId());
-            }
-            return crearRespuestaExito("Turno saltado");
-        } catch (Exception e) {
-            return crearRespuestaError("Error saltando turno: " + e.getMessage());
+    /**
+     * ✅ NUEVO: Accion de juego ya decodificada y admitida por el limitador,
+     * a la espera de ejecutarse en el bucle de su partida.
+     */
+    public static final class ComandoPartida {
+        private final int partidaId;
+        private final RegistroAcciones.Accion accion;
+        private final Solicitud solicitud;
+        private final long reqId;
+        
+        private ComandoPartida(int partidaId, RegistroAcciones.Accion accion, Solicitud solicitud, long reqId) {
+            this.partidaId = partidaId;
+            this.accion = accion;
+            this.solicitud = solicitud;
+            this.reqId = reqId;
         }
+        
+        public int getPartidaId() { return partidaId; }
+        public String getNombre() { return accion.getNombre(); }
     }
-    
-    private String crearRespuestaError(String mensaje) {
-        JsonObject respuesta = new JsonObject();
-        respuesta.addProperty("tipo", "error");
-        respuesta.addProperty("exito", false);
-        respuesta.addProperty("mensaje", mensaje);
-        return gson.toJson(respuesta);
-    }
-    
-    public String crearRespuestaExito(String mensaje) {
-        JsonObject respuesta = new JsonObject();
-        respuesta.addProperty("tipo", "exito");
-        respuesta.addProperty("exito", true);
-        respuesta.addProperty("mensaje", mensaje);
-        return gson.toJson(respuesta);
-    }
-    
-    public Gson getGson() { return gson; }
-    public ClienteHandler getClienteHandler() { return clienteHandler; }
 }
\ No newline at end of file
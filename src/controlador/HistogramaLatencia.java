@@ -0,0 +1,77 @@
+package controlador;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en cubetas de potencias de 2 (nanosegundos).
+ *
+ * Registrar es un incremento de LongAdder (sin locks ni asignaciones), asi
+ * que puede quedarse activo siempre en el camino caliente. Los percentiles
+ * se aproximan por el limite superior de la cubeta (error maximo x2).
+ */
+public final class HistogramaLatencia {
+
+    // Cubeta i: [2^i, 2^(i+1)) ns; la ultima acumula todo lo que supere ~17 s
+    private static final int CUBETAS = 35;
+
+    private final LongAdder[] cubetas;
+    private final LongAdder total;
+    private final LongAdder sumaNanos;
+
+    public HistogramaLatencia() {
+        this.cubetas = new LongAdder[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = new LongAdder();
+        }
+        this.total = new LongAdder();
+        this.sumaNanos = new LongAdder();
+    }
+
+    public void registrar(long nanos) {
+        int i = nanos <= 1 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+        cubetas[Math.min(i, CUBETAS - 1)].increment();
+        total.increment();
+        sumaNanos.add(nanos);
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public long getMediaNanos() {
+        long n = total.sum();
+        return n == 0 ? 0 : sumaNanos.sum() / n;
+    }
+
+    /**
+     * @param p percentil entre 0 y 1 (0.99 = p99)
+     * @return limite superior (ns) de la cubeta que contiene el percentil
+     */
+    public long percentil(double p) {
+        long[] conteos = new long[CUBETAS];
+        long n = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos[i] = cubetas[i].sum();
+            n += conteos[i];
+        }
+        if (n == 0) return 0;
+
+        long objetivo = (long) Math.ceil(p * n);
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= objetivo) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << CUBETAS;
+    }
+
+    public void reiniciar() {
+        for (LongAdder c : cubetas) {
+            c.reset();
+        }
+        total.reset();
+        sumaNanos.reset();
+    }
+}
@@ -0,0 +1,108 @@
+package controlador;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite de solicitudes por sesion (token bucket) con presupuesto
+ * separado por clase de accion:
+ * - LOBBY: registrar, crear/unirse/listar/salir sala, listo...
+ * - JUEGO: tirar_dado, mover_ficha, usar_bonus, obtener_estado, obtener_tablero...
+ * - PING:  ping/pong
+ *
+ * Cada cubo es un solo AtomicLong (algoritmo GCRA: guarda el instante
+ * teorico en que el cubo vuelve a estar lleno), sin locks. Un cliente que
+ * inunda al servidor recibe un rechazo ya serializado y no llega a tocar
+ * MotorJuego ni SalaServicio.
+ *
+ * Configurable con -Dparchis.limite.{lobby|juego|ping}.rafaga y
+ * .porSegundo.
+ */
+public class LimitadorAcciones {
+
+    public enum ClaseAccion {
+        LOBBY(10, 5),
+        JUEGO(20, 10),
+        PING(5, 2);
+
+        private final int rafaga;
+        private final double porSegundo;
+        private final String rechazo;
+
+        ClaseAccion(int rafagaDefecto, double porSegundoDefecto) {
+            String prefijo = "parchis.limite." + name().toLowerCase();
+            this.rafaga = Integer.getInteger(prefijo + ".rafaga", rafagaDefecto);
+            this.porSegundo = Double.parseDouble(
+                System.getProperty(prefijo + ".porSegundo", String.valueOf(porSegundoDefecto)));
+            this.rechazo = "{\"tipo\":\"error\",\"exito\":false,\"codigo\":\"limite_excedido\"," +
+                "\"clase\":\"" + name().toLowerCase() + "\"," +
+                "\"mensaje\":\"Demasiadas solicitudes. Espera un momento.\"}";
+        }
+
+        /**
+         * Respuesta de rechazo ya serializada (no se construye por peticion).
+         */
+        public String getRechazo() {
+            return rechazo;
+        }
+    }
+
+    private final CuboTokens[] cubos;
+    private final AtomicLong rechazadas;
+
+    public LimitadorAcciones() {
+        ClaseAccion[] clases = ClaseAccion.values();
+        this.cubos = new CuboTokens[clases.length];
+        for (ClaseAccion clase : clases) {
+            cubos[clase.ordinal()] = new CuboTokens(clase.rafaga, clase.porSegundo);
+        }
+        this.rechazadas = new AtomicLong(0);
+    }
+
+    /**
+     * Consume un token de la clase de la accion.
+     *
+     * @return null si la solicitud se acepta, o el rechazo serializado
+     */
+    public String comprobar(ClaseAccion clase) {
+        if (cubos[clase.ordinal()].intentarConsumir(System.nanoTime())) {
+            return null;
+        }
+        rechazadas.incrementAndGet();
+        return clase.getRechazo();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.get();
+    }
+
+    /**
+     * Token bucket lock-free. El estado es el instante teorico (nanos) en
+     * que el cubo estaria lleno: cada solicitud lo adelanta un intervalo y
+     * se rechaza si quedaria mas de una rafaga por delante del reloj.
+     */
+    static final class CuboTokens {
+        private final long intervaloNanos;
+        private final long toleranciaNanos;
+        private final AtomicLong lleno;
+
+        CuboTokens(int rafaga, double porSegundo) {
+            this.intervaloNanos = (long) (1_000_000_000L / Math.max(0.001, porSegundo));
+            this.toleranciaNanos = intervaloNanos * Math.max(1, rafaga);
+            this.lleno = new AtomicLong(Long.MIN_VALUE);
+        }
+
+        boolean intentarConsumir(long ahora) {
+            while (true) {
+                long actual = lleno.get();
+                long base = (actual == Long.MIN_VALUE || actual < ahora) ? ahora : actual;
+                long siguiente = base + intervaloNanos;
+                if (siguiente - ahora > toleranciaNanos) {
+                    return false;
+                }
+                if (lleno.compareAndSet(actual, siguiente)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package controlador;
+
+import controlador.servidor.ClienteHandler;
+
+/**
+ * Manejador de una accion del cliente (ver RegistroAcciones).
+ *
+ * Es compartido por todas las conexiones: no debe guardar estado de
+ * sesion, que llega en el ClienteHandler.
+ *
+ * @param <S> tipo de Solicitud que recibe
+ */
+@FunctionalInterface
+public interface ManejadorAccion<S extends Solicitud> {
+
+    /**
+     * @return la respuesta JSON para el cliente, o null si no hay respuesta
+     */
+    String manejar(ClienteHandler cliente, S solicitud);
+}
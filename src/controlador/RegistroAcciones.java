@@ -0,0 +1,167 @@
+package controlador;
+
+import controlador.servidor.ClienteHandler;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro global de acciones del cliente (Singleton).
+ *
+ * Cada accion tiene un nombre (el tipo canonico de la Solicitud), su clase
+ * para LimitadorAcciones, un ManejadorAccion sin estado y sus metricas
+ * (invocaciones, errores e histograma de latencia). Las tramas binarias se
+ * buscan por opcode en una tabla de 256 entradas.
+ *
+ * Se construye una vez con las acciones de AccionesServidor; otras
+ * acciones pueden registrarse despues sin tocar el Dispatcher (los tipos
+ * que el decodificador no conoce llegan como Solicitud.Generica).
+ */
+public final class RegistroAcciones {
+
+    private static RegistroAcciones instancia;
+
+    private final Map<String, Accion> porNombre;
+    private final AtomicReferenceArray<Accion> porOpcode;
+
+    private RegistroAcciones() {
+        this.porNombre = new ConcurrentHashMap<>();
+        this.porOpcode = new AtomicReferenceArray<>(256);
+    }
+
+    public static synchronized RegistroAcciones getInstancia() {
+        if (instancia == null) {
+            instancia = new RegistroAcciones();
+            new AccionesServidor().registrarEn(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Registra (o reemplaza) una accion.
+     *
+     * @param nombre tipo canonico de la solicitud (ver Solicitud.tipo())
+     * @param tipoSolicitud record que recibe el manejador
+     */
+    public <S extends Solicitud> Accion registrar(String nombre, LimitadorAcciones.ClaseAccion clase,
+                                                  Class<S> tipoSolicitud, ManejadorAccion<S> manejador) {
+        Accion accion = new Accion(nombre.intern(), clase, tipoSolicitud, manejador);
+        porNombre.put(accion.nombre, accion);
+        return accion;
+    }
+
+    /**
+     * Asocia un opcode del ProtocoloBinario a una accion ya registrada.
+     */
+    public void asociarOpcode(byte opcode, String nombre) {
+        Accion accion = porNombre.get(nombre);
+        if (accion == null) {
+            throw new IllegalArgumentException("Accion no registrada: " + nombre);
+        }
+        porOpcode.set(opcode & 0xFF, accion);
+    }
+
+    /**
+     * @return la accion, o null si no esta registrada
+     */
+    public Accion buscar(String nombre) {
+        return porNombre.get(nombre);
+    }
+
+    public Accion buscar(byte opcode) {
+        return porOpcode.get(opcode & 0xFF);
+    }
+
+    public Collection<Accion> getAcciones() {
+        return porNombre.values();
+    }
+
+    public void reiniciarMetricas() {
+        for (Accion a : porNombre.values()) {
+            a.invocaciones.reset();
+            a.errores.reset();
+            a.latencia.reiniciar();
+        }
+    }
+
+    /**
+     * Una linea por accion invocada, de mas a menos usada.
+     */
+    public String resumen() {
+        List<Accion> usadas = new ArrayList<>();
+        for (Accion a : porNombre.values()) {
+            if (a.getInvocaciones() > 0) usadas.add(a);
+        }
+        usadas.sort((x, y) -> Long.compare(y.getInvocaciones(), x.getInvocaciones()));
+
+        StringBuilder sb = new StringBuilder("Acciones:");
+        for (Accion a : usadas) {
+            HistogramaLatencia h = a.latencia;
+            sb.append(String.format("%n  %-22s n=%-8d errores=%-4d media=%.1f us  p50<%.1f us  p99<%.1f us",
+                a.nombre, a.getInvocaciones(), a.getErrores(), h.getMediaNanos() / 1000.0,
+                h.percentil(0.50) / 1000.0, h.percentil(0.99) / 1000.0));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Accion registrada con sus metricas.
+     */
+    public static final class Accion {
+        private static final String PREFIJO_ERROR = "{\"tipo\":\"error\"";
+
+        private final String nombre;
+        private final LimitadorAcciones.ClaseAccion clase;
+        private final Class<? extends Solicitud> tipoSolicitud;
+        private final ManejadorAccion<? extends Solicitud> manejador;
+
+        private final LongAdder invocaciones;
+        private final LongAdder errores;
+        private final HistogramaLatencia latencia;
+
+        private <S extends Solicitud> Accion(String nombre, LimitadorAcciones.ClaseAccion clase,
+                                             Class<S> tipoSolicitud, ManejadorAccion<S> manejador) {
+            this.nombre = nombre;
+            this.clase = clase;
+            this.tipoSolicitud = tipoSolicitud;
+            this.manejador = manejador;
+            this.invocaciones = new LongAdder();
+            this.errores = new LongAdder();
+            this.latencia = new HistogramaLatencia();
+        }
+
+        /**
+         * Ejecuta el manejador midiendo la latencia. Cuentan como error las
+         * respuestas {"tipo":"error"...} y las excepciones (que se propagan
+         * al Dispatcher).
+         */
+        @SuppressWarnings("unchecked")
+        public String ejecutar(ClienteHandler cliente, Solicitud solicitud) {
+            ManejadorAccion<Solicitud> m = (ManejadorAccion<Solicitud>) manejador;
+            long inicio = System.nanoTime();
+            try {
+                String respuesta = m.manejar(cliente, tipoSolicitud.cast(solicitud));
+                if (respuesta != null && respuesta.startsWith(PREFIJO_ERROR)) {
+                    errores.increment();
+                }
+                return respuesta;
+            } catch (RuntimeException e) {
+                errores.increment();
+                throw e;
+            } finally {
+                invocaciones.increment();
+                latencia.registrar(System.nanoTime() - inicio);
+            }
+        }
+
+        public String getNombre() { return nombre; }
+        public LimitadorAcciones.ClaseAccion getClase() { return clase; }
+        public long getInvocaciones() { return invocaciones.sum(); }
+        public long getErrores() { return errores.sum(); }
+        public HistogramaLatencia getLatencia() { return latencia; }
+    }
+}
@@ -0,0 +1,109 @@
+package controlador;
+
+import com.google.gson.JsonObject;
+import java.util.List;
+
+/**
+ * Solicitud del cliente ya decodificada (ver DecodificadorSolicitud).
+ *
+ * Cada tipo de mensaje es un record con sus campos ya convertidos; el
+ * Dispatcher enruta por tipo de record en lugar de por el String "tipo".
+ * Los campos numericos que no venian en el mensaje valen AUSENTE, asi el
+ * Dispatcher puede seguir respondiendo "Faltan parametros..." igual que
+ * antes. Las solicitudes sin campos son constantes de Simple (no se crea
+ * nada por mensaje).
+ */
+public sealed interface Solicitud {
+
+    // Valor de un campo numerico que no venia en el mensaje
+    int AUSENTE = Integer.MIN_VALUE;
+
+    /**
+     * Tipo canonico (en minusculas, sin alias), usado por LimitadorAcciones.
+     */
+    String tipo();
+
+    // ==================== LOBBY ====================
+
+    record Registrar(String nombre) implements Solicitud {
+        public String tipo() { return "registrar"; }
+    }
+
+    // compresion: null o "deflate" (ver CompresionMensajes)
+    record Protocolo(String formato, String compresion) implements Solicitud {
+        public String tipo() { return "protocolo"; }
+    }
+
+    record Reanudar(String token, long ultimoSeq) implements Solicitud {
+        public String tipo() { return "reanudar"; }
+    }
+
+    record RegistrarPuertoPeer(int puertoP2P, String ipLocal) implements Solicitud {
+        public String tipo() { return "registrar_puerto_peer"; }
+    }
+
+    record CrearSala(String nombre, int maxJugadores) implements Solicitud {
+        public String tipo() { return "crear_sala"; }
+    }
+
+    record Unirse(int partidaId) implements Solicitud {
+        public String tipo() { return "unirse"; }
+    }
+
+    /**
+     * Solicitudes sin campos.
+     */
+    enum Simple implements Solicitud {
+        PING("ping"),
+        PONG("pong"),
+        DESCONECTAR("desconectar"),
+        LISTAR_SALAS("listar_salas"),
+        SALIR_SALA("salir_sala"),
+        LISTO("listo"),
+        TIRAR_DADO("tirar_dado"),
+        OBTENER_ESTADO("obtener_estado"),
+        OBTENER_TABLERO("obtener_tablero"),
+        SALTAR_TURNO("saltar_turno");
+
+        private final String tipo;
+
+        Simple(String tipo) {
+            this.tipo = tipo;
+        }
+
+        public String tipo() { return tipo; }
+    }
+
+    // ==================== JUEGO ====================
+
+    record MoverFicha(int fichaId, int dado1, int dado2) implements Solicitud {
+        public String tipo() { return "mover_ficha"; }
+    }
+
+    record MoverFichaUnDado(int fichaId, int valorDado, boolean pasarTurno) implements Solicitud {
+        public String tipo() { return "mover_ficha_un_dado"; }
+    }
+
+    record UsarBonus(int fichaId, int pasos) implements Solicitud {
+        public String tipo() { return "usar_bonus"; }
+    }
+
+    /**
+     * ✅ NUEVO: Jugadas que se aplican todas o ninguna (ver
+     * CtrlMoverFicha.ejecutarLote). Cada accion va decodificada como si
+     * llegara sola; null si un elemento no era un objeto con "tipo".
+     */
+    record Lote(List<Solicitud> acciones) implements Solicitud {
+        public String tipo() { return "lote"; }
+    }
+
+    // ==================== OTRAS ====================
+
+    /**
+     * Tipo sin record propio: llega con el JsonObject completo. Lo usan las
+     * acciones registradas fuera de AccionesServidor; si no hay ninguna
+     * registrada se responde "Accion no reconocida".
+     */
+    record Generica(String tipo, JsonObject datos) implements Solicitud {
+    }
+}
@@ -1,24 +1,50 @@
 package controlador.juego;
 
+import controlador.Solicitud;
 import controlador.servidor.ClienteHandler;
+import controlador.servidor.CamposMensaje;
+import controlador.servidor.EventoPartida;
+import controlador.servidor.PlantillaMensaje;
+import controlador.servidor.Respuestas;
 import modelo.Jugador.Jugador;
 import modelo.partida.Partida;
 import modelo.partida.EstadoPartida;
 import modelo.partida.MotorJuego;
+import modelo.partida.MovimientosLegales;
 import modelo.servicios.PersistenciaServicio;
-import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import modelo.servicios.GestorMotores;
 import vista.VistaServidor;
 
+import static controlador.servidor.CamposMensaje.*;
+
 /**
  * ✅ CORREGIDO: Notificación completa de capturas
  * - Envía ficha capturada a CASA
  * - Aplica bonus +20 casillas al capturador
  * - Soporte para mover fichas con un solo dado
+ * - ✅ NUEVO: Lotes de jugadas atomicos (ejecutarLote)
+ * - ✅ NUEVO: Si el turno sigue, la respuesta lleva las jugadas legales que
+ *   le quedan al jugador ("movimientos")
  */
 public class CtrlMoverFicha {
     
+    // ✅ NUEVO: Mensajes con la parte fija ya serializada
+    private static final PlantillaMensaje MOVIMIENTO_EXITOSO = PlantillaMensaje.de("movimiento_exitoso").fijo("exito", true);
+    private static final PlantillaMensaje FICHA_CAPTURADA = PlantillaMensaje.de("ficha_capturada");
+    private static final PlantillaMensaje APLICAR_BONUS_CAPTURA = PlantillaMensaje.de("aplicar_bonus_captura");
+    private static final PlantillaMensaje FICHA_EN_META = PlantillaMensaje.de("ficha_en_meta");
+    private static final PlantillaMensaje PARTIDA_GANADA = PlantillaMensaje.de("partida_ganada");
+    private static final PlantillaMensaje BONUS_USADO = PlantillaMensaje.de("bonus_usado");
+    private static final PlantillaMensaje TU_TURNO = PlantillaMensaje.de("tu_turno");
+    private static final PlantillaMensaje LOTE_EXITOSO = PlantillaMensaje.de("lote_exitoso").fijo("exito", true);
+    private static final PlantillaMensaje LOTE_APLICADO = PlantillaMensaje.de("lote_aplicado");
+    
+    // ✅ NUEVO: Jugadas que admite un lote (un turno no pasa de 4)
+    public static final int MAX_ACCIONES_LOTE = 8;
+    
     private final PersistenciaServicio persistencia;
     
     public CtrlMoverFicha() {
@@ -40,25 +66,25 @@ public class CtrlMoverFicha {
             // Validar jugador
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             // Obtener partida
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
             if (!partidaOpt.isPresent()) {
-                return crearError("No estas en ninguna partida");
+                return Respuestas.SIN_PARTIDA;
             }
             
             Partida partida = partidaOpt.get();
             
             // Validar estado
             if (partida.getEstado() != EstadoPartida.EN_PROGRESO) {
-                return crearError("La partida no esta en progreso");
+                return Respuestas.PARTIDA_NO_EN_PROGRESO;
             }
             
             // Validar turno
             if (!partida.esTurnoDeJugador(jugador.getId())) {
-                return crearError("No es tu turno");
+                return Respuestas.NO_ES_TU_TURNO;
             }
             
             // Obtener motor
@@ -127,7 +153,7 @@ public class CtrlMoverFicha {
                 partida.avanzarTurno();
                 
                 // Notificar estado del tablero a todos
-                notificarEstadoTablero(partida, cliente);
+                notificarCambiosTablero(partida, cliente);
                 
                 // Notificar al siguiente jugador
                 Jugador siguienteJugador = partida.getJugadorActual();
@@ -136,19 +162,21 @@ public class CtrlMoverFicha {
                 }
             } else {
                 // Solo actualizar tablero sin pasar turno
-                notificarEstadoTablero(partida, cliente);
+                notificarCambiosTablero(partida, cliente);
             }
             
             // Crear respuesta
-            JsonObject respuesta = crearRespuestaMovimiento(resultado);
-            respuesta.addProperty("turnoTerminado", pasarTurno);
-            
-            return respuesta.toString();
+            PlantillaMensaje.Escritor respuesta = crearRespuestaMovimiento(resultado)
+                .booleano(TURNO_TERMINADO, pasarTurno);
+            if (!pasarTurno) {
+                escribirMovimientos(respuesta, motor.obtenerMovimientosLegales(jugador.getId()));
+            }
+            return respuesta.json();
             
         } catch (MotorJuego.MovimientoInvalidoException e) {
             return crearError("Movimiento invalido: " + e.getMessage());
         } catch (MotorJuego.NoEsTuTurnoException e) {
-            return crearError("No es tu turno");
+            return Respuestas.NO_ES_TU_TURNO;
         } catch (MotorJuego.JuegoException e) {
             return crearError("Error en el juego: " + e.getMessage());
         } catch (Exception e) {
@@ -167,25 +195,25 @@ public class CtrlMoverFicha {
             // Validar jugador
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             // Obtener partida
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
             if (!partidaOpt.isPresent()) {
-                return crearError("No estas en ninguna partida");
+                return Respuestas.SIN_PARTIDA;
             }
             
             Partida partida = partidaOpt.get();
             
             // Validar estado
             if (partida.getEstado() != EstadoPartida.EN_PROGRESO) {
-                return crearError("La partida no esta en progreso");
+                return Respuestas.PARTIDA_NO_EN_PROGRESO;
             }
             
             // Validar turno
             if (!partida.esTurnoDeJugador(jugador.getId())) {
-                return crearError("No es tu turno");
+                return Respuestas.NO_ES_TU_TURNO;
             }
             
             // Obtener motor
@@ -254,7 +282,7 @@ public class CtrlMoverFicha {
             partida.avanzarTurno();
             
             // Notificar estado del tablero a todos
-            notificarEstadoTablero(partida, cliente);
+            notificarCambiosTablero(partida, cliente);
             
             // Notificar al siguiente jugador
             Jugador siguienteJugador = partida.getJugadorActual();
@@ -263,14 +291,12 @@ public class CtrlMoverFicha {
             }
             
             // Crear respuesta
-            JsonObject respuesta = crearRespuestaMovimiento(resultado);
-            
-            return respuesta.toString();
+            return crearRespuestaMovimiento(resultado).json();
             
         } catch (MotorJuego.MovimientoInvalidoException e) {
             return crearError("Movimiento invalido: " + e.getMessage());
         } catch (MotorJuego.NoEsTuTurnoException e) {
-            return crearError("No es tu turno");
+            return Respuestas.NO_ES_TU_TURNO;
         } catch (MotorJuego.JuegoException e) {
             return crearError("Error en el juego: " + e.getMessage());
         } catch (Exception e) {
@@ -288,18 +314,18 @@ public class CtrlMoverFicha {
         try {
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
             if (!partidaOpt.isPresent()) {
-                return crearError("No estas en ninguna partida");
+                return Respuestas.SIN_PARTIDA;
             }
             
             Partida partida = partidaOpt.get();
             
             if (partida.getEstado() != EstadoPartida.EN_PROGRESO) {
-                return crearError("La partida no esta en progreso");
+                return Respuestas.PARTIDA_NO_EN_PROGRESO;
             }
             
             MotorJuego motor = obtenerMotorJuego(partida);
@@ -327,13 +353,12 @@ public class CtrlMoverFicha {
             );
             
             notificarUsoBonus(partida, jugador, fichaId, pasos, resultado, cliente);
-            notificarEstadoTablero(partida, cliente);
+            notificarCambiosTablero(partida, cliente);
             
-            JsonObject respuesta = crearRespuestaMovimiento(resultado);
-            respuesta.addProperty("bonusUsado", resultado.bonusConsumido);
-            respuesta.addProperty("bonusRestante", resultado.bonusRestante);
-            
-            return respuesta.toString();
+            PlantillaMensaje.Escritor respuesta = crearRespuestaMovimiento(resultado)
+                .entero(CamposMensaje.BONUS_USADO, resultado.bonusConsumido)
+                .entero(BONUS_RESTANTE, resultado.bonusRestante);
+            return escribirMovimientos(respuesta, motor.obtenerMovimientosLegales(jugador.getId())).json();
             
         } catch (Exception e) {
             System.err.println("Error usando bonus: " + e.getMessage());
@@ -342,28 +367,250 @@ public class CtrlMoverFicha {
     }
 
     
-    private JsonObject crearRespuestaMovimiento(MotorJuego.ResultadoMovimiento resultado) {
-        JsonObject respuesta = new JsonObject();
-        respuesta.addProperty("tipo", "movimiento_exitoso");
-        respuesta.addProperty("exito", true);
+    /**
+     * ✅ NUEVO: Aplica un lote de jugadas (mover_ficha_un_dado, mover_ficha,
+     * usar_bonus) en orden y como una sola: jugador, partida y turno se
+     * validan una vez, todas corren dentro de MotorJuego.ejecutarLote y si
+     * una es invalida no se aplica ninguna.
+     *
+     * En lugar de las notificaciones de cada jugada se difunde un
+     * lote_aplicado con todas, un solo tablero_delta y, si el lote pasa el
+     * turno, un solo cambio de turno. Solo la ultima accion puede pasar el
+     * turno (mover_ficha siempre lo pasa).
+     */
+    public String ejecutarLote(ClienteHandler cliente, List<Solicitud> acciones) {
+        if (acciones.isEmpty()) {
+            return crearError("El lote no trae acciones");
+        }
+        if (acciones.size() > MAX_ACCIONES_LOTE) {
+            return crearError("Un lote admite hasta " + MAX_ACCIONES_LOTE + " acciones");
+        }
+        for (int i = 0; i < acciones.size(); i++) {
+            String problema = validarAccionLote(acciones.get(i), i == acciones.size() - 1);
+            if (problema != null) {
+                return crearError("Accion " + (i + 1) + " del lote: " + problema);
+            }
+        }
         
-        JsonObject movimiento = new JsonObject();
-        movimiento.addProperty("desde", resultado.casillaSalida);
-        movimiento.addProperty("hasta", resultado.casillaLlegada);
+        try {
+            Jugador jugador = cliente.getJugador();
+            if (jugador == null) {
+                return Respuestas.NO_REGISTRADO;
+            }
+            
+            Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
+            if (!partidaOpt.isPresent()) {
+                return Respuestas.SIN_PARTIDA;
+            }
+            
+            Partida partida = partidaOpt.get();
+            
+            if (partida.getEstado() != EstadoPartida.EN_PROGRESO) {
+                return Respuestas.PARTIDA_NO_EN_PROGRESO;
+            }
+            
+            if (!partida.esTurnoDeJugador(jugador.getId())) {
+                return Respuestas.NO_ES_TU_TURNO;
+            }
+            
+            MotorJuego motor = obtenerMotorJuego(partida);
+            boolean pasarTurno = pasaTurno(acciones.get(acciones.size() - 1));
+            
+            List<MotorJuego.ResultadoMovimiento> resultados = motor.ejecutarLote(
+                () -> aplicarLote(motor, partida, jugador, acciones, pasarTurno));
+            
+            for (int i = 0; i < resultados.size(); i++) {
+                MotorJuego.ResultadoMovimiento r = resultados.get(i);
+                VistaServidor.mostrarMovimientoFicha(jugador, fichaDe(acciones.get(i)), r.casillaSalida, r.casillaLlegada);
+            }
+            
+            // Notificaciones del lote completo
+            String aplicado = escribirJugadas(LOTE_APLICADO.iniciar()
+                .entero(JUGADOR_ID, jugador.getId())
+                .texto(JUGADOR_NOMBRE, jugador.getNombre()), acciones, resultados)
+                .json();
+            cliente.getServidor().broadcastAPartida(partida.getId(), aplicado, cliente.getSessionId());
+            
+            if (jugador.haGanado()) {
+                VistaServidor.mostrarGanador(partida, jugador);
+                notificarGanador(partida, jugador, cliente);
+            }
+            
+            notificarCambiosTablero(partida, cliente);
+            
+            if (pasarTurno) {
+                Jugador siguienteJugador = partida.getJugadorActual();
+                if (siguienteJugador != null) {
+                    notificarCambioTurno(partida, siguienteJugador, cliente);
+                }
+            }
+            
+            PlantillaMensaje.Escritor respuesta = escribirJugadas(LOTE_EXITOSO.iniciar(), acciones, resultados)
+                .booleano(TURNO_TERMINADO, pasarTurno)
+                .entero(BONUS_RESTANTE, motor.getBonusDisponible(jugador.getId()))
+                .texto(MENSAJE, "Lote aplicado (" + resultados.size() + " acciones)");
+            if (!pasarTurno) {
+                escribirMovimientos(respuesta, motor.obtenerMovimientosLegales(jugador.getId()));
+            }
+            return respuesta.json();
+            
+        } catch (MotorJuego.NoEsTuTurnoException e) {
+            return Respuestas.NO_ES_TU_TURNO;
+        } catch (MotorJuego.JuegoException e) {
+            return crearError("Lote rechazado, " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Error aplicando lote: " + e.getMessage());
+            e.printStackTrace();
+            return crearError("Error interno: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Cuerpo del lote, con el lock del motor tomado. Una excepcion aqui
+     * deshace todo el lote (ver MotorJuego.ejecutarLote).
+     */
+    private List<MotorJuego.ResultadoMovimiento> aplicarLote(MotorJuego motor, Partida partida, Jugador jugador,
+                                                             List<Solicitud> acciones, boolean pasarTurno) {
+        List<MotorJuego.ResultadoMovimiento> resultados = new ArrayList<>(acciones.size());
         
-        respuesta.add("movimiento", movimiento);
+        for (int i = 0; i < acciones.size(); i++) {
+            Solicitud accion = acciones.get(i);
+            try {
+                resultados.add(aplicarAccion(motor, jugador.getId(), accion));
+            } catch (MotorJuego.NoEsTuTurnoException e) {
+                throw e;
+            } catch (MotorJuego.JuegoException e) {
+                throw new MotorJuego.MovimientoInvalidoException(
+                    "accion " + (i + 1) + " (" + accion.tipo() + "): " + e.getMessage());
+            }
+        }
+        
+        if (jugador.haGanado()) {
+            partida.setEstado(EstadoPartida.FINALIZADA);
+        }
+        if (pasarTurno) {
+            partida.avanzarTurno();
+        }
+        return resultados;
+    }
+    
+    private MotorJuego.ResultadoMovimiento aplicarAccion(MotorJuego motor, int jugadorId, Solicitud accion) {
+        if (accion instanceof Solicitud.MoverFichaUnDado m) {
+            return motor.moverFichaConUnDado(jugadorId, m.fichaId(), m.valorDado());
+        }
+        if (accion instanceof Solicitud.MoverFicha m) {
+            return motor.moverFicha(jugadorId, m.fichaId(), m.dado1(), m.dado2());
+        }
+        Solicitud.UsarBonus b = (Solicitud.UsarBonus) accion;
+        return motor.usarBonus(jugadorId, b.fichaId(), b.pasos());
+    }
+    
+    /**
+     * @return por que la accion no puede ir en el lote, o null si puede
+     */
+    private static String validarAccionLote(Solicitud accion, boolean ultima) {
+        if (accion instanceof Solicitud.MoverFichaUnDado m) {
+            if (m.fichaId() == Solicitud.AUSENTE || m.valorDado() == Solicitud.AUSENTE) {
+                return "faltan parametros: fichaId y valorDado requeridos";
+            }
+            return m.pasarTurno() && !ultima ? "solo la ultima accion puede pasar el turno" : null;
+        }
+        if (accion instanceof Solicitud.MoverFicha m) {
+            if (m.fichaId() == Solicitud.AUSENTE || m.dado1() == Solicitud.AUSENTE
+                    || m.dado2() == Solicitud.AUSENTE) {
+                return "faltan parametros: fichaId, dado1 y dado2";
+            }
+            return !ultima ? "mover_ficha pasa el turno, debe ser la ultima accion" : null;
+        }
+        if (accion instanceof Solicitud.UsarBonus b) {
+            if (b.fichaId() == Solicitud.AUSENTE || b.pasos() == Solicitud.AUSENTE) {
+                return "faltan parametros: fichaId y pasos";
+            }
+            return null;
+        }
+        return accion == null ? "accion invalida" : accion.tipo() + " no se puede usar en un lote";
+    }
+    
+    private static boolean pasaTurno(Solicitud accion) {
+        return accion instanceof Solicitud.MoverFicha
+            || (accion instanceof Solicitud.MoverFichaUnDado m && m.pasarTurno());
+    }
+    
+    private static int fichaDe(Solicitud accion) {
+        if (accion instanceof Solicitud.MoverFichaUnDado m) return m.fichaId();
+        if (accion instanceof Solicitud.MoverFicha m) return m.fichaId();
+        return ((Solicitud.UsarBonus) accion).fichaId();
+    }
+    
+    /**
+     * Lista "jugadas" de lote_exitoso y lote_aplicado: una entrada por
+     * accion con su movimiento, la captura y la llegada a meta.
+     */
+    private PlantillaMensaje.Escritor escribirJugadas(PlantillaMensaje.Escritor escritor, List<Solicitud> acciones,
+                                                     List<MotorJuego.ResultadoMovimiento> resultados) {
+        escritor.lista(JUGADAS);
+        for (int i = 0; i < resultados.size(); i++) {
+            MotorJuego.ResultadoMovimiento r = resultados.get(i);
+            escritor.elemento()
+                .texto(ACCION, acciones.get(i).tipo())
+                .entero(FICHA_ID, fichaDe(acciones.get(i)))
+                .entero(DESDE, r.casillaSalida)
+                .entero(HASTA, r.casillaLlegada);
+            if (r.capturaRealizada) {
+                escritor.booleano(CAPTURA, true)
+                    .entero(FICHA_CAPTURADA_ID, r.fichaCapturadaId)
+                    .entero(JUGADOR_CAPTURADO_ID, r.jugadorCapturadoId)
+                    .entero(BONUS_GANADO, r.bonusGanado);
+            }
+            if (r.llegadaMeta) {
+                escritor.booleano(META, true)
+                    .entero(PUNTOS_META, r.bonusPuntosMeta);
+            }
+            escritor.cerrar();
+        }
+        return escritor.cerrar();
+    }
+    
+    /**
+     * ✅ NUEVO: Lista "movimientos" con las jugadas legales del jugador (ver
+     * MovimientosLegales.listar): fichaId, accion (dado, suma, sacar o
+     * bonus) y valor. Tambien la usa CtrlTirarDado en resultado_dados.
+     */
+    static PlantillaMensaje.Escritor escribirMovimientos(PlantillaMensaje.Escritor escritor,
+                                                         MovimientosLegales legales) {
+        escritor.lista(MOVIMIENTOS);
+        for (MovimientosLegales.Movimiento m : legales.listar()) {
+            escritor.elemento()
+                .entero(FICHA_ID, m.fichaId)
+                .texto(ACCION, m.tipo.nombre)
+                .entero(VALOR, m.valor)
+                .cerrar();
+        }
+        return escritor.cerrar();
+    }
+    
+    /**
+     * ✅ ACTUALIZADO: Escribe movimiento_exitoso; el llamador agrega sus
+     * campos y termina con json().
+     */
+    private PlantillaMensaje.Escritor crearRespuestaMovimiento(MotorJuego.ResultadoMovimiento resultado) {
+        PlantillaMensaje.Escritor respuesta = MOVIMIENTO_EXITOSO.iniciar()
+            .objeto(MOVIMIENTO)
+                .entero(DESDE, resultado.casillaSalida)
+                .entero(HASTA, resultado.casillaLlegada)
+            .cerrar();
         
         if (resultado.capturaRealizada) {
-            respuesta.addProperty("captura", true);
-            respuesta.addProperty("fichaCapturadaId", resultado.fichaCapturadaId);
-            respuesta.addProperty("bonusGanado", resultado.bonusGanado);
-            respuesta.addProperty("bonusTotal", resultado.bonusTotal);
+            respuesta.booleano(CAPTURA, true)
+                .entero(FICHA_CAPTURADA_ID, resultado.fichaCapturadaId)
+                .entero(BONUS_GANADO, resultado.bonusGanado)
+                .entero(BONUS_TOTAL, resultado.bonusTotal);
         }
         
         if (resultado.llegadaMeta) {
-            respuesta.addProperty("meta", true);
-            respuesta.addProperty("puntosMeta", resultado.bonusPuntosMeta);
-            respuesta.addProperty("puntosTotal", resultado.puntosTotal);
+            respuesta.booleano(META, true)
+                .entero(PUNTOS_META, resultado.bonusPuntosMeta)
+                .entero(PUNTOS_TOTAL, resultado.puntosTotal);
         }
         
         String mensaje = "Ficha movida exitosamente";
@@ -373,25 +620,25 @@ public class CtrlMoverFicha {
         if (resultado.llegadaMeta) {
             mensaje = "¡Llegaste a la meta! +" + resultado.bonusPuntosMeta + " puntos";
         }
-        respuesta.addProperty("mensaje", mensaje);
-        
-        return respuesta;
+        return respuesta.texto(MENSAJE, mensaje);
     }
     
     private void notificarMovimiento(Partida partida, Jugador jugador, int fichaId, 
                                      MotorJuego.ResultadoMovimiento resultado, 
                                      ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "ficha_movida");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("jugadorNombre", jugador.getNombre());
-        notificacion.addProperty("fichaId", fichaId);
-        notificacion.addProperty("desde", resultado.casillaSalida);
-        notificacion.addProperty("hasta", resultado.casillaLlegada);
+        EventoPartida notificacion = EventoPartida.fichaMovida(
+            jugador.getId(),
+            jugador.getNombre(),
+            fichaId,
+            resultado.casillaSalida,
+            resultado.casillaLlegada,
+            null,
+            null
+        );
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             cliente.getSessionId()
         );
     }
@@ -406,79 +653,80 @@ public class CtrlMoverFicha {
                                   MotorJuego.ResultadoMovimiento resultado, 
                                   ClienteHandler cliente) {
         // 1️⃣ Notificar que hubo captura
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "ficha_capturada");
-        notificacion.addProperty("capturadorId", jugador.getId());
-        notificacion.addProperty("capturadorNombre", jugador.getNombre());
-        notificacion.addProperty("fichaCapturadaId", resultado.fichaCapturadaId);
-        notificacion.addProperty("jugadorCapturadoId", resultado.jugadorCapturadoId);
-        notificacion.addProperty("bonusGanado", resultado.bonusGanado);
+        String notificacion = FICHA_CAPTURADA.iniciar()
+            .entero(CAPTURADOR_ID, jugador.getId())
+            .texto(CAPTURADOR_NOMBRE, jugador.getNombre())
+            .entero(FICHA_CAPTURADA_ID, resultado.fichaCapturadaId)
+            .entero(JUGADOR_CAPTURADO_ID, resultado.jugadorCapturadoId)
+            .entero(BONUS_GANADO, resultado.bonusGanado)
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             null
         );
         
         // 2️⃣ ✅ NUEVO: Enviar ficha capturada a CASA
         Jugador capturado = partida.getJugadorPorId(resultado.jugadorCapturadoId);
-        JsonObject moverACasa = new JsonObject();
-        moverACasa.addProperty("tipo", "ficha_movida");
-        moverACasa.addProperty("jugadorId", capturado.getId());
-        moverACasa.addProperty("jugadorNombre", capturado.getNombre());
-        moverACasa.addProperty("fichaId", resultado.fichaCapturadaId);
-        moverACasa.addProperty("desde", -2);  // -2 = señal de captura
-        moverACasa.addProperty("hasta", -1);  // -1 = casa
-        moverACasa.addProperty("automatico", true);
+        EventoPartida moverACasa = EventoPartida.fichaMovida(
+            capturado.getId(),
+            capturado.getNombre(),
+            resultado.fichaCapturadaId,
+            -2,  // -2 = señal de captura
+            -1,  // -1 = casa
+            true,
+            null
+        );
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            moverACasa.toString(),
+            moverACasa,
             null
         );
         
         // 3️⃣ ✅ NUEVO: Aplicar bonus +20 al capturador
-        JsonObject aplicarBonus = new JsonObject();
-        aplicarBonus.addProperty("tipo", "aplicar_bonus_captura");
-        aplicarBonus.addProperty("jugadorId", jugador.getId());
-        aplicarBonus.addProperty("jugadorNombre", jugador.getNombre());
-        aplicarBonus.addProperty("fichaCapturadaId", resultado.fichaCapturadaId);
-        aplicarBonus.addProperty("bonusGanado", resultado.bonusGanado);
-        aplicarBonus.addProperty("bonusTotal", resultado.bonusTotal);
+        String aplicarBonus = APLICAR_BONUS_CAPTURA.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(JUGADOR_NOMBRE, jugador.getNombre())
+            .entero(FICHA_CAPTURADA_ID, resultado.fichaCapturadaId)
+            .entero(BONUS_GANADO, resultado.bonusGanado)
+            .entero(BONUS_TOTAL, resultado.bonusTotal)
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            aplicarBonus.toString(),
+            aplicarBonus,
             null
         );
     }
     
     private void notificarLlegadaMeta(Partida partida, Jugador jugador, int fichaId, 
                                       ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "ficha_en_meta");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("jugadorNombre", jugador.getNombre());
-        notificacion.addProperty("fichaId", fichaId);
-        notificacion.addProperty("fichasEnMeta", jugador.contarFichasEnMeta());
+        String notificacion = FICHA_EN_META.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(JUGADOR_NOMBRE, jugador.getNombre())
+            .entero(FICHA_ID, fichaId)
+            .entero(FICHAS_EN_META, jugador.contarFichasEnMeta())
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             null
         );
     }
     
     private void notificarGanador(Partida partida, Jugador ganador, ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "partida_ganada");
-        notificacion.addProperty("ganadorId", ganador.getId());
-        notificacion.addProperty("ganadorNombre", ganador.getNombre());
-        notificacion.addProperty("mensaje", "¡" + ganador.getNombre() + " ha ganado la partida!");
+        String notificacion = PARTIDA_GANADA.iniciar()
+            .entero(GANADOR_ID, ganador.getId())
+            .texto(GANADOR_NOMBRE, ganador.getNombre())
+            .texto(MENSAJE, "¡" + ganador.getNombre() + " ha ganado la partida!")
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             null
         );
     }
@@ -486,69 +734,50 @@ public class CtrlMoverFicha {
     private void notificarUsoBonus(Partida partida, Jugador jugador, int fichaId, int pasos,
                                    MotorJuego.ResultadoMovimiento resultado, 
                                    ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "bonus_usado");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("jugadorNombre", jugador.getNombre());
-        notificacion.addProperty("fichaId", fichaId);
-        notificacion.addProperty("pasosBonus", pasos);
-        notificacion.addProperty("bonusRestante", resultado.bonusRestante);
+        String notificacion = BONUS_USADO.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(JUGADOR_NOMBRE, jugador.getNombre())
+            .entero(FICHA_ID, fichaId)
+            .entero(PASOS_BONUS, pasos)
+            .entero(BONUS_RESTANTE, resultado.bonusRestante)
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             cliente.getSessionId()
         );
     }
     
     private void notificarCambioTurno(Partida partida, Jugador jugadorTurno, ClienteHandler cliente) {
         // Notificar a todos PRIMERO
-        JsonObject cambioTurno = new JsonObject();
-        cambioTurno.addProperty("tipo", "cambio_turno");
-        cambioTurno.addProperty("jugadorId", jugadorTurno.getId());
-        cambioTurno.addProperty("jugadorNombre", jugadorTurno.getNombre());
+        EventoPartida cambioTurno = EventoPartida.cambioTurno(
+            jugadorTurno.getId(), jugadorTurno.getNombre(), null);
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            cambioTurno.toString(),
+            cambioTurno,
             jugadorTurno.getSessionId()
         );
         
-        try {
-            Thread.sleep(200);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
         // Notificar al jugador específico
-        JsonObject tuTurno = new JsonObject();
-        tuTurno.addProperty("tipo", "tu_turno");
-        tuTurno.addProperty("jugadorId", jugadorTurno.getId());
-        tuTurno.addProperty("jugadorNombre", jugadorTurno.getNombre());
+        String tuTurno = TU_TURNO.iniciar()
+            .entero(JUGADOR_ID, jugadorTurno.getId())
+            .texto(JUGADOR_NOMBRE, jugadorTurno.getNombre())
+            .json();
         
-        ClienteHandler handlerTurno = cliente.getServidor().getCliente(jugadorTurno.getSessionId());
-        if (handlerTurno != null) {
-            handlerTurno.enviarMensaje(tuTurno.toString());
-            System.out.println("[TURNO] Notificado a " + jugadorTurno.getNombre() + " que es su turno");
-        }
+        // ✅ El secuenciador de la partida garantiza el orden: sin Thread.sleep
+        cliente.getServidor().enviarAJugadorDePartida(
+            partida.getId(), jugadorTurno.getSessionId(), tuTurno);
+        System.out.println("[TURNO] Notificado a " + jugadorTurno.getNombre() + " que es su turno");
     }
 
-    private void notificarEstadoTablero(Partida partida, ClienteHandler cliente) {
-        if (partida.getTablero() == null) {
-            return;
-        }
-        
-        JsonObject estadoTablero = partida.getTablero().generarEstadoJSON();
-        
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "estado_tablero");
-        notificacion.add("tablero", estadoTablero);
-        
-        cliente.getServidor().broadcastAPartida(
-            partida.getId(),
-            notificacion.toString(),
-            null
-        );
+    /**
+     * ✅ ACTUALIZADO: Difunde solo las fichas que cambiaron (tablero_delta)
+     * en lugar de las 96 casillas.
+     */
+    private void notificarCambiosTablero(Partida partida, ClienteHandler cliente) {
+        SincronizacionTablero.difundirCambios(partida, cliente);
     }
     
     private MotorJuego obtenerMotorJuego(Partida partida) {
@@ -557,10 +786,6 @@ public class CtrlMoverFicha {
     }
     
     private String crearError(String mensaje) {
-        JsonObject error = new JsonObject();
-        error.addProperty("tipo", "error");
-        error.addProperty("exito", false);
-        error.addProperty("mensaje", mensaje);
-        return error.toString();
+        return Respuestas.error(mensaje);
     }
 }
\ No newline at end of file
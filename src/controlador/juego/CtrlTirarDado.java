@@ -1,13 +1,16 @@
 package controlador.juego;
 
 import controlador.servidor.ClienteHandler;
+import controlador.servidor.EventoPartida;
+import controlador.servidor.PlantillaMensaje;
+import controlador.servidor.Respuestas;
+import com.google.gson.JsonObject;
 import modelo.Jugador.Jugador;
 import modelo.partida.Partida;
 import modelo.partida.EstadoPartida;
 import modelo.partida.MotorJuego;
 import modelo.servicios.PersistenciaServicio;
 import modelo.servicios.GestorMotores;
-import com.google.gson.JsonObject;
 import java.util.List;
 import java.util.Optional;
 import vista.VistaServidor;
@@ -15,6 +18,8 @@ import modelo.Ficha.Ficha;
 import modelo.Tablero.Casilla;
 import modelo.Tablero.Tablero;
 
+import static controlador.servidor.CamposMensaje.*;
+
 /**
  * ✅ ACTUALIZADO: Lógica completa de dados dobles
  * 
@@ -24,6 +29,17 @@ import modelo.Tablero.Tablero;
  */
 public class CtrlTirarDado {
     
+    // ✅ NUEVO: Mensajes con la parte fija ya serializada
+    private static final PlantillaMensaje RESULTADO_DADOS = PlantillaMensaje.de("resultado_dados").fijo("exito", true);
+    private static final PlantillaMensaje BONUS_DISPONIBLES = PlantillaMensaje.de("bonus_disponibles")
+        .fijo("cantidad", 2).fijo("valorCadaUno", 20).fijo("mensaje", "Tienes 2 bonos de 20 casillas cada uno");
+    private static final PlantillaMensaje BONUS_DISPONIBLE = PlantillaMensaje.de("bonus_disponible")
+        .fijo("valor", 20).fijo("mensaje", "Tienes 20 casillas de bonus por captura");
+    private static final PlantillaMensaje TU_TURNO = PlantillaMensaje.de("tu_turno");
+    private static final PlantillaMensaje JUGADOR_TIRO_DADOS = PlantillaMensaje.de("jugador_tiro_dados");
+    private static final PlantillaMensaje PENALIZACION_TRES_DOBLES = PlantillaMensaje.de("penalizacion_tres_dobles");
+    private static final PlantillaMensaje FICHA_CAPTURADA = PlantillaMensaje.de("ficha_capturada");
+    
     private final PersistenciaServicio persistencia;
     private final CtrlMoverFicha ctrlMoverFicha;
     
@@ -33,25 +49,33 @@ public class CtrlTirarDado {
     }
     
     public String ejecutar(ClienteHandler cliente, JsonObject datos) {
+        return ejecutar(cliente);
+    }
+    
+    /**
+     * ✅ NUEVO: tirar_dado no lleva parametros (lo usa el Dispatcher con
+     * la Solicitud ya decodificada)
+     */
+    public String ejecutar(ClienteHandler cliente) {
         try {
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
             if (!partidaOpt.isPresent()) {
-                return crearError("No estas en ninguna partida");
+                return Respuestas.SIN_PARTIDA;
             }
             
             Partida partida = partidaOpt.get();
             
             if (partida.getEstado() != EstadoPartida.EN_PROGRESO) {
-                return crearError("La partida no esta en progreso");
+                return Respuestas.PARTIDA_NO_EN_PROGRESO;
             }
             
             if (!partida.esTurnoDeJugador(jugador.getId())) {
-                return crearError("No es tu turno");
+                return Respuestas.NO_ES_TU_TURNO;
             }
             
             MotorJuego motor = obtenerMotorJuego(partida);
@@ -98,24 +122,19 @@ public class CtrlTirarDado {
                 }
                 
                 // Respuesta indicando penalización y turno perdido
-                JsonObject respuesta = new JsonObject();
-                respuesta.addProperty("tipo", "resultado_dados");
-                respuesta.addProperty("exito", true);
-                
-                JsonObject dadosObj = new JsonObject();
-                dadosObj.addProperty("dado1", resultado.dado1);
-                dadosObj.addProperty("dado2", resultado.dado2);
-                dadosObj.addProperty("esDoble", true);
-                dadosObj.addProperty("contadorDobles", resultado.contadorDobles);
-                respuesta.add("dados", dadosObj);
-                
-                respuesta.addProperty("penalizacion", true);
-                respuesta.addProperty("fichaPerdida", true);
-                respuesta.addProperty("puedeJugar", false);
-                respuesta.addProperty("turnoTerminado", true);
-                respuesta.addProperty("mensaje", "3 dobles consecutivos! Perdiste una ficha y tu turno");
-                
-                return respuesta.toString();
+                return RESULTADO_DADOS.iniciar()
+                    .objeto(DADOS)
+                        .entero(DADO1, resultado.dado1)
+                        .entero(DADO2, resultado.dado2)
+                        .booleano(ES_DOBLE, true)
+                        .entero(CONTADOR_DOBLES, resultado.contadorDobles)
+                    .cerrar()
+                    .booleano(PENALIZACION, true)
+                    .booleano(FICHA_PERDIDA, true)
+                    .booleano(PUEDE_JUGAR, false)
+                    .booleano(TURNO_TERMINADO, true)
+                    .texto(MENSAJE, "3 dobles consecutivos! Perdiste una ficha y tu turno")
+                    .json();
             }
             
             // ========================================
@@ -137,22 +156,17 @@ public class CtrlTirarDado {
                 }
                 
                 // Respuesta indicando turno perdido
-                JsonObject respuesta = new JsonObject();
-                respuesta.addProperty("tipo", "resultado_dados");
-                respuesta.addProperty("exito", true);
-                
-                JsonObject dadosObj = new JsonObject();
-                dadosObj.addProperty("dado1", resultado.dado1);
-                dadosObj.addProperty("dado2", resultado.dado2);
-                dadosObj.addProperty("esDoble", true);
-                dadosObj.addProperty("contadorDobles", resultado.contadorDobles);
-                respuesta.add("dados", dadosObj);
-                
-                respuesta.addProperty("puedeJugar", false);
-                respuesta.addProperty("turnoTerminado", true);
-                respuesta.addProperty("mensaje", "3 dobles consecutivos sin fichas fuera. Pierdes turno");
-                
-                return respuesta.toString();
+                return RESULTADO_DADOS.iniciar()
+                    .objeto(DADOS)
+                        .entero(DADO1, resultado.dado1)
+                        .entero(DADO2, resultado.dado2)
+                        .booleano(ES_DOBLE, true)
+                        .entero(CONTADOR_DOBLES, resultado.contadorDobles)
+                    .cerrar()
+                    .booleano(PUEDE_JUGAR, false)
+                    .booleano(TURNO_TERMINADO, true)
+                    .texto(MENSAJE, "3 dobles consecutivos sin fichas fuera. Pierdes turno")
+                    .json();
             }
             
             // ========================================
@@ -210,30 +224,40 @@ public class CtrlTirarDado {
                 dadoDisponible = resAuto.dadoDisponible;
             }
             
-            // Crear respuesta
-            JsonObject respuesta = crearRespuestaResultado(resultado);
-            respuesta.addProperty("puedeJugar", puedeJugar);
-            respuesta.addProperty("tieneFichasEnJuego", tieneFichasEnTablero);
-            
+            // Crear respuesta (el mensaje final va en la posicion del primero)
+            String mensaje = mensajeResultado(resultado);
             if (resultado.esDoble) {
-                respuesta.addProperty("debeVolverATirar", true);
-                
                 if (tieneFichasEnTablero) {
-                    respuesta.addProperty("mensaje", "¡Doble! Usa tus dados y podrás volver a tirar");
+                    mensaje = "¡Doble! Usa tus dados y podrás volver a tirar";
                 } else {
-                    respuesta.addProperty("mensaje", "¡Doble! Vuelve a tirar dados");
+                    mensaje = "¡Doble! Vuelve a tirar dados";
                 }
             }
+            if (dadoDisponible > 0) {
+                mensaje = "Tienes un dado " + dadoDisponible + " disponible para mover";
+            }
+            
+            PlantillaMensaje.Escritor respuesta = escribirResultado(resultado, mensaje)
+                .booleano(PUEDE_JUGAR, puedeJugar)
+                .booleano(TIENE_FICHAS_EN_JUEGO, tieneFichasEnTablero);
+            
+            if (resultado.esDoble) {
+                respuesta.booleano(DEBE_VOLVER_A_TIRAR, true);
+            }
             
             if (dadoDisponible > 0) {
-                respuesta.addProperty("dadoDisponible", dadoDisponible);
-                respuesta.addProperty("mensaje", "Tienes un dado " + dadoDisponible + " disponible para mover");
+                respuesta.entero(DADO_DISPONIBLE, dadoDisponible);
+            }
+            
+            // ✅ NUEVO: Jugadas legales con lo que queda de la tirada
+            if (puedeJugar) {
+                CtrlMoverFicha.escribirMovimientos(respuesta, motor.obtenerMovimientosLegales(jugador.getId()));
             }
             
-            return respuesta.toString();
+            return respuesta.json();
             
         } catch (MotorJuego.NoEsTuTurnoException e) {
-            return crearError("No es tu turno");
+            return Respuestas.NO_ES_TU_TURNO;
         } catch (Exception e) {
             System.err.println("Error tirando dados: " + e.getMessage());
             e.printStackTrace();
@@ -411,16 +435,8 @@ public class CtrlTirarDado {
                }
 
                // Notificar 2 bonos separados disponibles
-               JsonObject notifBonus = new JsonObject();
-               notifBonus.addProperty("tipo", "bonus_disponibles");
-               notifBonus.addProperty("cantidad", 2);
-               notifBonus.addProperty("valorCadaUno", 20);
-               notifBonus.addProperty("mensaje", "Tienes 2 bonos de 20 casillas cada uno");
-
-               ClienteHandler handler = cliente.getServidor().getCliente(jugador.getSessionId());
-               if (handler != null) {
-                   handler.enviarMensaje(notifBonus.toString());
-               }
+               cliente.getServidor().enviarAJugadorDePartida(
+                   partida.getId(), jugador.getSessionId(), BONUS_DISPONIBLES.constante());
 
                return new ResultadoAutomatico(false, 0); // Doble 5, vuelve a tirar
            }
@@ -461,27 +477,14 @@ public class CtrlTirarDado {
                System.out.println("[AUTO] Ficha sacada y rival capturado. Dado " + dadoDisp + " disponible.");
 
                // Notificar bonus disponible
-               JsonObject notifBonus = new JsonObject();
-               notifBonus.addProperty("tipo", "bonus_disponible");
-               notifBonus.addProperty("valor", 20);
-               notifBonus.addProperty("mensaje", "Tienes 20 casillas de bonus por captura");
-
-               ClienteHandler handler = cliente.getServidor().getCliente(jugador.getSessionId());
-               if (handler != null) {
-                   handler.enviarMensaje(notifBonus.toString());
-               }
+               cliente.getServidor().enviarAJugadorDePartida(
+                   partida.getId(), jugador.getSessionId(), BONUS_DISPONIBLE.constante());
 
                return new ResultadoAutomatico(true, dadoDisp);
            } else {
                // Usó ambos dados, pasar turno
                System.out.println("[AUTO] Ficha sacada con ambos dados. Pasando turno...");
 
-               try {
-                   Thread.sleep(300);
-               } catch (InterruptedException e) {
-                   Thread.currentThread().interrupt();
-               }
-
                partida.avanzarTurno();
 
                Jugador siguienteJugador = partida.getJugadorActual();
@@ -621,12 +624,6 @@ public class CtrlTirarDado {
             // Usó ambos dados (suma = 5), pasar turno
             System.out.println("[AUTO] Ficha sacada con suma=5 (ambos dados). Pasando turno...");
             
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            
             partida.avanzarTurno();
             
             Jugador siguienteJugador = partida.getJugadorActual();
@@ -648,206 +645,177 @@ public class CtrlTirarDado {
 }
     
     private void pasarTurnoAutomaticamente(Partida partida, Jugador jugador, ClienteHandler cliente) {
-        try {
-            Thread.sleep(300);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
         partida.avanzarTurno();
         
         Jugador siguienteJugador = partida.getJugadorActual();
         if (siguienteJugador != null) {
-            JsonObject cambioTurno = new JsonObject();
-            cambioTurno.addProperty("tipo", "cambio_turno");
-            cambioTurno.addProperty("jugadorId", siguienteJugador.getId());
-            cambioTurno.addProperty("jugadorNombre", siguienteJugador.getNombre());
-            cambioTurno.addProperty("mensaje", jugador.getNombre() + " no pudo jugar. Turno pasado.");
+            EventoPartida cambioTurno = EventoPartida.cambioTurno(
+                siguienteJugador.getId(),
+                siguienteJugador.getNombre(),
+                jugador.getNombre() + " no pudo jugar. Turno pasado.");
             
             cliente.getServidor().broadcastAPartida(
                 partida.getId(),
-                cambioTurno.toString(),
+                cambioTurno,
                 null
             );
             
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            
-            JsonObject tuTurno = new JsonObject();
-            tuTurno.addProperty("tipo", "tu_turno");
-            tuTurno.addProperty("jugadorId", siguienteJugador.getId());
-            tuTurno.addProperty("jugadorNombre", siguienteJugador.getNombre());
+            String tuTurno = TU_TURNO.iniciar()
+                .entero(JUGADOR_ID, siguienteJugador.getId())
+                .texto(JUGADOR_NOMBRE, siguienteJugador.getNombre())
+                .json();
             
-            ClienteHandler handlerTurno = cliente.getServidor().getCliente(siguienteJugador.getSessionId());
-            if (handlerTurno != null) {
-                handlerTurno.enviarMensaje(tuTurno.toString());
-                System.out.println("[TURNO AUTO] Notificado a " + siguienteJugador.getNombre() + " que es su turno");
-            }
+            cliente.getServidor().enviarAJugadorDePartida(
+                partida.getId(), siguienteJugador.getSessionId(), tuTurno);
+            System.out.println("[TURNO AUTO] Notificado a " + siguienteJugador.getNombre() + " que es su turno");
         }
     }
     
     private void notificarResultadoDados(Partida partida, Jugador jugador,
                                          MotorJuego.ResultadoDados resultado,
                                          ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "jugador_tiro_dados");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("jugadorNombre", jugador.getNombre());
-        notificacion.addProperty("dado1", resultado.dado1);
-        notificacion.addProperty("dado2", resultado.dado2);
-        notificacion.addProperty("suma", resultado.getSuma());
-        notificacion.addProperty("esDoble", resultado.esDoble);
+        String notificacion = JUGADOR_TIRO_DADOS.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(JUGADOR_NOMBRE, jugador.getNombre())
+            .entero(DADO1, resultado.dado1)
+            .entero(DADO2, resultado.dado2)
+            .entero(SUMA, resultado.getSuma())
+            .booleano(ES_DOBLE, resultado.esDoble)
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            notificacion.toString(),
+            notificacion,
             cliente.getSessionId()
         );
         
-        JsonObject respuestaLocal = crearRespuestaResultadoConJugador(resultado, jugador);
-        cliente.enviarMensaje(respuestaLocal.toString());
+        String respuestaLocal = crearRespuestaResultadoConJugador(resultado, jugador);
+        cliente.getServidor().enviarAJugadorDePartida(
+            partida.getId(), cliente.getSessionId(), respuestaLocal);
     }
     
     private void notificarPenalizacionTresDobles(Partida partida, Jugador jugador, 
                                                  ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "penalizacion_tres_dobles");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("jugadorNombre", jugador.getNombre());
-        notificacion.addProperty("mensaje", jugador.getNombre() + 
-                                           " sacó 3 dobles consecutivos! Ficha más adelantada regresa a casa");
+        String notificacion = PENALIZACION_TRES_DOBLES.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(JUGADOR_NOMBRE, jugador.getNombre())
+            .texto(MENSAJE, jugador.getNombre() + 
+                            " sacó 3 dobles consecutivos! Ficha más adelantada regresa a casa")
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            notificacion.toString(),
+            notificacion,
             null
         );
+        
+        // ✅ NUEVO: La ficha que vuelve a casa tambien llega como delta
+        SincronizacionTablero.difundirCambios(partida, cliente);
     }
     
     private void notificarSacarFicha(Partida partida, Jugador jugador, 
                                      MotorJuego.ResultadoSacar resultado,
                                      ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "ficha_movida");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("jugadorNombre", jugador.getNombre());
-        notificacion.addProperty("fichaId", resultado.fichaId);
-        notificacion.addProperty("desde", -1);
-        notificacion.addProperty("hasta", resultado.casillaLlegada);
-        notificacion.addProperty("automatico", true);
-        
-        if (resultado.hayDadoDisponible()) {
-            notificacion.addProperty("dadoDisponible", resultado.getDadoDisponible());
-        }
+        EventoPartida notificacion = EventoPartida.fichaMovida(
+            jugador.getId(),
+            jugador.getNombre(),
+            resultado.fichaId,
+            -1,
+            resultado.casillaLlegada,
+            true,
+            resultado.hayDadoDisponible() ? resultado.getDadoDisponible() : null
+        );
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            notificacion.toString(),
+            notificacion,
             null
         );
         
-        if (partida.getTablero() != null) {
-            JsonObject estadoTablero = partida.getTablero().generarEstadoJSON();
-            JsonObject notifTablero = new JsonObject();
-            notifTablero.addProperty("tipo", "estado_tablero");
-            notifTablero.add("tablero", estadoTablero);
-            
-            cliente.getServidor().broadcastAPartida(
-                partida.getId(),
-                notifTablero.toString(),
-                null
-            );
-        }
+        // ✅ ACTUALIZADO: Solo las fichas que cambiaron (tablero_delta)
+        SincronizacionTablero.difundirCambios(partida, cliente);
     }
     
     private void notificarCaptura(Partida partida, Jugador jugador, int fichaCapturadaId,
                                   int jugadorCapturadoId, int bonusGanado, ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "ficha_capturada");
-        notificacion.addProperty("capturadorId", jugador.getId());
-        notificacion.addProperty("capturadorNombre", jugador.getNombre());
-        notificacion.addProperty("fichaCapturadaId", fichaCapturadaId);
-        notificacion.addProperty("jugadorCapturadoId", jugadorCapturadoId);
-        notificacion.addProperty("bonusGanado", bonusGanado);
+        String notificacion = FICHA_CAPTURADA.iniciar()
+            .entero(CAPTURADOR_ID, jugador.getId())
+            .texto(CAPTURADOR_NOMBRE, jugador.getNombre())
+            .entero(FICHA_CAPTURADA_ID, fichaCapturadaId)
+            .entero(JUGADOR_CAPTURADO_ID, jugadorCapturadoId)
+            .entero(BONUS_GANADO, bonusGanado)
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            notificacion.toString(),
+            notificacion,
             null
         );
     }
     
     private void notificarCambioTurno(Partida partida, Jugador jugadorTurno, ClienteHandler cliente) {
-        JsonObject cambioTurno = new JsonObject();
-        cambioTurno.addProperty("tipo", "cambio_turno");
-        cambioTurno.addProperty("jugadorId", jugadorTurno.getId());
-        cambioTurno.addProperty("jugadorNombre", jugadorTurno.getNombre());
+        EventoPartida cambioTurno = EventoPartida.cambioTurno(
+            jugadorTurno.getId(), jugadorTurno.getNombre(), null);
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(),
-            cambioTurno.toString(),
+            cambioTurno,
             jugadorTurno.getSessionId()
         );
         
-        try {
-            Thread.sleep(200);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        
-        JsonObject tuTurno = new JsonObject();
-        tuTurno.addProperty("tipo", "tu_turno");
-        tuTurno.addProperty("jugadorId", jugadorTurno.getId());
-        tuTurno.addProperty("jugadorNombre", jugadorTurno.getNombre());
+        String tuTurno = TU_TURNO.iniciar()
+            .entero(JUGADOR_ID, jugadorTurno.getId())
+            .texto(JUGADOR_NOMBRE, jugadorTurno.getNombre())
+            .json();
         
-        ClienteHandler handlerTurno = cliente.getServidor().getCliente(jugadorTurno.getSessionId());
-        if (handlerTurno != null) {
-            handlerTurno.enviarMensaje(tuTurno.toString());
-            System.out.println("[TURNO] Notificado a " + jugadorTurno.getNombre() + " que es su turno");
-        }
+        // ✅ El secuenciador de la partida garantiza el orden: sin Thread.sleep
+        cliente.getServidor().enviarAJugadorDePartida(
+            partida.getId(), jugadorTurno.getSessionId(), tuTurno);
+        System.out.println("[TURNO] Notificado a " + jugadorTurno.getNombre() + " que es su turno");
     }
     
-    private JsonObject crearRespuestaResultado(MotorJuego.ResultadoDados resultado) {
-        JsonObject respuesta = new JsonObject();
-        respuesta.addProperty("tipo", "resultado_dados");
-        respuesta.addProperty("exito", true);
-        
-        JsonObject dados = new JsonObject();
-        dados.addProperty("dado1", resultado.dado1);
-        dados.addProperty("dado2", resultado.dado2);
-        dados.addProperty("suma", resultado.getSuma());
-        dados.addProperty("esDoble", resultado.esDoble);
-        dados.addProperty("contadorDobles", resultado.contadorDobles);
-        
-        respuesta.add("dados", dados);
-        
+    private static String mensajeResultado(MotorJuego.ResultadoDados resultado) {
         if (resultado.bloqueoRoto) {
-            respuesta.addProperty("bloqueoRoto", true);
-            respuesta.addProperty("mensaje", "¡Doble! Se rompio tu bloqueo");
+            return "¡Doble! Se rompio tu bloqueo";
         } else if (resultado.fichaPerdida) {
-            respuesta.addProperty("fichaPerdida", true);
-            respuesta.addProperty("mensaje", "3 dobles consecutivos! Perdiste una ficha");
+            return "3 dobles consecutivos! Perdiste una ficha";
         } else if (resultado.esDoble) {
-            respuesta.addProperty("mensaje", "¡Doble! Puedes volver a tirar");
+            return "¡Doble! Puedes volver a tirar";
         } else {
-            respuesta.addProperty("mensaje", "Dados lanzados");
+            return "Dados lanzados";
         }
-        
-        return respuesta;
     }
     
-    private JsonObject crearRespuestaResultadoConJugador(MotorJuego.ResultadoDados resultado, Jugador jugador) {
-        JsonObject respuesta = crearRespuestaResultado(resultado);
+    /**
+     * ✅ ACTUALIZADO: Escribe resultado_dados hasta "mensaje"; el llamador
+     * agrega sus campos y termina con json().
+     */
+    private PlantillaMensaje.Escritor escribirResultado(MotorJuego.ResultadoDados resultado, String mensaje) {
+        PlantillaMensaje.Escritor respuesta = RESULTADO_DADOS.iniciar()
+            .objeto(DADOS)
+                .entero(DADO1, resultado.dado1)
+                .entero(DADO2, resultado.dado2)
+                .entero(SUMA, resultado.getSuma())
+                .booleano(ES_DOBLE, resultado.esDoble)
+                .entero(CONTADOR_DOBLES, resultado.contadorDobles)
+            .cerrar();
+        
+        if (resultado.bloqueoRoto) {
+            respuesta.booleano(BLOQUEO_ROTO, true);
+        } else if (resultado.fichaPerdida) {
+            respuesta.booleano(FICHA_PERDIDA, true);
+        }
         
+        return respuesta.texto(MENSAJE, mensaje);
+    }
+    
+    private String crearRespuestaResultadoConJugador(MotorJuego.ResultadoDados resultado, Jugador jugador) {
         boolean tieneFichasEnJuego = jugador.getFichas().stream()
             .anyMatch(f -> !f.estaEnCasa() && !f.estaEnMeta());
         
-        respuesta.addProperty("tieneFichasEnJuego", tieneFichasEnJuego);
-        
-        return respuesta;
+        return escribirResultado(resultado, mensajeResultado(resultado))
+            .booleano(TIENE_FICHAS_EN_JUEGO, tieneFichasEnJuego)
+            .json();
     }
     
     private MotorJuego obtenerMotorJuego(Partida partida) {
@@ -856,10 +824,6 @@ public class CtrlTirarDado {
     }
     
     private String crearError(String mensaje) {
-        JsonObject error = new JsonObject();
-        error.addProperty("tipo", "error");
-        error.addProperty("exito", false);
-        error.addProperty("mensaje", mensaje);
-        return error.toString();
+        return Respuestas.error(mensaje);
     }
 }
\ No newline at end of file
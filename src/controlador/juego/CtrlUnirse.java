@@ -1,18 +1,40 @@
 package controlador.juego;
 
 import controlador.servidor.ClienteHandler;
+import controlador.servidor.PlantillaMensaje;
+import controlador.servidor.Respuestas;
 import modelo.Jugador.Jugador;
+import modelo.partida.InstantaneaPartida;
 import modelo.partida.Partida;
 import modelo.partida.EstadoPartida;
 import modelo.servicios.PersistenciaServicio;
 import modelo.servicios.SalaServicio;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonArray;
 import java.util.List;
 import java.util.Optional;
 
+import static controlador.servidor.CamposMensaje.*;
+
 public class CtrlUnirse {
     
+    // ✅ NUEVO: Mensajes con la parte fija ya serializada
+    private static final PlantillaMensaje REGISTRO_EXITOSO = PlantillaMensaje.de("registro_exitoso").fijo("exito", true);
+    private static final PlantillaMensaje SALA_CREADA = PlantillaMensaje.de("sala_creada")
+        .fijo("exito", true).fijo("mensaje", "Sala creada exitosamente");
+    private static final PlantillaMensaje UNION_EXITOSA = PlantillaMensaje.de("union_exitosa")
+        .fijo("exito", true).fijo("mensaje", "Te has unido a la partida");
+    private static final PlantillaMensaje UNION_AUTOMATICA = PlantillaMensaje.de("union_exitosa")
+        .fijo("exito", true).fijo("mensaje", "Te has unido a una partida");
+    private static final PlantillaMensaje LISTA_SALAS = PlantillaMensaje.de("lista_salas").fijo("exito", true);
+    private static final PlantillaMensaje LISTO_CONFIRMADO = PlantillaMensaje.de("listo_confirmado")
+        .fijo("exito", true).fijo("mensaje", "Esperando a otros jugadores...");
+    private static final String SALIDA_EXITOSA = PlantillaMensaje.de("salida_exitosa")
+        .fijo("exito", true).fijo("mensaje", "Has salido de la partida").constante();
+    private static final PlantillaMensaje JUGADOR_UNIDO = PlantillaMensaje.de("jugador_unido");
+    private static final PlantillaMensaje JUGADOR_LISTO = PlantillaMensaje.de("jugador_listo");
+    private static final PlantillaMensaje JUGADOR_SALIO = PlantillaMensaje.de("jugador_salio");
+    private static final PlantillaMensaje INICIO_PARTIDA = PlantillaMensaje.de("partida_iniciada")
+        .fijo("mensaje", "¡La partida ha comenzado!");
+    
     private final PersistenciaServicio persistencia;
     private final SalaServicio salaServicio;
     
@@ -42,19 +64,14 @@ public class CtrlUnirse {
             
             System.out.println("Jugador registrado: " + nombre + " [ID: " + jugador.getId() + "]");
             
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "registro_exitoso");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("mensaje", "Bienvenido, " + nombre);
-            
-            JsonObject datosJugador = new JsonObject();
-            datosJugador.addProperty("id", jugador.getId());
-            datosJugador.addProperty("nombre", jugador.getNombre());
-            datosJugador.addProperty("sessionId", cliente.getSessionId());
-            
-            respuesta.add("jugador", datosJugador);
-            
-            return respuesta.toString();
+            return REGISTRO_EXITOSO.iniciar()
+                .texto(MENSAJE, "Bienvenido, " + nombre)
+                .objeto(JUGADOR)
+                    .entero(ID, jugador.getId())
+                    .texto(NOMBRE, jugador.getNombre())
+                    .texto(SESSION_ID, cliente.getSessionId())
+                .cerrar()
+                .json();
             
         } catch (Exception e) {
             System.err.println("Error registrando jugador: " + e.getMessage());
@@ -66,7 +83,7 @@ public class CtrlUnirse {
         try {
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             Optional<Partida> partidaActual = persistencia.obtenerPartidaDeJugador(jugador.getId());
@@ -88,15 +105,10 @@ public class CtrlUnirse {
             
             System.out.println("✓ Sala creada: " + nombreSala + " [ID: " + partida.getId() + "]");
             
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "sala_creada");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("mensaje", "Sala creada exitosamente");
-            
-            JsonObject datosPartida = serializarPartida(partida);
-            respuesta.add("partida", datosPartida);
+            PlantillaMensaje.Escritor respuesta = SALA_CREADA.iniciar();
+            serializarPartida(respuesta, partida);
             
-            return respuesta.toString();
+            return respuesta.json();
             
         } catch (Exception e) {
             System.err.println("Error creando sala: " + e.getMessage());
@@ -108,7 +120,7 @@ public class CtrlUnirse {
         try {
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             Optional<Partida> partidaActual = persistencia.obtenerPartidaDeJugador(jugador.getId());
@@ -131,15 +143,10 @@ public class CtrlUnirse {
             
             notificarNuevoJugador(partida, jugador, cliente);
             
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "union_exitosa");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("mensaje", "Te has unido a la partida");
-            
-            JsonObject datosPartida = serializarPartida(partida);
-            respuesta.add("partida", datosPartida);
+            PlantillaMensaje.Escritor respuesta = UNION_EXITOSA.iniciar();
+            serializarPartida(respuesta, partida);
             
-            return respuesta.toString();
+            return respuesta.json();
             
         } catch (Exception e) {
             System.err.println("Error uniendose a partida: " + e.getMessage());
@@ -151,7 +158,7 @@ public class CtrlUnirse {
         try {
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             Optional<Partida> partidaActual = persistencia.obtenerPartidaDeJugador(jugador.getId());
@@ -169,15 +176,10 @@ public class CtrlUnirse {
             
             notificarNuevoJugador(partida, jugador, cliente);
             
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "union_exitosa");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("mensaje", "Te has unido a una partida");
+            PlantillaMensaje.Escritor respuesta = UNION_AUTOMATICA.iniciar();
+            serializarPartida(respuesta, partida);
             
-            JsonObject datosPartida = serializarPartida(partida);
-            respuesta.add("partida", datosPartida);
-            
-            return respuesta.toString();
+            return respuesta.json();
             
         } catch (Exception e) {
             System.err.println("Error uniendose a partida: " + e.getMessage());
@@ -189,25 +191,23 @@ public class CtrlUnirse {
         try {
             List<Partida> disponibles = salaServicio.obtenerPartidasDisponibles();
             
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "lista_salas");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("total", disponibles.size());
-            
-            JsonArray salas = new JsonArray();
+            PlantillaMensaje.Escritor respuesta = LISTA_SALAS.iniciar()
+                .entero(TOTAL, disponibles.size())
+                .lista(SALAS);
+            // ✅ ACTUALIZADO: Lee la instantanea publicada de cada sala, sin
+            // tomar su lock mientras se juega
             for (Partida p : disponibles) {
-                JsonObject sala = new JsonObject();
-                sala.addProperty("id", p.getId());
-                sala.addProperty("nombre", p.getNombre());
-                sala.addProperty("jugadores", p.getJugadores().size());
-                sala.addProperty("maxJugadores", p.getMaxJugadores());
-                sala.addProperty("estado", p.getEstado().toString());
-                salas.add(sala);
+                InstantaneaPartida sala = p.getInstantanea();
+                respuesta.elemento()
+                    .entero(ID, sala.partidaId)
+                    .texto(NOMBRE, sala.nombre)
+                    .entero(JUGADORES, sala.jugadores.size())
+                    .entero(MAX_JUGADORES, sala.maxJugadores)
+                    .texto(ESTADO, sala.estado.toString())
+                    .cerrar();
             }
             
-            respuesta.add("salas", salas);
-            
-            return respuesta.toString();
+            return respuesta.cerrar().json();
             
         } catch (Exception e) {
             return crearError("Error listando salas: " + e.getMessage());
@@ -219,12 +219,12 @@ public class CtrlUnirse {
         try {
             Jugador jugador = clienteHandler.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
 
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
             if (!partidaOpt.isPresent()) {
-                return crearError("No estas en ninguna partida");
+                return Respuestas.SIN_PARTIDA;
             }
 
             Partida partida = partidaOpt.get();
@@ -243,13 +243,9 @@ public class CtrlUnirse {
                 notificarInicioPartida(partida, clienteHandler);
             }
 
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "listo_confirmado");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("mensaje", "Esperando a otros jugadores...");
-            respuesta.addProperty("partidaIniciada", partida.getEstado() == EstadoPartida.EN_PROGRESO);
-
-            return respuesta.toString();
+            return LISTO_CONFIRMADO.iniciar()
+                .booleano(PARTIDA_INICIADA, partida.getEstado() == EstadoPartida.EN_PROGRESO)
+                .json();
 
         } catch (Exception e) {
             return crearError("Error: " + e.getMessage());
@@ -261,12 +257,12 @@ public class CtrlUnirse {
         try {
             Jugador jugador = cliente.getJugador();
             if (jugador == null) {
-                return crearError("Debes registrarte primero");
+                return Respuestas.NO_REGISTRADO;
             }
             
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugador.getId());
             if (!partidaOpt.isPresent()) {
-                return crearError("No estas en ninguna partida");
+                return Respuestas.SIN_PARTIDA;
             }
             
             Partida partida = partidaOpt.get();
@@ -282,12 +278,7 @@ public class CtrlUnirse {
             
             notificarJugadorSalio(partidaId, jugador, cliente);
             
-            JsonObject respuesta = new JsonObject();
-            respuesta.addProperty("tipo", "salida_exitosa");
-            respuesta.addProperty("exito", true);
-            respuesta.addProperty("mensaje", "Has salido de la partida");
-            
-            return respuesta.toString();
+            return SALIDA_EXITOSA;
             
         } catch (Exception e) {
             return crearError("Error: " + e.getMessage());
@@ -295,109 +286,104 @@ public class CtrlUnirse {
     }
 
     private void notificarNuevoJugador(Partida partida, Jugador nuevoJugador, ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "jugador_unido");
-        notificacion.addProperty("jugadorId", nuevoJugador.getId());
-        notificacion.addProperty("nombre", nuevoJugador.getNombre());
-        notificacion.addProperty("totalJugadores", partida.getJugadores().size());
+        String notificacion = JUGADOR_UNIDO.iniciar()
+            .entero(JUGADOR_ID, nuevoJugador.getId())
+            .texto(NOMBRE, nuevoJugador.getNombre())
+            .entero(TOTAL_JUGADORES, partida.getJugadores().size())
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             cliente.getSessionId()
         );
     }
     
     private void notificarJugadorListo(Partida partida, Jugador jugador, ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "jugador_listo");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("nombre", jugador.getNombre());
+        String notificacion = JUGADOR_LISTO.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(NOMBRE, jugador.getNombre())
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partida.getId(), 
-            notificacion.toString(), 
+            notificacion, 
             cliente.getSessionId()
         );
     }
     
     private void notificarJugadorSalio(int partidaId, Jugador jugador, ClienteHandler cliente) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "jugador_salio");
-        notificacion.addProperty("jugadorId", jugador.getId());
-        notificacion.addProperty("nombre", jugador.getNombre());
+        String notificacion = JUGADOR_SALIO.iniciar()
+            .entero(JUGADOR_ID, jugador.getId())
+            .texto(NOMBRE, jugador.getNombre())
+            .json();
         
         cliente.getServidor().broadcastAPartida(
             partidaId, 
-            notificacion.toString(), 
+            notificacion, 
             cliente.getSessionId()
         );
     }
     
    
     private void notificarInicioPartida(Partida partida, ClienteHandler clienteHandler) {
-        JsonObject notificacion = new JsonObject();
-        notificacion.addProperty("tipo", "partida_iniciada");
-        notificacion.addProperty("mensaje", "¡La partida ha comenzado!");
-        notificacion.addProperty("turnoInicial", partida.getTurnoActual());
+        PlantillaMensaje.Escritor escritor = INICIO_PARTIDA.iniciar()
+            .entero(TURNO_INICIAL, partida.getTurnoActual());
 
         Jugador jugadorTurno = partida.getJugadorActual();
         if (jugadorTurno != null) {
-            notificacion.addProperty("turnoJugadorId", jugadorTurno.getId());
-            notificacion.addProperty("turnoJugadorNombre", jugadorTurno.getNombre());
+            escritor.entero(TURNO_JUGADOR_ID, jugadorTurno.getId())
+                .texto(TURNO_JUGADOR_NOMBRE, jugadorTurno.getNombre());
         }
 
         // ✅ NUEVO: Agregar información de jugadores con colores
-        JsonArray jugadoresArray = new JsonArray();
+        escritor.lista(JUGADORES);
         for (Jugador j : partida.getJugadores()) {
-            JsonObject jugadorObj = new JsonObject();
-            jugadorObj.addProperty("id", j.getId());
-            jugadorObj.addProperty("nombre", j.getNombre());
-            jugadorObj.addProperty("color", j.getColor() != null ? j.getColor().toString() : "NINGUNO");
-            jugadoresArray.add(jugadorObj);
+            escritor.elemento()
+                .entero(ID, j.getId())
+                .texto(NOMBRE, j.getNombre())
+                .texto(COLOR, j.getColor() != null ? j.getColor().toString() : "NINGUNO")
+                .cerrar();
 
             System.out.println("[DEBUG CtrlUnirse] Agregando jugador: " + j.getNombre() + " con color " + j.getColor());
         }
-        notificacion.add("jugadores", jugadoresArray);
+        String notificacion = escritor.cerrar().json();
 
-        System.out.println("[DEBUG CtrlUnirse] JSON enviado: " + notificacion.toString());
+        System.out.println("[DEBUG CtrlUnirse] JSON enviado: " + notificacion);
 
         clienteHandler.getServidor().broadcastAPartida(
             partida.getId(),
-            notificacion.toString()
+            notificacion
         );
     }
     
     
-    private JsonObject serializarPartida(Partida partida) {
-        JsonObject datos = new JsonObject();
-        datos.addProperty("id", partida.getId());
-        datos.addProperty("nombre", partida.getNombre());
-        datos.addProperty("estado", partida.getEstado().toString());
-        datos.addProperty("maxJugadores", partida.getMaxJugadores());
-        datos.addProperty("turnoActual", partida.getTurnoActual());
+    /**
+     * ✅ ACTUALIZADO: Escribe el campo "partida" en el mensaje en curso.
+     */
+    private void serializarPartida(PlantillaMensaje.Escritor escritor, Partida partida) {
+        escritor.objeto(PARTIDA)
+            .entero(ID, partida.getId())
+            .texto(NOMBRE, partida.getNombre())
+            .texto(ESTADO, partida.getEstado().toString())
+            .entero(MAX_JUGADORES, partida.getMaxJugadores())
+            .entero(TURNO_ACTUAL, partida.getTurnoActual())
+            .lista(JUGADORES);
         
-        JsonArray jugadores = new JsonArray();
         for (Jugador j : partida.getJugadores()) {
-            JsonObject jugadorObj = new JsonObject();
-            jugadorObj.addProperty("id", j.getId());
-            jugadorObj.addProperty("nombre", j.getNombre());
-            jugadorObj.addProperty("color", j.getColor() != null ? j.getColor().toString() : "null");
-            jugadorObj.addProperty("listo", j.isListo());
-            jugadorObj.addProperty("puntos", j.getPuntos());
-            jugadores.add(jugadorObj);
+            escritor.elemento()
+                .entero(ID, j.getId())
+                .texto(NOMBRE, j.getNombre())
+                .texto(COLOR, j.getColor() != null ? j.getColor().toString() : "null")
+                .booleano(LISTO, j.isListo())
+                .entero(PUNTOS, j.getPuntos())
+                .cerrar();
         }
         
-        datos.add("jugadores", jugadores);
-        
-        return datos;
+        escritor.cerrar().cerrar();
     }
     
     private String crearError(String mensaje) {
-        JsonObject error = new JsonObject();
-        error.addProperty("tipo", "error");
-        error.addProperty("exito", false);
-        error.addProperty("mensaje", mensaje);
-        return error.toString();
+        return Respuestas.error(mensaje);
     }
 }
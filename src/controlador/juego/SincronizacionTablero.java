@@ -0,0 +1,59 @@
+package controlador.juego;
+
+import controlador.servidor.ClienteHandler;
+import controlador.servidor.EventoPartida;
+import modelo.Tablero.DeltaTablero;
+import modelo.Tablero.Tablero;
+import modelo.partida.Partida;
+
+/**
+ * ✅ NUEVO: Sincronizacion del tablero por versiones.
+ *
+ * Tras cada jugada se difunde un tablero_delta con solo las fichas que se
+ * movieron, etiquetado con versionAnterior y version. El cliente que
+ * detecta un salto de version pide el estado completo con
+ * {"tipo":"obtener_tablero"} y recibe un estado_tablero que incluye la
+ * version del tablero.
+ */
+public final class SincronizacionTablero {
+
+    private SincronizacionTablero() {
+    }
+
+    /**
+     * Confirma los cambios del tablero de la partida y los difunde a todos.
+     * Confirmar y encolar van juntos para que los deltas salgan en orden de
+     * version.
+     */
+    public static void difundirCambios(Partida partida, ClienteHandler cliente) {
+        Tablero tablero = partida.getTablero();
+        if (tablero == null) {
+            return;
+        }
+
+        synchronized (tablero) {
+            DeltaTablero delta = tablero.confirmarCambios();
+            if (delta == null) {
+                return;
+            }
+            cliente.getServidor().broadcastAPartida(partida.getId(), crearMensajeDelta(delta), null);
+        }
+    }
+
+    /**
+     * ✅ ACTUALIZADO: Devuelve el EventoPartida (JSON y trama binaria).
+     */
+    public static EventoPartida crearMensajeDelta(DeltaTablero delta) {
+        return EventoPartida.tableroDelta(delta);
+    }
+
+    /**
+     * Estado completo del tablero (con su version), para el cliente que
+     * perdio la secuencia de deltas.
+     * ✅ ACTUALIZADO: De la instantanea publicada, sin el monitor del
+     * tablero; su JSON se genera una vez por version.
+     */
+    public static EventoPartida crearMensajeEstado(Tablero tablero) {
+        return EventoPartida.estadoTablero(tablero.getInstantanea());
+    }
+}
@@ -5,6 +5,7 @@ import com.google.gson.JsonParser;
 import vista.VistaCliente;
 import vista.TableroVista;
 import controlador.ClienteControlador;
+import controlador.servidor.LectorEntrada;
 import java.io.*;
 import java.net.*;
 import java.util.Map;
@@ -99,16 +100,15 @@ public class ClientePeer {
     
     private void manejarConexionPeer(Socket socket) {
         try {
-            BufferedReader entrada = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), "UTF-8")
-            );
+            // ✅ ACTUALIZADO: Lineas acotadas (un peer no puede agotar el heap)
+            LectorEntrada entrada = new LectorEntrada(socket.getInputStream());
             PrintWriter salida = new PrintWriter(
                 new OutputStreamWriter(socket.getOutputStream(), "UTF-8"),
                 true
             );
             
             // ✅ CRÍTICO: Esperar mensaje de handshake con ID del peer
-            String primerMensaje = entrada.readLine();
+            String primerMensaje = entrada.leerLinea();
             if (primerMensaje != null) {
                 try {
                     JsonObject json = JsonParser.parseString(primerMensaje).getAsJsonObject();
@@ -123,7 +123,7 @@ public class ClientePeer {
                         
                         // Continuar escuchando mensajes de este peer
                         String mensaje;
-                        while ((mensaje = entrada.readLine()) != null) {
+                        while ((mensaje = entrada.leerLinea()) != null) {
                             procesarMensajePeer(mensaje);
                         }
                     }
@@ -145,9 +145,7 @@ public class ClientePeer {
         try {
             Socket socket = new Socket(ip, puerto);
             
-            BufferedReader entrada = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), "UTF-8")
-            );
+            LectorEntrada entrada = new LectorEntrada(socket.getInputStream());
             PrintWriter salida = new PrintWriter(
                 new OutputStreamWriter(socket.getOutputStream(), "UTF-8"),
                 true
@@ -181,7 +179,7 @@ public class ClientePeer {
     private void escucharPeer(ConexionPeer conexion) {
         try {
             String mensaje;
-            while ((mensaje = conexion.entrada.readLine()) != null) {
+            while ((mensaje = conexion.entrada.leerLinea()) != null) {
                 procesarMensajePeer(mensaje);
             }
         } catch (IOException e) {
@@ -335,10 +333,10 @@ public class ClientePeer {
     private static class ConexionPeer {
         final int jugadorId;
         final Socket socket;
-        final BufferedReader entrada;
+        final LectorEntrada entrada;
         final PrintWriter salida;
         
-        ConexionPeer(int jugadorId, Socket socket, BufferedReader entrada, PrintWriter salida) {
+        ConexionPeer(int jugadorId, Socket socket, LectorEntrada entrada, PrintWriter salida) {
             this.jugadorId = jugadorId;
             this.socket = socket;
             this.entrada = entrada;
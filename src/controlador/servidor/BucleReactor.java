@@ -0,0 +1,189 @@
+package controlador.servidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bucle reactor: un hilo con su propio Selector que atiende lecturas y
+ * escrituras de muchas conexiones no bloqueantes.
+ *
+ * Los mensajes completos se entregan al ClienteHandler, que los procesa
+ * con el Dispatcher fuera de este hilo.
+ */
+final class BucleReactor implements Runnable {
+
+    private static final int TAM_BUFFER_LECTURA = 16 * 1024;
+    private static final int MAX_LOTE_ESCRITURA = 64;
+
+    private final int indice;
+    private final ServidorCentral servidor;
+    private final Selector selector;
+    private final ByteBuffer bufferLectura;
+    private final ByteBuffer[] loteEscritura;
+
+    private final Queue<SocketChannel> canalesNuevos;
+    private final Queue<ConexionNio> escriturasPendientes;
+    private final AtomicInteger conexionesActivas;
+
+    private volatile boolean ejecutando;
+    private Thread hilo;
+
+    BucleReactor(int indice, ServidorCentral servidor) throws IOException {
+        this.indice = indice;
+        this.servidor = servidor;
+        this.selector = Selector.open();
+        this.bufferLectura = ByteBuffer.allocate(TAM_BUFFER_LECTURA);
+        this.loteEscritura = new ByteBuffer[MAX_LOTE_ESCRITURA];
+        this.canalesNuevos = new ConcurrentLinkedQueue<>();
+        this.escriturasPendientes = new ConcurrentLinkedQueue<>();
+        this.conexionesActivas = new AtomicInteger(0);
+    }
+
+    void iniciar() {
+        ejecutando = true;
+        hilo = new Thread(this, "reactor-" + indice);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    void detener() {
+        ejecutando = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Entrega un canal recien aceptado a este bucle (desde el aceptador).
+     */
+    void registrar(SocketChannel canal) {
+        conexionesActivas.incrementAndGet();
+        canalesNuevos.offer(canal);
+        selector.wakeup();
+    }
+
+    /**
+     * Pide al bucle que vacie la cola de salida de una conexion.
+     */
+    void solicitarEscritura(ConexionNio conexion) {
+        escriturasPendientes.offer(conexion);
+        selector.wakeup();
+    }
+
+    void conexionCerrada() {
+        conexionesActivas.decrementAndGet();
+    }
+
+    /**
+     * Array reutilizable para las escrituras con varios buffers
+     * (solo se usa desde el hilo del bucle).
+     */
+    ByteBuffer[] getLoteEscritura() {
+        return loteEscritura;
+    }
+
+    int getConexionesActivas() {
+        return conexionesActivas.get();
+    }
+
+    @Override
+    public void run() {
+        while (ejecutando) {
+            try {
+                selector.select();
+                registrarCanalesNuevos();
+                procesarEscriturasPendientes();
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey clave = it.next();
+                    it.remove();
+                    procesarClave(clave);
+                }
+            } catch (IOException e) {
+                if (ejecutando) {
+                    System.err.println("Error en reactor-" + indice + ": " + e.getMessage());
+                }
+            }
+        }
+        cerrarTodo();
+    }
+
+    private void registrarCanalesNuevos() {
+        SocketChannel canal;
+        while ((canal = canalesNuevos.poll()) != null) {
+            ConexionNio conexion = new ConexionNio(canal, this);
+            try {
+                SelectionKey clave = canal.register(selector, SelectionKey.OP_READ, conexion);
+                conexion.setClave(clave);
+                ClienteHandler cliente = servidor.registrarConexionNio(conexion);
+                conexion.setCliente(cliente);
+                cliente.iniciarNio();
+            } catch (IOException e) {
+                System.err.println("Error registrando conexion: " + e.getMessage());
+                conexion.cerrar();
+            }
+        }
+    }
+
+    private void procesarEscriturasPendientes() {
+        ConexionNio conexion;
+        while ((conexion = escriturasPendientes.poll()) != null) {
+            try {
+                conexion.vaciarSalida();
+            } catch (IOException e) {
+                cerrarConexion(conexion);
+            }
+        }
+    }
+
+    private void procesarClave(SelectionKey clave) {
+        ConexionNio conexion = (ConexionNio) clave.attachment();
+        if (!clave.isValid()) {
+            cerrarConexion(conexion);
+            return;
+        }
+
+        try {
+            if (clave.isReadable()) {
+                if (conexion.leer(bufferLectura) < 0) {
+                    cerrarConexion(conexion);
+                    return;
+                }
+            }
+            if (clave.isValid() && clave.isWritable()) {
+                conexion.vaciarSalida();
+            }
+        } catch (IOException e) {
+            cerrarConexion(conexion);
+        }
+    }
+
+    private void cerrarConexion(ConexionNio conexion) {
+        ClienteHandler cliente = conexion.getCliente();
+        if (cliente != null && cliente.isConectado()) {
+            cliente.desconectar();
+        } else {
+            conexion.cerrar();
+        }
+    }
+
+    private void cerrarTodo() {
+        for (SelectionKey clave : selector.keys()) {
+            Object adjunto = clave.attachment();
+            if (adjunto instanceof ConexionNio) {
+                ((ConexionNio) adjunto).cerrar();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // Ignorar
+        }
+    }
+}
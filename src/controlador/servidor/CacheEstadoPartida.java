@@ -0,0 +1,184 @@
+package controlador.servidor;
+
+import modelo.Jugador.Jugador;
+import modelo.partida.InstantaneaPartida;
+import modelo.partida.Partida;
+import modelo.servicios.ObservadorSalas;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static controlador.servidor.CamposMensaje.*;
+
+/**
+ * ✅ NUEVO: estado_completo de cada partida, serializado una sola vez por
+ * version.
+ *
+ * El mensaje se construye la primera vez que alguien lo pide (obtener_estado
+ * o una reanudacion sin historial) y se guarda junto con la version de la
+ * Partida y la del Tablero con que se capturo. Mientras ninguna cambie,
+ * todas las solicitudes reciben los mismos bytes (MensajeCodificado), asi
+ * que una tormenta de reconexiones cuesta una serializacion y no N.
+ *
+ * ✅ ACTUALIZADO: Se serializa la instantanea publicada por la Partida y
+ * las versiones son las de esa misma instantanea (y la de su tablero): no
+ * hace falta ningun lock del motor ni de la partida, y la version de la
+ * entrada siempre corresponde exactamente a su contenido.
+ */
+final class CacheEstadoPartida implements ObservadorSalas {
+
+    private static final PlantillaMensaje ESTADO_COMPLETO = PlantillaMensaje.de("estado_completo");
+
+    private final Map<Integer, Entrada> entradas;
+    private final LongAdder serializaciones;
+    private final LongAdder aciertos;
+
+    CacheEstadoPartida() {
+        this.entradas = new ConcurrentHashMap<>();
+        this.serializaciones = new LongAdder();
+        this.aciertos = new LongAdder();
+    }
+
+    /**
+     * Mensaje estado_completo vigente de la partida. Si varias sesiones lo
+     * piden a la vez con la cache invalida, una lo serializa y las demas
+     * esperan ese resultado (compute de ConcurrentHashMap).
+     */
+    Entrada obtener(Partida partida) {
+        InstantaneaPartida estado = partida.getInstantanea();
+        long versionEstado = estado.version;
+        long versionTablero = estado.tablero != null ? estado.tablero.version : -1L;
+
+        Entrada actual = entradas.get(partida.getId());
+        if (actual != null && actual.vigente(versionEstado, versionTablero)) {
+            aciertos.increment();
+            return actual;
+        }
+
+        // Un hilo que leyo versiones anteriores no pisa una entrada mas nueva
+        Entrada[] sinGuardar = new Entrada[1];
+        Entrada guardada = entradas.compute(partida.getId(), (id, previa) -> {
+            if (previa != null && previa.posteriorOIgual(versionEstado, versionTablero)) {
+                aciertos.increment();
+                return previa;
+            }
+            serializaciones.increment();
+            Entrada nueva = new Entrada(versionEstado, versionTablero, serializar(estado));
+            if (previa != null && !previa.anteriorOIgual(versionEstado, versionTablero)) {
+                // Una version mas nueva y otra mas vieja: se sirve sin guardarla
+                sinGuardar[0] = nueva;
+                return previa;
+            }
+            return nueva;
+        });
+        return sinGuardar[0] != null ? sinGuardar[0] : guardada;
+    }
+
+    long getSerializaciones() {
+        return serializaciones.sum();
+    }
+
+    long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * Mismos campos que Partida.generarEstadoJSON() (los clientes ya lo
+     * leen asi) mas la version, el jugador en turno, la conexion, los
+     * contadores del motor y las fichas de cada jugador.
+     */
+    static String serializar(InstantaneaPartida estado) {
+        PlantillaMensaje.Escritor escritor = ESTADO_COMPLETO.iniciar()
+            .objeto(PARTIDA)
+            .entero(PARTIDA_ID, estado.partidaId)
+            .texto(NOMBRE, estado.nombre)
+            .texto(ESTADO, estado.estado.name())
+            .entero(TURNO_ACTUAL, estado.turnoActual)
+            .entero(MAX_JUGADORES, estado.maxJugadores)
+            .entero(VERSION, estado.version)
+            .entero(JUGADOR_ACTUAL_ID, estado.jugadorActualId)
+            .lista(JUGADORES);
+
+        for (InstantaneaPartida.JugadorEstado j : estado.jugadores) {
+            escritor.elemento()
+                .entero(ID, j.id)
+                .texto(NOMBRE, j.nombre)
+                .texto(COLOR, j.color != null ? j.color.name() : "NINGUNO")
+                .entero(PUNTOS, j.puntos)
+                .booleano(LISTO, j.listo)
+                .entero(FICHAS_EN_META, j.fichasEnMeta)
+                .booleano(CONECTADO, j.conectado)
+                .entero(BONUS, j.bonus)
+                .entero(CONTADOR_DOBLES, j.contadorDobles)
+                .lista(FICHAS);
+            for (InstantaneaPartida.FichaEstado f : j.fichas) {
+                escritor.elemento()
+                    .entero(ID, f.id)
+                    .texto(ESTADO, f.estado.name())
+                    .entero(CASILLA, f.casilla)
+                    .cerrar();
+            }
+            escritor.cerrar().cerrar();
+        }
+        escritor.cerrar();
+
+        if (estado.tablero != null) {
+            escritor.crudo(TABLERO, estado.tablero.getJson());
+        }
+        return escritor.cerrar().json();
+    }
+
+    // ==================== ObservadorSalas ====================
+
+    @Override
+    public void jugadorUnido(int partidaId, Jugador jugador) {
+        // La version de la Partida ya invalida la entrada
+    }
+
+    @Override
+    public void jugadorRemovido(int partidaId, Jugador jugador) {
+    }
+
+    @Override
+    public void partidaEliminada(int partidaId) {
+        entradas.remove(partidaId);
+    }
+
+    /**
+     * Mensaje de una version: el JSON (para anteponerle el seq al reanudar)
+     * y sus bytes, compartidos por todas las sesiones que lo reciben.
+     */
+    static final class Entrada {
+        private final long versionEstado;
+        private final long versionTablero;
+        private final String json;
+        private final MensajeCodificado mensaje;
+
+        private Entrada(long versionEstado, long versionTablero, String json) {
+            this.versionEstado = versionEstado;
+            this.versionTablero = versionTablero;
+            this.json = json;
+            this.mensaje = MensajeCodificado.de(json);
+        }
+
+        private boolean vigente(long versionEstado, long versionTablero) {
+            return this.versionEstado == versionEstado && this.versionTablero == versionTablero;
+        }
+
+        private boolean posteriorOIgual(long versionEstado, long versionTablero) {
+            return this.versionEstado >= versionEstado && this.versionTablero >= versionTablero;
+        }
+
+        private boolean anteriorOIgual(long versionEstado, long versionTablero) {
+            return this.versionEstado <= versionEstado && this.versionTablero <= versionTablero;
+        }
+
+        String getJson() {
+            return json;
+        }
+
+        MensajeCodificado getMensaje() {
+            return mensaje;
+        }
+    }
+}
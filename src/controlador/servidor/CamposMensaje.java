@@ -0,0 +1,96 @@
+package controlador.servidor;
+
+import controlador.servidor.PlantillaMensaje.Campo;
+
+/**
+ * Claves de los mensajes del protocolo, ya serializadas (ver
+ * PlantillaMensaje). Se comparten entre todos los mensajes que las usan.
+ */
+public final class CamposMensaje {
+
+    public static final Campo JUGADOR_ID = new Campo("jugadorId");
+    public static final Campo JUGADOR_NOMBRE = new Campo("jugadorNombre");
+    public static final Campo MENSAJE = new Campo("mensaje");
+    public static final Campo DADOS = new Campo("dados");
+    public static final Campo DADO1 = new Campo("dado1");
+    public static final Campo DADO2 = new Campo("dado2");
+    public static final Campo SUMA = new Campo("suma");
+    public static final Campo ES_DOBLE = new Campo("esDoble");
+    public static final Campo CONTADOR_DOBLES = new Campo("contadorDobles");
+    public static final Campo PENALIZACION = new Campo("penalizacion");
+    public static final Campo FICHA_PERDIDA = new Campo("fichaPerdida");
+    public static final Campo PUEDE_JUGAR = new Campo("puedeJugar");
+    public static final Campo TURNO_TERMINADO = new Campo("turnoTerminado");
+    public static final Campo TIENE_FICHAS_EN_JUEGO = new Campo("tieneFichasEnJuego");
+    public static final Campo DEBE_VOLVER_A_TIRAR = new Campo("debeVolverATirar");
+    public static final Campo DADO_DISPONIBLE = new Campo("dadoDisponible");
+    public static final Campo BLOQUEO_ROTO = new Campo("bloqueoRoto");
+    public static final Campo CANTIDAD = new Campo("cantidad");
+    public static final Campo VALOR_CADA_UNO = new Campo("valorCadaUno");
+    public static final Campo VALOR = new Campo("valor");
+    public static final Campo FICHA_ID = new Campo("fichaId");
+    public static final Campo DESDE = new Campo("desde");
+    public static final Campo HASTA = new Campo("hasta");
+    public static final Campo AUTOMATICO = new Campo("automatico");
+    public static final Campo TABLERO = new Campo("tablero");
+    public static final Campo CAPTURADOR_ID = new Campo("capturadorId");
+    public static final Campo CAPTURADOR_NOMBRE = new Campo("capturadorNombre");
+    public static final Campo FICHA_CAPTURADA_ID = new Campo("fichaCapturadaId");
+    public static final Campo JUGADOR_CAPTURADO_ID = new Campo("jugadorCapturadoId");
+    public static final Campo BONUS_GANADO = new Campo("bonusGanado");
+    public static final Campo MOVIMIENTO = new Campo("movimiento");
+    public static final Campo CAPTURA = new Campo("captura");
+    public static final Campo BONUS_TOTAL = new Campo("bonusTotal");
+    public static final Campo META = new Campo("meta");
+    public static final Campo PUNTOS_META = new Campo("puntosMeta");
+    public static final Campo PUNTOS_TOTAL = new Campo("puntosTotal");
+    public static final Campo BONUS_USADO = new Campo("bonusUsado");
+    public static final Campo BONUS_RESTANTE = new Campo("bonusRestante");
+    public static final Campo FICHAS_EN_META = new Campo("fichasEnMeta");
+    public static final Campo GANADOR_ID = new Campo("ganadorId");
+    public static final Campo GANADOR_NOMBRE = new Campo("ganadorNombre");
+    public static final Campo PASOS_BONUS = new Campo("pasosBonus");
+    public static final Campo JUGADOR = new Campo("jugador");
+    public static final Campo ID = new Campo("id");
+    public static final Campo NOMBRE = new Campo("nombre");
+    public static final Campo SESSION_ID = new Campo("sessionId");
+    public static final Campo PARTIDA = new Campo("partida");
+    public static final Campo ESTADO = new Campo("estado");
+    public static final Campo MAX_JUGADORES = new Campo("maxJugadores");
+    public static final Campo TURNO_ACTUAL = new Campo("turnoActual");
+    public static final Campo JUGADORES = new Campo("jugadores");
+    public static final Campo COLOR = new Campo("color");
+    public static final Campo LISTO = new Campo("listo");
+    public static final Campo PUNTOS = new Campo("puntos");
+    public static final Campo TOTAL = new Campo("total");
+    public static final Campo SALAS = new Campo("salas");
+    public static final Campo PARTIDA_INICIADA = new Campo("partidaIniciada");
+    public static final Campo TOTAL_JUGADORES = new Campo("totalJugadores");
+    public static final Campo TURNO_INICIAL = new Campo("turnoInicial");
+    public static final Campo TURNO_JUGADOR_ID = new Campo("turnoJugadorId");
+    public static final Campo TURNO_JUGADOR_NOMBRE = new Campo("turnoJugadorNombre");
+    public static final Campo TIMESTAMP = new Campo("timestamp");
+    public static final Campo FORMATO = new Campo("formato");
+    public static final Campo TOKEN = new Campo("token");
+    public static final Campo PROTOCOLOS = new Campo("protocolos");
+    public static final Campo COMPRESION = new Campo("compresion");
+    public static final Campo PARTIDA_ID = new Campo("partidaId");
+    public static final Campo PEERS = new Campo("peers");
+    public static final Campo IP = new Campo("ip");
+    public static final Campo PUERTO = new Campo("puerto");
+    public static final Campo VERSION = new Campo("version");
+    public static final Campo VERSION_ANTERIOR = new Campo("versionAnterior");
+    public static final Campo CAMBIOS = new Campo("cambios");
+    public static final Campo JUGADOR_ACTUAL_ID = new Campo("jugadorActualId");
+    public static final Campo CONECTADO = new Campo("conectado");
+    public static final Campo BONUS = new Campo("bonus");
+    public static final Campo FICHAS = new Campo("fichas");
+    public static final Campo CASILLA = new Campo("casilla");
+    public static final Campo REQ_ID = new Campo("reqId");
+    public static final Campo JUGADAS = new Campo("jugadas");
+    public static final Campo ACCION = new Campo("accion");
+    public static final Campo MOVIMIENTOS = new Campo("movimientos");
+
+    private CamposMensaje() {
+    }
+}
@@ -9,22 +9,63 @@ import modelo.servicios.PersistenciaServicio;
 import java.io.*;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ClienteHandler implements Runnable {
     
     private final Socket socket;
-    private BufferedReader entrada;
-    private PrintWriter salida;
+    private LectorEntrada entrada;
+    private OutputStream salida;
     private final String sessionId;
     private Jugador jugador;
     private final ServidorCentral servidor;
     private final Dispatcher dispatcher;
     private final PersistenciaServicio persistencia;
-    private boolean conectado;
+    private volatile boolean conectado;
+    
+    // ✅ NUEVO: Ultimo mensaje recibido (MonitorLatidos)
+    private volatile long ultimaActividad = System.currentTimeMillis();
+    
+    // ✅ NUEVO: Transporte no bloqueante (null en modo POOL_FIJO)
+    private final ConexionNio conexionNio;
+    // Lineas JSON (String) o tramas del ProtocoloBinario (TramaBinaria)
+    private final Queue<Object> mensajesEntrantes;
+    private final AtomicBoolean despachando;
+    private final AtomicBoolean desconexionIniciada = new AtomicBoolean(false);
+    
+    // ✅ NUEVO: Cola de salida acotada; un solo escritor la vacia
+    // (el BucleReactor en NIO, una tarea de escritura en modo bloqueante)
+    private final ColaSalida colaSalida;
+    private final AtomicBoolean escribiendo = new AtomicBoolean(false);
+    private final AtomicBoolean vaciadoProgramado = new AtomicBoolean(false);
+    
+    // Buffer del modo bloqueante: un lote de mensajes sale en un solo write()
+    private static final int TAM_BUFFER_SALIDA = 64 * 1024;
+    
+    // ✅ NUEVO: Token para reanudar la sesion tras una caida del socket
+    private volatile String tokenReanudacion;
+    
+    // ✅ NUEVO: El cliente negocio el protocolo binario (ProtocoloBinario)
+    private volatile boolean salidaBinaria = false;
+    
+    // ✅ NUEVO: Compresion negociada (CompresionMensajes); null = sin compresion
+    private volatile CompresionMensajes compresion;
     
     // Flag para ocultar mensajes de debug
     private static final boolean MODO_DEBUG = false;
     
+    // ✅ NUEVO: Mensajes propios de la conexion, con la parte fija ya serializada
+    private static final PlantillaMensaje BIENVENIDA = PlantillaMensaje.de("bienvenida");
+    private static final String PROTOCOLOS = "[\"json\",\"binario\"]";
+    private static final String COMPRESIONES = "[\"" + CompresionMensajes.DEFLATE + "\"]";
+    private static final PlantillaMensaje ERROR = PlantillaMensaje.de("error");
+    
     public ClienteHandler(Socket socket, String sessionId, ServidorCentral servidor) {
         this.socket = socket;
         this.sessionId = sessionId;
@@ -33,17 +74,38 @@ public class ClienteHandler implements Runnable {
         this.persistencia = PersistenciaServicio.getInstancia();
         this.conectado = true;
         this.jugador = null;
+        this.conexionNio = null;
+        this.mensajesEntrantes = null;
+        this.despachando = null;
+        this.colaSalida = new ColaSalida();
+        this.tokenReanudacion = RegistroReanudacion.nuevoToken();
         inicializarStreams();
     }
     
+    /**
+     * ✅ NUEVO: Constructor para el transporte NIO.
+     * No crea streams: el BucleReactor lee y escribe el canal.
+     */
+    ClienteHandler(ConexionNio conexionNio, String sessionId, ServidorCentral servidor) {
+        this.socket = conexionNio.getCanal().socket();
+        this.sessionId = sessionId;
+        this.servidor = servidor;
+        this.dispatcher = new Dispatcher(this);
+        this.persistencia = PersistenciaServicio.getInstancia();
+        this.conectado = true;
+        this.jugador = null;
+        this.conexionNio = conexionNio;
+        this.mensajesEntrantes = new ConcurrentLinkedQueue<>();
+        this.despachando = new AtomicBoolean(false);
+        this.colaSalida = conexionNio.getSalida();
+        this.tokenReanudacion = RegistroReanudacion.nuevoToken();
+    }
+    
     private void inicializarStreams() {
         try {
-            entrada = new BufferedReader(
-                new InputStreamReader(socket.getInputStream(), "UTF-8")
-            );
-            salida = new PrintWriter(
-                new OutputStreamWriter(socket.getOutputStream(), "UTF-8"),
-                true
+            entrada = new LectorEntrada(socket.getInputStream());
+            salida = new BufferedOutputStream(
+                new SalidaContada(socket.getOutputStream()), TAM_BUFFER_SALIDA
             );
         } catch (IOException e) {
             System.err.println("Error inicializando streams: " + e.getMessage());
@@ -60,16 +122,16 @@ public class ClienteHandler implements Runnable {
         try {
             enviarBienvenida();
             
-            String mensajeRecibido;
-            while (conectado && (mensajeRecibido = entrada.readLine()) != null) {
-                if (mensajeRecibido.trim().isEmpty()) continue;
+            Object mensajeRecibido;
+            while (conectado && (mensajeRecibido = entrada.siguiente()) != null) {
+                ultimaActividad = System.currentTimeMillis();
                 
                 if (MODO_DEBUG) {
                     System.out.println("<- [" + sessionId + "] Mensaje recibido: " + 
-                                     truncar(mensajeRecibido, 100));
+                                     truncar(String.valueOf(mensajeRecibido), 100));
                 }
                 
-                procesarMensaje(mensajeRecibido);
+                procesarEntrante(mensajeRecibido);
             }
             
         } catch (SocketException e) {
@@ -83,15 +145,162 @@ public class ClienteHandler implements Runnable {
         }
     }
     
-    private void procesarMensaje(String mensajeJson) {
+    /**
+     * ✅ NUEVO: Arranque en modo NIO (llamado por el BucleReactor al registrar).
+     */
+    void iniciarNio() {
+        if (MODO_DEBUG) {
+            System.out.println("-> ClienteHandler NIO iniciado para: " + sessionId);
+        }
+        enviarBienvenida();
+    }
+    
+    /**
+     * ✅ NUEVO: Recibe una linea completa desde el BucleReactor.
+     * Los mensajes de una sesion se procesan en orden y de uno en uno,
+     * en el pool de despacho (nunca en el hilo del reactor).
+     */
+    void recibirMensaje(Object mensaje) {
+        if (!conectado) return;
+        ultimaActividad = System.currentTimeMillis();
+        mensajesEntrantes.offer(mensaje);
+        programarDespacho();
+    }
+    
+    private void programarDespacho() {
+        if (!despachando.compareAndSet(false, true)) return;
+        
         try {
-            if (MODO_DEBUG) {
-                System.out.println("-> [" + sessionId + "] procesando mensaje: " + truncar(mensajeJson, 200));
+            servidor.getEjecutorDespacho().execute(this::despacharPendientes);
+        } catch (RejectedExecutionException e) {
+            despachando.set(false);
+        }
+    }
+    
+    /**
+     * ✅ ACTUALIZADO: Si un mensaje queda en el buzon de su partida, el
+     * despacho se corta ahi con "despachando" aun en true (lo que llegue
+     * se acumula) y lo retoma el bucle de la partida al responder.
+     */
+    private void despacharPendientes() {
+        boolean enPartida = false;
+        try {
+            Object mensaje;
+            while (!enPartida && conectado && (mensaje = mensajesEntrantes.poll()) != null) {
+                enPartida = procesarEntrante(mensaje);
             }
-
-            // Log especifico para 'listo' (util)
-            if (mensajeJson.contains("\"tipo\":\"listo\"") || mensajeJson.trim().equalsIgnoreCase("listo")) {
-                System.out.println("[DEBUG] [" + sessionId + "] se solicito marcar listo.");
+        } finally {
+            if (!enPartida) {
+                reanudarDespacho();
+            }
+        }
+    }
+    
+    private void reanudarDespacho() {
+        despachando.set(false);
+        if (conectado && !mensajesEntrantes.isEmpty()) {
+            programarDespacho();
+        }
+    }
+    
+    /**
+     * ✅ ACTUALIZADO: La linea llega como LineaBytes (las vacias ya las
+     * descarta el DelimitadorEntrada). En modo bloqueante es la vista sobre
+     * el buffer del lector: se procesa antes de leer la siguiente.
+     *
+     * @return true si el mensaje quedo en el buzon de su partida (solo NIO)
+     */
+    private boolean procesarEntrante(Object mensaje) {
+        if (mensaje instanceof TramaBinaria) {
+            procesarMensaje(null, (TramaBinaria) mensaje);
+        } else {
+            procesarMensaje((CharSequence) mensaje, null);
+        }
+        
+        Dispatcher.ComandoPartida comando = dispatcher.tomarComandoPartida();
+        return comando != null && enviarAPartida(comando);
+    }
+    
+    /**
+     * ✅ NUEVO: Encola el comando de juego en el buzon de su partida; la
+     * respuesta la envia el bucle de la partida. En NIO la sesion queda en
+     * espera sin ocupar un hilo del pool de despacho; en modo bloqueante el
+     * hilo lector espera la respuesta antes de leer el siguiente mensaje.
+     * Si el ejecutor ya se detuvo, el comando corre aqui.
+     *
+     * @return true si el despacho de la sesion queda en espera del bucle
+     */
+    private boolean enviarAPartida(Dispatcher.ComandoPartida comando) {
+        EjecutorPartidas ejecutor = servidor.getEjecutorPartidas();
+        
+        if (conexionNio != null) {
+            if (ejecutor.encolar(comando.getPartidaId(), () -> {
+                try {
+                    ejecutarComando(comando);
+                } finally {
+                    reanudarDespacho();
+                }
+            })) {
+                return true;
+            }
+        } else {
+            CompletableFuture<Void> hecho = new CompletableFuture<>();
+            if (ejecutor.encolar(comando.getPartidaId(), () -> {
+                try {
+                    ejecutarComando(comando);
+                } finally {
+                    hecho.complete(null);
+                }
+            })) {
+                hecho.join();
+                return false;
+            }
+        }
+        
+        ejecutarComando(comando);
+        return false;
+    }
+    
+    /**
+     * ✅ NUEVO: Corre en el bucle de la partida. Igual que procesarMensaje,
+     * lo que se envia durante el comando sale junto al terminar.
+     */
+    private void ejecutarComando(Dispatcher.ComandoPartida comando) {
+        LoteSalida lote = LoteSalida.abrir();
+        try {
+            String respuesta = dispatcher.ejecutarComandoPartida(comando);
+            if (respuesta != null && !respuesta.isEmpty()) {
+                enviarMensaje(respuesta);
+            }
+        } catch (Exception e) {
+            System.err.println("X Error procesando " + comando.getNombre() + ": " + e.getMessage());
+            enviarError("Error procesando solicitud: " + e.getMessage());
+        } finally {
+            if (lote != null) {
+                lote.cerrar();
+            }
+        }
+    }
+    
+    /**
+     * ✅ ACTUALIZADO: Lo que se envia mientras se procesa el mensaje
+     * (respuesta y broadcasts) se escribe junto al terminar (LoteSalida).
+     * Recibe una linea JSON o una trama binaria; ambas siguen la misma
+     * ruta del Dispatcher.
+     */
+    private void procesarMensaje(CharSequence mensajeJson, TramaBinaria trama) {
+        LoteSalida lote = LoteSalida.abrir();
+        try {
+            if (trama != null) {
+                String respuesta = dispatcher.procesarTrama(trama);
+                if (respuesta != null && !respuesta.isEmpty()) {
+                    enviarMensaje(respuesta);
+                }
+                return;
+            }
+            
+            if (MODO_DEBUG) {
+                System.out.println("-> [" + sessionId + "] procesando mensaje: " + truncar(mensajeJson.toString(), 200));
             }
 
             String respuesta = dispatcher.procesarMensaje(mensajeJson);
@@ -104,58 +313,190 @@ public class ClienteHandler implements Runnable {
             System.err.println("X Error procesando mensaje: " + e.getMessage());
             e.printStackTrace(); // <- importante
             enviarError("Error procesando solicitud: " + e.getMessage());
+        } finally {
+            if (lote != null) {
+                lote.cerrar();
+            }
         }
     }
     
     private void enviarBienvenida() {
-        String bienvenida = String.format(
-            "{\"tipo\":\"bienvenida\",\"sessionId\":\"%s\",\"mensaje\":\"Conectado al servidor Parchis\"}",
-            sessionId
-        );
+        String bienvenida = BIENVENIDA.iniciar()
+            .texto(CamposMensaje.SESSION_ID, sessionId)
+            .texto(CamposMensaje.TOKEN, tokenReanudacion)
+            .crudo(CamposMensaje.PROTOCOLOS, PROTOCOLOS)
+            .crudo(CamposMensaje.COMPRESION, COMPRESIONES)
+            .texto(CamposMensaje.MENSAJE, "Conectado al servidor Parchis")
+            .json();
         enviarMensaje(bienvenida);
     }
     
-    public synchronized void enviarMensaje(String mensajeJson) {
-        if (!conectado || salida == null) return;
+    /**
+     * ✅ ACTUALIZADO: Encola el mensaje y vuelve enseguida.
+     * Nunca bloquea al llamador por un cliente lento: si la cola de salida
+     * se desborda, la sesion se desconecta.
+     */
+    public void enviarMensaje(String mensajeJson) {
+        if (!conectado) return;
+        
+        enviarMensaje(MensajeCodificado.de(mensajeJson));
         
+        if (MODO_DEBUG) {
+            System.out.println("-> [" + sessionId + "] Mensaje encolado: " + 
+                             truncar(mensajeJson, 100) + "...");
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Envia un mensaje ya codificado (broadcast con codificacion
+     * unica). Se encola una vista; los bytes se comparten entre sesiones.
+     */
+    public void enviarMensaje(MensajeCodificado mensaje) {
+        if (!encolar(mensaje)) {
+            desconectarPorLento();
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Encola sin desconectar si la cola se desborda (el que llama
+     * decide cuando desconectar, p. ej. el SecuenciadorPartida fuera de su lock).
+     *
+     * @return false si la sesion es un consumidor lento
+     */
+    boolean encolar(MensajeCodificado mensaje) {
+        if (!conectado) return true;
+        
+        CompresionMensajes c = compresion;
+        ByteBuffer datos;
+        if (c != null) {
+            datos = mensaje.vistaComprimida(salidaBinaria, c);
+        } else {
+            datos = salidaBinaria ? mensaje.vistaBinaria() : mensaje.vista();
+        }
+        if (!colaSalida.encolar(datos)) {
+            return false;
+        }
+        
+        EstadisticasRed.registrarEntrega(datos.remaining());
+        
+        if (!LoteSalida.diferir(this)) {
+            liberarSalida();
+        }
+        return true;
+    }
+    
+    void desconectarPorLento() {
+        if (!conectado) return;
+        System.err.println("X [" + sessionId + "] Cliente lento: " + 
+            colaSalida.getBytesPendientes() + " bytes sin enviar. Desconectando.");
+        desconectar();
+    }
+    
+    /**
+     * ✅ NUEVO: Despierta al escritor de esta sesion, esperando antes la
+     * ventana de agrupacion si esta configurada.
+     */
+    void liberarSalida() {
+        if (!conectado) return;
+        
+        long ventana = LoteSalida.VENTANA_MICROS;
+        if (ventana <= 0) {
+            despertarEscritor();
+            return;
+        }
+        
+        if (!vaciadoProgramado.compareAndSet(false, true)) return;
         try {
-            salida.println(mensajeJson);
-            
-            if (MODO_DEBUG) {
-                System.out.println("-> [" + sessionId + "] Mensaje enviado: " + 
-                                 truncar(mensajeJson, 100) + "...");
+            servidor.getProgramadorSalida().schedule(() -> {
+                vaciadoProgramado.set(false);
+                despertarEscritor();
+            }, ventana, TimeUnit.MICROSECONDS);
+        } catch (RejectedExecutionException e) {
+            vaciadoProgramado.set(false);
+            despertarEscritor();
+        }
+    }
+    
+    private void despertarEscritor() {
+        if (conexionNio != null) {
+            conexionNio.solicitarEscritura();
+        } else {
+            programarEscritura();
+        }
+    }
+    
+    private void programarEscritura() {
+        if (!escribiendo.compareAndSet(false, true)) return;
+        
+        try {
+            servidor.getEjecutorEscritura().execute(this::vaciarSalida);
+        } catch (RejectedExecutionException e) {
+            escribiendo.set(false);
+        }
+    }
+    
+    /**
+     * Tarea de escritura del modo bloqueante: vacia la cola y hace un
+     * solo flush por tanda (un write() si el lote cabe en el buffer).
+     * Solo una instancia corre a la vez por sesion.
+     */
+    private void vaciarSalida() {
+        try {
+            ByteBuffer actual;
+            while (conectado && (actual = colaSalida.primero()) != null) {
+                int longitud = actual.remaining();
+                salida.write(actual.array(), actual.arrayOffset() + actual.position(), longitud);
+                colaSalida.descontar(longitud);
+                colaSalida.retirar();
             }
-            
-            if (salida.checkError()) {
-                desconectar();
+            if (conectado) {
+                salida.flush();
+            }
+        } catch (IOException e) {
+            if (conectado) {
+                System.err.println("X Error enviando mensaje: " + e.getMessage());
             }
-            
-        } catch (Exception e) {
-            System.err.println("X Error enviando mensaje: " + e.getMessage());
             desconectar();
+        } finally {
+            escribiendo.set(false);
+            if (conectado && !colaSalida.estaVacia()) {
+                programarEscritura();
+            }
         }
     }
     
     public void enviarError(String mensajeError) {
-        String errorJson = String.format(
-            "{\"tipo\":\"error\",\"mensaje\":\"%s\"}",
-            escaparJson(mensajeError)
-        );
+        String errorJson = ERROR.iniciar()
+            .texto(CamposMensaje.MENSAJE, mensajeError != null ? mensajeError : "")
+            .json();
         enviarMensaje(errorJson);
     }
     
     public void desconectar() {
-        if (!conectado) return;
+        if (!desconexionIniciada.compareAndSet(false, true)) return;
         conectado = false;
         
-        cerrarStreams();
-        
-        try {
-            if (socket != null && !socket.isClosed()) {
-                socket.close();
+        if (conexionNio != null) {
+            conexionNio.cerrar();
+            mensajesEntrantes.clear();
+        } else {
+            colaSalida.limpiar();
+            
+            // Cerrar el socket primero desbloquea al hilo que esta en readLine()
+            try {
+                if (socket != null && !socket.isClosed()) {
+                    socket.close();
+                }
+            } catch (IOException e) {
+                // Ignorar
             }
-        } catch (IOException e) {
-            // Ignorar
+            
+            cerrarStreams();
+        }
+        
+        CompresionMensajes c = compresion;
+        if (c != null) {
+            c.cerrar();
         }
         
         if (jugador != null) {
@@ -170,7 +511,9 @@ public class ClienteHandler implements Runnable {
             if (entrada != null) entrada.close();
         } catch (IOException e) { }
         
-        if (salida != null) salida.close();
+        try {
+            if (salida != null) salida.close();
+        } catch (IOException e) { }
     }
     
     private String truncar(String texto, int maxLength) {
@@ -179,12 +522,19 @@ public class ClienteHandler implements Runnable {
         return texto.substring(0, maxLength);
     }
     
-    private String escaparJson(String texto) {
-        if (texto == null) return "";
-        return texto
-            .replace("\\", "\\\\")
-            .replace("\"", "\\\"")
-            .replace("\n", "\\n");
+    /**
+     * Cuenta las escrituras que llegan al socket (EstadisticasRed).
+     */
+    private static final class SalidaContada extends FilterOutputStream {
+        SalidaContada(OutputStream destino) {
+            super(destino);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            EstadisticasRed.registrarEscritura();
+            out.write(b, off, len);
+        }
     }
     
     // Getters
@@ -200,15 +550,87 @@ public class ClienteHandler implements Runnable {
         this.jugador = jugador; 
     }
     
+    public String getTokenReanudacion() {
+        return tokenReanudacion;
+    }
+    
+    /**
+     * La sesion pasa a usar el token de la sesion que reanuda.
+     */
+    void adoptarToken(String token) {
+        this.tokenReanudacion = token;
+    }
+    
+    /**
+     * ✅ NUEVO: A partir de aqui los mensajes con forma binaria se envian
+     * como tramas; el resto sigue en JSON.
+     */
+    public void activarSalidaBinaria() {
+        this.salidaBinaria = true;
+    }
+    
+    public boolean isSalidaBinaria() {
+        return salidaBinaria;
+    }
+    
+    /**
+     * ✅ NUEVO: A partir de aqui los mensajes grandes salen comprimidos
+     * (ver CompresionMensajes). Una sola vez por conexion.
+     */
+    public synchronized void activarCompresion() {
+        if (compresion == null && conectado) {
+            compresion = new CompresionMensajes();
+        }
+    }
+    
+    public boolean isCompresionActiva() {
+        return compresion != null;
+    }
+    
     public boolean isConectado() { 
         return conectado; 
     }
     
+    public long getUltimaActividad() {
+        return ultimaActividad;
+    }
+    
     public ServidorCentral getServidor() { 
         return servidor; 
     }
     
+    // ✅ NUEVO: reqId de la solicitud que se esta procesando (ver Dispatcher)
+    public long getReqIdEnCurso() {
+        return dispatcher.getReqIdEnCurso();
+    }
+    
+    /**
+     * ✅ NUEVO: Partida a cuyo buzon van las acciones de juego de esta
+     * sesion, o -1 si se ejecutan en el hilo de la sesion (sin jugador, sin
+     * partida o servidor sin bucles de partida).
+     */
+    public int getPartidaParaComandos() {
+        Jugador j = jugador;
+        if (j == null || servidor == null || servidor.getEjecutorPartidas() == null) {
+            return -1;
+        }
+        return persistencia.obtenerIdPartidaDeJugador(j.getId());
+    }
+    
     public Socket getSocket() { 
         return socket; 
     }
+    
+    // ✅ NUEVO: Profundidad de la cola de salida
+    public int getBytesSalidaPendientes() {
+        return colaSalida.getBytesPendientes();
+    }
+    
+    public int getMensajesSalidaPendientes() {
+        return colaSalida.getMensajesPendientes();
+    }
+    
+    public boolean isClienteLento() {
+        return colaSalida.estaSobreMarcaAlta();
+    }
 }
\ No newline at end of file
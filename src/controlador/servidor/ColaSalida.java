@@ -0,0 +1,151 @@
+package controlador.servidor;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cola de salida acotada de una sesion.
+ *
+ * Cualquier hilo encola (broadcasts, respuestas); un unico escritor la
+ * vacia (el BucleReactor en NIO, la tarea de escritura en modo bloqueante).
+ * Asi quien hace un broadcast nunca espera a la ventana TCP del jugador
+ * mas lento.
+ *
+ * Control de flujo por bytes pendientes:
+ * - Por encima de la marca alta la sesion se considera lenta
+ * - Si sigue por encima mas de toleranciaMs, o supera el maximo, encolar()
+ *   devuelve false y la sesion debe desconectarse
+ * - Al bajar de la marca baja vuelve a considerarse sana
+ *
+ * Configurable con -Dparchis.salida.marcaAlta, .marcaBaja, .maximo (bytes)
+ * y .toleranciaMs.
+ */
+final class ColaSalida {
+
+    static final int MARCA_ALTA = Integer.getInteger("parchis.salida.marcaAlta", 256 * 1024);
+    static final int MARCA_BAJA = Integer.getInteger("parchis.salida.marcaBaja", 64 * 1024);
+    static final int MAXIMO = Integer.getInteger("parchis.salida.maximo", 1024 * 1024);
+    static final long TOLERANCIA_MS = Long.getLong("parchis.salida.toleranciaMs", 3000L);
+
+    private final int marcaAlta;
+    private final int marcaBaja;
+    private final int maximo;
+    private final long toleranciaMs;
+
+    private final Queue<ByteBuffer> pendientes;
+    private final AtomicInteger bytesPendientes;
+    private final AtomicInteger mensajesPendientes;
+
+    // Momento en que se supero la marca alta (0 = por debajo)
+    private volatile long sobreMarcaDesde;
+
+    ColaSalida() {
+        this(MARCA_ALTA, MARCA_BAJA, MAXIMO, TOLERANCIA_MS);
+    }
+
+    ColaSalida(int marcaAlta, int marcaBaja, int maximo, long toleranciaMs) {
+        this.marcaAlta = marcaAlta;
+        this.marcaBaja = Math.min(marcaBaja, marcaAlta);
+        this.maximo = Math.max(maximo, marcaAlta);
+        this.toleranciaMs = toleranciaMs;
+        this.pendientes = new ConcurrentLinkedQueue<>();
+        this.bytesPendientes = new AtomicInteger(0);
+        this.mensajesPendientes = new AtomicInteger(0);
+        this.sobreMarcaDesde = 0L;
+    }
+
+    /**
+     * Encola un mensaje ya codificado. Puede llamarse desde cualquier hilo.
+     *
+     * @return false si la sesion es un consumidor lento y debe desconectarse
+     *         (en ese caso el mensaje no se encola)
+     */
+    boolean encolar(ByteBuffer datos) {
+        int total = bytesPendientes.get() + datos.remaining();
+
+        if (total > maximo) {
+            return false;
+        }
+
+        if (total > marcaAlta) {
+            long ahora = System.currentTimeMillis();
+            long desde = sobreMarcaDesde;
+            if (desde == 0L) {
+                sobreMarcaDesde = ahora;
+            } else if (ahora - desde > toleranciaMs) {
+                return false;
+            }
+        }
+
+        bytesPendientes.addAndGet(datos.remaining());
+        mensajesPendientes.incrementAndGet();
+        pendientes.offer(datos);
+        return true;
+    }
+
+    /**
+     * Primer mensaje pendiente sin retirarlo (solo el escritor).
+     */
+    ByteBuffer primero() {
+        return pendientes.peek();
+    }
+
+    /**
+     * Copia en destino las referencias a los primeros mensajes pendientes,
+     * sin retirarlos, para una escritura con varios buffers (solo el escritor).
+     *
+     * @return cuantos mensajes se copiaron
+     */
+    int tomarLote(ByteBuffer[] destino) {
+        int n = 0;
+        for (ByteBuffer datos : pendientes) {
+            if (n == destino.length) break;
+            destino[n++] = datos;
+        }
+        return n;
+    }
+
+    /**
+     * Descuenta bytes ya escritos al socket (solo el escritor).
+     */
+    void descontar(int escritos) {
+        if (escritos <= 0) return;
+        if (bytesPendientes.addAndGet(-escritos) <= marcaBaja) {
+            sobreMarcaDesde = 0L;
+        }
+    }
+
+    /**
+     * Retira el primer mensaje una vez escrito por completo (solo el escritor).
+     */
+    void retirar() {
+        if (pendientes.poll() != null) {
+            mensajesPendientes.decrementAndGet();
+        }
+    }
+
+    boolean estaVacia() {
+        return pendientes.isEmpty();
+    }
+
+    void limpiar() {
+        pendientes.clear();
+        bytesPendientes.set(0);
+        mensajesPendientes.set(0);
+        sobreMarcaDesde = 0L;
+    }
+
+    int getBytesPendientes() {
+        return bytesPendientes.get();
+    }
+
+    int getMensajesPendientes() {
+        return mensajesPendientes.get();
+    }
+
+    boolean estaSobreMarcaAlta() {
+        return sobreMarcaDesde != 0L;
+    }
+}
@@ -0,0 +1,161 @@
+package controlador.servidor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ✅ NUEVO: Compresion negociada de los mensajes grandes.
+ *
+ * estado_tablero, estado_completo o lista_salas son JSON grande y muy
+ * repetitivo; los eventos de dados y movimientos ocupan unas decenas de
+ * bytes. El cliente pide la compresion en el saludo
+ * ({"tipo":"protocolo","compresion":"deflate"}) y desde ese momento el
+ * servidor envia cada mensaje de UMBRAL bytes o mas como una trama
+ * OP_JSON_DEFLATE del ProtocoloBinario. La trama lleva la misma linea JSON
+ * (sin el '\n') comprimida con deflate en formato zlib. Los mensajes
+ * pequenos pasan sin comprimir, y tambien los que no ganan nada o no caben
+ * en una trama.
+ *
+ * Cada conexion tiene un Deflater y un Inflater, y los dos extremos usan
+ * el mismo DICCIONARIO predefinido con los fragmentos tipicos de los
+ * mensajes del Parchis. Cada mensaje se comprime por separado (reset y
+ * diccionario), sin depender de los anteriores: el orden de la cola de
+ * salida y la reanudacion no afectan, y el resultado es el mismo en todas
+ * las conexiones, asi que MensajeCodificado lo calcula una vez por
+ * broadcast.
+ */
+public final class CompresionMensajes {
+
+    public static final String DEFLATE = "deflate";
+
+    // Mensajes mas cortos (en bytes, sin el '\n') se envian tal cual
+    static final int UMBRAL = Integer.getInteger("parchis.compresion.umbral", 512);
+    static final int NIVEL = Integer.getInteger("parchis.compresion.nivel", Deflater.BEST_SPEED);
+
+    // Tope al descomprimir: una trama no puede inflarse sin limite
+    private static final int MAX_DESCOMPRIMIDO = 1024 * 1024;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    /**
+     * Fragmentos tipicos de los mensajes grandes. Deflate encuentra antes
+     * las coincidencias cercanas al final, asi que lo mas frecuente (las
+     * casillas vacias del estado_tablero) va al final.
+     */
+    private static final byte[] DICCIONARIO = (
+        "{\"tipo\":\"lista_salas\",\"exito\":true,\"total\":1,\"salas\":["
+        + "{\"id\":1,\"nombre\":\"Sala\",\"jugadores\":1,\"maxJugadores\":4,\"estado\":\"ESPERANDO\"}]}"
+        + "{\"tipo\":\"partida_iniciada\",\"mensaje\":\"La partida ha comenzado!\",\"turnoInicial\":0,"
+        + "\"turnoJugadorId\":1,\"turnoJugadorNombre\":\"Jugador\",\"jugadores\":[{\"id\":1,\"nombre\":\"Jugador\",\"color\":\"ROJO\"}]}"
+        + "{\"seq\":1,\"tipo\":\"estado_completo\",\"partida\":{\"partidaId\":1,\"nombre\":\"Sala\",\"estado\":\"EN_PROGRESO\","
+        + "\"turnoActual\":0,\"maxJugadores\":4,\"version\":1,\"jugadorActualId\":1,\"jugadores\":["
+        + "{\"id\":1,\"nombre\":\"Jugador\",\"color\":\"AMARILLO\",\"puntos\":0,\"listo\":true,\"fichasEnMeta\":0,"
+        + "\"conectado\":true,\"bonus\":0,\"contadorDobles\":0,\"fichas\":["
+        + "{\"id\":1,\"estado\":\"EN_META\",\"casilla\":-1},{\"id\":2,\"estado\":\"EN_TABLERO\",\"casilla\":22},"
+        + "{\"id\":3,\"estado\":\"EN_CASA\",\"casilla\":-1},{\"id\":4,\"estado\":\"EN_CASA\",\"casilla\":-1}]}]},"
+        + "{\"seq\":1,\"tipo\":\"estado_tablero\",\"tablero\":{\"version\":1,\"casillas\":["
+        + "{\"indice\":69,\"tipo\":\"META\",\"color\":\"AZUL\",\"bloqueada\":false,\"fichas\":[]},"
+        + "{\"indice\":5,\"tipo\":\"INICIO\",\"color\":\"VERDE\",\"bloqueada\":false,\"fichas\":["
+        + "{\"id\":1,\"jugadorId\":1,\"color\":\"ROJO\",\"estado\":\"EN_TABLERO\"}]},"
+        + "{\"indice\":8,\"tipo\":\"SEGURA\",\"color\":\"NINGUNO\",\"bloqueada\":false,\"fichas\":[]},"
+        + "{\"indice\":12,\"tipo\":\"NORMAL\",\"color\":\"NINGUNO\",\"bloqueada\":false,\"fichas\":[]},"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    private final Deflater deflater;
+    private final Inflater inflater;
+    private byte[] buffer;
+    private boolean cerrado;
+
+    public CompresionMensajes() {
+        this.deflater = new Deflater(NIVEL);
+        this.inflater = new Inflater();
+        this.buffer = new byte[CAPACIDAD_INICIAL];
+    }
+
+    /**
+     * Trama OP_JSON_DEFLATE de una linea JSON ya codificada (con su '\n').
+     *
+     * @return la trama, o null si la linea debe enviarse tal cual
+     */
+    synchronized ByteBuffer comprimir(ByteBuffer linea) {
+        int longitud = linea.remaining() - 1;
+        if (longitud < UMBRAL || cerrado) {
+            return null;
+        }
+
+        deflater.reset();
+        deflater.setDictionary(DICCIONARIO);
+        deflater.setInput(linea.array(), linea.arrayOffset() + linea.position(), longitud);
+        deflater.finish();
+
+        // Solo compensa si la trama completa es menor que la linea
+        int limite = Math.min(longitud - ProtocoloBinario.CABECERA, ProtocoloBinario.MAX_CARGA);
+        int pos = 0;
+        while (!deflater.finished()) {
+            if (pos == buffer.length) {
+                if (buffer.length >= limite) {
+                    return null;
+                }
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, limite));
+            }
+            pos += deflater.deflate(buffer, pos, buffer.length - pos);
+        }
+        if (pos > limite) {
+            return null;
+        }
+
+        byte[] trama = new byte[ProtocoloBinario.CABECERA + pos];
+        trama[0] = ProtocoloBinario.MARCA;
+        trama[1] = ProtocoloBinario.OP_JSON_DEFLATE;
+        trama[2] = (byte) (pos >> 8);
+        trama[3] = (byte) pos;
+        System.arraycopy(buffer, 0, trama, ProtocoloBinario.CABECERA, pos);
+        return ByteBuffer.wrap(trama);
+    }
+
+    /**
+     * Linea JSON de una trama OP_JSON_DEFLATE (lado del cliente).
+     *
+     * @throws DataFormatException si la carga no es un deflate valido con
+     *         el diccionario o excede MAX_DESCOMPRIMIDO
+     */
+    public synchronized String descomprimir(TramaBinaria trama) throws DataFormatException {
+        if (cerrado) {
+            throw new DataFormatException("Compresion cerrada");
+        }
+        inflater.reset();
+        inflater.setInput(trama.getCarga());
+
+        int pos = 0;
+        while (!inflater.finished()) {
+            if (pos == buffer.length) {
+                if (buffer.length >= MAX_DESCOMPRIMIDO) {
+                    throw new DataFormatException("Mensaje comprimido excede " + MAX_DESCOMPRIMIDO + " bytes");
+                }
+                buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_DESCOMPRIMIDO));
+            }
+            int n = inflater.inflate(buffer, pos, buffer.length - pos);
+            if (n == 0) {
+                if (inflater.needsDictionary()) {
+                    inflater.setDictionary(DICCIONARIO);
+                } else if (inflater.needsInput()) {
+                    throw new DataFormatException("Trama comprimida incompleta");
+                }
+            }
+            pos += n;
+        }
+        return new String(buffer, 0, pos, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Libera la memoria nativa de zlib al cerrar la conexion.
+     */
+    public synchronized void cerrar() {
+        cerrado = true;
+        deflater.end();
+        inflater.end();
+    }
+}
@@ -0,0 +1,152 @@
+package controlador.servidor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Estado de una conexion no bloqueante atendida por un BucleReactor.
+ *
+ * - Entrada: los bytes se leen en el buffer compartido del bucle y se
+ *   separan con un DelimitadorEntrada propio (1 KB; solo crece con un
+ *   mensaje grande y lo suelta al terminarlo)
+ * - Salida: ColaSalida acotada que solo el hilo del bucle escribe al canal
+ */
+final class ConexionNio {
+
+    private final SocketChannel canal;
+    private final BucleReactor bucle;
+    private SelectionKey clave;
+    private ClienteHandler cliente;
+
+    private final ColaSalida salida;
+    private final AtomicBoolean escrituraSolicitada;
+    private final AtomicBoolean cerrada;
+
+    private final DelimitadorEntrada entrada;
+
+    ConexionNio(SocketChannel canal, BucleReactor bucle) {
+        this.canal = canal;
+        this.bucle = bucle;
+        this.salida = new ColaSalida();
+        this.escrituraSolicitada = new AtomicBoolean(false);
+        this.cerrada = new AtomicBoolean(false);
+        this.entrada = new DelimitadorEntrada();
+    }
+
+    void setClave(SelectionKey clave) {
+        this.clave = clave;
+    }
+
+    void setCliente(ClienteHandler cliente) {
+        this.cliente = cliente;
+    }
+
+    ClienteHandler getCliente() {
+        return cliente;
+    }
+
+    SocketChannel getCanal() {
+        return canal;
+    }
+
+    ColaSalida getSalida() {
+        return salida;
+    }
+
+    /**
+     * Pide al bucle que vacie la cola de salida. Puede llamarse desde
+     * cualquier hilo; varias peticiones seguidas cuentan como una.
+     */
+    void solicitarEscritura() {
+        if (escrituraSolicitada.compareAndSet(false, true)) {
+            bucle.solicitarEscritura(this);
+        }
+    }
+
+    /**
+     * Escribe todo lo posible de la cola de salida (solo hilo del bucle),
+     * juntando los mensajes pendientes en una escritura con varios buffers.
+     * Si el socket no acepta mas datos, activa OP_WRITE y espera.
+     */
+    void vaciarSalida() throws IOException {
+        escrituraSolicitada.set(false);
+
+        ByteBuffer[] lote = bucle.getLoteEscritura();
+        int n;
+        while ((n = salida.tomarLote(lote)) > 0) {
+            long escritos = canal.write(lote, 0, n);
+            EstadisticasRed.registrarEscritura();
+            salida.descontar((int) escritos);
+
+            int completos = 0;
+            while (completos < n && !lote[completos].hasRemaining()) {
+                salida.retirar();
+                completos++;
+            }
+            Arrays.fill(lote, 0, n, null);
+
+            if (completos < n) {
+                if (clave != null && clave.isValid()) {
+                    clave.interestOps(clave.interestOps() | SelectionKey.OP_WRITE);
+                }
+                return;
+            }
+        }
+
+        if (clave != null && clave.isValid()) {
+            clave.interestOps(clave.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Lee del canal usando el buffer compartido del bucle y entrega al
+     * ClienteHandler cada linea completa o trama binaria completa.
+     * ✅ ACTUALIZADO: La separacion y el limite los pone el
+     * DelimitadorEntrada (el mismo que usa LectorEntrada). La linea se
+     * copia una vez, como bytes, porque se procesa en otro hilo.
+     *
+     * @return bytes leidos, o -1 si el cliente cerro la conexion
+     */
+    int leer(ByteBuffer bufferCompartido) throws IOException {
+        bufferCompartido.clear();
+        int leidos = canal.read(bufferCompartido);
+        if (leidos <= 0) {
+            return leidos;
+        }
+
+        bufferCompartido.flip();
+        while (bufferCompartido.hasRemaining()) {
+            entrada.agregar(bufferCompartido);
+
+            Object mensaje;
+            while ((mensaje = entrada.siguiente()) != null) {
+                if (cliente != null) {
+                    cliente.recibirMensaje(mensaje instanceof LineaBytes
+                        ? ((LineaBytes) mensaje).copia() : mensaje);
+                }
+            }
+        }
+        entrada.compactar();
+
+        return leidos;
+    }
+
+    void cerrar() {
+        if (!cerrada.compareAndSet(false, true)) return;
+        bucle.conexionCerrada();
+
+        if (clave != null) {
+            clave.cancel();
+        }
+        try {
+            canal.close();
+        } catch (IOException e) {
+            // Ignorar
+        }
+        salida.limpiar();
+    }
+}
@@ -0,0 +1,220 @@
+package controlador.servidor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Separa el flujo de bytes de una conexion en mensajes: lineas JSON
+ * terminadas en '\n' y tramas del ProtocoloBinario (empiezan por
+ * ProtocoloBinario.MARCA). Lo usan LectorEntrada (sockets bloqueantes) y
+ * ConexionNio (BucleReactor).
+ *
+ * - Los bytes se acumulan en un buffer reutilizable y se busca el '\n' sin
+ *   decodificar nada; cada byte se examina una vez aunque la linea llegue
+ *   en varios trozos
+ * - La linea se entrega como LineaBytes, una vista sobre ese buffer (sin
+ *   String intermedio); es valida hasta la siguiente lectura
+ * - Una linea sin '\n' de mas de maxLinea bytes (o una trama de mas de
+ *   ProtocoloBinario.MAX_CARGA) cierra la conexion con IOException, asi
+ *   que un cliente no puede agotar el heap
+ * - Las lineas vacias o solo con espacios se descartan
+ *
+ * No es thread-safe: uno por conexion, usado por el hilo que la lee.
+ */
+public final class DelimitadorEntrada {
+
+    // Limite por defecto de una linea sin '\n'
+    public static final int MAX_LINEA = 64 * 1024;
+
+    // Capacidad inicial; alcanza para casi todos los mensajes del protocolo
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    // Sin mensajes pendientes, un buffer mayor que esto se suelta
+    private static final int CAPACIDAD_RETENIDA = 8 * 1024;
+
+    private final int maxLinea;
+    private final int capacidadMaxima;
+    private final LineaBytes linea;
+
+    private byte[] buffer;
+    private int inicio;      // primer byte sin entregar
+    private int fin;         // fin de los bytes recibidos
+    private int escaneado;   // hasta aqui ya se busco el '\n'
+
+    public DelimitadorEntrada() {
+        this(MAX_LINEA);
+    }
+
+    public DelimitadorEntrada(int maxLinea) {
+        this.maxLinea = maxLinea;
+        // Una linea maxima con su "\r\n", o la trama mas grande
+        this.capacidadMaxima = Math.max(maxLinea + 2, ProtocoloBinario.CABECERA + ProtocoloBinario.MAX_CARGA);
+        this.linea = new LineaBytes();
+    }
+
+    /**
+     * Lee del stream (bloqueante) lo que quepa en el buffer.
+     *
+     * @return bytes leidos, o -1 al cerrarse el stream
+     */
+    public int leerDe(InputStream entrada) throws IOException {
+        prepararEspacio();
+        int n = entrada.read(buffer, fin, buffer.length - fin);
+        if (n > 0) {
+            fin += n;
+        }
+        return n;
+    }
+
+    /**
+     * Copia lo que quepa de los bytes recibidos (se avanza su posicion).
+     * Hay que vaciar los mensajes con siguiente() y volver a llamar
+     * mientras queden bytes.
+     */
+    public void agregar(ByteBuffer datos) throws IOException {
+        prepararEspacio();
+        int n = Math.min(datos.remaining(), buffer.length - fin);
+        datos.get(buffer, fin, n);
+        fin += n;
+    }
+
+    /**
+     * Siguiente mensaje completo del buffer.
+     *
+     * @return una LineaBytes (sin el '\n' ni el '\r' final, valida hasta la
+     *         siguiente lectura) o una TramaBinaria; null si falta recibir
+     *         el resto
+     * @throws IOException si el mensaje pendiente excede su maximo
+     */
+    public Object siguiente() throws IOException {
+        while (inicio < fin) {
+            if (buffer[inicio] == ProtocoloBinario.MARCA) {
+                return extraerTrama();
+            }
+
+            int nl = buscarFinDeLinea(Math.max(inicio, escaneado));
+            if (nl < 0) {
+                escaneado = fin;
+                if (fin - inicio > maxLinea) {
+                    throw new IOException("Linea excede el maximo de " + maxLinea + " bytes");
+                }
+                return null;
+            }
+
+            int desde = inicio;
+            int hasta = nl;
+            inicio = nl + 1;
+            escaneado = inicio;
+            if (hasta > desde && buffer[hasta - 1] == '\r') {
+                hasta--;
+            }
+            if (!esBlanca(desde, hasta)) {
+                return linea.apuntar(buffer, desde, hasta - desde);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Al cerrarse el stream: lo que quedo sin '\n' como ultima linea (igual
+     * que BufferedReader.readLine()), o null si no quedo nada.
+     */
+    public LineaBytes restante() {
+        if (inicio >= fin || buffer[inicio] == ProtocoloBinario.MARCA) {
+            return null;
+        }
+        int desde = inicio;
+        int hasta = fin;
+        inicio = fin;
+        if (hasta > desde && buffer[hasta - 1] == '\r') {
+            hasta--;
+        }
+        return esBlanca(desde, hasta) ? null : linea.apuntar(buffer, desde, hasta - desde);
+    }
+
+    /**
+     * Bytes recibidos que aun no forman un mensaje completo.
+     */
+    public int pendientes() {
+        return fin - inicio;
+    }
+
+    /**
+     * Suelta el buffer si no quedan bytes pendientes y crecio mas de lo
+     * normal (las conexiones inactivas no retienen buffers grandes).
+     */
+    public void compactar() {
+        if (inicio == fin && buffer != null && buffer.length > CAPACIDAD_RETENIDA) {
+            buffer = null;
+            inicio = fin = escaneado = 0;
+        }
+    }
+
+    private int buscarFinDeLinea(int desde) {
+        byte[] b = buffer;
+        for (int i = desde; i < fin; i++) {
+            if (b[i] == '\n') return i;
+        }
+        return -1;
+    }
+
+    private boolean esBlanca(int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            byte c = buffer[i];
+            if (c != ' ' && c != '\t' && c != '\r') return false;
+        }
+        return true;
+    }
+
+    private TramaBinaria extraerTrama() throws IOException {
+        if (fin - inicio < ProtocoloBinario.CABECERA) {
+            return null;
+        }
+        int carga = ProtocoloBinario.longitudCarga(buffer, inicio);
+        if (carga > ProtocoloBinario.MAX_CARGA) {
+            throw new IOException("Trama excede el maximo de " + ProtocoloBinario.MAX_CARGA + " bytes");
+        }
+        int total = ProtocoloBinario.CABECERA + carga;
+        if (fin - inicio < total) {
+            return null;
+        }
+        TramaBinaria trama = new TramaBinaria(buffer[inicio + 1],
+            Arrays.copyOfRange(buffer, inicio + ProtocoloBinario.CABECERA, inicio + total));
+        inicio += total;
+        escaneado = inicio;
+        return trama;
+    }
+
+    /**
+     * Deja espacio libre al final del buffer: reinicia si ya se entrego
+     * todo, mueve lo pendiente al principio o, si el mensaje pendiente
+     * llena el buffer, lo duplica (hasta capacidadMaxima).
+     */
+    private void prepararEspacio() throws IOException {
+        if (buffer == null) {
+            buffer = new byte[CAPACIDAD_INICIAL];
+        }
+        if (inicio == fin) {
+            inicio = fin = escaneado = 0;
+            return;
+        }
+        if (fin < buffer.length) {
+            return;
+        }
+
+        int pendientes = fin - inicio;
+        if (inicio > 0) {
+            System.arraycopy(buffer, inicio, buffer, 0, pendientes);
+            escaneado -= inicio;
+            inicio = 0;
+            fin = pendientes;
+            return;
+        }
+        if (buffer.length >= capacidadMaxima) {
+            throw new IOException("Mensaje excede el maximo de " + capacidadMaxima + " bytes");
+        }
+        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, capacidadMaxima));
+    }
+}
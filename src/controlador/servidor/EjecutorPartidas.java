@@ -0,0 +1,240 @@
+package controlador.servidor;
+
+import modelo.Jugador.Jugador;
+import modelo.servicios.ObservadorSalas;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+/**
+ * ✅ NUEVO: Bucles de ejecucion de las partidas.
+ *
+ * Cada partida se asigna a uno de N bucles (un hilo cada uno) y tiene un
+ * buzon: los comandos de juego de sus jugadores se encolan ahi y su bucle
+ * los ejecuta de uno en uno, en orden de llegada. Dos comandos de la misma
+ * partida nunca corren a la vez ni cambian de hilo, asi que el MotorJuego,
+ * la Partida y el SecuenciadorPartida ya no se disputan sus locks en una
+ * jugada; partidas de bucles distintos corren en paralelo.
+ *
+ * Afinidad: la primera vez que llega un comando de una partida se asigna
+ * al bucle con menos partidas (a igualdad, al de menos comandos
+ * pendientes) y se queda en el hasta que se elimina (ObservadorSalas) o
+ * termina. Entonces el bucle la descuenta y las partidas nuevas ocupan su
+ * hueco.
+ *
+ * Un buzon ejecuta como mucho LOTE comandos seguidos y despues cede el
+ * bucle a las demas partidas que comparten el hilo.
+ *
+ * Los locks del modelo se mantienen para lo que no pasa por los buzones
+ * (lobby, desconexiones) y para el comando que alcance el buzon de una
+ * partida justo al liberarse.
+ *
+ * Configurable con -Dparchis.partidas.bucles (por defecto, un bucle por
+ * nucleo).
+ */
+final class EjecutorPartidas implements ObservadorSalas {
+
+    static final int BUCLES = Integer.getInteger("parchis.partidas.bucles",
+        Runtime.getRuntime().availableProcessors());
+
+    private static final int LOTE = 64;
+
+    private final Bucle[] bucles;
+    private final Map<Integer, Buzon> buzones;
+
+    // partidaId -> true si ya termino (su buzon se libera al vaciarse)
+    private final IntPredicate terminada;
+
+    EjecutorPartidas(IntPredicate terminada) {
+        this(BUCLES, terminada);
+    }
+
+    EjecutorPartidas(int numeroBucles, IntPredicate terminada) {
+        this.bucles = new Bucle[Math.max(1, numeroBucles)];
+        for (int i = 0; i < bucles.length; i++) {
+            bucles[i] = new Bucle(i);
+        }
+        this.buzones = new ConcurrentHashMap<>();
+        this.terminada = terminada;
+    }
+
+    /**
+     * Encola el comando en el buzon de la partida (asignandola a un bucle
+     * si no tenia).
+     *
+     * @return false si el ejecutor ya se detuvo; el comando no se encolo
+     */
+    boolean encolar(int partidaId, Runnable comando) {
+        return buzones.computeIfAbsent(partidaId, this::asignar).encolar(comando);
+    }
+
+    /**
+     * Bucle con menos partidas asignadas; a igualdad, el de menos comandos
+     * pendientes. Sincronizado para que dos partidas nuevas no elijan a la
+     * vez el mismo hueco (solo ocurre una vez por partida).
+     */
+    private synchronized Buzon asignar(int partidaId) {
+        Bucle elegido = bucles[0];
+        for (int i = 1; i < bucles.length; i++) {
+            Bucle b = bucles[i];
+            int diferencia = b.partidas.get() - elegido.partidas.get();
+            if (diferencia < 0 || (diferencia == 0 && b.pendientes.get() < elegido.pendientes.get())) {
+                elegido = b;
+            }
+        }
+        elegido.partidas.incrementAndGet();
+        return new Buzon(partidaId, elegido);
+    }
+
+    private void liberar(Buzon buzon) {
+        if (buzones.remove(buzon.partidaId, buzon)) {
+            buzon.bucle.partidas.decrementAndGet();
+        }
+    }
+
+    void detener() {
+        for (Bucle b : bucles) {
+            b.hilo.shutdown();
+        }
+    }
+
+    int getNumeroBucles() {
+        return bucles.length;
+    }
+
+    int getPartidasAsignadas() {
+        return buzones.size();
+    }
+
+    /**
+     * Partidas asignadas y comandos ejecutados por bucle.
+     */
+    String resumen() {
+        StringBuilder sb = new StringBuilder("Bucles de partida:");
+        for (Bucle b : bucles) {
+            sb.append(String.format(" [%d: %d partidas, %d comandos]",
+                b.indice, b.partidas.get(), b.ejecutados.sum()));
+        }
+        return sb.toString();
+    }
+
+    // ==================== ObservadorSalas ====================
+
+    @Override
+    public void jugadorUnido(int partidaId, Jugador jugador) {
+        // La partida se asigna con su primer comando de juego
+    }
+
+    @Override
+    public void jugadorRemovido(int partidaId, Jugador jugador) {
+    }
+
+    @Override
+    public void partidaEliminada(int partidaId) {
+        Buzon buzon = buzones.get(partidaId);
+        if (buzon != null) {
+            liberar(buzon);
+        }
+    }
+
+    /**
+     * Un hilo y su carga.
+     */
+    private static final class Bucle {
+        final int indice;
+        final ExecutorService hilo;
+        final AtomicInteger partidas = new AtomicInteger();
+        final AtomicInteger pendientes = new AtomicInteger();
+        final LongAdder ejecutados = new LongAdder();
+
+        Bucle(int indice) {
+            this.indice = indice;
+            this.hilo = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "partida-bucle-" + indice);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Cola de comandos de una partida. Como mucho un drenado programado a
+     * la vez (mismo esquema que el despacho de ClienteHandler).
+     */
+    private final class Buzon {
+        final int partidaId;
+        final Bucle bucle;
+        final Queue<Runnable> comandos = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean programado = new AtomicBoolean(false);
+
+        Buzon(int partidaId, Bucle bucle) {
+            this.partidaId = partidaId;
+            this.bucle = bucle;
+        }
+
+        boolean encolar(Runnable comando) {
+            bucle.pendientes.incrementAndGet();
+            comandos.offer(comando);
+            if (programar()) {
+                return true;
+            }
+            if (comandos.remove(comando)) {
+                bucle.pendientes.decrementAndGet();
+                return false;
+            }
+            return true;   // ya lo tomo un drenado anterior
+        }
+
+        private boolean programar() {
+            if (!programado.compareAndSet(false, true)) return true;
+            try {
+                bucle.hilo.execute(this::drenar);
+                return true;
+            } catch (RejectedExecutionException e) {
+                programado.set(false);
+                return false;
+            }
+        }
+
+        private void drenar() {
+            try {
+                Runnable comando;
+                for (int n = 0; n < LOTE && (comando = comandos.poll()) != null; n++) {
+                    ejecutar(comando);
+                }
+            } finally {
+                programado.set(false);
+                if (!comandos.isEmpty()) {
+                    if (!programar()) {
+                        // Detenido: lo que quede se ejecuta aqui
+                        Runnable comando;
+                        while ((comando = comandos.poll()) != null) {
+                            ejecutar(comando);
+                        }
+                    }
+                } else if (terminada.test(partidaId)) {
+                    liberar(this);
+                }
+            }
+        }
+
+        private void ejecutar(Runnable comando) {
+            bucle.pendientes.decrementAndGet();
+            try {
+                comando.run();
+            } catch (RuntimeException e) {
+                System.err.println("X Error en comando de la partida " + partidaId + ": " + e.getMessage());
+            } finally {
+                bucle.ejecutados.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package controlador.servidor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores globales del camino de salida.
+ *
+ * - codificaciones / bytesCodificados: buffers creados al pasar de String
+ *   a UTF-8 (asignaciones de memoria)
+ * - entregas / bytesEntregados: mensajes encolados a destinatarios
+ * - escrituras: llamadas de escritura al socket (syscalls)
+ *
+ * Con codificacion unica por broadcast, codificaciones crece una vez por
+ * evento y entregas una vez por destinatario.
+ */
+public final class EstadisticasRed {
+
+    private static final LongAdder codificaciones = new LongAdder();
+    private static final LongAdder bytesCodificados = new LongAdder();
+    private static final LongAdder entregas = new LongAdder();
+    private static final LongAdder bytesEntregados = new LongAdder();
+    private static final LongAdder escrituras = new LongAdder();
+
+    private EstadisticasRed() {
+    }
+
+    static void registrarCodificacion(int bytes) {
+        codificaciones.increment();
+        bytesCodificados.add(bytes);
+    }
+
+    static void registrarEntrega(int bytes) {
+        entregas.increment();
+        bytesEntregados.add(bytes);
+    }
+
+    static void registrarEscritura() {
+        escrituras.increment();
+    }
+
+    public static long getCodificaciones() {
+        return codificaciones.sum();
+    }
+
+    public static long getBytesCodificados() {
+        return bytesCodificados.sum();
+    }
+
+    public static long getEntregas() {
+        return entregas.sum();
+    }
+
+    public static long getBytesEntregados() {
+        return bytesEntregados.sum();
+    }
+
+    public static long getEscrituras() {
+        return escrituras.sum();
+    }
+
+    public static void reiniciar() {
+        codificaciones.reset();
+        bytesCodificados.reset();
+        entregas.reset();
+        bytesEntregados.reset();
+        escrituras.reset();
+    }
+
+    public static String resumen() {
+        return String.format(
+            "Red[codificaciones=%d (%d B), entregas=%d (%d B), escrituras=%d]",
+            getCodificaciones(), getBytesCodificados(),
+            getEntregas(), getBytesEntregados(), getEscrituras()
+        );
+    }
+}
@@ -0,0 +1,123 @@
+package controlador.servidor;
+
+import modelo.Tablero.DeltaTablero;
+import modelo.Tablero.InstantaneaTablero;
+
+import static controlador.servidor.CamposMensaje.*;
+
+/**
+ * ✅ NUEVO: Evento caliente de la partida (ficha_movida, cambio_turno,
+ * tablero_delta, estado_tablero) con sus dos formas: la linea JSON, escrita
+ * con su PlantillaMensaje, y la trama del ProtocoloBinario, escrita con los
+ * mismos datos tipados. La trama ya no sale de parsear la linea JSON en
+ * cada difusion.
+ *
+ * Uso:
+ *   servidor.broadcastAPartida(partidaId,
+ *       EventoPartida.cambioTurno(id, nombre, null), sessionIdExcluido);
+ */
+public final class EventoPartida {
+
+    private static final PlantillaMensaje FICHA_MOVIDA = PlantillaMensaje.de("ficha_movida");
+    private static final PlantillaMensaje CAMBIO_TURNO = PlantillaMensaje.de("cambio_turno");
+    private static final PlantillaMensaje TABLERO_DELTA = PlantillaMensaje.de("tablero_delta");
+    private static final PlantillaMensaje ESTADO_TABLERO = PlantillaMensaje.de("estado_tablero");
+
+    private final String json;
+    private final byte[] trama;   // null = solo JSON
+
+    private EventoPartida(String json, byte[] trama) {
+        this.json = json;
+        this.trama = trama;
+    }
+
+    /**
+     * @param automatico     null si el evento no lleva el campo
+     * @param dadoDisponible null si el evento no lleva el campo
+     */
+    public static EventoPartida fichaMovida(int jugadorId, String jugadorNombre, int fichaId,
+                                            int desde, int hasta,
+                                            Boolean automatico, Integer dadoDisponible) {
+        PlantillaMensaje.Escritor escritor = FICHA_MOVIDA.iniciar()
+            .entero(JUGADOR_ID, jugadorId)
+            .texto(JUGADOR_NOMBRE, jugadorNombre)
+            .entero(FICHA_ID, fichaId)
+            .entero(DESDE, desde)
+            .entero(HASTA, hasta);
+        if (automatico != null) {
+            escritor.booleano(AUTOMATICO, automatico);
+        }
+        if (dadoDisponible != null) {
+            escritor.entero(DADO_DISPONIBLE, dadoDisponible);
+        }
+        return new EventoPartida(escritor.json(), ProtocoloBinario.fichaMovida(
+            jugadorId, jugadorNombre, fichaId, desde, hasta, automatico, dadoDisponible));
+    }
+
+    /**
+     * @param mensaje null si el evento no lleva el campo
+     */
+    public static EventoPartida cambioTurno(int jugadorId, String jugadorNombre, String mensaje) {
+        PlantillaMensaje.Escritor escritor = CAMBIO_TURNO.iniciar()
+            .entero(JUGADOR_ID, jugadorId)
+            .texto(JUGADOR_NOMBRE, jugadorNombre);
+        if (mensaje != null) {
+            escritor.texto(MENSAJE, mensaje);
+        }
+        return new EventoPartida(escritor.json(),
+            ProtocoloBinario.cambioTurno(jugadorId, jugadorNombre, mensaje));
+    }
+
+    /**
+     * Fichas que cambiaron entre dos versiones del tablero.
+     */
+    public static EventoPartida tableroDelta(DeltaTablero delta) {
+        PlantillaMensaje.Escritor escritor = TABLERO_DELTA.iniciar()
+            .entero(VERSION_ANTERIOR, delta.versionAnterior)
+            .entero(VERSION, delta.version)
+            .lista(CAMBIOS);
+
+        for (DeltaTablero.Cambio cambio : delta.cambios) {
+            escritor.elemento()
+                .entero(FICHA_ID, cambio.fichaId)
+                .entero(JUGADOR_ID, cambio.jugadorId)
+                .texto(COLOR, cambio.color.name())
+                .entero(DESDE, cambio.desde)
+                .entero(HASTA, cambio.hasta)
+                .texto(ESTADO, cambio.estado.name())
+                .cerrar();
+        }
+
+        return new EventoPartida(escritor.cerrar().json(), ProtocoloBinario.tableroDelta(delta));
+    }
+
+    /**
+     * Estado completo del tablero (con su version). El JSON del tablero es
+     * el de la instantanea, generado una vez por version.
+     */
+    public static EventoPartida estadoTablero(InstantaneaTablero tablero) {
+        String json = ESTADO_TABLERO.iniciar()
+            .crudo(TABLERO, tablero.getJson())
+            .json();
+        return new EventoPartida(json, ProtocoloBinario.estadoTablero(tablero));
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Trama del evento con seq 0, o null si solo se envia en JSON. No debe
+     * modificarse.
+     */
+    byte[] getTrama() {
+        return trama;
+    }
+
+    /**
+     * Mensaje listo para enviar fuera de la secuencia de la partida.
+     */
+    public MensajeCodificado codificar() {
+        return MensajeCodificado.de(json, trama);
+    }
+}
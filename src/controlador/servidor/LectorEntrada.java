@@ -0,0 +1,71 @@
+package controlador.servidor;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Lector bloqueante de un stream que mezcla lineas JSON y tramas del
+ * ProtocoloBinario (se distinguen por el primer byte).
+ *
+ * Sustituye a BufferedReader.readLine() en los sockets bloqueantes.
+ * ✅ ACTUALIZADO: La separacion la hace un DelimitadorEntrada, que ademas
+ * hace de buffer (no hace falta un BufferedInputStream debajo): lee en
+ * bloques, acota la longitud de la linea y la entrega como LineaBytes sin
+ * crear un String.
+ */
+public final class LectorEntrada implements Closeable {
+
+    private final InputStream entrada;
+    private final DelimitadorEntrada delimitador;
+
+    public LectorEntrada(InputStream entrada) {
+        this(entrada, DelimitadorEntrada.MAX_LINEA);
+    }
+
+    public LectorEntrada(InputStream entrada, int maxLinea) {
+        this.entrada = entrada;
+        this.delimitador = new DelimitadorEntrada(maxLinea);
+    }
+
+    /**
+     * Siguiente mensaje del stream.
+     *
+     * @return una linea (LineaBytes sin el '\n', valida hasta la siguiente
+     *         llamada) o una TramaBinaria; null al cerrarse el stream
+     */
+    public Object siguiente() throws IOException {
+        Object mensaje;
+        while ((mensaje = delimitador.siguiente()) == null) {
+            if (delimitador.leerDe(entrada) < 0) {
+                LineaBytes ultima = delimitador.restante();
+                if (ultima == null && delimitador.pendientes() > 0) {
+                    throw new EOFException("Trama incompleta");
+                }
+                return ultima;
+            }
+        }
+        return mensaje;
+    }
+
+    /**
+     * ✅ NUEVO: Como BufferedReader.readLine(), para los streams que solo
+     * llevan lineas JSON (conexiones P2P).
+     *
+     * @return la linea, o null al cerrarse el stream
+     * @throws IOException si llega una trama binaria o la linea excede el maximo
+     */
+    public String leerLinea() throws IOException {
+        Object mensaje = siguiente();
+        if (mensaje instanceof TramaBinaria) {
+            throw new IOException("Trama binaria inesperada");
+        }
+        return mensaje != null ? mensaje.toString() : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+}
@@ -0,0 +1,103 @@
+package controlador.servidor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Linea JSON recibida, vista directamente sobre sus bytes UTF-8 (ver
+ * DelimitadorEntrada).
+ *
+ * Si la linea es ASCII (lo normal en el protocolo) se lee como
+ * CharSequence sin decodificarla ni copiarla: cada byte es un char. Si trae
+ * caracteres no ASCII (un nombre con acentos...) se decodifica una vez, la
+ * primera vez que se pide un caracter, y se usa ese String.
+ *
+ * La vista que devuelve el delimitador apunta a su buffer y solo es valida
+ * hasta la siguiente lectura; quien la guarde debe usar copia().
+ */
+public final class LineaBytes implements CharSequence {
+
+    private byte[] datos;
+    private int desde;
+    private int longitud;
+    private boolean ascii;
+    private String texto;
+
+    LineaBytes() {
+    }
+
+    private LineaBytes(byte[] datos, int desde, int longitud) {
+        apuntar(datos, desde, longitud);
+    }
+
+    LineaBytes apuntar(byte[] datos, int desde, int longitud) {
+        this.datos = datos;
+        this.desde = desde;
+        this.longitud = longitud;
+        this.texto = null;
+
+        boolean soloAscii = true;
+        for (int i = desde, fin = desde + longitud; i < fin; i++) {
+            if (datos[i] < 0) {
+                soloAscii = false;
+                break;
+            }
+        }
+        this.ascii = soloAscii;
+        return this;
+    }
+
+    /**
+     * Copia independiente del buffer del delimitador (para encolarla).
+     */
+    public LineaBytes copia() {
+        return new LineaBytes(Arrays.copyOfRange(datos, desde, desde + longitud), 0, longitud);
+    }
+
+    public boolean esAscii() {
+        return ascii;
+    }
+
+    /**
+     * Longitud en bytes (en chars si es ASCII).
+     */
+    public int longitudBytes() {
+        return longitud;
+    }
+
+    @Override
+    public int length() {
+        return ascii ? longitud : toString().length();
+    }
+
+    @Override
+    public char charAt(int indice) {
+        if (!ascii) {
+            return toString().charAt(indice);
+        }
+        if (indice < 0 || indice >= longitud) {
+            throw new IndexOutOfBoundsException("indice " + indice + ", longitud " + longitud);
+        }
+        return (char) datos[desde + indice];
+    }
+
+    @Override
+    public CharSequence subSequence(int inicio, int fin) {
+        if (!ascii) {
+            return toString().substring(inicio, fin);
+        }
+        if (inicio < 0 || fin > longitud || inicio > fin) {
+            throw new IndexOutOfBoundsException("rango " + inicio + ".." + fin + ", longitud " + longitud);
+        }
+        return new String(datos, desde + inicio, fin - inicio, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        if (texto == null) {
+            texto = new String(datos, desde, longitud,
+                ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,77 @@
+package controlador.servidor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Agrupacion de escrituras por peticion.
+ *
+ * Mientras un hilo procesa un mensaje entrante, todo lo que se envia
+ * (respuesta y broadcasts: ficha_movida, tablero_delta, cambio_turno...)
+ * se encola pero no se escribe. Al cerrar el lote cada sesion afectada
+ * se vacia una sola vez, en una escritura con varios buffers.
+ *
+ * Fuera de un lote (o al cerrarlo) puede esperarse ademas una ventana de
+ * microsegundos para juntar envios cercanos en el tiempo.
+ *
+ * Configurable con -Dparchis.salida.agrupar=false (desactiva el lote por
+ * peticion) y -Dparchis.salida.ventanaMicros (0 = vaciar enseguida).
+ */
+final class LoteSalida {
+
+    static final boolean ACTIVO =
+        !"false".equalsIgnoreCase(System.getProperty("parchis.salida.agrupar"));
+    static final long VENTANA_MICROS = Long.getLong("parchis.salida.ventanaMicros", 0L);
+
+    private static final ThreadLocal<LoteSalida> ACTUAL = new ThreadLocal<>();
+
+    // Pocas sesiones por peticion (una mesa): una lista basta
+    private final List<ClienteHandler> sesiones = new ArrayList<>(4);
+
+    private LoteSalida() {
+    }
+
+    /**
+     * Abre un lote en el hilo actual.
+     *
+     * @return el lote abierto, o null si la agrupacion esta desactivada o
+     *         ya hay un lote abierto en este hilo
+     */
+    static LoteSalida abrir() {
+        if (!ACTIVO || ACTUAL.get() != null) {
+            return null;
+        }
+        LoteSalida lote = new LoteSalida();
+        ACTUAL.set(lote);
+        return lote;
+    }
+
+    /**
+     * Si hay un lote abierto en este hilo, anota la sesion para vaciarla
+     * al cerrarlo.
+     *
+     * @return true si el vaciado queda diferido
+     */
+    static boolean diferir(ClienteHandler sesion) {
+        LoteSalida lote = ACTUAL.get();
+        if (lote == null) {
+            return false;
+        }
+        for (ClienteHandler s : lote.sesiones) {
+            if (s == sesion) return true;
+        }
+        lote.sesiones.add(sesion);
+        return true;
+    }
+
+    /**
+     * Cierra el lote y vacia cada sesion afectada una vez.
+     */
+    void cerrar() {
+        ACTUAL.remove();
+        for (ClienteHandler sesion : sesiones) {
+            sesion.liberarSalida();
+        }
+        sesiones.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package controlador.servidor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mensaje JSON ya codificado a UTF-8 (con el '\n' final), listo para
+ * escribirse al socket.
+ *
+ * En un broadcast se codifica una sola vez y cada destinatario recibe una
+ * vista (ByteBuffer.duplicate()) sobre los mismos bytes: sin copia ni
+ * recodificacion por jugador. Los bytes nunca se modifican despues de
+ * construir el mensaje; los escritores solo los leen.
+ *
+ * La forma binaria (ProtocoloBinario) tambien se comparte entre todas las
+ * sesiones binarias.
+ * ✅ ACTUALIZADO: Solo la tienen los eventos que la traen ya escrita desde
+ * sus datos (EventoPartida); el mensaje no se vuelve a parsear.
+ *
+ * ✅ NUEVO: Igual la forma comprimida (CompresionMensajes): todas las
+ * conexiones comprimen con el mismo diccionario y el mismo resultado.
+ */
+public final class MensajeCodificado {
+
+    private final String json;
+    private final ByteBuffer contenido;
+    
+    // Forma binaria: null = se envia en JSON
+    private final ByteBuffer binario;
+    
+    // Forma comprimida: null = aun no calculada; SIN_COMPRIMIR = se envia tal cual
+    private static final ByteBuffer SIN_COMPRIMIR = ByteBuffer.allocate(0);
+    private volatile ByteBuffer comprimido;
+
+    private MensajeCodificado(String json, byte[] bytes, byte[] trama) {
+        this.json = json;
+        this.contenido = ByteBuffer.wrap(bytes);
+        this.binario = trama != null ? ByteBuffer.wrap(trama) : null;
+    }
+
+    /**
+     * Codifica un mensaje JSON (una linea del protocolo).
+     */
+    public static MensajeCodificado de(String mensajeJson) {
+        return de(mensajeJson, null);
+    }
+
+    /**
+     * ✅ NUEVO: Codifica un mensaje JSON con su trama binaria equivalente.
+     *
+     * @param trama la trama del ProtocoloBinario, o null si no tiene
+     */
+    static MensajeCodificado de(String mensajeJson, byte[] trama) {
+        byte[] bytes = (mensajeJson + "\n").getBytes(StandardCharsets.UTF_8);
+        EstadisticasRed.registrarCodificacion(bytes.length);
+        if (trama != null) {
+            EstadisticasRed.registrarCodificacion(trama.length);
+        }
+        return new MensajeCodificado(mensajeJson, bytes, trama);
+    }
+
+    /**
+     * Vista independiente (posicion/limite propios) sobre los bytes
+     * compartidos. Una por destinatario.
+     */
+    ByteBuffer vista() {
+        return contenido.duplicate();
+    }
+
+    /**
+     * Vista para una sesion que negocio el protocolo binario: la trama si
+     * el mensaje tiene forma binaria, si no la misma linea JSON.
+     */
+    ByteBuffer vistaBinaria() {
+        return binario != null ? binario.duplicate() : contenido.duplicate();
+    }
+
+    /**
+     * ✅ NUEVO: Vista para una sesion que negocio la compresion. Si la
+     * sesion es binaria y el mensaje tiene trama, la trama (ya es pequena);
+     * si no, la linea comprimida cuando pasa del umbral, o la linea tal cual.
+     */
+    ByteBuffer vistaComprimida(boolean binaria, CompresionMensajes compresion) {
+        if (binaria && binario != null) {
+            return binario.duplicate();
+        }
+        if (contenido.limit() <= CompresionMensajes.UMBRAL) {
+            return contenido.duplicate();
+        }
+        
+        ByteBuffer c = comprimido;
+        if (c == null) {
+            // Carrera benigna: dos hilos pueden calcularla, el resultado es igual
+            c = compresion.comprimir(contenido.duplicate());
+            c = c != null ? c : SIN_COMPRIMIR;
+            if (c != SIN_COMPRIMIR) {
+                EstadisticasRed.registrarCodificacion(c.limit());
+            }
+            comprimido = c;
+        }
+        return c == SIN_COMPRIMIR ? contenido.duplicate() : c.duplicate();
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public int getLongitud() {
+        return contenido.limit();
+    }
+}
@@ -0,0 +1,31 @@
+package controlador.servidor;
+
+/**
+ * Modo de ejecucion del transporte del servidor.
+ *
+ * - POOL_FIJO: un hilo bloqueado en readLine() por cada ClienteHandler (limite MAX_CLIENTES)
+ * - HILOS_VIRTUALES: mismo ClienteHandler bloqueante, pero un hilo virtual por conexion
+ * - NIO: Selector de aceptacion + N bucles reactor no bloqueantes
+ */
+public enum ModoServidor {
+    POOL_FIJO,
+    HILOS_VIRTUALES,
+    NIO;
+
+    /**
+     * Lee el modo desde la propiedad del sistema "parchis.servidor.modo".
+     * Si no esta definida o no es valida, se usa NIO.
+     */
+    public static ModoServidor desdePropiedades() {
+        String valor = System.getProperty("parchis.servidor.modo");
+        if (valor == null || valor.trim().isEmpty()) {
+            return NIO;
+        }
+        try {
+            return ModoServidor.valueOf(valor.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Modo de servidor desconocido: " + valor + ". Usando NIO.");
+            return NIO;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package controlador.servidor;
+
+/**
+ * Latido iniciado por el servidor para detectar conexiones muertas.
+ *
+ * Cada sesion tiene un plazo en la RuedaTemporizadores. Recibir cualquier
+ * mensaje solo actualiza la marca de ultima actividad (no reprograma nada);
+ * al vencer el plazo:
+ * - Si hubo actividad reciente, se reprograma para lo que falte
+ * - Si no, se envia {"tipo":"ping"} y se espera el periodo de gracia
+ * - Si tras la gracia sigue sin actividad, la sesion expira y se cierra
+ *   (ServidorCentral.removerCliente avisa a su partida)
+ *
+ * Configurable con -Dparchis.latido.inactividadMs y -Dparchis.latido.graciaMs.
+ */
+final class MonitorLatidos {
+
+    static final long INACTIVIDAD_MS = Long.getLong("parchis.latido.inactividadMs", 30_000L);
+    static final long GRACIA_MS = Long.getLong("parchis.latido.graciaMs", 10_000L);
+
+    private static final long TICK_MS = 250L;
+    private static final int RANURAS = 512;
+    private static final String PING = "{\"tipo\":\"ping\"}";
+
+    private final ServidorCentral servidor;
+    private final RuedaTemporizadores rueda;
+    private final long inactividadMs;
+    private final long graciaMs;
+
+    MonitorLatidos(ServidorCentral servidor) {
+        this(servidor, INACTIVIDAD_MS, GRACIA_MS);
+    }
+
+    MonitorLatidos(ServidorCentral servidor, long inactividadMs, long graciaMs) {
+        this.servidor = servidor;
+        this.inactividadMs = inactividadMs;
+        this.graciaMs = graciaMs;
+        this.rueda = new RuedaTemporizadores(TICK_MS, RANURAS);
+    }
+
+    void iniciar() {
+        rueda.iniciar();
+    }
+
+    void detener() {
+        rueda.detener();
+    }
+
+    /**
+     * Empieza a vigilar una sesion recien conectada.
+     */
+    void vigilar(ClienteHandler sesion) {
+        rueda.programar(() -> revisar(sesion, 0L), inactividadMs);
+    }
+
+    /**
+     * Rueda compartida con otros plazos del servidor (tokens de reanudacion).
+     */
+    RuedaTemporizadores getRueda() {
+        return rueda;
+    }
+
+    int getSesionesVigiladas() {
+        return rueda.getPendientes();
+    }
+
+    /**
+     * @param pingEnviadoEn momento en que se envio el ping (0 = sin ping pendiente)
+     */
+    private void revisar(ClienteHandler sesion, long pingEnviadoEn) {
+        if (!sesion.isConectado()) return;
+
+        long ahora = System.currentTimeMillis();
+        long ultimaActividad = sesion.getUltimaActividad();
+        long inactivo = ahora - ultimaActividad;
+
+        if (pingEnviadoEn > 0L && ultimaActividad < pingEnviadoEn) {
+            servidor.expirarSesion(sesion, inactivo);
+            return;
+        }
+
+        if (inactivo < inactividadMs) {
+            rueda.programar(() -> revisar(sesion, 0L), inactividadMs - inactivo);
+            return;
+        }
+
+        sesion.enviarMensaje(PING);
+        rueda.programar(() -> revisar(sesion, ahora), graciaMs);
+    }
+}
@@ -0,0 +1,277 @@
+package controlador.servidor;
+
+/**
+ * Plantilla de un mensaje JSON del protocolo con la parte fija ya
+ * serializada.
+ *
+ * El prefijo {"tipo":"...", con los campos de valor constante que se le
+ * agreguen con fijo(), se construye una vez. Cada envio solo escribe los
+ * campos variables (ids, dados, casillas, nombres...) en un buffer
+ * reutilizable del hilo, sin JsonObject ni JsonPrimitive intermedios; la
+ * unica asignacion es el String final.
+ *
+ * Uso:
+ *   String json = CAMBIO_TURNO.iniciar()
+ *       .entero(CamposMensaje.JUGADOR_ID, id)
+ *       .texto(CamposMensaje.JUGADOR_NOMBRE, nombre)
+ *       .json();
+ *
+ * La salida es identica a JsonObject.toString() con los campos en el mismo
+ * orden (mismo escape de cadenas), asi que los clientes no notan la
+ * diferencia.
+ */
+public final class PlantillaMensaje {
+
+    private final String prefijo;
+
+    private PlantillaMensaje(String prefijo) {
+        this.prefijo = prefijo;
+    }
+
+    /**
+     * Plantilla para mensajes con el tipo dado.
+     */
+    public static PlantillaMensaje de(String tipo) {
+        StringBuilder sb = new StringBuilder("{\"tipo\":");
+        Escritor.escapar(sb, tipo);
+        return new PlantillaMensaje(sb.toString());
+    }
+
+    /**
+     * Nueva plantilla con un campo de valor constante al final del prefijo.
+     */
+    public PlantillaMensaje fijo(String nombre, boolean valor) {
+        return new PlantillaMensaje(prefijo + ',' + new Campo(nombre).clave + valor);
+    }
+
+    public PlantillaMensaje fijo(String nombre, long valor) {
+        return new PlantillaMensaje(prefijo + ',' + new Campo(nombre).clave + valor);
+    }
+
+    public PlantillaMensaje fijo(String nombre, String valor) {
+        StringBuilder sb = new StringBuilder(prefijo).append(',').append(new Campo(nombre).clave);
+        Escritor.escapar(sb, valor);
+        return new PlantillaMensaje(sb.toString());
+    }
+
+    /**
+     * Mensaje completo sin campos variables (se serializa una sola vez).
+     */
+    public String constante() {
+        return prefijo + '}';
+    }
+
+    /**
+     * ✅ NUEVO: Copia de un mensaje ya serializado con un campo entero
+     * delante de todos los demas ({"campo":valor,...}).
+     */
+    public static String anteponer(String mensajeJson, Campo campo, long valor) {
+        if (mensajeJson.isEmpty() || mensajeJson.charAt(0) != '{') {
+            return mensajeJson;
+        }
+        StringBuilder sb = new StringBuilder(mensajeJson.length() + campo.clave.length() + 21);
+        sb.append('{').append(campo.clave).append(valor);
+        if (mensajeJson.length() > 2) {
+            sb.append(',');
+        }
+        return sb.append(mensajeJson, 1, mensajeJson.length()).toString();
+    }
+
+    /**
+     * Empieza un mensaje. Hay que terminarlo con json() en el mismo hilo.
+     */
+    public Escritor iniciar() {
+        Escritor e = Escritor.LOCAL.get();
+        if (e.enUso) {
+            // Un mensaje dentro de otro (no deberia pasar): buffer propio
+            e = new Escritor();
+        }
+        e.empezar(prefijo);
+        return e;
+    }
+
+    /**
+     * Nombre de campo con su clave ya serializada ("nombre":).
+     */
+    public static final class Campo {
+        private final String clave;
+
+        public Campo(String nombre) {
+            StringBuilder sb = new StringBuilder();
+            Escritor.escapar(sb, nombre);
+            this.clave = sb.append(':').toString();
+        }
+    }
+
+    /**
+     * Escritor de los campos variables sobre un StringBuilder reutilizable
+     * (uno por hilo).
+     */
+    public static final class Escritor {
+
+        private static final ThreadLocal<Escritor> LOCAL = ThreadLocal.withInitial(Escritor::new);
+        private static final int CAPACIDAD_MAXIMA_RETENIDA = 16 * 1024;
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final StringBuilder sb;
+        private final char[] cierres;
+        private final boolean[] comas;
+        private int profundidad;
+        private boolean enUso;
+
+        private Escritor() {
+            this.sb = new StringBuilder(512);
+            this.cierres = new char[16];
+            this.comas = new boolean[16];
+        }
+
+        private void empezar(String prefijo) {
+            enUso = true;
+            sb.setLength(0);
+            sb.append(prefijo);
+            profundidad = 0;
+            cierres[0] = '}';
+            comas[0] = true;
+        }
+
+        private void clave(Campo campo) {
+            if (comas[profundidad]) {
+                sb.append(',');
+            }
+            comas[profundidad] = true;
+            if (campo != null) {
+                sb.append(campo.clave);
+            }
+        }
+
+        public Escritor entero(Campo campo, long valor) {
+            clave(campo);
+            sb.append(valor);
+            return this;
+        }
+
+        public Escritor booleano(Campo campo, boolean valor) {
+            clave(campo);
+            sb.append(valor);
+            return this;
+        }
+
+        /**
+         * Cadena con escape JSON; null se escribe como null.
+         */
+        public Escritor texto(Campo campo, String valor) {
+            clave(campo);
+            if (valor == null) {
+                sb.append("null");
+            } else {
+                escapar(sb, valor);
+            }
+            return this;
+        }
+
+        /**
+         * Valor ya serializado como JSON (objeto, array...).
+         */
+        public Escritor crudo(Campo campo, String json) {
+            clave(campo);
+            sb.append(json);
+            return this;
+        }
+
+        /**
+         * Abre un objeto anidado ("campo":{ ...). Se cierra con cerrar().
+         */
+        public Escritor objeto(Campo campo) {
+            return abrir(campo, '{', '}');
+        }
+
+        /**
+         * Abre un array ("campo":[ ...). Se cierra con cerrar().
+         */
+        public Escritor lista(Campo campo) {
+            return abrir(campo, '[', ']');
+        }
+
+        /**
+         * Abre un objeto como elemento del array actual.
+         */
+        public Escritor elemento() {
+            return abrir(null, '{', '}');
+        }
+
+        public Escritor cerrar() {
+            sb.append(cierres[profundidad]);
+            profundidad--;
+            return this;
+        }
+
+        /**
+         * Cierra el mensaje y libera el buffer.
+         */
+        public String json() {
+            while (profundidad > 0) {
+                cerrar();
+            }
+            sb.append('}');
+            String json = sb.toString();
+            if (sb.capacity() > CAPACIDAD_MAXIMA_RETENIDA) {
+                // No retener para siempre el buffer de un mensaje enorme
+                sb.setLength(0);
+                sb.trimToSize();
+                sb.ensureCapacity(512);
+            }
+            enUso = false;
+            return json;
+        }
+
+        private Escritor abrir(Campo campo, char apertura, char cierre) {
+            clave(campo);
+            sb.append(apertura);
+            profundidad++;
+            cierres[profundidad] = cierre;
+            comas[profundidad] = false;
+            return this;
+        }
+
+        /**
+         * Escape de cadenas igual al de Gson JsonWriter (sin escape HTML).
+         */
+        static void escapar(StringBuilder sb, String s) {
+            sb.append('"');
+            int inicio = 0;
+            int n = s.length();
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                String reemplazo;
+                if (c < 0x20) {
+                    switch (c) {
+                        case '\t': reemplazo = "\\t"; break;
+                        case '\b': reemplazo = "\\b"; break;
+                        case '\n': reemplazo = "\\n"; break;
+                        case '\r': reemplazo = "\\r"; break;
+                        case '\f': reemplazo = "\\f"; break;
+                        default: reemplazo = null;
+                    }
+                } else if (c == '"') {
+                    reemplazo = "\\\"";
+                } else if (c == '\\') {
+                    reemplazo = "\\\\";
+                } else if (c == 0x2028 || c == 0x2029) {
+                    reemplazo = null;
+                } else {
+                    continue;
+                }
+                sb.append(s, inicio, i);
+                if (reemplazo != null) {
+                    sb.append(reemplazo);
+                } else {
+                    sb.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                      .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+                }
+                inicio = i + 1;
+            }
+            sb.append(s, inicio, n);
+            sb.append('"');
+        }
+    }
+}
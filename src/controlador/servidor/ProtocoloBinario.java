@@ -0,0 +1,478 @@
+package controlador.servidor;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import modelo.Ficha.EstadoFicha;
+import modelo.Jugador.ColorJugador;
+import modelo.Tablero.ColorCasilla;
+import modelo.Tablero.DeltaTablero;
+import modelo.Tablero.InstantaneaTablero;
+import modelo.Tablero.TipoCasilla;
+
+/**
+ * Protocolo binario compacto para los mensajes calientes del juego.
+ *
+ * Trama: [MARCA 0xB1][opcode u8][longitud u16][carga]
+ *
+ * Ninguna linea JSON empieza por 0xB1 (no es un byte inicial UTF-8
+ * valido), asi que tramas y lineas JSON pueden mezclarse en el mismo
+ * stream: el lector decide por el primer byte. El cliente activa el modo
+ * binario con {"tipo":"protocolo","formato":"binario"}; a partir de ahi el
+ * servidor envia en binario los mensajes que sabe codificar y el resto
+ * sigue en JSON. Un cliente antiguo nunca recibe binario.
+ *
+ * Los campos son de ancho fijo, big-endian. Los nombres de jugador van
+ * como cadena corta (u8 longitud + UTF-8). Los eventos empiezan con el seq
+ * de la partida (u32, 0 = sin seq). Solo tienen trama los eventos creados
+ * con EventoPartida; cualquier otro mensaje, o un evento con un valor que
+ * no cabe en su campo, se envia en JSON, asi que el contenido nunca se
+ * pierde.
+ *
+ * ✅ NUEVO: La trama OP_JSON_DEFLATE lleva una linea JSON comprimida. Solo
+ * la recibe quien negocio la compresion, en formato JSON o binario.
+ */
+public final class ProtocoloBinario {
+
+    public static final byte MARCA = (byte) 0xB1;
+    public static final int CABECERA = 4;
+    public static final int MAX_CARGA = 60 * 1024;
+
+    // Cliente -> servidor
+    public static final byte OP_TIRAR_DADO = 0x01;
+    public static final byte OP_MOVER_FICHA = 0x02;
+    public static final byte OP_MOVER_FICHA_UN_DADO = 0x03;
+    public static final byte OP_USAR_BONUS = 0x04;
+
+    // Servidor -> cliente
+    public static final byte OP_FICHA_MOVIDA = 0x41;
+    public static final byte OP_CAMBIO_TURNO = 0x42;
+    public static final byte OP_ESTADO_TABLERO = 0x43;
+    public static final byte OP_TABLERO_DELTA = 0x44;
+    // ✅ NUEVO: Linea JSON comprimida (ver CompresionMensajes); no pasa por decodificar()
+    public static final byte OP_JSON_DEFLATE = 0x50;
+
+    private static final int F_AUTOMATICO = 1;
+    private static final int F_AUTOMATICO_VALOR = 2;
+    private static final int F_DADO_DISPONIBLE = 4;
+    private static final int F_MENSAJE = 8;
+
+    private static final TipoCasilla[] TIPOS = TipoCasilla.values();
+    private static final ColorCasilla[] COLORES_CASILLA = ColorCasilla.values();
+    private static final ColorJugador[] COLORES_JUGADOR = ColorJugador.values();
+    private static final EstadoFicha[] ESTADOS = EstadoFicha.values();
+
+    private ProtocoloBinario() {
+    }
+
+    // ==================== SOLICITUDES (cliente) ====================
+
+    /**
+     * Codifica una solicitud del cliente.
+     *
+     * @return la trama, o null si el tipo no tiene forma binaria
+     */
+    public static byte[] codificarSolicitud(JsonObject solicitud) {
+        String tipo = solicitud.has("tipo") ? solicitud.get("tipo").getAsString() : "";
+        try {
+            switch (tipo) {
+                case "tirar_dado":
+                    return new Escritor(OP_TIRAR_DADO, 0).trama();
+                case "mover_ficha":
+                    return new Escritor(OP_MOVER_FICHA, 4)
+                        .i16(entero(solicitud, "fichaId"))
+                        .u8(entero(solicitud, "dado1"))
+                        .u8(entero(solicitud, "dado2"))
+                        .trama();
+                case "mover_ficha_un_dado":
+                    return new Escritor(OP_MOVER_FICHA_UN_DADO, 4)
+                        .i16(entero(solicitud, "fichaId"))
+                        .u8(entero(solicitud, "valorDado"))
+                        .u8(solicitud.has("pasarTurno") && solicitud.get("pasarTurno").getAsBoolean() ? 1 : 0)
+                        .trama();
+                case "usar_bonus":
+                    return new Escritor(OP_USAR_BONUS, 4)
+                        .i16(entero(solicitud, "fichaId"))
+                        .i16(entero(solicitud, "pasos"))
+                        .trama();
+                default:
+                    return null;
+            }
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ==================== EVENTOS (servidor) ====================
+
+    /*
+     * ✅ ACTUALIZADO: Las tramas de los eventos se escriben desde los datos
+     * tipados del evento (ver EventoPartida), con seq 0; el
+     * SecuenciadorPartida pone el seq con conSecuencia(). Ya no se vuelve a
+     * parsear la linea JSON. Cada metodo devuelve null si algun valor no
+     * cabe en su campo, y el evento se envia en JSON.
+     */
+
+    /**
+     * @param automatico     null si el evento no lleva el campo
+     * @param dadoDisponible null si el evento no lleva el campo
+     */
+    static byte[] fichaMovida(int jugadorId, String jugadorNombre, int fichaId, int desde, int hasta,
+                              Boolean automatico, Integer dadoDisponible) {
+        if (jugadorNombre == null) {
+            return null;
+        }
+        int flags = 0;
+        if (automatico != null) {
+            flags |= F_AUTOMATICO;
+            if (automatico) flags |= F_AUTOMATICO_VALOR;
+        }
+        if (dadoDisponible != null) flags |= F_DADO_DISPONIBLE;
+
+        try {
+            Escritor e = new Escritor(OP_FICHA_MOVIDA, 32)
+                .u32(0L)
+                .i32(jugadorId)
+                .i16(fichaId)
+                .i16(desde)
+                .i16(hasta)
+                .u8(flags);
+            if (dadoDisponible != null) {
+                e.u8(dadoDisponible);
+            }
+            return e.cadena(jugadorNombre).trama();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param mensaje null si el evento no lleva el campo
+     */
+    static byte[] cambioTurno(int jugadorId, String jugadorNombre, String mensaje) {
+        if (jugadorNombre == null) {
+            return null;
+        }
+        try {
+            Escritor e = new Escritor(OP_CAMBIO_TURNO, 32)
+                .u32(0L)
+                .i32(jugadorId)
+                .u8(mensaje != null ? F_MENSAJE : 0)
+                .cadena(jugadorNombre);
+            if (mensaje != null) {
+                e.cadena(mensaje);
+            }
+            return e.trama();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static byte[] estadoTablero(InstantaneaTablero tablero) {
+        List<InstantaneaTablero.CasillaEstado> casillas = tablero.getCasillas();
+        try {
+            Escritor e = new Escritor(OP_ESTADO_TABLERO, 12 + casillas.size() * 6)
+                .u32(0L)
+                .u32(tablero.version)
+                .u8(casillas.size());
+            for (InstantaneaTablero.CasillaEstado c : casillas) {
+                e.u8(c.indice)
+                    .u8(c.tipo.ordinal())
+                    .u8(c.color.ordinal())
+                    .u8(c.bloqueada ? 1 : 0)
+                    .u8(c.fichas.size());
+                for (InstantaneaTablero.FichaEstado f : c.fichas) {
+                    e.u8(f.id)
+                        .i32(f.jugadorId)
+                        .u8(f.color.ordinal())
+                        .u8(f.estado.ordinal());
+                }
+            }
+            return e.trama();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static byte[] tableroDelta(DeltaTablero delta) {
+        try {
+            Escritor e = new Escritor(OP_TABLERO_DELTA, 13 + delta.cambios.size() * 11)
+                .u32(0L)
+                .u32(delta.versionAnterior)
+                .u32(delta.version)
+                .u8(delta.cambios.size());
+            for (DeltaTablero.Cambio c : delta.cambios) {
+                e.u8(c.fichaId)
+                    .i32(c.jugadorId)
+                    .u8(c.color.ordinal())
+                    .i16(c.desde)
+                    .i16(c.hasta)
+                    .u8(c.estado.ordinal());
+            }
+            return e.trama();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copia de la trama de un evento con el seq de la partida (primer campo
+     * de la carga).
+     *
+     * @return la copia, o null si el seq no cabe en u32 (se envia en JSON)
+     */
+    static byte[] conSecuencia(byte[] trama, long seq) {
+        if (seq < 0 || seq > 0xFFFFFFFFL) {
+            return null;
+        }
+        byte[] copia = trama.clone();
+        copia[CABECERA] = (byte) (seq >> 24);
+        copia[CABECERA + 1] = (byte) (seq >> 16);
+        copia[CABECERA + 2] = (byte) (seq >> 8);
+        copia[CABECERA + 3] = (byte) seq;
+        return copia;
+    }
+
+    // ==================== DECODIFICACION ====================
+
+    /**
+     * Decodifica una trama (solicitud o evento) al mismo JsonObject que
+     * produciria la linea JSON equivalente, para que el resto del codigo
+     * no distinga el formato.
+     */
+    public static JsonObject decodificar(TramaBinaria trama) {
+        Lector l = new Lector(trama.getCarga());
+        JsonObject json = new JsonObject();
+
+        switch (trama.getOpcode()) {
+            case OP_TIRAR_DADO:
+                json.addProperty("tipo", "tirar_dado");
+                break;
+            case OP_MOVER_FICHA:
+                json.addProperty("tipo", "mover_ficha");
+                json.addProperty("fichaId", l.i16());
+                json.addProperty("dado1", l.u8());
+                json.addProperty("dado2", l.u8());
+                break;
+            case OP_MOVER_FICHA_UN_DADO:
+                json.addProperty("tipo", "mover_ficha_un_dado");
+                json.addProperty("fichaId", l.i16());
+                json.addProperty("valorDado", l.u8());
+                json.addProperty("pasarTurno", l.u8() != 0);
+                break;
+            case OP_USAR_BONUS:
+                json.addProperty("tipo", "usar_bonus");
+                json.addProperty("fichaId", l.i16());
+                json.addProperty("pasos", l.i16());
+                break;
+            case OP_FICHA_MOVIDA: {
+                ponerSeq(json, l.u32());
+                json.addProperty("tipo", "ficha_movida");
+                json.addProperty("jugadorId", l.i32());
+                json.addProperty("fichaId", l.i16());
+                json.addProperty("desde", l.i16());
+                json.addProperty("hasta", l.i16());
+                int flags = l.u8();
+                if ((flags & F_DADO_DISPONIBLE) != 0) {
+                    json.addProperty("dadoDisponible", l.u8());
+                }
+                json.addProperty("jugadorNombre", l.cadena());
+                if ((flags & F_AUTOMATICO) != 0) {
+                    json.addProperty("automatico", (flags & F_AUTOMATICO_VALOR) != 0);
+                }
+                break;
+            }
+            case OP_CAMBIO_TURNO: {
+                ponerSeq(json, l.u32());
+                json.addProperty("tipo", "cambio_turno");
+                json.addProperty("jugadorId", l.i32());
+                int flags = l.u8();
+                json.addProperty("jugadorNombre", l.cadena());
+                if ((flags & F_MENSAJE) != 0) {
+                    json.addProperty("mensaje", l.cadena());
+                }
+                break;
+            }
+            case OP_ESTADO_TABLERO: {
+                ponerSeq(json, l.u32());
+                json.addProperty("tipo", "estado_tablero");
+                long version = l.u32();
+                int n = l.u8();
+                JsonArray casillas = new JsonArray(n);
+                for (int i = 0; i < n; i++) {
+                    JsonObject c = new JsonObject();
+                    c.addProperty("indice", l.u8());
+                    c.addProperty("tipo", TIPOS[l.u8()].name());
+                    c.addProperty("color", COLORES_CASILLA[l.u8()].name());
+                    c.addProperty("bloqueada", l.u8() != 0);
+                    int nf = l.u8();
+                    JsonArray fichas = new JsonArray(nf);
+                    for (int j = 0; j < nf; j++) {
+                        JsonObject f = new JsonObject();
+                        f.addProperty("id", l.u8());
+                        f.addProperty("jugadorId", l.i32());
+                        f.addProperty("color", COLORES_JUGADOR[l.u8()].name());
+                        f.addProperty("estado", ESTADOS[l.u8()].name());
+                        fichas.add(f);
+                    }
+                    c.add("fichas", fichas);
+                    casillas.add(c);
+                }
+                JsonObject tablero = new JsonObject();
+                tablero.addProperty("version", version);
+                tablero.add("casillas", casillas);
+                json.add("tablero", tablero);
+                break;
+            }
+            case OP_TABLERO_DELTA: {
+                ponerSeq(json, l.u32());
+                json.addProperty("tipo", "tablero_delta");
+                json.addProperty("versionAnterior", l.u32());
+                json.addProperty("version", l.u32());
+                int n = l.u8();
+                JsonArray cambios = new JsonArray(n);
+                for (int i = 0; i < n; i++) {
+                    JsonObject c = new JsonObject();
+                    c.addProperty("fichaId", l.u8());
+                    c.addProperty("jugadorId", l.i32());
+                    c.addProperty("color", COLORES_JUGADOR[l.u8()].name());
+                    c.addProperty("desde", l.i16());
+                    c.addProperty("hasta", l.i16());
+                    c.addProperty("estado", ESTADOS[l.u8()].name());
+                    cambios.add(c);
+                }
+                json.add("cambios", cambios);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Opcode desconocido: " + trama.getOpcode());
+        }
+        return json;
+    }
+
+    /**
+     * Longitud de la carga declarada en una cabecera de trama.
+     */
+    static int longitudCarga(byte[] cabecera, int desde) {
+        return ((cabecera[desde + 2] & 0xFF) << 8) | (cabecera[desde + 3] & 0xFF);
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private static int entero(JsonObject json, String campo) {
+        return json.get(campo).getAsInt();
+    }
+
+    private static void ponerSeq(JsonObject json, long seq) {
+        if (seq != 0L) {
+            json.addProperty("seq", seq);
+        }
+    }
+
+    /**
+     * Escritura de una trama con comprobacion de rangos: si un valor no
+     * cabe en su campo se lanza excepcion y el mensaje va en JSON.
+     */
+    private static final class Escritor {
+        private byte[] datos;
+        private int pos;
+
+        Escritor(byte op, int capacidad) {
+            this.datos = new byte[CABECERA + capacidad];
+            datos[0] = MARCA;
+            datos[1] = op;
+            this.pos = CABECERA;
+        }
+
+        Escritor u8(int v) {
+            if (v < 0 || v > 0xFF) throw new IllegalArgumentException("u8 fuera de rango: " + v);
+            asegurar(1);
+            datos[pos++] = (byte) v;
+            return this;
+        }
+
+        Escritor i16(int v) {
+            if (v < Short.MIN_VALUE || v > Short.MAX_VALUE) throw new IllegalArgumentException("i16 fuera de rango: " + v);
+            asegurar(2);
+            datos[pos++] = (byte) (v >> 8);
+            datos[pos++] = (byte) v;
+            return this;
+        }
+
+        Escritor i32(int v) {
+            asegurar(4);
+            datos[pos++] = (byte) (v >> 24);
+            datos[pos++] = (byte) (v >> 16);
+            datos[pos++] = (byte) (v >> 8);
+            datos[pos++] = (byte) v;
+            return this;
+        }
+
+        Escritor u32(long v) {
+            if (v < 0 || v > 0xFFFFFFFFL) throw new IllegalArgumentException("u32 fuera de rango: " + v);
+            return i32((int) v);
+        }
+
+        Escritor cadena(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            u8(bytes.length);
+            asegurar(bytes.length);
+            System.arraycopy(bytes, 0, datos, pos, bytes.length);
+            pos += bytes.length;
+            return this;
+        }
+
+        byte[] trama() {
+            int carga = pos - CABECERA;
+            if (carga > MAX_CARGA) throw new IllegalArgumentException("Trama demasiado grande: " + carga);
+            datos[2] = (byte) (carga >> 8);
+            datos[3] = (byte) carga;
+            return pos == datos.length ? datos : java.util.Arrays.copyOf(datos, pos);
+        }
+
+        private void asegurar(int n) {
+            if (pos + n > datos.length) {
+                datos = java.util.Arrays.copyOf(datos, Math.max(datos.length * 2, pos + n));
+            }
+        }
+    }
+
+    private static final class Lector {
+        private final byte[] datos;
+        private int pos;
+
+        Lector(byte[] datos) {
+            this.datos = datos;
+            this.pos = 0;
+        }
+
+        int u8() {
+            return datos[pos++] & 0xFF;
+        }
+
+        int i16() {
+            int v = (short) (((datos[pos] & 0xFF) << 8) | (datos[pos + 1] & 0xFF));
+            pos += 2;
+            return v;
+        }
+
+        int i32() {
+            int v = ((datos[pos] & 0xFF) << 24) | ((datos[pos + 1] & 0xFF) << 16)
+                | ((datos[pos + 2] & 0xFF) << 8) | (datos[pos + 3] & 0xFF);
+            pos += 4;
+            return v;
+        }
+
+        long u32() {
+            return i32() & 0xFFFFFFFFL;
+        }
+
+        String cadena() {
+            int n = u8();
+            String s = new String(datos, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package controlador.servidor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Transporte no bloqueante del servidor.
+ *
+ * - Un Selector de aceptacion (en el hilo que llama a iniciar())
+ * - N BucleReactor que leen, separan lineas y escriben
+ * - Cada conexion nueva se asigna al bucle con menos conexiones
+ *
+ * Miles de conexiones inactivas no consumen hilos: solo ocupan una
+ * SelectionKey y un ConexionNio.
+ */
+public class ReactorNio {
+
+    private final ServidorCentral servidor;
+    private final BucleReactor[] bucles;
+
+    private ServerSocketChannel canalServidor;
+    private Selector selectorAceptacion;
+    private volatile boolean ejecutando;
+
+    public ReactorNio(ServidorCentral servidor, int numeroBucles) throws IOException {
+        this.servidor = servidor;
+        this.bucles = new BucleReactor[Math.max(1, numeroBucles)];
+        for (int i = 0; i < bucles.length; i++) {
+            bucles[i] = new BucleReactor(i, servidor);
+        }
+    }
+
+    /**
+     * Abre el puerto y atiende conexiones hasta que se llame a detener().
+     * Bloquea el hilo que lo invoca (igual que ServerSocket.accept()).
+     */
+    public void iniciar(int puerto) throws IOException {
+        canalServidor = ServerSocketChannel.open();
+        canalServidor.bind(new InetSocketAddress(puerto), 1024);
+        canalServidor.configureBlocking(false);
+
+        selectorAceptacion = Selector.open();
+        canalServidor.register(selectorAceptacion, SelectionKey.OP_ACCEPT);
+
+        ejecutando = true;
+        for (BucleReactor bucle : bucles) {
+            bucle.iniciar();
+        }
+
+        try {
+            while (ejecutando) {
+                selectorAceptacion.select();
+
+                Iterator<SelectionKey> it = selectorAceptacion.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey clave = it.next();
+                    it.remove();
+                    if (clave.isValid() && clave.isAcceptable()) {
+                        aceptarPendientes();
+                    }
+                }
+            }
+        } finally {
+            cerrar();
+        }
+    }
+
+    public void detener() {
+        ejecutando = false;
+        if (selectorAceptacion != null) {
+            selectorAceptacion.wakeup();
+        }
+    }
+
+    public int getNumeroBucles() {
+        return bucles.length;
+    }
+
+    private void aceptarPendientes() {
+        SocketChannel canal;
+        try {
+            while ((canal = canalServidor.accept()) != null) {
+                try {
+                    canal.configureBlocking(false);
+                    canal.setOption(java.net.StandardSocketOptions.TCP_NODELAY, true);
+                    seleccionarBucle().registrar(canal);
+                } catch (IOException e) {
+                    System.err.println("Error configurando conexion: " + e.getMessage());
+                    canal.close();
+                }
+            }
+        } catch (IOException e) {
+            if (ejecutando) {
+                System.err.println("Error aceptando conexion: " + e.getMessage());
+            }
+        }
+    }
+
+    private BucleReactor seleccionarBucle() {
+        BucleReactor elegido = bucles[0];
+        for (int i = 1; i < bucles.length; i++) {
+            if (bucles[i].getConexionesActivas() < elegido.getConexionesActivas()) {
+                elegido = bucles[i];
+            }
+        }
+        return elegido;
+    }
+
+    private void cerrar() {
+        ejecutando = false;
+        for (BucleReactor bucle : bucles) {
+            bucle.detener();
+        }
+        try {
+            if (selectorAceptacion != null) selectorAceptacion.close();
+        } catch (IOException e) {
+            // Ignorar
+        }
+        try {
+            if (canalServidor != null) canalServidor.close();
+        } catch (IOException e) {
+            // Ignorar
+        }
+    }
+}
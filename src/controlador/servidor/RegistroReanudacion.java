@@ -0,0 +1,95 @@
+package controlador.servidor;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tokens de reanudacion de sesion.
+ *
+ * Cada conexion recibe un token en la bienvenida. Si el socket se cae, la
+ * sesion cerrada sigue asociada a su token durante ventanaMs: una conexion
+ * nueva que lo presente con "reanudar" recupera al mismo Jugador y su
+ * asiento en la partida en vez de registrarse de nuevo. Pasada la ventana
+ * el token se olvida (en la RuedaTemporizadores del latido).
+ *
+ * Configurable con -Dparchis.reanudar.ventanaMs.
+ */
+final class RegistroReanudacion {
+
+    static final long VENTANA_MS = Long.getLong("parchis.reanudar.ventanaMs", 120_000L);
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final Map<String, ClienteHandler> sesiones;
+    private final RuedaTemporizadores rueda;
+    private final long ventanaMs;
+
+    RegistroReanudacion(RuedaTemporizadores rueda) {
+        this(rueda, VENTANA_MS);
+    }
+
+    RegistroReanudacion(RuedaTemporizadores rueda, long ventanaMs) {
+        this.sesiones = new ConcurrentHashMap<>();
+        this.rueda = rueda;
+        this.ventanaMs = ventanaMs;
+    }
+
+    static String nuevoToken() {
+        byte[] bytes = new byte[18];
+        ALEATORIO.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Asocia el token de la sesion a la sesion (al conectar o al reanudar).
+     */
+    void registrar(ClienteHandler sesion) {
+        sesiones.put(sesion.getTokenReanudacion(), sesion);
+    }
+
+    /**
+     * La sesion se cerro: si tenia jugador, el token sigue valido durante
+     * la ventana; si no, no hay nada que reanudar.
+     */
+    void sesionCerrada(ClienteHandler sesion) {
+        String token = sesion.getTokenReanudacion();
+        if (sesion.getJugador() == null) {
+            sesiones.remove(token, sesion);
+            return;
+        }
+        rueda.programar(() -> sesiones.remove(token, sesion), ventanaMs);
+    }
+
+    /**
+     * Sesion asociada al token, sin retirarla.
+     */
+    ClienteHandler buscar(String token) {
+        return token != null ? sesiones.get(token) : null;
+    }
+
+    /**
+     * Retira el token de una sesion ya cerrada para que la reanude otra.
+     *
+     * @return la sesion anterior, o null si el token no existe, expiro o
+     *         su sesion sigue abierta
+     */
+    ClienteHandler reclamar(String token) {
+        if (token == null) return null;
+        ClienteHandler anterior = sesiones.get(token);
+        if (anterior == null || anterior.isConectado()) return null;
+        return sesiones.remove(token, anterior) ? anterior : null;
+    }
+
+    /**
+     * Olvida un token que no se va a usar (la sesion adopto otro).
+     */
+    void olvidar(String token, ClienteHandler sesion) {
+        sesiones.remove(token, sesion);
+    }
+
+    int getTokensActivos() {
+        return sesiones.size();
+    }
+}
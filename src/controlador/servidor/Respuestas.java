@@ -0,0 +1,38 @@
+package controlador.servidor;
+
+/**
+ * Respuestas genericas de exito/error del servidor.
+ *
+ * Los errores mas frecuentes del camino de juego (sin registro, sin
+ * partida, fuera de turno...) se serializan una sola vez al cargar la
+ * clase; el resto se escriben con PlantillaMensaje.
+ */
+public final class Respuestas {
+
+    private static final PlantillaMensaje ERROR = PlantillaMensaje.de("error").fijo("exito", false);
+    private static final PlantillaMensaje EXITO = PlantillaMensaje.de("exito").fijo("exito", true);
+
+    public static final String NO_REGISTRADO = error("Debes registrarte primero");
+    public static final String SIN_PARTIDA = error("No estas en ninguna partida");
+    public static final String PARTIDA_NO_EN_PROGRESO = error("La partida no esta en progreso");
+    public static final String NO_ES_TU_TURNO = error("No es tu turno");
+
+    private Respuestas() {
+    }
+
+    public static String error(String mensaje) {
+        return ERROR.iniciar().texto(CamposMensaje.MENSAJE, mensaje).json();
+    }
+
+    public static String exito(String mensaje) {
+        return EXITO.iniciar().texto(CamposMensaje.MENSAJE, mensaje).json();
+    }
+
+    /**
+     * ✅ NUEVO: La respuesta directa con el reqId de la solicitud como
+     * primer campo, para que el cliente la asocie a su peticion.
+     */
+    public static String conReqId(String respuesta, long reqId) {
+        return PlantillaMensaje.anteponer(respuesta, CamposMensaje.REQ_ID, reqId);
+    }
+}
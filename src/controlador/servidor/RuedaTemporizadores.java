@@ -0,0 +1,142 @@
+package controlador.servidor;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rueda de temporizadores (hashed timing wheel).
+ *
+ * Un solo hilo avanza un tick cada tickMs y solo revisa la ranura de ese
+ * tick, asi que programar y cancelar cuestan O(1) y decenas de miles de
+ * plazos (uno por sesion) no necesitan un hilo ni un heap ordenado.
+ * La precision es de un tick: sirve para plazos de segundos, como los
+ * latidos.
+ *
+ * Las tareas se ejecutan en el hilo de la rueda y deben ser cortas.
+ */
+final class RuedaTemporizadores implements Runnable {
+
+    /**
+     * Plazo programado. cancelar() es seguro desde cualquier hilo.
+     */
+    static final class Temporizador {
+        private final Runnable tarea;
+        private final long tickVencimiento;
+        private volatile boolean cancelado;
+
+        private Temporizador(Runnable tarea, long tickVencimiento) {
+            this.tarea = tarea;
+            this.tickVencimiento = tickVencimiento;
+        }
+
+        void cancelar() {
+            cancelado = true;
+        }
+    }
+
+    private final long tickNanos;
+    private final long tickMs;
+    private final int mascara;
+    private final ArrayDeque<Temporizador>[] ranuras;
+    private final Queue<Temporizador> nuevos;
+
+    private volatile long tickActual;
+    private volatile int pendientes;
+    private volatile boolean ejecutando;
+    private Thread hilo;
+
+    RuedaTemporizadores(long tickMs, int numeroRanuras) {
+        int tam = Integer.highestOneBit(Math.max(2, numeroRanuras - 1)) << 1;
+        this.tickMs = Math.max(1, tickMs);
+        this.tickNanos = this.tickMs * 1_000_000L;
+        this.mascara = tam - 1;
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ArrayDeque<Temporizador>[] tabla = new ArrayDeque[tam];
+        for (int i = 0; i < tam; i++) {
+            tabla[i] = new ArrayDeque<>();
+        }
+        this.ranuras = tabla;
+        this.nuevos = new ConcurrentLinkedQueue<>();
+        this.tickActual = 0L;
+    }
+
+    void iniciar() {
+        ejecutando = true;
+        hilo = new Thread(this, "rueda-temporizadores");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    void detener() {
+        ejecutando = false;
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+        }
+    }
+
+    /**
+     * Programa una tarea dentro de retardoMs (redondeado al tick).
+     * Puede llamarse desde cualquier hilo, incluida una tarea de la rueda.
+     */
+    Temporizador programar(Runnable tarea, long retardoMs) {
+        long ticks = Math.max(1, (retardoMs + tickMs - 1) / tickMs);
+        Temporizador temporizador = new Temporizador(tarea, tickActual + ticks);
+        nuevos.offer(temporizador);
+        return temporizador;
+    }
+
+    int getPendientes() {
+        return pendientes;
+    }
+
+    @Override
+    public void run() {
+        long inicio = System.nanoTime();
+        long tick = 0;
+
+        while (ejecutando) {
+            long espera = inicio + (tick + 1) * tickNanos - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+                continue;
+            }
+
+            tick++;
+            tickActual = tick;
+            transferirNuevos(tick);
+            vencerRanura(tick);
+        }
+    }
+
+    private void transferirNuevos(long tick) {
+        Temporizador temporizador;
+        while ((temporizador = nuevos.poll()) != null) {
+            if (temporizador.cancelado) continue;
+            long vencimiento = Math.max(temporizador.tickVencimiento, tick);
+            ranuras[(int) (vencimiento & mascara)].add(temporizador);
+            pendientes++;
+        }
+    }
+
+    private void vencerRanura(long tick) {
+        Iterator<Temporizador> it = ranuras[(int) (tick & mascara)].iterator();
+        while (it.hasNext()) {
+            Temporizador temporizador = it.next();
+            if (temporizador.cancelado) {
+                it.remove();
+                pendientes--;
+            } else if (temporizador.tickVencimiento <= tick) {
+                it.remove();
+                pendientes--;
+                try {
+                    temporizador.tarea.run();
+                } catch (RuntimeException e) {
+                    System.err.println("Error en temporizador: " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package controlador.servidor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Secuenciador de eventos de una partida.
+ *
+ * Cada evento que sale hacia los jugadores de la partida recibe un numero
+ * ("seq") y se encola a todos sus destinatarios bajo el mismo lock. Como
+ * cada ColaSalida es FIFO con un unico escritor, todos los jugadores ven
+ * los eventos en el mismo orden en que se numeraron, aunque los generen
+ * peticiones de jugadores distintas en hilos distintos.
+ *
+ * Encolar no bloquea (ColaSalida), asi que el lock solo cubre trabajo en
+ * memoria. Las sesiones que desbordan su cola se desconectan despues de
+ * soltar el lock, para que el aviso de desconexion tome el numero siguiente.
+ *
+ * Los ultimos eventos quedan en un buffer circular de tamano fijo (ya
+ * codificados) para reenviar a una sesion reanudada solo lo que se perdio.
+ * Configurable con -Dparchis.reanudar.eventos.
+ */
+final class SecuenciadorPartida {
+
+    static final int CAPACIDAD_HISTORIAL = Integer.getInteger("parchis.reanudar.eventos", 256);
+
+    private final ReentrantLock lock;
+    private long ultimoSeq;
+
+    // Buffer circular: el evento con numero seq esta en [seq % capacidad]
+    private final MensajeCodificado[] historial;
+    private final String[] historialDestino;   // null = toda la partida
+    private final String[] historialExcluido;
+
+    SecuenciadorPartida() {
+        this(CAPACIDAD_HISTORIAL);
+    }
+
+    SecuenciadorPartida(int capacidad) {
+        this.lock = new ReentrantLock();
+        this.ultimoSeq = 0L;
+        this.historial = new MensajeCodificado[Math.max(1, capacidad)];
+        this.historialDestino = new String[historial.length];
+        this.historialExcluido = new String[historial.length];
+    }
+
+    /**
+     * Numera el evento y lo encola a los destinatarios (menos el excluido).
+     *
+     * @return numero de secuencia asignado
+     */
+    long publicar(String mensajeJson, ClienteHandler[] destinos, String sessionIdExcluido) {
+        return publicar(mensajeJson, null, destinos, sessionIdExcluido);
+    }
+
+    /**
+     * ✅ NUEVO: Igual, con la trama binaria del evento (seq 0), a la que
+     * tambien se le pone el seq.
+     */
+    long publicar(String mensajeJson, byte[] trama, ClienteHandler[] destinos, String sessionIdExcluido) {
+        List<ClienteHandler> lentos = null;
+        long seq;
+
+        lock.lock();
+        try {
+            seq = ++ultimoSeq;
+            MensajeCodificado mensaje = MensajeCodificado.de(conSecuencia(mensajeJson, seq),
+                trama != null ? ProtocoloBinario.conSecuencia(trama, seq) : null);
+            guardar(seq, mensaje, null, sessionIdExcluido);
+            for (ClienteHandler destino : destinos) {
+                if (sessionIdExcluido != null && sessionIdExcluido.equals(destino.getSessionId())) {
+                    continue;
+                }
+                if (!destino.encolar(mensaje)) {
+                    if (lentos == null) lentos = new ArrayList<>(2);
+                    lentos.add(destino);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        desconectarLentos(lentos);
+        return seq;
+    }
+
+    /**
+     * Numera y envia un evento dirigido a un solo jugador de la partida
+     * (p. ej. tu_turno), en el mismo orden que los broadcasts.
+     *
+     * @param destino sesion actual del jugador, o null si esta desconectado
+     *                (el evento solo queda en el historial para reanudar)
+     */
+    long publicarA(String mensajeJson, String sessionIdDestino, ClienteHandler destino) {
+        boolean lento = false;
+        long seq;
+
+        lock.lock();
+        try {
+            seq = ++ultimoSeq;
+            MensajeCodificado mensaje = MensajeCodificado.de(conSecuencia(mensajeJson, seq));
+            guardar(seq, mensaje, sessionIdDestino, null);
+            if (destino != null) {
+                lento = !destino.encolar(mensaje);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (lento) {
+            destino.desconectarPorLento();
+        }
+        return seq;
+    }
+
+    /**
+     * Asocia la sesion reanudada y le encola lo que se perdio, todo bajo el
+     * lock: ningun evento puede colarse entre el reenvio y los siguientes.
+     *
+     * Si el hueco ya no esta en el historial (o el numero no es de esta
+     * partida) se envia el estado completo con el ultimo seq en su lugar.
+     *
+     * @param sessionIdAnterior sesion con la que el jugador recibia eventos
+     * @param ultimoSeqCliente  ultimo seq que el cliente llego a procesar
+     * @param asociar           alta de la sesion en la ruta de la partida
+     * @param estadoCompleto    mensaje de estado para cuando no alcanza el historial
+     * @return eventos reenviados, o -1 si se envio el estado completo
+     */
+    int reanudar(ClienteHandler sesion, String sessionIdAnterior, long ultimoSeqCliente,
+                 Runnable asociar, Supplier<String> estadoCompleto) {
+        boolean lento = false;
+        int reenviados = 0;
+
+        lock.lock();
+        try {
+            asociar.run();
+
+            boolean cubierto = ultimoSeqCliente >= 0
+                && ultimoSeqCliente <= ultimoSeq
+                && ultimoSeq - ultimoSeqCliente <= historial.length;
+
+            if (cubierto) {
+                for (long seq = ultimoSeqCliente + 1; seq <= ultimoSeq && !lento; seq++) {
+                    int i = indice(seq);
+                    String destino = historialDestino[i];
+                    boolean paraSesion = destino != null
+                        ? destino.equals(sessionIdAnterior)
+                        : !sessionIdAnterior.equals(historialExcluido[i]);
+                    if (paraSesion) {
+                        lento = !sesion.encolar(historial[i]);
+                        reenviados++;
+                    }
+                }
+            } else {
+                lento = !sesion.encolar(MensajeCodificado.de(conSecuencia(estadoCompleto.get(), ultimoSeq)));
+                reenviados = -1;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (lento) {
+            sesion.desconectarPorLento();
+        }
+        return reenviados;
+    }
+
+    long getUltimoSeq() {
+        lock.lock();
+        try {
+            return ultimoSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserta "seq":N como primer campo del objeto JSON.
+     */
+    static String conSecuencia(String mensajeJson, long seq) {
+        int inicio = mensajeJson.indexOf('{');
+        if (inicio < 0) {
+            return mensajeJson;
+        }
+        StringBuilder sb = new StringBuilder(mensajeJson.length() + 24);
+        sb.append(mensajeJson, 0, inicio + 1).append("\"seq\":").append(seq);
+        int resto = inicio + 1;
+        while (resto < mensajeJson.length() && Character.isWhitespace(mensajeJson.charAt(resto))) {
+            resto++;
+        }
+        if (resto < mensajeJson.length() && mensajeJson.charAt(resto) != '}') {
+            sb.append(',');
+        }
+        sb.append(mensajeJson, resto, mensajeJson.length());
+        return sb.toString();
+    }
+
+    private void guardar(long seq, MensajeCodificado mensaje, String destino, String excluido) {
+        int i = indice(seq);
+        historial[i] = mensaje;
+        historialDestino[i] = destino;
+        historialExcluido[i] = excluido;
+    }
+
+    private int indice(long seq) {
+        return (int) (seq % historial.length);
+    }
+
+    private static void desconectarLentos(List<ClienteHandler> lentos) {
+        if (lentos == null) return;
+        for (ClienteHandler sesion : lentos) {
+            sesion.desconectarPorLento();
+        }
+    }
+}
@@ -15,8 +15,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import modelo.servicios.GestorMotores;
 import vista.VistaServidor;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import controlador.RegistroAcciones;
 
 /**
  * ✅ ACTUALIZADO: Servidor central híbrido P2P
@@ -30,14 +29,57 @@ public class ServidorCentral {
     private static final int PUERTO_DEFAULT = 5000;
     private static final int MAX_CLIENTES = 50;
     
+    // ✅ NUEVO: Hilos que vacian las colas de salida en modo POOL_FIJO. Cada
+    // sesion tiene como mucho una tarea de escritura a la vez, asi que con
+    // MAX_CLIENTES un socket lento nunca deja esperando a los demas
+    private static final int HILOS_ESCRITURA = Integer.getInteger("parchis.escritura.hilos", MAX_CLIENTES);
+    
+    // Con miles de conexiones NIO el log por conexion satura la consola:
+    // apagado salvo -Dparchis.log.conexiones=true
+    private static final boolean MODO_LOG_CONEXIONES = Boolean.getBoolean("parchis.log.conexiones");
+    
+    // ✅ NUEVO: Mensajes del servidor con la parte fija ya serializada
+    private static final PlantillaMensaje INFO_PEERS = PlantillaMensaje.de("info_peers");
+    private static final PlantillaMensaje SESION_REANUDADA = PlantillaMensaje.de("sesion_reanudada").fijo("exito", true);
+    private static final PlantillaMensaje JUGADOR_DESCONECTADO = PlantillaMensaje.de("jugador_desconectado");
+    private static final PlantillaMensaje JUGADOR_RECONECTADO = PlantillaMensaje.de("jugador_reconectado");
+    private static final PlantillaMensaje ERROR_REANUDACION = PlantillaMensaje.de("error")
+        .fijo("exito", false).fijo("codigo", "reanudacion_invalida");
+    
     private ServerSocket serverSocket;
     private final int puerto;
-    private boolean ejecutando;
+    private volatile boolean ejecutando;
     
+    private final ModoServidor modo;
     private ExecutorService poolClientes;
     
+    // ✅ NUEVO: Transporte NIO y pool que procesa los mensajes recibidos
+    private ReactorNio reactor;
+    private ExecutorService ejecutorDespacho;
+    
+    // ✅ NUEVO: Tareas que vacian las colas de salida en modo bloqueante
+    private ExecutorService ejecutorEscritura;
+    
+    // ✅ NUEVO: Ventana de agrupacion de salida (solo si ventanaMicros > 0)
+    private ScheduledExecutorService programadorSalida;
+    
+    // ✅ NUEVO: Latido y cierre de sesiones inactivas (se crea en iniciar())
+    private volatile MonitorLatidos monitorLatidos;
+    
+    // ✅ NUEVO: Tokens para reanudar sesiones caidas (usa la rueda del monitor)
+    private volatile RegistroReanudacion registroReanudacion;
+    
     private final Map<String, ClienteHandler> clientesConectados;
     
+    // ✅ NUEVO: partidaId -> sesiones vivas, mantenido por SalaServicio
+    private final TablaRutas tablaRutas;
+    
+    // ✅ NUEVO: estado_completo serializado una vez por version de partida
+    private final CacheEstadoPartida cacheEstado;
+    
+    // ✅ NUEVO: Buzon y bucle de cada partida para las acciones de juego
+    private final EjecutorPartidas ejecutorPartidas;
+    
     // ✅ NUEVO: Mapeo de jugadores a puertos P2P
     private final Map<Integer, InfoPeer> infosPeers;
     
@@ -53,14 +95,39 @@ public class ServidorCentral {
     }
     
     public ServidorCentral(int puerto) {
+        this(puerto, ModoServidor.desdePropiedades());
+    }
+    
+    public ServidorCentral(int puerto, ModoServidor modo) {
         this.puerto = puerto;
+        this.modo = modo;
         this.ejecutando = false;
         this.clientesConectados = new ConcurrentHashMap<>();
         this.infosPeers = new ConcurrentHashMap<>(); // ✅ NUEVO
         this.persistencia = PersistenciaServicio.getInstancia();
         this.salaServicio = SalaServicio.getInstancia();
         this.contadorSesiones = 0;
-        this.poolClientes = Executors.newFixedThreadPool(MAX_CLIENTES);
+        this.tablaRutas = new TablaRutas(clientesConectados);
+        this.salaServicio.agregarObservador(tablaRutas);
+        this.cacheEstado = new CacheEstadoPartida();
+        this.salaServicio.agregarObservador(cacheEstado);
+        this.ejecutorPartidas = new EjecutorPartidas(this::partidaTerminada);
+        this.salaServicio.agregarObservador(ejecutorPartidas);
+        if (LoteSalida.VENTANA_MICROS > 0) {
+            this.programadorSalida = Executors.newSingleThreadScheduledExecutor();
+        }
+        if (modo == ModoServidor.NIO) {
+            int nucleos = Runtime.getRuntime().availableProcessors();
+            this.ejecutorDespacho = Executors.newFixedThreadPool(Math.max(4, nucleos * 2));
+        } else if (modo == ModoServidor.HILOS_VIRTUALES) {
+            // ✅ NUEVO: sin limite de MAX_CLIENTES; cada readLine() bloquea
+            // solo su hilo virtual, no un hilo del sistema
+            this.poolClientes = Executors.newVirtualThreadPerTaskExecutor();
+            this.ejecutorEscritura = poolClientes;
+        } else {
+            this.poolClientes = Executors.newFixedThreadPool(MAX_CLIENTES);
+            this.ejecutorEscritura = Executors.newFixedThreadPool(Math.max(1, HILOS_ESCRITURA));
+        }
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             if (ejecutando) {
                 detenerInterno();
@@ -69,17 +136,17 @@ public class ServidorCentral {
     }
     
     public void iniciar() {
+        if (modo == ModoServidor.NIO) {
+            iniciarNio();
+            return;
+        }
+        
         try {
             serverSocket = new ServerSocket(puerto);
             ejecutando = true;
             
-            System.out.println("\n================================================");
-            System.out.println("   SERVIDOR PARCHIS - ARQUITECTURA HIBRIDA");
-            System.out.println("================================================");
-            System.out.println("Puerto: " + puerto);
-            System.out.println("Modo: P2P + Servidor de Estado");
-            System.out.println("Esperando conexiones...");
-            System.out.println("================================================\n");
+            mostrarBanner();
+            iniciarTareasPeriodicas();
             
             while (ejecutando) {
                 try {
@@ -100,9 +167,61 @@ public class ServidorCentral {
         }
     }
     
+    /**
+     * ✅ NUEVO: Arranque con Selector de aceptacion + bucles reactor.
+     * Bloquea el hilo llamador igual que el modo con pool.
+     */
+    private void iniciarNio() {
+        try {
+            int bucles = Math.max(1, Runtime.getRuntime().availableProcessors());
+            reactor = new ReactorNio(this, bucles);
+            ejecutando = true;
+            
+            mostrarBanner();
+            iniciarTareasPeriodicas();
+            
+            reactor.iniciar(puerto);
+            
+        } catch (IOException e) {
+            System.err.println("Error iniciando servidor en puerto " + puerto);
+            System.err.println(e.getMessage());
+        } finally {
+            detenerInterno();
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Latidos y limpieza de motores finalizados
+     * ✅ ACTUALIZADO: El monitor (y su rueda de temporizadores) se crea aqui
+     * y no en el constructor, antes de aceptar la primera conexion.
+     */
+    private void iniciarTareasPeriodicas() {
+        monitorLatidos = new MonitorLatidos(this);
+        registroReanudacion = new RegistroReanudacion(monitorLatidos.getRueda());
+        monitorLatidos.iniciar();
+        iniciarLimpiezaAutomatica();
+    }
+    
+    private void mostrarBanner() {
+        System.out.println("\n================================================");
+        System.out.println("   SERVIDOR PARCHIS - ARQUITECTURA HIBRIDA");
+        System.out.println("================================================");
+        System.out.println("Puerto: " + puerto);
+        System.out.println("Modo: P2P + Servidor de Estado");
+        System.out.println("Transporte: " + modo + 
+            (reactor != null ? " (" + reactor.getNumeroBucles() + " bucles)" : ""));
+        System.out.println("Partidas: " + ejecutorPartidas.getNumeroBucles() + " bucles de ejecucion");
+        System.out.println("Esperando conexiones...");
+        System.out.println("================================================\n");
+    }
+    
     public void detener() {
         ejecutando = false;
         
+        if (reactor != null) {
+            reactor.detener();
+        }
+        
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
@@ -114,18 +233,39 @@ public class ServidorCentral {
     
     private void detenerInterno() {
         VistaServidor.mostrarCierreServidor();
+        VistaServidor.mostrarMetricasAcciones(RegistroAcciones.getInstancia().resumen());
         
         ejecutando = false;
+        if (monitorLatidos != null) {
+            monitorLatidos.detener();
+        }
         
         for (ClienteHandler cliente : clientesConectados.values()) {
             cliente.desconectar();
         }
         clientesConectados.clear();
+        salaServicio.removerObservador(tablaRutas);
+        salaServicio.removerObservador(cacheEstado);
+        salaServicio.removerObservador(ejecutorPartidas);
+        System.out.println(ejecutorPartidas.resumen());
+        ejecutorPartidas.detener();
         
         if (poolClientes != null) {
             poolClientes.shutdown();
         }
         
+        if (ejecutorDespacho != null) {
+            ejecutorDespacho.shutdown();
+        }
+        
+        if (ejecutorEscritura != null) {
+            ejecutorEscritura.shutdown();
+        }
+        
+        if (programadorSalida != null) {
+            programadorSalida.shutdown();
+        }
+        
         if (schedulerLimpieza != null) {
             schedulerLimpieza.shutdown();
         }
@@ -148,6 +288,8 @@ public class ServidorCentral {
             ClienteHandler cliente = new ClienteHandler(socketCliente, sessionId, this);
             
             clientesConectados.put(sessionId, cliente);
+            registroReanudacion.registrar(cliente);
+            monitorLatidos.vigilar(cliente);
             
             poolClientes.execute(cliente);
             
@@ -161,10 +303,74 @@ public class ServidorCentral {
         }
     }
     
+    /**
+     * ✅ NUEVO: Crea el ClienteHandler de una conexion NIO recien registrada.
+     * Lo invoca el BucleReactor desde su propio hilo.
+     */
+    ClienteHandler registrarConexionNio(ConexionNio conexion) {
+        String sessionId = generarSessionId();
+        ClienteHandler cliente = new ClienteHandler(conexion, sessionId, this);
+        clientesConectados.put(sessionId, cliente);
+        registroReanudacion.registrar(cliente);
+        monitorLatidos.vigilar(cliente);
+        
+        if (MODO_LOG_CONEXIONES) {
+            System.out.println(">>> Nueva conexion NIO desde " + 
+                conexion.getCanal().socket().getInetAddress().getHostAddress() + 
+                " [Session: " + sessionId + "]");
+            System.out.println(">>> Clientes conectados: " + clientesConectados.size());
+        }
+        
+        return cliente;
+    }
+    
+    ExecutorService getEjecutorDespacho() {
+        return ejecutorDespacho;
+    }
+    
+    ExecutorService getEjecutorEscritura() {
+        return ejecutorEscritura;
+    }
+    
+    ScheduledExecutorService getProgramadorSalida() {
+        return programadorSalida;
+    }
+    
+    EjecutorPartidas getEjecutorPartidas() {
+        return ejecutorPartidas;
+    }
+    
+    /**
+     * ✅ NUEVO: La partida ya no existe o termino; su bucle puede
+     * liberarla (mismo criterio que GestorMotores.limpiarMotoresFinalizados).
+     */
+    private boolean partidaTerminada(int partidaId) {
+        modelo.partida.Partida partida = persistencia.obtenerPartida(partidaId);
+        return partida == null
+            || partida.getEstado() == modelo.partida.EstadoPartida.FINALIZADA
+            || partida.getEstado() == modelo.partida.EstadoPartida.CANCELADA;
+    }
+    
+    public ModoServidor getModo() {
+        return modo;
+    }
+    
+    /**
+     * ✅ NUEVO: Cierra una sesion que no respondio al latido.
+     * desconectar() termina en removerCliente(), que avisa a su partida.
+     */
+    void expirarSesion(ClienteHandler cliente, long inactivoMs) {
+        System.out.println("X [" + cliente.getSessionId() + "] Sin actividad en " + 
+            inactivoMs + " ms. Cerrando sesion.");
+        cliente.desconectar();
+    }
+    
     public void removerCliente(String sessionId) {
         ClienteHandler cliente = clientesConectados.remove(sessionId);
         
         if (cliente != null) {
+            registroReanudacion.sesionCerrada(cliente);
+            
             modelo.Jugador.Jugador jugador = persistencia.obtenerJugadorPorSession(sessionId);
             if (jugador != null) {
                 persistencia.actualizarConexion(jugador.getId(), false);
@@ -176,15 +382,18 @@ public class ServidorCentral {
                     persistencia.obtenerPartidaDeJugador(jugador.getId());
                 
                 if (partidaOpt.isPresent()) {
+                    tablaRutas.quitarSesion(partidaOpt.get().getId(), cliente);
                     String mensaje = crearMensajeDesconexion(jugador);
                     broadcastAPartida(partidaOpt.get().getId(), mensaje, sessionId);
                 }
                 
-                VistaServidor.mostrarDesconexion(
-                    sessionId, 
-                    jugador.getNombre(), 
-                    clientesConectados.size()
-                );
+                if (MODO_LOG_CONEXIONES || modo != ModoServidor.NIO) {
+                    VistaServidor.mostrarDesconexion(
+                        sessionId, 
+                        jugador.getNombre(), 
+                        clientesConectados.size()
+                    );
+                }
             }
         }
     }
@@ -206,28 +415,26 @@ public class ServidorCentral {
         modelo.partida.Partida partida = persistencia.obtenerPartida(partidaId);
         if (partida == null) return;
         
-        JsonArray peersArray = new JsonArray();
+        PlantillaMensaje.Escritor escritor = INFO_PEERS.iniciar().lista(CamposMensaje.PEERS);
         
         for (modelo.Jugador.Jugador j : partida.getJugadores()) {
             InfoPeer info = infosPeers.get(j.getId());
             if (info != null) {
-                JsonObject peerObj = new JsonObject();
-                peerObj.addProperty("id", info.jugadorId);
-                peerObj.addProperty("ip", info.ip);
-                peerObj.addProperty("puerto", info.puertoPeer);
-                peersArray.add(peerObj);
+                escritor.elemento()
+                    .entero(CamposMensaje.ID, info.jugadorId)
+                    .texto(CamposMensaje.IP, info.ip)
+                    .entero(CamposMensaje.PUERTO, info.puertoPeer)
+                    .cerrar();
             }
         }
         
-        JsonObject mensaje = new JsonObject();
-        mensaje.addProperty("tipo", "info_peers");
-        mensaje.add("peers", peersArray);
+        String mensaje = escritor.cerrar().json();
         
         modelo.Jugador.Jugador jugador = partida.getJugadorPorId(jugadorId);
         if (jugador != null) {
             ClienteHandler handler = clientesConectados.get(jugador.getSessionId());
             if (handler != null) {
-                handler.enviarMensaje(mensaje.toString());
+                handler.enviarMensaje(mensaje);
             }
         }
     }
@@ -240,38 +447,149 @@ public class ServidorCentral {
         return new ArrayList<>(clientesConectados.values());
     }
 
+    // ✅ ACTUALIZADO: Los broadcasts codifican el mensaje una sola vez y
+    // comparten los mismos bytes entre todos los destinatarios
     public void broadcastATodos(String mensaje) {
+        broadcastATodos(MensajeCodificado.de(mensaje));
+    }
+    
+    public void broadcastATodos(MensajeCodificado mensaje) {
         for (ClienteHandler cliente : clientesConectados.values()) {
             cliente.enviarMensaje(mensaje);
         }
     }
     
     public void broadcastExcepto(String mensaje, String sessionIdExcluido) {
+        MensajeCodificado codificado = MensajeCodificado.de(mensaje);
         for (Map.Entry<String, ClienteHandler> entry : clientesConectados.entrySet()) {
             if (!entry.getKey().equals(sessionIdExcluido)) {
-                entry.getValue().enviarMensaje(mensaje);
+                entry.getValue().enviarMensaje(codificado);
             }
         }
     }
     
+    /**
+     * ✅ ACTUALIZADO: Recorre el array de sesiones de la TablaRutas
+     * (sin lock de la partida ni busqueda por sessionId por jugador).
+     * El SecuenciadorPartida numera el evento ("seq") y garantiza que
+     * todos los jugadores lo reciben en el mismo orden.
+     */
     public void broadcastAPartida(int partidaId, String mensaje, String sessionIdExcluido) {
-        modelo.partida.Partida partida = persistencia.obtenerPartida(partidaId);
-        if (partida == null) return;
-        
-        for (modelo.Jugador.Jugador jugador : partida.getJugadores()) {
-            String sessionId = jugador.getSessionId();
-            if (sessionId != null && !sessionId.equals(sessionIdExcluido)) {
-                ClienteHandler cliente = clientesConectados.get(sessionId);
-                if (cliente != null) {
-                    cliente.enviarMensaje(mensaje);
-                }
-            }
-        }
+        SecuenciadorPartida secuenciador = tablaRutas.secuenciador(partidaId);
+        if (secuenciador == null) return;   // partida ya eliminada
+        secuenciador.publicar(mensaje, tablaRutas.destinos(partidaId), sessionIdExcluido);
+    }
+    
+    /**
+     * ✅ NUEVO: Difunde un evento caliente; las sesiones binarias reciben
+     * su trama, escrita desde los datos del evento.
+     */
+    public void broadcastAPartida(int partidaId, EventoPartida evento, String sessionIdExcluido) {
+        SecuenciadorPartida secuenciador = tablaRutas.secuenciador(partidaId);
+        if (secuenciador == null) return;   // partida ya eliminada
+        secuenciador.publicar(evento.getJson(), evento.getTrama(),
+            tablaRutas.destinos(partidaId), sessionIdExcluido);
+    }
+    
+    /**
+     * ✅ NUEVO: Envia un evento de la partida a un solo jugador, numerado
+     * en la misma secuencia que los broadcasts (p. ej. tu_turno despues
+     * de cambio_turno, sin esperas).
+     */
+    public void enviarAJugadorDePartida(int partidaId, String sessionId, String mensaje) {
+        if (sessionId == null) return;
+        // Si el jugador esta caido el evento queda en el historial para cuando reanude
+        SecuenciadorPartida secuenciador = tablaRutas.secuenciador(partidaId);
+        if (secuenciador == null) return;   // partida ya eliminada
+        ClienteHandler cliente = clientesConectados.get(sessionId);
+        secuenciador.publicarA(mensaje, sessionId, cliente);
+    }
+    
+    /**
+     * ✅ NUEVO: Vuelve a asociar la sesion de un jugador a su partida
+     * (p. ej. tras reconectar con una sesion nueva).
+     */
+    public void reasociarJugador(int partidaId, int jugadorId, ClienteHandler cliente) {
+        tablaRutas.conectar(partidaId, jugadorId, cliente);
     }
     
     public void broadcastAPartida(int partidaId, String mensaje) {
         broadcastAPartida(partidaId, mensaje, null);
     }
+    
+    /**
+     * ✅ NUEVO: Reanuda la sesion caida a la que pertenece el token.
+     * La sesion nueva toma el Jugador, el token y el asiento de la anterior
+     * y recibe los eventos de la partida posteriores a ultimoSeq (o el
+     * estado completo si el hueco ya no esta en el historial).
+     *
+     * @return respuesta para el cliente, o null si ya se envio
+     */
+    public String reanudarSesion(ClienteHandler nueva, String token, long ultimoSeq) {
+        if (nueva.getJugador() != null) {
+            return crearErrorReanudacion("La sesion ya tiene un jugador");
+        }
+        
+        // Un socket medio abierto que el servidor aun no detecto se cierra aqui
+        ClienteHandler anterior = registroReanudacion.buscar(token);
+        if (anterior != null && anterior != nueva && anterior.isConectado()
+                && anterior.getJugador() != null) {
+            anterior.desconectar();
+        }
+        
+        anterior = registroReanudacion.reclamar(token);
+        if (anterior == null || anterior.getJugador() == null) {
+            return crearErrorReanudacion("Token de reanudacion invalido o expirado");
+        }
+        
+        modelo.Jugador.Jugador jugador = anterior.getJugador();
+        String sessionIdAnterior = anterior.getSessionId();
+        
+        registroReanudacion.olvidar(nueva.getTokenReanudacion(), nueva);
+        nueva.adoptarToken(token);
+        registroReanudacion.registrar(nueva);
+        
+        nueva.setJugador(jugador);
+        persistencia.reasociarSesion(jugador.getId(), nueva.getSessionId());
+        
+        java.util.Optional<modelo.partida.Partida> partidaOpt = 
+            persistencia.obtenerPartidaDeJugador(jugador.getId());
+        
+        PlantillaMensaje.Escritor respuesta = SESION_REANUDADA.iniciar()
+            .texto(CamposMensaje.SESSION_ID, nueva.getSessionId())
+            .texto(CamposMensaje.TOKEN, token)
+            .objeto(CamposMensaje.JUGADOR)
+                .entero(CamposMensaje.ID, jugador.getId())
+                .texto(CamposMensaje.NOMBRE, jugador.getNombre())
+            .cerrar();
+        
+        SecuenciadorPartida secuenciador = partidaOpt.isPresent()
+            ? tablaRutas.secuenciador(partidaOpt.get().getId()) : null;
+        if (secuenciador == null) {
+            System.out.println(">>> Sesion reanudada: " + jugador.getNombre() + 
+                " [" + sessionIdAnterior + " -> " + nueva.getSessionId() + "]");
+            return respuesta.json();
+        }
+        
+        modelo.partida.Partida partida = partidaOpt.get();
+        int partidaId = partida.getId();
+        nueva.enviarMensaje(respuesta.entero(CamposMensaje.PARTIDA_ID, partidaId).json());
+        
+        int reenviados = secuenciador.reanudar(
+            nueva,
+            sessionIdAnterior,
+            ultimoSeq,
+            () -> tablaRutas.conectar(partidaId, jugador.getId(), nueva),
+            () -> crearMensajeEstadoCompleto(partida)
+        );
+        
+        broadcastAPartida(partidaId, crearMensajeReconexion(jugador), nueva.getSessionId());
+        
+        System.out.println(">>> Sesion reanudada: " + jugador.getNombre() + 
+            " [" + sessionIdAnterior + " -> " + nueva.getSessionId() + "] " +
+            (reenviados >= 0 ? reenviados + " eventos reenviados" : "estado completo"));
+        return null;
+    }
 
     private synchronized String generarSessionId() {
         contadorSesiones++;
@@ -279,11 +597,37 @@ public class ServidorCentral {
     }
     
     private String crearMensajeDesconexion(modelo.Jugador.Jugador jugador) {
-        return String.format(
-            "{\"tipo\":\"jugador_desconectado\",\"jugadorId\":%d,\"nombre\":\"%s\"}",
-            jugador.getId(),
-            jugador.getNombre()
-        );
+        return JUGADOR_DESCONECTADO.iniciar()
+            .entero(CamposMensaje.JUGADOR_ID, jugador.getId())
+            .texto(CamposMensaje.NOMBRE, jugador.getNombre())
+            .json();
+    }
+    
+    private String crearMensajeReconexion(modelo.Jugador.Jugador jugador) {
+        return JUGADOR_RECONECTADO.iniciar()
+            .entero(CamposMensaje.JUGADOR_ID, jugador.getId())
+            .texto(CamposMensaje.NOMBRE, jugador.getNombre())
+            .json();
+    }
+    
+    // ✅ ACTUALIZADO: Sale de la cache; solo se le antepone el seq
+    private String crearMensajeEstadoCompleto(modelo.partida.Partida partida) {
+        return cacheEstado.obtener(partida).getJson();
+    }
+    
+    /**
+     * ✅ NUEVO: Estado completo de la partida ya codificado (respuesta a
+     * obtener_estado). Los mismos bytes para todas las sesiones mientras la
+     * partida no cambie.
+     */
+    public MensajeCodificado getEstadoCompleto(modelo.partida.Partida partida) {
+        return cacheEstado.obtener(partida).getMensaje();
+    }
+    
+    private String crearErrorReanudacion(String texto) {
+        return ERROR_REANUDACION.iniciar()
+            .texto(CamposMensaje.MENSAJE, texto)
+            .json();
     }
     
     public boolean estaEjecutando() {
@@ -294,12 +638,32 @@ public class ServidorCentral {
         return clientesConectados.size();
     }
     
+    /**
+     * ✅ NUEVO: Bytes pendientes en la cola de salida de cada sesion
+     */
+    public Map<String, Integer> getProfundidadColasSalida() {
+        Map<String, Integer> profundidades = new java.util.HashMap<>();
+        for (Map.Entry<String, ClienteHandler> entry : clientesConectados.entrySet()) {
+            profundidades.put(entry.getKey(), entry.getValue().getBytesSalidaPendientes());
+        }
+        return profundidades;
+    }
+    
     public String getEstado() {
+        int maxSalida = 0;
+        int lentos = 0;
+        for (ClienteHandler cliente : clientesConectados.values()) {
+            maxSalida = Math.max(maxSalida, cliente.getBytesSalidaPendientes());
+            if (cliente.isClienteLento()) lentos++;
+        }
         return String.format(
-            "Servidor[puerto=%d, clientes=%d, partidas=%d, ejecutando=%s]",
+            "Servidor[puerto=%d, modo=%s, clientes=%d, partidas=%d, salidaMax=%dB, lentos=%d, ejecutando=%s]",
             puerto,
+            modo,
             clientesConectados.size(),
             persistencia.getTotalPartidas(),
+            maxSalida,
+            lentos,
             ejecutando
         );
     }
@@ -0,0 +1,157 @@
+package controlador.servidor;
+
+import modelo.Jugador.Jugador;
+import modelo.servicios.ObservadorSalas;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice partidaId -> sesiones vivas de la partida, para los broadcasts.
+ *
+ * Se mantiene de forma incremental (union, salida, desconexion y
+ * reconexion) en vez de recalcularlo en cada envio. Cada ruta es un array
+ * inmutable que se reemplaza entero al cambiar (copy-on-write), asi que un
+ * broadcast solo recorre un array: sin locks de Partida ni busquedas por
+ * sessionId por jugador.
+ *
+ * Tambien guarda el SecuenciadorPartida de cada partida.
+ */
+final class TablaRutas implements ObservadorSalas {
+
+    private static final Ruta VACIA = new Ruta(new int[0], new ClienteHandler[0]);
+
+    private final Map<Integer, Ruta> rutas;
+    private final Map<Integer, SecuenciadorPartida> secuenciadores;
+    private final Map<String, ClienteHandler> clientesConectados;
+
+    TablaRutas(Map<String, ClienteHandler> clientesConectados) {
+        this.rutas = new ConcurrentHashMap<>();
+        this.secuenciadores = new ConcurrentHashMap<>();
+        this.clientesConectados = clientesConectados;
+    }
+
+    /**
+     * Sesiones vivas de la partida. El array no debe modificarse.
+     */
+    ClienteHandler[] destinos(int partidaId) {
+        Ruta ruta = rutas.get(partidaId);
+        return ruta != null ? ruta.sesiones : VACIA.sesiones;
+    }
+
+    /**
+     * Secuenciador de la partida, o null si no esta registrada (nunca tuvo
+     * jugadores o ya se elimino). Solo se crea en jugadorUnido().
+     */
+    SecuenciadorPartida secuenciador(int partidaId) {
+        return secuenciadores.get(partidaId);
+    }
+
+    /**
+     * Asocia (o reasocia, al reconectar) la sesion de un jugador a la partida.
+     */
+    void conectar(int partidaId, int jugadorId, ClienteHandler sesion) {
+        rutas.compute(partidaId, (id, actual) ->
+            (actual != null ? actual : VACIA).con(jugadorId, sesion));
+    }
+
+    /**
+     * Quita al jugador de la ruta (salio de la partida).
+     */
+    void quitarJugador(int partidaId, int jugadorId) {
+        rutas.computeIfPresent(partidaId, (id, actual) -> actual.sin(jugadorId));
+    }
+
+    /**
+     * Quita una sesion cerrada; el jugador sigue en la partida y puede
+     * volver a asociarse con conectar().
+     */
+    void quitarSesion(int partidaId, ClienteHandler sesion) {
+        rutas.computeIfPresent(partidaId, (id, actual) -> actual.sinSesion(sesion));
+    }
+
+    int getTotalRutas() {
+        return rutas.size();
+    }
+
+    // ==================== ObservadorSalas ====================
+
+    @Override
+    public void jugadorUnido(int partidaId, Jugador jugador) {
+        secuenciadores.computeIfAbsent(partidaId, id -> new SecuenciadorPartida());
+        String sessionId = jugador.getSessionId();
+        ClienteHandler sesion = sessionId != null ? clientesConectados.get(sessionId) : null;
+        if (sesion != null) {
+            conectar(partidaId, jugador.getId(), sesion);
+        }
+    }
+
+    @Override
+    public void jugadorRemovido(int partidaId, Jugador jugador) {
+        quitarJugador(partidaId, jugador.getId());
+    }
+
+    @Override
+    public void partidaEliminada(int partidaId) {
+        rutas.remove(partidaId);
+        secuenciadores.remove(partidaId);
+    }
+
+    /**
+     * Ruta inmutable: jugadores[i] esta conectado por sesiones[i].
+     */
+    private static final class Ruta {
+        final int[] jugadores;
+        final ClienteHandler[] sesiones;
+
+        Ruta(int[] jugadores, ClienteHandler[] sesiones) {
+            this.jugadores = jugadores;
+            this.sesiones = sesiones;
+        }
+
+        Ruta con(int jugadorId, ClienteHandler sesion) {
+            for (int i = 0; i < jugadores.length; i++) {
+                if (jugadores[i] == jugadorId) {
+                    ClienteHandler[] nuevas = sesiones.clone();
+                    nuevas[i] = sesion;
+                    return new Ruta(jugadores, nuevas);
+                }
+            }
+            int n = jugadores.length;
+            int[] nuevosJugadores = Arrays.copyOf(jugadores, n + 1);
+            ClienteHandler[] nuevas = Arrays.copyOf(sesiones, n + 1);
+            nuevosJugadores[n] = jugadorId;
+            nuevas[n] = sesion;
+            return new Ruta(nuevosJugadores, nuevas);
+        }
+
+        Ruta sin(int jugadorId) {
+            for (int i = 0; i < jugadores.length; i++) {
+                if (jugadores[i] == jugadorId) {
+                    return quitar(i);
+                }
+            }
+            return this;
+        }
+
+        Ruta sinSesion(ClienteHandler sesion) {
+            for (int i = 0; i < sesiones.length; i++) {
+                if (sesiones[i] == sesion) {
+                    return quitar(i);
+                }
+            }
+            return this;
+        }
+
+        private Ruta quitar(int indice) {
+            int n = jugadores.length - 1;
+            int[] nuevosJugadores = new int[n];
+            ClienteHandler[] nuevas = new ClienteHandler[n];
+            System.arraycopy(jugadores, 0, nuevosJugadores, 0, indice);
+            System.arraycopy(jugadores, indice + 1, nuevosJugadores, indice, n - indice);
+            System.arraycopy(sesiones, 0, nuevas, 0, indice);
+            System.arraycopy(sesiones, indice + 1, nuevas, indice, n - indice);
+            return new Ruta(nuevosJugadores, nuevas);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package controlador.servidor;
+
+/**
+ * Trama del protocolo binario ya separada del stream: opcode y carga
+ * (sin la cabecera). Ver ProtocoloBinario.
+ */
+public final class TramaBinaria {
+
+    private final byte opcode;
+    private final byte[] carga;
+
+    public TramaBinaria(byte opcode, byte[] carga) {
+        this.opcode = opcode;
+        this.carga = carga;
+    }
+
+    public byte getOpcode() {
+        return opcode;
+    }
+
+    public byte[] getCarga() {
+        return carga;
+    }
+
+    public int getLongitud() {
+        return ProtocoloBinario.CABECERA + carga.length;
+    }
+}
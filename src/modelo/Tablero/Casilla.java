@@ -13,7 +13,23 @@ public class Casilla {
     private boolean bloqueada;
     private List<Ficha> fichas;
 
+    // ✅ NUEVO: Contadores de ocupacion (compartidos por todo el tablero) y
+    // la celda de esta casilla en ellos
+    private final OcupacionTablero ocupacion;
+    private final int celda;
+
     public Casilla(int indice, int posicion, ColorCasilla color, TipoCasilla tipo, int capacidad) {
+        this(indice, posicion, color, tipo, capacidad, new OcupacionTablero(Math.max(indice, 0)), Math.max(indice, 0));
+    }
+
+    /**
+     * ✅ NUEVO: Casilla de un Tablero, que lleva la ocupacion de todas sus
+     * casillas en un solo OcupacionTablero.
+     */
+    Casilla(int indice, int posicion, ColorCasilla color, TipoCasilla tipo, int capacidad,
+            OcupacionTablero ocupacion, int celda) {
+        this.ocupacion = ocupacion;
+        this.celda = celda;
         this.indice = indice;
         this.posicion = posicion;
         this.color = color;
@@ -79,6 +95,7 @@ public class Casilla {
         if (ficha == null) return;
         
         fichas.add(ficha);
+        ocupacion.agregar(celda, ficha);
         
         // Actualizar estado de bloqueo si hay 2+ fichas del mismo jugador
         actualizarBloqueo();
@@ -88,7 +105,12 @@ public class Casilla {
      * Remueve una ficha de esta casilla.
      */
     public void removerFicha(Ficha ficha) {
-        fichas.remove(ficha);
+        // ✅ ACTUALIZADO: Se descuenta la ficha que sale de la lista (igual
+        // por id y jugador), que es la que se conto al entrar
+        int posicionEnLista = fichas.indexOf(ficha);
+        if (posicionEnLista < 0) return;
+        
+        ocupacion.quitar(celda, fichas.remove(posicionEnLista));
         actualizarBloqueo();
     }
 
@@ -97,35 +119,23 @@ public class Casilla {
      */
     public void limpiarFichas() {
         fichas.clear();
+        ocupacion.vaciar(celda);
         bloqueada = false;
     }
 
     /**
-     * Actualiza el estado de bloqueo según las fichas presentes.
+     * ✅ ACTUALIZADO: Bloqueada si algun jugador tiene 2+ fichas aqui
+     * (lectura de OcupacionTablero, sin agrupar la lista).
      */
     private void actualizarBloqueo() {
-        if (fichas.size() < 2) {
-            bloqueada = false;
-            return;
-        }
-
-        // Verificar si hay 2+ fichas del mismo jugador
-        java.util.Map<Integer, Long> fichasPorJugador = fichas.stream()
-            .collect(java.util.stream.Collectors.groupingBy(
-                Ficha::getIdJugador, 
-                java.util.stream.Collectors.counting()
-            ));
-
-        bloqueada = fichasPorJugador.values().stream().anyMatch(count -> count >= 2);
+        bloqueada = ocupacion.esBarrera(celda);
     }
 
     /**
      * Obtiene el número de fichas de un jugador específico en esta casilla.
      */
     public int contarFichasDeJugador(int jugadorId) {
-        return (int) fichas.stream()
-            .filter(f -> f.getIdJugador() == jugadorId)
-            .count();
+        return ocupacion.fichasDeJugador(celda, jugadorId);
     }
 
     /**
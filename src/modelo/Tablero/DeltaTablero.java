@@ -0,0 +1,60 @@
+package modelo.Tablero;
+
+import java.util.Collections;
+import java.util.List;
+import modelo.Ficha.EstadoFicha;
+import modelo.Jugador.ColorJugador;
+
+/**
+ * ✅ NUEVO: Cambios del tablero entre dos versiones consecutivas.
+ *
+ * Solo lleva las fichas que cambiaron de casilla o de estado desde la
+ * version anterior (un movimiento, una salida de casa, una captura...), en
+ * lugar de las 96 casillas de generarEstadoJSON().
+ */
+public class DeltaTablero {
+
+    public final long versionAnterior;
+    public final long version;
+    public final List<Cambio> cambios;
+
+    public DeltaTablero(long versionAnterior, long version, List<Cambio> cambios) {
+        this.versionAnterior = versionAnterior;
+        this.version = version;
+        this.cambios = Collections.unmodifiableList(cambios);
+    }
+
+    /**
+     * Una ficha que paso de la casilla "desde" a la casilla "hasta"
+     * (-1 = casa).
+     */
+    public static class Cambio {
+        public final int fichaId;
+        public final int jugadorId;
+        public final ColorJugador color;
+        public final int desde;
+        public final int hasta;
+        public final EstadoFicha estado;
+
+        public Cambio(int fichaId, int jugadorId, ColorJugador color, int desde, int hasta, EstadoFicha estado) {
+            this.fichaId = fichaId;
+            this.jugadorId = jugadorId;
+            this.color = color;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.estado = estado;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Cambio[ficha=%d, jugador=%d, %d -> %d, %s]",
+                fichaId, jugadorId, desde, hasta, estado);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DeltaTablero[v%d -> v%d, %d cambios]",
+            versionAnterior, version, cambios.size());
+    }
+}
@@ -0,0 +1,176 @@
+package modelo.Tablero;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import modelo.Ficha.EstadoFicha;
+import modelo.Ficha.Ficha;
+import modelo.Jugador.ColorJugador;
+
+/**
+ * ✅ NUEVO: Copia inmutable del tablero en una version.
+ *
+ * Tablero publica una al crearse y en cada confirmarCambios() que encuentra
+ * fichas movidas, por una referencia volatile. estado_tablero,
+ * estado_completo y los registros del servidor la leen sin tomar el monitor
+ * del tablero ni recorrer las listas de fichas que el MotorJuego esta
+ * cambiando.
+ *
+ * Copia en escritura: la version nueva comparte con la anterior todas las
+ * casillas salvo las que aparecen en el delta (la de salida y la de llegada
+ * de cada ficha), que se copian de nuevo. El JSON se genera la primera vez
+ * que alguien lo pide y se guarda.
+ */
+public final class InstantaneaTablero {
+
+    public final long version;
+    private final CasillaEstado[] casillas;    // [indice - 1]
+    private volatile String json;              // null hasta que se pide
+
+    private InstantaneaTablero(long version, CasillaEstado[] casillas) {
+        this.version = version;
+        this.casillas = casillas;
+    }
+
+    /**
+     * Copia completa de las casillas (al crear o limpiar el tablero).
+     */
+    static InstantaneaTablero de(long version, List<Casilla> vivas) {
+        CasillaEstado[] copia = new CasillaEstado[vivas.size()];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = new CasillaEstado(vivas.get(i));
+        }
+        return new InstantaneaTablero(version, copia);
+    }
+
+    /**
+     * Version siguiente: copia solo las casillas "desde" y "hasta" de cada
+     * cambio; el resto se comparte.
+     */
+    InstantaneaTablero conCambios(long version, List<DeltaTablero.Cambio> cambios, List<Casilla> vivas) {
+        CasillaEstado[] copia = casillas.clone();
+        for (DeltaTablero.Cambio cambio : cambios) {
+            copiarCasilla(copia, cambio.desde, vivas);
+            copiarCasilla(copia, cambio.hasta, vivas);
+        }
+        return new InstantaneaTablero(version, copia);
+    }
+
+    private static void copiarCasilla(CasillaEstado[] copia, int indice, List<Casilla> vivas) {
+        if (indice >= 1 && indice <= copia.length) {
+            copia[indice - 1] = new CasillaEstado(vivas.get(indice - 1));
+        }
+    }
+
+    public int getNumeroCasillas() {
+        return casillas.length;
+    }
+
+    /**
+     * Casilla por indice (1..96), null fuera de rango.
+     */
+    public CasillaEstado getCasilla(int indice) {
+        return indice >= 1 && indice <= casillas.length ? casillas[indice - 1] : null;
+    }
+
+    public List<CasillaEstado> getCasillas() {
+        return Collections.unmodifiableList(Arrays.asList(casillas));
+    }
+
+    /**
+     * Mismo formato que generaba Tablero.generarEstadoJSON() sobre las
+     * casillas vivas.
+     */
+    public JsonObject toJson() {
+        JsonObject tablero = new JsonObject();
+        tablero.addProperty("version", version);
+        JsonArray casillasArr = new JsonArray();
+
+        for (CasillaEstado c : casillas) {
+            JsonObject cObj = new JsonObject();
+            cObj.addProperty("indice", c.indice);
+            cObj.addProperty("tipo", c.tipo.name());
+            cObj.addProperty("color", c.color.name());
+            cObj.addProperty("bloqueada", c.bloqueada);
+
+            JsonArray fichasArr = new JsonArray();
+            for (FichaEstado f : c.fichas) {
+                JsonObject fObj = new JsonObject();
+                fObj.addProperty("id", f.id);
+                fObj.addProperty("jugadorId", f.jugadorId);
+                fObj.addProperty("color", f.color.name());
+                fObj.addProperty("estado", f.estado.name());
+                fichasArr.add(fObj);
+            }
+            cObj.add("fichas", fichasArr);
+            casillasArr.add(cObj);
+        }
+
+        tablero.add("casillas", casillasArr);
+        return tablero;
+    }
+
+    /**
+     * toJson() como texto, generado una sola vez. Si dos hilos lo piden a la
+     * vez pueden generarlo los dos; el resultado es el mismo.
+     */
+    public String getJson() {
+        String texto = json;
+        if (texto == null) {
+            texto = toJson().toString();
+            json = texto;
+        }
+        return texto;
+    }
+
+    /**
+     * Una casilla con las fichas que tenia, en el orden de su lista.
+     */
+    public static final class CasillaEstado {
+        public final int indice;
+        public final TipoCasilla tipo;
+        public final ColorCasilla color;
+        public final boolean bloqueada;
+        public final List<FichaEstado> fichas;
+
+        private CasillaEstado(Casilla casilla) {
+            this.indice = casilla.getIndice();
+            this.tipo = casilla.getTipo();
+            this.color = casilla.getColor();
+            this.bloqueada = casilla.isBloqueada();
+
+            List<Ficha> vivas = casilla.getFichas();
+            if (vivas.isEmpty()) {
+                this.fichas = Collections.emptyList();
+            } else {
+                List<FichaEstado> copia = new ArrayList<>(vivas.size());
+                for (Ficha f : vivas) {
+                    copia.add(new FichaEstado(f.getId(), f.getIdJugador(), f.getColor(), f.getEstado()));
+                }
+                this.fichas = Collections.unmodifiableList(copia);
+            }
+        }
+    }
+
+    public static final class FichaEstado {
+        public final int id;
+        public final int jugadorId;
+        public final ColorJugador color;
+        public final EstadoFicha estado;
+
+        private FichaEstado(int id, int jugadorId, ColorJugador color, EstadoFicha estado) {
+            this.id = id;
+            this.jugadorId = jugadorId;
+            this.color = color;
+            this.estado = estado;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InstantaneaTablero[v%d, %d casillas]", version, casillas.length);
+    }
+}
@@ -0,0 +1,214 @@
+package modelo.Tablero;
+
+import java.util.Arrays;
+import modelo.Ficha.Ficha;
+import modelo.Jugador.ColorJugador;
+
+/**
+ * ✅ NUEVO: Ocupacion del tablero en arrays primitivos.
+ *
+ * Las casillas siguen guardando sus objetos Ficha (la serializacion y las
+ * capturas los necesitan), pero las preguntas de las reglas (cuantas fichas
+ * hay, cuantas son de un jugador, si hay barrera o barrera rival) se
+ * responden aqui con lecturas de array, sin recorrer listas ni crear
+ * objetos. Casilla lo actualiza en agregarFicha, removerFicha y
+ * limpiarFichas, que es por donde pasa todo movimiento.
+ *
+ * El asiento de una ficha es el ordinal de su color: en una partida cada
+ * jugador tiene un color distinto (SalaServicio lo asigna antes de crear
+ * las fichas). Una ficha sin color solo cuenta en el total de su casilla.
+ *
+ * Por casilla (indice 1..96):
+ * - total: fichas en la casilla.
+ * - porAsiento[casilla * ASIENTOS + asiento]: fichas de ese asiento.
+ * - barreras: bit del asiento encendido si tiene 2+ fichas en la casilla.
+ *
+ * Por ficha, posiciones[asiento * FICHAS_POR_ASIENTO + id - 1]: indice de
+ * su casilla (0 = fuera del tablero).
+ *
+ * ✅ NUEVO: Ademas, las casillas con barrera como bitset de 128 bits
+ * (barrerasBaja: casillas 0-63, barrerasAlta: 64-127), que RutasTablero
+ * cruza con la mascara de una ruta.
+ */
+final class OcupacionTablero {
+
+    static final int ASIENTOS = ColorJugador.values().length;
+    static final int FICHAS_POR_ASIENTO = 4;
+    static final int SIN_ASIENTO = -1;
+
+    private static final int SIN_JUGADOR = Integer.MIN_VALUE;
+
+    private final byte[] total;
+    private final byte[] porAsiento;
+    private final byte[] barreras;
+    private final byte[] posiciones;
+    private long barrerasBaja;
+    private long barrerasAlta;
+
+    // ✅ NUEVO: Sube con cada escritura (ver getCambios)
+    private long cambios;
+
+    // Jugador de cada asiento, para traducir jugadorId -> asiento
+    private final int[] jugadorDeAsiento;
+
+    OcupacionTablero(int casillas) {
+        this.total = new byte[casillas + 1];
+        this.porAsiento = new byte[(casillas + 1) * ASIENTOS];
+        this.barreras = new byte[casillas + 1];
+        this.posiciones = new byte[ASIENTOS * FICHAS_POR_ASIENTO];
+        this.jugadorDeAsiento = new int[ASIENTOS];
+        Arrays.fill(jugadorDeAsiento, SIN_JUGADOR);
+    }
+
+    // ==================== Escritura (desde Casilla) ====================
+
+    void agregar(int casilla, Ficha ficha) {
+        cambios++;
+        total[casilla]++;
+
+        int asiento = asientoDe(ficha);
+        if (asiento == SIN_ASIENTO) {
+            return;
+        }
+        jugadorDeAsiento[asiento] = ficha.getIdJugador();
+
+        int celda = casilla * ASIENTOS + asiento;
+        if (++porAsiento[celda] >= 2) {
+            barreras[casilla] |= (byte) (1 << asiento);
+            actualizarBitset(casilla);
+        }
+        int slot = slot(asiento, ficha.getId());
+        if (slot >= 0) {
+            posiciones[slot] = (byte) casilla;
+        }
+    }
+
+    void quitar(int casilla, Ficha ficha) {
+        cambios++;
+        total[casilla]--;
+
+        int asiento = asientoDe(ficha);
+        if (asiento == SIN_ASIENTO) {
+            return;
+        }
+
+        int celda = casilla * ASIENTOS + asiento;
+        if (--porAsiento[celda] < 2) {
+            barreras[casilla] &= (byte) ~(1 << asiento);
+            actualizarBitset(casilla);
+        }
+        int slot = slot(asiento, ficha.getId());
+        if (slot >= 0 && posiciones[slot] == casilla) {
+            posiciones[slot] = 0;
+        }
+    }
+
+    void vaciar(int casilla) {
+        cambios++;
+        for (int asiento = 0; asiento < ASIENTOS; asiento++) {
+            porAsiento[casilla * ASIENTOS + asiento] = 0;
+        }
+        for (int slot = 0; slot < posiciones.length; slot++) {
+            if (posiciones[slot] == casilla) {
+                posiciones[slot] = 0;
+            }
+        }
+        total[casilla] = 0;
+        barreras[casilla] = 0;
+        actualizarBitset(casilla);
+    }
+
+    private void actualizarBitset(int casilla) {
+        if (casilla >= 128) {
+            return;
+        }
+        long bit = 1L << (casilla & 63);
+        if (casilla < 64) {
+            barrerasBaja = barreras[casilla] != 0 ? barrerasBaja | bit : barrerasBaja & ~bit;
+        } else {
+            barrerasAlta = barreras[casilla] != 0 ? barrerasAlta | bit : barrerasAlta & ~bit;
+        }
+    }
+
+    void registrarAsiento(int asiento, int jugadorId) {
+        if (asiento != SIN_ASIENTO) {
+            jugadorDeAsiento[asiento] = jugadorId;
+        }
+    }
+
+    // ==================== Consultas O(1) ====================
+
+    int total(int casilla) {
+        return total[casilla];
+    }
+
+    int fichasDeAsiento(int casilla, int asiento) {
+        return asiento == SIN_ASIENTO ? 0 : porAsiento[casilla * ASIENTOS + asiento];
+    }
+
+    int fichasDeJugador(int casilla, int jugadorId) {
+        return fichasDeAsiento(casilla, asientoDeJugador(jugadorId));
+    }
+
+    /**
+     * Fichas de los demas asientos (incluidas las que no tienen color).
+     */
+    int fichasRivales(int casilla, int jugadorId) {
+        return total[casilla] - fichasDeJugador(casilla, jugadorId);
+    }
+
+    boolean esBarrera(int casilla) {
+        return barreras[casilla] != 0;
+    }
+
+    /**
+     * Numero de escrituras hasta ahora: si no cambio, la ocupacion es la
+     * misma que la ultima vez que se leyo.
+     */
+    long getCambios() {
+        return cambios;
+    }
+
+    long getBarrerasBaja() {
+        return barrerasBaja;
+    }
+
+    long getBarrerasAlta() {
+        return barrerasAlta;
+    }
+
+    boolean esBarreraRival(int casilla, int jugadorId) {
+        int asiento = asientoDeJugador(jugadorId);
+        int propia = asiento == SIN_ASIENTO ? 0 : 1 << asiento;
+        return (barreras[casilla] & ~propia) != 0;
+    }
+
+    /**
+     * Casilla de la ficha id (1..4) del asiento, 0 si no esta en el tablero.
+     */
+    int casillaDe(int asiento, int fichaId) {
+        int slot = slot(asiento, fichaId);
+        return slot >= 0 ? posiciones[slot] : 0;
+    }
+
+    int asientoDeJugador(int jugadorId) {
+        for (int asiento = 0; asiento < ASIENTOS; asiento++) {
+            if (jugadorDeAsiento[asiento] == jugadorId) {
+                return asiento;
+            }
+        }
+        return SIN_ASIENTO;
+    }
+
+    static int asientoDe(Ficha ficha) {
+        ColorJugador color = ficha.getColor();
+        return color != null ? color.ordinal() : SIN_ASIENTO;
+    }
+
+    private static int slot(int asiento, int fichaId) {
+        if (asiento == SIN_ASIENTO || fichaId < 1 || fichaId > FICHAS_POR_ASIENTO) {
+            return -1;
+        }
+        return asiento * FICHAS_POR_ASIENTO + fichaId - 1;
+    }
+}
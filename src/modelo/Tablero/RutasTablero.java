@@ -0,0 +1,115 @@
+package modelo.Tablero;
+
+/**
+ * ✅ NUEVO: Rutas del tablero precalculadas.
+ *
+ * Destinos: por color, la casilla a la que llega una ficha desde cada
+ * origen (1..96) con cada numero de pasos (0..PASOS_MAX). Se calculan una
+ * vez con Tablero.destinoPorReglas, asi que dan exactamente lo mismo que
+ * las reglas, incluido FUERA_DEL_PASILLO cuando la ficha se pasaria del
+ * final de su pasillo.
+ *
+ * Rutas: por cada par origen/destino, las casillas que revisaria
+ * Tablero.rutaContieneBarreraExcluyendoOrigen recorriendo con
+ * siguienteCasilla, como mascara de 128 bits (bit = indice de casilla). El
+ * recorrido solo depende del origen y del destino, no del color. Con el
+ * bitset de barreras de OcupacionTablero, "hay barrera en la ruta" es un AND
+ * de dos mascaras.
+ *
+ * Fuera de esos rangos (u otro color) Tablero sigue con las reglas paso a
+ * paso.
+ */
+final class RutasTablero {
+
+    static final int CASILLAS = 96;
+    static final int PASOS_MAX = 68;          // Una vuelta completa
+    static final int SIN_TABLA = Integer.MIN_VALUE;
+    static final int FUERA_DEL_PASILLO = Integer.MIN_VALUE + 1;
+
+    // FUERA_DEL_PASILLO dentro de la tabla (los destinos caben en un short)
+    private static final short FUERA_EN_TABLA = Short.MIN_VALUE;
+
+    private static final int DESTINOS_RUTA = 128;
+    private static final ColorCasilla[] COLORES = {
+        ColorCasilla.ROJO, ColorCasilla.AZUL, ColorCasilla.VERDE, ColorCasilla.AMARILLO
+    };
+
+    // [color.ordinal()][origen * (PASOS_MAX + 1) + pasos]
+    private static final short[][] DESTINOS = new short[ColorCasilla.values().length][];
+
+    // [origen * DESTINOS_RUTA + destino]: casillas 0-63 y 64-127
+    private static final long[] RUTA_BAJA = new long[(CASILLAS + 1) * DESTINOS_RUTA];
+    private static final long[] RUTA_ALTA = new long[(CASILLAS + 1) * DESTINOS_RUTA];
+
+    static {
+        for (ColorCasilla color : COLORES) {
+            short[] tabla = new short[(CASILLAS + 1) * (PASOS_MAX + 1)];
+            for (int origen = 1; origen <= CASILLAS; origen++) {
+                for (int pasos = 0; pasos <= PASOS_MAX; pasos++) {
+                    int destino = Tablero.destinoPorReglas(origen, pasos, color);
+                    tabla[origen * (PASOS_MAX + 1) + pasos] =
+                        destino == FUERA_DEL_PASILLO ? FUERA_EN_TABLA : (short) destino;
+                }
+            }
+            DESTINOS[color.ordinal()] = tabla;
+        }
+
+        for (int origen = 1; origen <= CASILLAS; origen++) {
+            for (int destino = 0; destino < DESTINOS_RUTA; destino++) {
+                marcarRuta(origen, destino);
+            }
+        }
+    }
+
+    private RutasTablero() {
+    }
+
+    /**
+     * Destino tabulado, FUERA_DEL_PASILLO, o SIN_TABLA si no esta en la
+     * tabla.
+     */
+    static int destino(ColorCasilla color, int origen, int pasos) {
+        short[] tabla = color != null ? DESTINOS[color.ordinal()] : null;
+        if (tabla == null || origen < 1 || origen > CASILLAS || pasos < 0 || pasos > PASOS_MAX) {
+            return SIN_TABLA;
+        }
+        short destino = tabla[origen * (PASOS_MAX + 1) + pasos];
+        return destino == FUERA_EN_TABLA ? FUERA_DEL_PASILLO : destino;
+    }
+
+    static boolean tieneRuta(int origen, int destino) {
+        return origen >= 1 && origen <= CASILLAS && destino >= 0 && destino < DESTINOS_RUTA;
+    }
+
+    /**
+     * Hay barrera en alguna casilla que cruza la ruta (ver tieneRuta).
+     */
+    static boolean cruzaBarrera(int origen, int destino, long barrerasBaja, long barrerasAlta) {
+        int ruta = origen * DESTINOS_RUTA + destino;
+        return ((RUTA_BAJA[ruta] & barrerasBaja) | (RUTA_ALTA[ruta] & barrerasAlta)) != 0;
+    }
+
+    /**
+     * Mismo recorrido que rutaContieneBarreraExcluyendoOrigen, anotando las
+     * casillas que revisa en lugar de consultar esBarrera.
+     */
+    private static void marcarRuta(int origen, int destino) {
+        int ruta = origen * DESTINOS_RUTA + destino;
+        int actual = origen;
+        int contador = 0;
+
+        while (actual != destino && contador < Tablero.MAX_ITERACIONES_RUTA) {
+            actual = Tablero.siguienteCasilla(actual);
+            contador++;
+
+            if (actual == origen || actual == destino) {
+                break;
+            }
+            if (actual < 64) {
+                RUTA_BAJA[ruta] |= 1L << actual;
+            } else if (actual < DESTINOS_RUTA) {
+                RUTA_ALTA[ruta] |= 1L << (actual - 64);
+            }
+        }
+    }
+}
@@ -1,6 +1,5 @@
     package modelo.Tablero;
 
-    import com.google.gson.JsonArray;
     import com.google.gson.JsonObject;
     import modelo.Ficha.Ficha;
     import modelo.Ficha.EstadoFicha;
@@ -52,19 +51,43 @@
             put(ColorCasilla.AZUL, 51);      // ✅ CORREGIDO (antes: 17)
         }};
 
+        // ✅ NUEVO: Tope del recorrido de rutaContieneBarreraExcluyendoOrigen
+        static final int MAX_ITERACIONES_RUTA = 70;
+
+        private static final String EXCEDE_PASILLO =
+            "Movimiento excede el final del pasillo. Necesitas valor exacto.";
+
+        // ✅ NUEVO: Casa (-1) y EN_CASA: lo que publica la version 0 para toda ficha
+        private static final int POSICION_INICIAL = EstadoFicha.EN_CASA.ordinal();
+
         private List<Casilla> casillas;
         private Map<Integer, Jugador> jugadorPorId; 
 
+        // ✅ NUEVO: Ocupacion de todas las casillas en arrays primitivos
+        private OcupacionTablero ocupacion;
+
+        // ✅ NUEVO: Version para la sincronizacion por deltas. Sube en cada
+        // confirmarCambios() que encuentra fichas movidas.
+        private long version;
+
+        // ✅ NUEVO: Ultima posicion publicada de cada ficha (ver codificarPosicion)
+        private final Map<Ficha, Integer> posicionesPublicadas;
+
+        // ✅ NUEVO: Copia inmutable de la ultima version, para leer sin monitor
+        private volatile InstantaneaTablero publicada;
+
 
         public Tablero() {
             casillas = new ArrayList<>();
             jugadorPorId = new HashMap<>();
+            posicionesPublicadas = new HashMap<>();
             inicializarCasillas();
         }
 
 
         public void inicializarCasillas() {
             casillas = new ArrayList<>();
+            ocupacion = new OcupacionTablero(CASILLAS_NORMALES + 4 * CASILLAS_POR_PASILLO);
 
             // Casillas 1-68: recorrido principal
             for (int i = 1; i <= CASILLAS_NORMALES; i++) {
@@ -72,29 +95,30 @@
                 ColorCasilla color = determinarColorCasilla(i);
                 int capacidad = tipo == TipoCasilla.SEGURA ? 2 : 2; // Todas permiten 2 fichas
 
-                casillas.add(new Casilla(i, i, color, tipo, capacidad));
+                casillas.add(new Casilla(i, i, color, tipo, capacidad, ocupacion, i));
             }
 
             // Casillas 69-75: pasillos/metas ROJO (7 casillas)
             for (int i = 69; i <= 75; i++) {
-                casillas.add(new Casilla(i, 0, ColorCasilla.ROJO, TipoCasilla.META, 1));
+                casillas.add(new Casilla(i, 0, ColorCasilla.ROJO, TipoCasilla.META, 1, ocupacion, i));
             }
 
             // Casillas 76-82: pasillos/metas VERDE (7 casillas)
             for (int i = 76; i <= 82; i++) {
-                casillas.add(new Casilla(i, 0, ColorCasilla.VERDE, TipoCasilla.META, 1));
+                casillas.add(new Casilla(i, 0, ColorCasilla.VERDE, TipoCasilla.META, 1, ocupacion, i));
             }
 
             // Casillas 83-89: pasillos/metas AMARILLO (7 casillas)
             for (int i = 83; i <= 89; i++) {
-                casillas.add(new Casilla(i, 0, ColorCasilla.AMARILLO, TipoCasilla.META, 1));
+                casillas.add(new Casilla(i, 0, ColorCasilla.AMARILLO, TipoCasilla.META, 1, ocupacion, i));
             }
 
             // Casillas 90-96: pasillos/metas AZUL (7 casillas)
             for (int i = 90; i <= 96; i++) {
-                casillas.add(new Casilla(i, 0, ColorCasilla.AZUL, TipoCasilla.META, 1));
+                casillas.add(new Casilla(i, 0, ColorCasilla.AZUL, TipoCasilla.META, 1, ocupacion, i));
             }
 
+            publicada = InstantaneaTablero.de(version, casillas);
         }
 
         /**
@@ -140,6 +164,9 @@
          * 
          * REGLA CRÍTICA: Solo entra al pasillo si viene del RECORRIDO NORMAL,
          * no si sale directamente de la casilla de INICIO del mismo color.
+         *
+         * ✅ ACTUALIZADO: Lee la tabla de RutasTablero; las reglas solo se
+         * aplican fuera de ella.
          */
         public int calcularDestino(int indiceOrigen, int pasos, int jugadorId) {
             Jugador jugador = jugadorPorId.get(jugadorId);
@@ -148,6 +175,24 @@
             }
 
             ColorCasilla colorJugador = jugador.getColorCasilla();
+            int destino = RutasTablero.destino(colorJugador, indiceOrigen, pasos);
+            if (destino == RutasTablero.SIN_TABLA) {
+                destino = destinoPorReglas(indiceOrigen, pasos, colorJugador);
+            }
+            if (destino == RutasTablero.FUERA_DEL_PASILLO) {
+                throw new IllegalArgumentException(EXCEDE_PASILLO);
+            }
+            return destino;
+        }
+
+        /**
+         * ✅ NUEVO: Las reglas de calcularDestino para un color. Con ellas se
+         * llena la tabla de RutasTablero.
+         *
+         * @return la casilla destino, o RutasTablero.FUERA_DEL_PASILLO si la
+         *         ficha se pasaria del final de su pasillo
+         */
+        static int destinoPorReglas(int indiceOrigen, int pasos, ColorCasilla colorJugador) {
             Integer casillaSalida = CASILLAS_SALIDA.get(colorJugador);
             Integer entradaPasillo = CASILLA_ENTRADA_META.get(colorJugador);
 
@@ -197,7 +242,7 @@
         /**
          * Calcula movimiento dentro del pasillo de meta.
          */
-        private int calcularEnPasillo(int indiceActual, int pasos, ColorCasilla color) {
+        private static int calcularEnPasillo(int indiceActual, int pasos, ColorCasilla color) {
             int primerCasillaPasillo = ENTRADA_PASILLO.get(color);
             int ultimaCasillaPasillo = primerCasillaPasillo + CASILLAS_POR_PASILLO - 1;
 
@@ -205,9 +250,7 @@
 
             // No puede pasar de la ultima casilla del pasillo
             if (nuevaPosicion > ultimaCasillaPasillo) {
-                throw new IllegalArgumentException(
-                    "Movimiento excede el final del pasillo. Necesitas valor exacto."
-                );
+                return RutasTablero.FUERA_DEL_PASILLO;
             }
 
             return nuevaPosicion;
@@ -254,19 +297,20 @@
 
         /**
          * Busca una ficha rival en una casilla especifica.
+         * ✅ ACTUALIZADO: Solo recorre la lista si los contadores dicen que
+         * hay algun rival.
          */
         public Ficha buscarFichaRivalEnCasilla(int indiceCasilla, int jugadorId) {
             Casilla casilla = getCasilla(indiceCasilla);
-            if (casilla == null) return null;
-
-            List<Ficha> fichas = casilla.getFichas();
-            if (fichas == null || fichas.isEmpty()) return null;
+            if (casilla == null || ocupacion.fichasRivales(indiceCasilla, jugadorId) == 0) return null;
 
             // Buscar primera ficha que no sea del jugador actual
-            return fichas.stream()
-                .filter(f -> f.getIdJugador() != jugadorId)
-                .findFirst()
-                .orElse(null);
+            for (Ficha ficha : casilla.getFichas()) {
+                if (ficha.getIdJugador() != jugadorId) {
+                    return ficha;
+                }
+            }
+            return null;
         }
 
         /**
@@ -300,11 +344,20 @@
          * @param indiceOrigen Casilla desde donde se mueve (se EXCLUYE de la verificación)
          * @param indiceDestino Casilla de destino
          * @return true si hay barrera en el camino (sin contar el origen)
+         *
+         * ✅ ACTUALIZADO: Cruza la mascara precalculada de la ruta con el
+         * bitset de barreras (RutasTablero); el recorrido casilla a casilla
+         * queda para origenes o destinos fuera de la tabla.
          */
         public boolean rutaContieneBarreraExcluyendoOrigen(int indiceOrigen, int indiceDestino) {
+            if (RutasTablero.tieneRuta(indiceOrigen, indiceDestino)) {
+                return RutasTablero.cruzaBarrera(indiceOrigen, indiceDestino,
+                    ocupacion.getBarrerasBaja(), ocupacion.getBarrerasAlta());
+            }
+
             int actual = indiceOrigen;
             int contador = 0;
-            int maxIteraciones = 70; // Prevenir bucles infinitos
+            int maxIteraciones = MAX_ITERACIONES_RUTA; // Prevenir bucles infinitos
 
             while (actual != indiceDestino && contador < maxIteraciones) {
                 actual = siguienteCasilla(actual);
@@ -332,7 +385,7 @@
         /**
          * Obtiene el indice de la siguiente casilla en el recorrido.
          */
-        private int siguienteCasilla(int actual) {
+        static int siguienteCasilla(int actual) {
             // Si esta en pasillos, avanzar dentro del pasillo
             if (actual >= 69) {
                 return actual + 1;
@@ -348,39 +401,48 @@
 
         /**
          * Verifica si una casilla tiene una barrera (2+ fichas del mismo jugador).
+         * ✅ ACTUALIZADO: Lectura de OcupacionTablero, sin agrupar fichas.
          */
         public boolean esBarrera(int indiceCasilla) {
-            Casilla casilla = getCasilla(indiceCasilla);
-            if (casilla == null) return false;
-
-            List<Ficha> fichas = casilla.getFichas();
-            if (fichas == null || fichas.size() < 2) return false;
-
-            // Agrupar fichas por jugador
-            Map<Integer, Long> fichasPorJugador = fichas.stream()
-                .collect(Collectors.groupingBy(Ficha::getIdJugador, Collectors.counting()));
-
-            // Hay barrera si algun jugador tiene 2+ fichas
-            return fichasPorJugador.values().stream().anyMatch(count -> count >= 2);
+            return existeCasilla(indiceCasilla) && ocupacion.esBarrera(indiceCasilla);
         }
 
         /**
          * Verifica si hay una barrera rival en una casilla.
+         * ✅ ACTUALIZADO: Lectura de OcupacionTablero, sin agrupar fichas.
          */
         public boolean esBarreraRival(int indiceCasilla, int jugadorId) {
-            Casilla casilla = getCasilla(indiceCasilla);
-            if (casilla == null) return false;
+            return existeCasilla(indiceCasilla) && ocupacion.esBarreraRival(indiceCasilla, jugadorId);
+        }
 
-            List<Ficha> fichas = casilla.getFichas();
-            if (fichas == null || fichas.size() < 2) return false;
+        /**
+         * ✅ NUEVO: Verifica si el jugador tiene 2+ fichas en alguna casilla,
+         * leyendo la posicion de cada una de sus fichas en OcupacionTablero.
+         */
+        public boolean tieneBloqueoPropio(int jugadorId) {
+            int asiento = ocupacion.asientoDeJugador(jugadorId);
+            if (asiento == OcupacionTablero.SIN_ASIENTO) return false;
+
+            for (int fichaId = 1; fichaId <= OcupacionTablero.FICHAS_POR_ASIENTO; fichaId++) {
+                int casilla = ocupacion.casillaDe(asiento, fichaId);
+                if (casilla != 0 && ocupacion.fichasDeAsiento(casilla, asiento) >= 2) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
-            // Contar fichas por jugador (excluyendo al jugador actual)
-            Map<Integer, Long> fichasPorJugador = fichas.stream()
-                .filter(f -> f.getIdJugador() != jugadorId)
-                .collect(Collectors.groupingBy(Ficha::getIdJugador, Collectors.counting()));
+        /**
+         * ✅ NUEVO: Contador de cambios de la ocupacion (cualquier ficha que
+         * entra o sale de una casilla, se mueva o no por el MotorJuego). Con
+         * el mismo valor, lo calculado sobre el tablero sigue valiendo.
+         */
+        public long getCambiosOcupacion() {
+            return ocupacion.getCambios();
+        }
 
-            // Hay barrera rival si otro jugador tiene 2+ fichas
-            return fichasPorJugador.values().stream().anyMatch(count -> count >= 2);
+        private boolean existeCasilla(int indice) {
+            return indice >= 1 && indice <= casillas.size();
         }
 
         /**
@@ -393,28 +455,22 @@
             Jugador jugador = jugadorPorId.get(jugadorId);
             if (jugador == null) return false;
 
-            // Buscar casillas con 2+ fichas propias (bloqueo)
-            Map<Integer, List<Ficha>> fichasPorCasilla = new HashMap<>();
-
+            // ✅ ACTUALIZADO: El bloqueo (2+ fichas propias en la casilla) se
+            // lee de los contadores, sin agrupar las fichas en un mapa
             for (Ficha ficha : jugador.getFichas()) {
-                if (ficha.getEstado() == EstadoFicha.EN_TABLERO && ficha.getCasillaActual() != null) {
-                    int idx = ficha.getCasillaActual().getIndice();
-                    fichasPorCasilla.computeIfAbsent(idx, k -> new ArrayList<>()).add(ficha);
+                if (ficha.getEstado() != EstadoFicha.EN_TABLERO || ficha.getCasillaActual() == null) {
+                    continue;
                 }
-            }
 
-            // Encontrar primer bloqueo (casilla con 2+ fichas)
-            for (Map.Entry<Integer, List<Ficha>> entry : fichasPorCasilla.entrySet()) {
-                if (entry.getValue().size() >= 2) {
+                Casilla actual = ficha.getCasillaActual();
+                if (actual.contarFichasDeJugador(jugadorId) >= 2) {
                     // Intentar mover una ficha del bloqueo
-                    Ficha fichaAMover = entry.getValue().get(0);
-                    int casillaActual = entry.getKey();
-                    int siguienteCasilla = siguienteCasilla(casillaActual);
+                    int siguienteCasilla = siguienteCasilla(actual.getIndice());
 
                     Casilla destino = getCasilla(siguienteCasilla);
                     if (destino != null && !esBarrera(siguienteCasilla)) {
                         // Mover la ficha
-                        fichaAMover.moverA(destino);
+                        ficha.moverA(destino);
                         return true;
                     }
                 }
@@ -429,6 +485,9 @@
         public void registrarJugador(Jugador jugador) {
             if (jugador != null) {
                 jugadorPorId.put(jugador.getId(), jugador);
+                if (jugador.getColor() != null) {
+                    ocupacion.registrarAsiento(jugador.getColor().ordinal(), jugador.getId());
+                }
             }
         }
 
@@ -491,15 +550,7 @@
            Casilla salida = getCasillaSalidaParaJugador(jugadorId);
            if (salida == null) return false;
 
-           List<Ficha> fichas = salida.getFichas();
-           if (fichas == null || fichas.size() < 2) return false;
-
-           // Contar fichas propias
-           long fichasPropias = fichas.stream()
-               .filter(f -> f.getIdJugador() == jugadorId)
-               .count();
-
-           return fichasPropias >= 2;
+           return salida.contarFichasDeJugador(jugadorId) >= 2;
        }
 
        /**
@@ -507,12 +558,11 @@
         */
        public List<Ficha> obtenerFichasRivalesEnSalida(int jugadorId) {
            Casilla salida = getCasillaSalidaParaJugador(jugadorId);
-           if (salida == null) return new ArrayList<>();
-
-           List<Ficha> fichas = salida.getFichas();
-           if (fichas == null) return new ArrayList<>();
+           if (salida == null || ocupacion.fichasRivales(salida.getIndice(), jugadorId) == 0) {
+               return new ArrayList<>();
+           }
 
-           return fichas.stream()
+           return salida.getFichas().stream()
                .filter(f -> f.getIdJugador() != jugadorId)
                .collect(Collectors.toList());
        }
@@ -524,49 +574,99 @@
            Casilla salida = getCasillaSalidaParaJugador(jugadorId);
            if (salida == null) return 0;
 
-           List<Ficha> fichas = salida.getFichas();
-           if (fichas == null) return 0;
-
-           return (int) fichas.stream()
-               .filter(f -> f.getIdJugador() == jugadorId)
-               .count();
+           return salida.contarFichasDeJugador(jugadorId);
        }
 
         /**
          * Limpia el tablero.
+         * ✅ ACTUALIZADO: Vuelve a publicar todas las casillas (vacias): las
+         * fichas de casa no generan cambios en confirmarCambios().
          */
-        public void limpiar() {
+        public synchronized void limpiar() {
             for (Casilla casilla : casillas) {
                 casilla.limpiarFichas();
             }
+            publicada = InstantaneaTablero.de(version, casillas);
         }
 
-        public JsonObject generarEstadoJSON() {
-            JsonObject json = new JsonObject();
-            JsonArray casillasArr = new JsonArray();
-
-            for (Casilla c : casillas) {
-                JsonObject cObj = new JsonObject();
-                cObj.addProperty("indice", c.getIndice());
-                cObj.addProperty("tipo", c.getTipo().name());
-                cObj.addProperty("color", c.getColor().name());
-                cObj.addProperty("bloqueada", c.isBloqueada());
-
-                JsonArray fichasArr = new JsonArray();
-                for (Ficha f : c.getFichas()) {
-                    JsonObject fObj = new JsonObject();
-                    fObj.addProperty("id", f.getId());  
-                    fObj.addProperty("jugadorId", f.getIdJugador());
-                    fObj.addProperty("color", f.getColor().name());
-                    fObj.addProperty("estado", f.getEstado().name());
-                    fichasArr.add(fObj);
+        /**
+         * ✅ NUEVO: Version publicada del tablero (0 = estado inicial).
+         * ✅ ACTUALIZADO: Se lee de la instantanea, sin monitor.
+         */
+        public long getVersion() {
+            return publicada.version;
+        }
+
+        /**
+         * ✅ NUEVO: Ultima version publicada, inmutable. Se puede leer desde
+         * cualquier hilo sin lock mientras el motor mueve fichas.
+         */
+        public InstantaneaTablero getInstantanea() {
+            return publicada;
+        }
+
+        /**
+         * ✅ NUEVO: Compara la posicion de cada ficha con la ultima publicada
+         * y, si alguna cambio, sube la version y devuelve esos cambios.
+         *
+         * Una captura aparece como dos cambios (la ficha que llega y la que
+         * vuelve a casa). Aplicar un delta es idempotente: quita la ficha de
+         * donde este y la pone en "hasta", asi que un cliente cuya instantanea
+         * ya incluia el cambio no se desincroniza.
+         *
+         * ✅ ACTUALIZADO: Publica la nueva version como InstantaneaTablero
+         * (copiando solo las casillas del delta).
+         *
+         * @return el delta, o null si nada cambio desde la ultima version
+         */
+        public synchronized DeltaTablero confirmarCambios() {
+            List<DeltaTablero.Cambio> cambios = new ArrayList<>();
+
+            for (Jugador jugador : jugadorPorId.values()) {
+                for (Ficha ficha : jugador.getFichas()) {
+                    int actual = codificarPosicion(ficha);
+                    Integer publicada = posicionesPublicadas.put(ficha, actual);
+                    int anterior = publicada != null ? publicada : POSICION_INICIAL;
+                    if (actual != anterior) {
+                        cambios.add(new DeltaTablero.Cambio(
+                            ficha.getId(),
+                            ficha.getIdJugador(),
+                            ficha.getColor(),
+                            (anterior >> 2) - 1,
+                            (actual >> 2) - 1,
+                            ficha.getEstado()
+                        ));
+                    }
                 }
-                cObj.add("fichas", fichasArr);
-                casillasArr.add(cObj);
             }
 
-            json.add("casillas", casillasArr);
-            return json;
+            if (cambios.isEmpty()) {
+                return null;
+            }
+            long anterior = version;
+            version++;
+            publicada = publicada.conCambios(version, cambios, casillas);
+            return new DeltaTablero(anterior, version, cambios);
+        }
+
+        /**
+         * Casilla (indice, -1 en casa) y estado de la ficha en un int:
+         * (indice + 1) * 4 + estado.
+         */
+        private static int codificarPosicion(Ficha ficha) {
+            Casilla casilla = ficha.getCasillaActual();
+            int indice = casilla != null ? casilla.getIndice() : -1;
+            return ((indice + 1) << 2) | ficha.getEstado().ordinal();
+        }
+
+        /**
+         * ✅ ACTUALIZADO: Incluye la version, para que el cliente sepa desde
+         * donde aplicar los siguientes deltas.
+         * ✅ ACTUALIZADO: Se genera de la instantanea publicada (la ultima
+         * version confirmada), sin monitor ni recorrer las casillas vivas.
+         */
+        public JsonObject generarEstadoJSON() {
+            return publicada.toJson();
         }
 
         @Override
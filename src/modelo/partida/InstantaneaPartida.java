@@ -0,0 +1,141 @@
+package modelo.partida;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import modelo.Ficha.EstadoFicha;
+import modelo.Jugador.ColorJugador;
+import modelo.Tablero.InstantaneaTablero;
+
+/**
+ * ✅ NUEVO: Copia inmutable del estado completo de una partida.
+ *
+ * Se captura bajo el lock de la Partida y despues se puede serializar sin
+ * ningun lock: jugadores, fichas, contadores de bonus y de dobles, turno
+ * actual y el tablero (con su version).
+ *
+ * ✅ ACTUALIZADO: La Partida publica una nueva con cada cambio confirmado
+ * (ver Partida.getInstantanea()) y los lectores la toman sin lock. El
+ * tablero es la InstantaneaTablero que publico el Tablero, con su propia
+ * version.
+ */
+public class InstantaneaPartida {
+
+    public final int partidaId;
+    public final String nombre;
+    public final EstadoPartida estado;
+    public final int turnoActual;
+    public final int jugadorActualId;       // -1 si no hay jugadores
+    public final int maxJugadores;
+    public final long version;              // Partida.getVersionEstado()
+    public final List<JugadorEstado> jugadores;
+    public final InstantaneaTablero tablero; // null si la partida no tiene tablero
+
+    public InstantaneaPartida(int partidaId, String nombre, EstadoPartida estado, int turnoActual,
+                              int jugadorActualId, int maxJugadores, long version,
+                              List<JugadorEstado> jugadores, InstantaneaTablero tablero) {
+        this.partidaId = partidaId;
+        this.nombre = nombre;
+        this.estado = estado;
+        this.turnoActual = turnoActual;
+        this.jugadorActualId = jugadorActualId;
+        this.maxJugadores = maxJugadores;
+        this.version = version;
+        this.jugadores = Collections.unmodifiableList(jugadores);
+        this.tablero = tablero;
+    }
+
+    /**
+     * ✅ NUEVO: La misma instantanea con otra version del tablero (el tablero
+     * publica al confirmar, despues que la partida).
+     */
+    InstantaneaPartida conTablero(InstantaneaTablero otro) {
+        return new InstantaneaPartida(partidaId, nombre, estado, turnoActual, jugadorActualId,
+            maxJugadores, version, jugadores, otro);
+    }
+
+    /**
+     * ✅ NUEVO: Jugador por id, null si no esta.
+     */
+    public JugadorEstado getJugador(int jugadorId) {
+        for (JugadorEstado j : jugadores) {
+            if (j.id == jugadorId) {
+                return j;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Contadores del motor tal como se publicaron, para volver a publicar
+     * un cambio de la partida que no pasa por el motor.
+     */
+    Map<Integer, Integer> bonusPorJugador() {
+        Map<Integer, Integer> bonus = new HashMap<>();
+        for (JugadorEstado j : jugadores) {
+            bonus.put(j.id, j.bonus);
+        }
+        return bonus;
+    }
+
+    Map<Integer, Integer> doblesPorJugador() {
+        Map<Integer, Integer> dobles = new HashMap<>();
+        for (JugadorEstado j : jugadores) {
+            dobles.put(j.id, j.contadorDobles);
+        }
+        return dobles;
+    }
+
+    /**
+     * Un jugador con sus fichas y sus contadores del motor.
+     */
+    public static class JugadorEstado {
+        public final int id;
+        public final String nombre;
+        public final ColorJugador color;     // null si aun no tiene color
+        public final int puntos;
+        public final boolean listo;
+        public final boolean conectado;
+        public final int fichasEnMeta;
+        public final int bonus;
+        public final int contadorDobles;
+        public final List<FichaEstado> fichas;
+
+        public JugadorEstado(int id, String nombre, ColorJugador color, int puntos, boolean listo,
+                             boolean conectado, int fichasEnMeta, int bonus, int contadorDobles,
+                             List<FichaEstado> fichas) {
+            this.id = id;
+            this.nombre = nombre;
+            this.color = color;
+            this.puntos = puntos;
+            this.listo = listo;
+            this.conectado = conectado;
+            this.fichasEnMeta = fichasEnMeta;
+            this.bonus = bonus;
+            this.contadorDobles = contadorDobles;
+            this.fichas = Collections.unmodifiableList(fichas);
+        }
+    }
+
+    /**
+     * Una ficha en la casilla "casilla" (-1 = casa).
+     */
+    public static class FichaEstado {
+        public final int id;
+        public final EstadoFicha estado;
+        public final int casilla;
+
+        public FichaEstado(int id, EstadoFicha estado, int casilla) {
+            this.id = id;
+            this.estado = estado;
+            this.casilla = casilla;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("InstantaneaPartida[id=%d, v%d, %s, turno=%d, %d jugadores]",
+            partidaId, version, estado, turnoActual, jugadores.size());
+    }
+}
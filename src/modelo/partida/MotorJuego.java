@@ -1,5 +1,6 @@
 package modelo.partida;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import modelo.Jugador.Jugador;
 import modelo.Ficha.Ficha;
@@ -10,7 +11,8 @@ import java.util.Map;
 import java.util.HashMap;
 import java.util.Objects;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * MotorJuego - Motor de reglas del Parchis.
@@ -21,11 +23,38 @@ import java.util.stream.Collectors;
  */
 public class MotorJuego {
 
+    // ✅ Casillas de INICIO por color (antes se creaba la lista en cada movimiento)
+    private static final List<Integer> CASILLAS_INICIO = Arrays.asList(1, 18, 35, 52);
+
+    // ✅ NUEVO: Casillas de bonus por cada captura
+    public static final int BONUS_CAPTURA = 20;
+
+    private static final int SIN_TIRADA = Integer.MIN_VALUE;
+
+    private static final int CARAS_DADO = 6;
+
     private final Partida partida;
     private final Dado dado1;
     private final Dado dado2;
     private final Map<Integer, Integer> contadorDobles = new HashMap<>();
     private final Map<Integer, Integer> bonusMoves = new HashMap<>();
+    
+    // ✅ NUEVO: Dados que le quedan al jugador de su ultima tirada (0 = ya
+    // usado). Solo valen en el turno en que se tiraron (ver tiradaVigente)
+    private int dadosJugadorId = SIN_TIRADA;
+    private long dadosTurno;
+    private int dadoPendiente1;
+    private int dadoPendiente2;
+    
+    // ✅ NUEVO: Ultimas jugadas legales generadas (ver obtenerMovimientosLegales)
+    private MovimientosLegales movimientosCache;
+    
+    // ✅ ReentrantLock en vez de synchronized: no fija el hilo portador
+    // cuando el servidor corre con hilos virtuales
+    // ✅ ACTUALIZADO: En el servidor las jugadas llegan desde el bucle de su
+    // partida, de una en una, asi que ya no hay espera; el lock sigue para
+    // las llamadas que no pasan por ese buzon
+    private final ReentrantLock lock = new ReentrantLock();
 
 
     public MotorJuego(Partida partida) {
@@ -67,15 +96,30 @@ public class MotorJuego {
     }
 
 
-    public synchronized ResultadoDados tirarDados(int jugadorId) {
+    public ResultadoDados tirarDados(int jugadorId) {
+        lock.lock();
+        try {
+            return tirarDadosEnJugada(jugadorId);
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    private ResultadoDados tirarDadosEnJugada(int jugadorId) {
         validarTurno(jugadorId);
         
         int v1 = dado1.tirar();
         int v2 = dado2.tirar();
         boolean esDoble = (v1 == v2);
         
+        dadosJugadorId = jugadorId;
+        dadosTurno = partida.getNumeroTurno();
+        dadoPendiente1 = v1;
+        dadoPendiente2 = v2;
+    
         if (!esDoble) {
             contadorDobles.put(jugadorId, 0);
+            partida.marcarCambio();
             return new ResultadoDados(v1, v2, false, false);
         }
         
@@ -94,6 +138,7 @@ public class MotorJuego {
             contadorDobles.put(jugadorId, 0);
             fichaPerdida = true;
         }
+        partida.marcarCambio();
         
         return new ResultadoDados(v1, v2, esDoble, bloqueoRoto, fichaPerdida, cont);
     }
@@ -107,7 +152,16 @@ public class MotorJuego {
      * @param valorDado Valor de UN solo dado (no la suma)
      * @return Resultado del movimiento
      */
-    public synchronized ResultadoMovimiento moverFichaConUnDado(int jugadorId, int fichaId, int valorDado) {
+    public ResultadoMovimiento moverFichaConUnDado(int jugadorId, int fichaId, int valorDado) {
+        lock.lock();
+        try {
+            return moverFichaConUnDadoEnJugada(jugadorId, fichaId, valorDado);
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    private ResultadoMovimiento moverFichaConUnDadoEnJugada(int jugadorId, int fichaId, int valorDado) {
         validarTurno(jugadorId);
         
         if (valorDado <= 0) {
@@ -130,7 +184,33 @@ public class MotorJuego {
         Tablero tablero = partida.getTablero();
         ResultadoMovimiento resultado = new ResultadoMovimiento();
         
-        return moverFichaEnTablero(ficha, jugadorId, valorDado, tablero, resultado);
+        // El cliente tambien usa este mensaje para mover las casillas del
+        // bonus (valorDado > 6): se valida y se descuenta como en usar_bonus
+        if (valorDado > CARAS_DADO) {
+            int disponible = bonusMoves.getOrDefault(jugadorId, 0);
+            if (valorDado > disponible) {
+                throw new MovimientoInvalidoException(
+                    "No tienes suficientes bonus. Disponible: " + disponible + ", solicitado: " + valorDado
+                );
+            }
+            if (!permiteBonus(movimientosLegales(jugadorId), ficha, jugadorId, valorDado, tablero)) {
+                throw new MovimientoInvalidoException(motivoMovimiento(ficha, jugadorId, valorDado, tablero));
+            }
+            
+            moverFichaEnTablero(ficha, jugadorId, valorDado, tablero, resultado);
+            consumirBonus(jugadorId, valorDado, resultado);
+            return resultado;
+        }
+        
+        // ✅ NUEVO: Validacion con las jugadas legales
+        MovimientosLegales legales = movimientosLegales(jugadorId);
+        if (!legales.permiteDado(fichaId, valorDado)) {
+            throw new MovimientoInvalidoException(motivoRechazo(legales, ficha, jugadorId, valorDado, tablero));
+        }
+        
+        moverFichaEnTablero(ficha, jugadorId, valorDado, tablero, resultado);
+        consumirDado(valorDado);
+        return resultado;
     }
 
     /**
@@ -146,7 +226,16 @@ public class MotorJuego {
      * @param dado2 Valor del segundo dado
      * @return Resultado que indica qué dados se usaron
      */
-    public synchronized ResultadoSacar sacarFichaDeCasa(int jugadorId, int fichaId, int dado1, int dado2) {
+    public ResultadoSacar sacarFichaDeCasa(int jugadorId, int fichaId, int dado1, int dado2) {
+        lock.lock();
+        try {
+            return sacarFichaDeCasaEnJugada(jugadorId, fichaId, dado1, dado2);
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    private ResultadoSacar sacarFichaDeCasaEnJugada(int jugadorId, int fichaId, int dado1, int dado2) {
         validarTurno(jugadorId);
         
         Ficha ficha = partida.getFicha(jugadorId, fichaId);
@@ -158,33 +247,22 @@ public class MotorJuego {
             throw new MovimientoInvalidoException("La ficha no está en casa");
         }
         
-        // ✅ VERIFICAR REGLA DEL 5
+        // ✅ VERIFICAR REGLA DEL 5 Y BLOQUEOS DE LA SALIDA
+        Tablero tablero = partida.getTablero();
+        String motivo = motivoNoSacar(jugadorId, dado1, dado2, tablero);
+        if (motivo != null) {
+            throw new MovimientoInvalidoException(motivo);
+        }
         boolean dado1Es5 = (dado1 == 5);
         boolean dado2Es5 = (dado2 == 5);
         boolean sumaEs5 = (dado1 + dado2 == 5);
-        
-        if (!dado1Es5 && !dado2Es5 && !sumaEs5) {
-            throw new MovimientoInvalidoException(
-                "No puedes sacar ficha. Necesitas un 5 en cualquier dado o que la suma sea 5."
-            );
-        }
-        
-        Tablero tablero = partida.getTablero();
         Casilla salida = tablero.getCasillaSalidaParaJugador(jugadorId);
         
-        // Verificar bloqueos
-        if (salidaBloqueadaPorRival(salida, jugadorId)) {
-            throw new MovimientoInvalidoException("La casilla de salida está bloqueada por un rival");
-        }
-        
-        int fichasEnSalida = contarFichasPropiasEnCasilla(salida, jugadorId);
-        if (fichasEnSalida >= 2) {
-            throw new MovimientoInvalidoException("Ya tienes 2 fichas en la salida");
-        }
-        
         // ✅ SACAR LA FICHA
         ficha.moverA(salida);
         ficha.setEstado(EstadoFicha.EN_TABLERO);
+        consumirDadosDeSalida(jugadorId, dado1, dado2);
+        partida.marcarCambio();
         
         ResultadoSacar resultado = new ResultadoSacar();
         resultado.fichaId = fichaId;
@@ -232,7 +310,16 @@ public class MotorJuego {
      * ✅ MANTENER: Método original para compatibilidad
      * Este se usa cuando el servidor maneja automáticamente el sacar con 5
      */
-    public synchronized ResultadoMovimiento moverFicha(int jugadorId, int fichaId, int dado1, int dado2) {
+    public ResultadoMovimiento moverFicha(int jugadorId, int fichaId, int dado1, int dado2) {
+        lock.lock();
+        try {
+            return moverFichaEnJugada(jugadorId, fichaId, dado1, dado2);
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    private ResultadoMovimiento moverFichaEnJugada(int jugadorId, int fichaId, int dado1, int dado2) {
         validarTurno(jugadorId);
         
         if (dado1 <= 0 || dado2 <= 0) {
@@ -247,14 +334,32 @@ public class MotorJuego {
         Tablero tablero = partida.getTablero();
         ResultadoMovimiento resultado = new ResultadoMovimiento();
 
+        // ✅ NUEVO: Los dados tienen que ser los dos que quedan de la tirada
+        MovimientosLegales legales = movimientosLegales(jugadorId);
+        if (!legales.sonLosDados(dado1, dado2)) {
+            throw new MovimientoInvalidoException(motivoSinDados(legales, jugadorId,
+                "No tienes los dados " + dado1 + " y " + dado2 + " sin usar"));
+        }
+
         // CASO 1: Ficha en casa -> sacar con regla del 5
         if (ficha.estaEnCasa()) {
-            return sacarYMoverConAmbos(ficha, jugadorId, dado1, dado2, resultado, tablero);
+            if (!legales.permiteSacar(fichaId)) {
+                throw new MovimientoInvalidoException(motivoRechazoSacar(jugadorId, dado1, dado2, tablero));
+            }
+            sacarYMoverConAmbos(ficha, jugadorId, dado1, dado2, resultado, tablero);
+            consumirDadosDeSalida(jugadorId, dado1, dado2);
+            return resultado;
         }
 
         // CASO 2: Ficha en tablero -> usar la suma
         int pasos = dado1 + dado2;
-        return moverFichaEnTablero(ficha, jugadorId, pasos, tablero, resultado);
+        if (!legales.permiteSuma(fichaId, dado1, dado2)) {
+            throw new MovimientoInvalidoException(motivoMovimiento(ficha, jugadorId, pasos, tablero));
+        }
+        moverFichaEnTablero(ficha, jugadorId, pasos, tablero, resultado);
+        dadoPendiente1 = 0;
+        dadoPendiente2 = 0;
+        return resultado;
     }
     
     /**
@@ -262,29 +367,15 @@ public class MotorJuego {
      */
     private ResultadoMovimiento sacarYMoverConAmbos(Ficha ficha, int jugadorId, int dado1, int dado2,
                                                      ResultadoMovimiento resultado, Tablero tablero) {
-        boolean dado1Es5 = (dado1 == 5);
-        boolean dado2Es5 = (dado2 == 5);
-        boolean sumaEs5 = (dado1 + dado2 == 5);
-        
-        if (!dado1Es5 && !dado2Es5 && !sumaEs5) {
-            throw new MovimientoInvalidoException(
-                "No puedes sacar ficha. Necesitas un 5 en cualquier dado o que la suma sea 5."
-            );
+        String motivo = motivoNoSacar(jugadorId, dado1, dado2, tablero);
+        if (motivo != null) {
+            throw new MovimientoInvalidoException(motivo);
         }
 
         Casilla salida = tablero.getCasillaSalidaParaJugador(jugadorId);
-        
-        if (salidaBloqueadaPorRival(salida, jugadorId)) {
-            throw new MovimientoInvalidoException("La casilla de salida está bloqueada por un rival");
-        }
-        
-        int fichasEnSalida = contarFichasPropiasEnCasilla(salida, jugadorId);
-        if (fichasEnSalida >= 2) {
-            throw new MovimientoInvalidoException("Ya tienes 2 fichas en la salida");
-        }
-        
         ficha.moverA(salida);
         ficha.setEstado(EstadoFicha.EN_TABLERO);
+        partida.marcarCambio();
         resultado.movimientoExitoso = true;
         resultado.casillaSalida = -1;
         resultado.casillaLlegada = salida.getIndice();
@@ -328,6 +419,7 @@ public class MotorJuego {
         resultado.casillaLlegada = indiceDestino;
         
         ficha.moverA(destino);
+        partida.marcarCambio();
         resultado.movimientoExitoso = true;
         
         if (!destino.isSegura()) {
@@ -344,7 +436,16 @@ public class MotorJuego {
         return resultado;
     }
 
-    public synchronized ResultadoMovimiento usarBonus(int jugadorId, int fichaId, int pasos) {
+    public ResultadoMovimiento usarBonus(int jugadorId, int fichaId, int pasos) {
+        lock.lock();
+        try {
+            return usarBonusEnJugada(jugadorId, fichaId, pasos);
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    private ResultadoMovimiento usarBonusEnJugada(int jugadorId, int fichaId, int pasos) {
         int disponible = bonusMoves.getOrDefault(jugadorId, 0);
         
         if (disponible <= 0) {
@@ -357,11 +458,22 @@ public class MotorJuego {
             );
         }
         
-        bonusMoves.put(jugadorId, disponible - pasos);
+        if (pasos <= 0) {
+            throw new MovimientoInvalidoException("Los pasos de bonus deben ser positivos");
+        }
+        
+        // ✅ NUEVO: Validacion con las jugadas legales; el bonus se descuenta
+        // despues de mover (antes se perdia si el movimiento fallaba)
+        Ficha ficha = partida.getFicha(jugadorId, fichaId);
+        if (ficha != null && !ficha.estaEnCasa()) {
+            Tablero tablero = partida.getTablero();
+            if (!permiteBonus(movimientosLegales(jugadorId), ficha, jugadorId, pasos, tablero)) {
+                throw new MovimientoInvalidoException(motivoMovimiento(ficha, jugadorId, pasos, tablero));
+            }
+        }
         
         ResultadoMovimiento resultado = moverFichaSinValidarTurno(jugadorId, fichaId, pasos);
-        resultado.bonusConsumido = pasos;
-        resultado.bonusRestante = bonusMoves.get(jugadorId);
+        consumirBonus(jugadorId, pasos, resultado);
         
         return resultado;
     }
@@ -372,13 +484,13 @@ public class MotorJuego {
         enviarFichaACasa(fichaCapturada);
         
         int bonusActual = bonusMoves.getOrDefault(jugadorCapturador, 0);
-        bonusMoves.put(jugadorCapturador, bonusActual + 20);
+        bonusMoves.put(jugadorCapturador, bonusActual + BONUS_CAPTURA);
         
         resultado.capturaRealizada = true;
         resultado.fichaCapturadaId = fichaCapturada.getId();
         resultado.jugadorCapturadoId = jugadorCapturado;
-        resultado.bonusGanado = 20;
-        resultado.bonusTotal = bonusActual + 20;
+        resultado.bonusGanado = BONUS_CAPTURA;
+        resultado.bonusTotal = bonusActual + BONUS_CAPTURA;
     }
     
     /**
@@ -390,13 +502,13 @@ public class MotorJuego {
         enviarFichaACasa(fichaCapturada);
         
         int bonusActual = bonusMoves.getOrDefault(jugadorCapturador, 0);
-        bonusMoves.put(jugadorCapturador, bonusActual + 20);
+        bonusMoves.put(jugadorCapturador, bonusActual + BONUS_CAPTURA);
         
         resultado.capturaRealizada = true;
         resultado.fichaCapturadaId = fichaCapturada.getId();
         resultado.jugadorCapturadoId = jugadorCapturado;
-        resultado.bonusGanado = 20;
-        resultado.bonusTotal = bonusActual + 20;
+        resultado.bonusGanado = BONUS_CAPTURA;
+        resultado.bonusTotal = bonusActual + BONUS_CAPTURA;
     }
 
     private void procesarLlegadaMeta(int jugadorId, Ficha ficha, ResultadoMovimiento resultado) {
@@ -414,22 +526,10 @@ public class MotorJuego {
     }
 
   
+    // ✅ ACTUALIZADO: Lectura de la ocupacion del tablero, sin agrupar fichas
     private boolean tieneBloqueoPropio(int jugadorId) {
         Tablero tablero = partida.getTablero();
-        Jugador jugador = partida.getJugadorPorId(jugadorId);
-        
-        if (jugador == null) return false;
-        
-        Map<Integer, List<Ficha>> fichasPorCasilla = new HashMap<>();
-        
-        for (Ficha ficha : jugador.getFichas()) {
-            if (!ficha.estaEnCasa() && ficha.getCasillaActual() != null) {
-                int idx = ficha.getCasillaActual().getIndice();
-                fichasPorCasilla.computeIfAbsent(idx, k -> new java.util.ArrayList<>()).add(ficha);
-            }
-        }
-        
-        return fichasPorCasilla.values().stream().anyMatch(lista -> lista.size() >= 2);
+        return tablero != null && tablero.tieneBloqueoPropio(jugadorId);
     }
 
     private boolean romperBloqueoPropioSiExiste(int jugadorId) {
@@ -448,12 +548,9 @@ public class MotorJuego {
      * - Solo se verifica barreras EN EL CAMINO (excluyendo origen y destino)
      */
     private boolean hayBarreraEnRuta(int origenIdx, int destinoIdx, int jugadorId, Tablero tablero) {
-        // ✅ Casillas de INICIO por color
-        List<Integer> casillasInicio = Arrays.asList(1, 18, 35, 52);
-        
         // Si AMBAS casillas son de INICIO pero DIFERENTES colores
         // NO puede haber barrera entre ellas (son independientes)
-        if (casillasInicio.contains(origenIdx) && casillasInicio.contains(destinoIdx)) {
+        if (CASILLAS_INICIO.contains(origenIdx) && CASILLAS_INICIO.contains(destinoIdx)) {
             if (origenIdx != destinoIdx) {
                 // Diferentes casillas de inicio = independientes = sin barrera
                 return false;
@@ -465,14 +562,218 @@ public class MotorJuego {
         return tablero.rutaContieneBarreraExcluyendoOrigen(origenIdx, destinoIdx);
     }
 
+    // ==================== ✅ NUEVO: JUGADAS LEGALES ====================
+
+    /**
+     * Los dados de la ultima tirada son del jugador y de este turno.
+     */
+    private boolean tiradaVigente(int jugadorId) {
+        return dadosJugadorId == jugadorId
+            && dadosTurno == partida.getNumeroTurno()
+            && partida.esTurnoDeJugador(jugadorId);
+    }
+
+    /**
+     * Jugadas legales del jugador, reutilizando las ultimas si no cambiaron
+     * el tablero, sus dados ni su bonus. Con el lock del motor tomado.
+     */
+    private MovimientosLegales movimientosLegales(int jugadorId) {
+        Tablero tablero = partida.getTablero();
+        boolean conDados = tiradaVigente(jugadorId);
+        int d1 = conDados ? dadoPendiente1 : 0;
+        int d2 = conDados ? dadoPendiente2 : 0;
+        int bonus = bonusMoves.getOrDefault(jugadorId, 0);
+        long cambios = tablero != null ? tablero.getCambiosOcupacion() : -1;
+
+        MovimientosLegales cache = movimientosCache;
+        if (cache != null && cache.jugadorId == jugadorId && cache.dado1 == d1 && cache.dado2 == d2
+                && cache.bonus == bonus && cache.cambiosTablero == cambios) {
+            return cache;
+        }
+
+        MovimientosLegales legales = new MovimientosLegales(jugadorId, d1, d2, bonus, cambios);
+        Jugador jugador = partida.getJugadorPorId(jugadorId);
+        if (jugador != null && tablero != null) {
+            generarMovimientos(legales, jugador, tablero);
+        }
+        movimientosCache = legales;
+        return legales;
+    }
+
+    /**
+     * Recorre las fichas del jugador con cada dado que queda, la suma y cada
+     * cantidad de bonus. Cada comprobacion son lecturas O(1) del tablero
+     * (RutasTablero y OcupacionTablero), sin mover nada.
+     */
+    private void generarMovimientos(MovimientosLegales legales, Jugador jugador, Tablero tablero) {
+        int jugadorId = jugador.getId();
+        int d1 = legales.dado1;
+        int d2 = legales.dado2;
+        boolean puedeSacar = legales.hayDados() && motivoNoSacar(jugadorId, d1, d2, tablero) == null;
+        int maxBonus = Math.min(legales.bonus, MovimientosLegales.MAX_PASOS);
+
+        for (Ficha ficha : jugador.getFichas()) {
+            int fichaId = ficha.getId();
+            if (ficha.estaEnCasa()) {
+                if (puedeSacar) {
+                    legales.permitir(MovimientosLegales.Tipo.SACAR, fichaId, 5);
+                }
+                continue;
+            }
+            if (ficha.estaEnMeta() || ficha.getCasillaActual() == null) {
+                continue;
+            }
+
+            if (d1 > 0 && motivoIlegal(ficha, jugadorId, d1, tablero) == null) {
+                legales.permitir(MovimientosLegales.Tipo.DADO, fichaId, d1);
+            }
+            if (d2 > 0 && d2 != d1 && motivoIlegal(ficha, jugadorId, d2, tablero) == null) {
+                legales.permitir(MovimientosLegales.Tipo.DADO, fichaId, d2);
+            }
+            if (d1 > 0 && d2 > 0 && motivoIlegal(ficha, jugadorId, d1 + d2, tablero) == null) {
+                legales.permitir(MovimientosLegales.Tipo.SUMA, fichaId, d1 + d2);
+            }
+            for (int pasos = 1; pasos <= maxBonus; pasos++) {
+                if (motivoIlegal(ficha, jugadorId, pasos, tablero) == null) {
+                    legales.permitir(MovimientosLegales.Tipo.BONUS, fichaId, pasos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Las comprobaciones de moverFichaEnTablero sin mover la ficha.
+     *
+     * @return por que la ficha no puede avanzar esos pasos, o null si puede
+     */
+    private String motivoIlegal(Ficha ficha, int jugadorId, int pasos, Tablero tablero) {
+        Casilla origen = ficha.getCasillaActual();
+        if (origen == null) {
+            return "Ficha sin casilla valida";
+        }
+
+        int indiceOrigen = origen.getIndice();
+        int indiceDestino;
+        try {
+            indiceDestino = tablero.calcularDestino(indiceOrigen, pasos, jugadorId);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (hayBarreraEnRuta(indiceOrigen, indiceDestino, jugadorId, tablero)) {
+            return "Hay una barrera bloqueando el camino";
+        }
+        if (tablero.getCasilla(indiceDestino) == null) {
+            return "Movimiento invalido: la casilla destino (" + indiceDestino + ") no existe. "
+                + "Origen: " + indiceOrigen + ", Pasos: " + pasos;
+        }
+        return null;
+    }
+
+    /**
+     * Regla del 5 y bloqueos de la salida.
+     *
+     * @return por que no puede sacar ficha con esos dados, o null si puede
+     */
+    private String motivoNoSacar(int jugadorId, int dado1, int dado2, Tablero tablero) {
+        if (dado1 != 5 && dado2 != 5 && dado1 + dado2 != 5) {
+            return "No puedes sacar ficha. Necesitas un 5 en cualquier dado o que la suma sea 5.";
+        }
+
+        Casilla salida;
+        try {
+            salida = tablero.getCasillaSalidaParaJugador(jugadorId);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+        if (salidaBloqueadaPorRival(salida, jugadorId)) {
+            return "La casilla de salida está bloqueada por un rival";
+        }
+        if (contarFichasPropiasEnCasilla(salida, jugadorId) >= 2) {
+            return "Ya tienes 2 fichas en la salida";
+        }
+        return null;
+    }
+
+    /**
+     * Bonus de mas de MAX_PASOS casillas: no esta en las mascaras y se
+     * comprueba directamente (tambien O(1)).
+     */
+    private boolean permiteBonus(MovimientosLegales legales, Ficha ficha, int jugadorId, int pasos,
+                                 Tablero tablero) {
+        if (pasos <= MovimientosLegales.MAX_PASOS) {
+            return legales.permiteBonus(ficha.getId(), pasos);
+        }
+        return pasos <= legales.bonus && !ficha.estaEnCasa()
+            && motivoIlegal(ficha, jugadorId, pasos, tablero) == null;
+    }
+
+    /**
+     * Mensaje para una jugada que no esta entre las legales.
+     */
+    private String motivoRechazo(MovimientosLegales legales, Ficha ficha, int jugadorId, int pasos,
+                                 Tablero tablero) {
+        if (!legales.quedaDado(pasos)) {
+            return motivoSinDados(legales, jugadorId, "No tienes un dado de " + pasos + " sin usar");
+        }
+        return motivoMovimiento(ficha, jugadorId, pasos, tablero);
+    }
+
+    private String motivoMovimiento(Ficha ficha, int jugadorId, int pasos, Tablero tablero) {
+        String motivo = motivoIlegal(ficha, jugadorId, pasos, tablero);
+        return motivo != null ? motivo : "Movimiento no permitido";
+    }
+
+    private String motivoRechazoSacar(int jugadorId, int dado1, int dado2, Tablero tablero) {
+        String motivo = motivoNoSacar(jugadorId, dado1, dado2, tablero);
+        return motivo != null ? motivo : "No puedes sacar esa ficha";
+    }
+
+    private String motivoSinDados(MovimientosLegales legales, int jugadorId, String motivo) {
+        if (legales.hayDados()) {
+            return motivo;
+        }
+        return tiradaVigente(jugadorId)
+            ? "Ya usaste los dados de esta tirada"
+            : "Primero tienes que tirar los dados";
+    }
+
+    private void consumirDado(int valor) {
+        if (dadoPendiente1 == valor) {
+            dadoPendiente1 = 0;
+        } else if (dadoPendiente2 == valor) {
+            dadoPendiente2 = 0;
+        }
+    }
+
+    /**
+     * Regla del 5: se gasta el 5 si hay uno, si no los dos dados (suma 5).
+     * Las salidas automaticas pueden llegar sin tirada vigente (no gastan).
+     */
+    private void consumirDadosDeSalida(int jugadorId, int dado1, int dado2) {
+        if (!tiradaVigente(jugadorId)) {
+            return;
+        }
+        if (dado1 == 5 || dado2 == 5) {
+            consumirDado(5);
+        } else {
+            dadoPendiente1 = 0;
+            dadoPendiente2 = 0;
+        }
+    }
+
+    private void consumirBonus(int jugadorId, int pasos, ResultadoMovimiento resultado) {
+        int restante = bonusMoves.getOrDefault(jugadorId, 0) - pasos;
+        bonusMoves.put(jugadorId, restante);
+        partida.marcarCambio();
+        resultado.bonusConsumido = pasos;
+        resultado.bonusRestante = restante;
+    }
+
+    // ✅ ACTUALIZADO: Contadores de la casilla en lugar de recorrer las
+    // fichas de todos los jugadores
     private boolean salidaBloqueadaPorRival(Casilla salida, int jugadorId) {
-        List<Ficha> fichasEnSalida = obtenerFichasEnCasilla(salida);
-        
-        Map<Integer, Long> fichasPorJugador = fichasEnSalida.stream()
-            .collect(Collectors.groupingBy(Ficha::getIdJugador, Collectors.counting()));
-        
-        return fichasPorJugador.entrySet().stream()
-            .anyMatch(entry -> entry.getKey() != jugadorId && entry.getValue() >= 2);
+        if (salida == null) return false;
+        return partida.getTablero().esBarreraRival(salida.getIndice(), jugadorId);
     }
 
 
@@ -484,20 +785,7 @@ public class MotorJuego {
     }
 
     private int contarFichasPropiasEnCasilla(Casilla casilla, int jugadorId) {
-        List<Ficha> fichas = obtenerFichasEnCasilla(casilla);
-        return (int) fichas.stream()
-            .filter(f -> f.getIdJugador() == jugadorId)
-            .count();
-    }
-
-    private List<Ficha> obtenerFichasEnCasilla(Casilla casilla) {
-        if (casilla == null) return java.util.Collections.emptyList();
-        
-        return partida.getJugadores().stream()
-            .flatMap(j -> j.getFichas().stream())
-            .filter(f -> f.getCasillaActual() != null && 
-                        f.getCasillaActual().getIndice() == casilla.getIndice())
-            .collect(Collectors.toList());
+        return casilla != null ? casilla.contarFichasDeJugador(jugadorId) : 0;
     }
 
     private void enviarFichaACasa(Ficha ficha) {
@@ -514,7 +802,16 @@ public class MotorJuego {
         }
     }
 
-    public synchronized ResultadoMovimiento moverFichaSinValidarTurno(int jugadorId, int fichaId, int pasos) {
+    public ResultadoMovimiento moverFichaSinValidarTurno(int jugadorId, int fichaId, int pasos) {
+        lock.lock();
+        try {
+            return moverFichaSinValidarTurnoEnJugada(jugadorId, fichaId, pasos);
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    private ResultadoMovimiento moverFichaSinValidarTurnoEnJugada(int jugadorId, int fichaId, int pasos) {
         Ficha ficha = partida.getFicha(jugadorId, fichaId);
         if (ficha == null) {
             throw new FichaNoEncontradaException("Ficha no encontrada: " + fichaId);
@@ -560,22 +857,178 @@ public class MotorJuego {
     }
 
    
-    public synchronized int getBonusDisponible(int jugadorId) {
-        return bonusMoves.getOrDefault(jugadorId, 0);
+    public int getBonusDisponible(int jugadorId) {
+        lock.lock();
+        try {
+            return bonusMoves.getOrDefault(jugadorId, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * ✅ NUEVO: Todas las jugadas legales del jugador ahora mismo: con los
+     * dados que le quedan de su tirada (solo en su turno), con la suma,
+     * sacar con 5 y con su bonus. Se generan una vez y se reutilizan hasta
+     * que cambia el tablero, los dados o el bonus.
+     */
+    public MovimientosLegales obtenerMovimientosLegales(int jugadorId) {
+        lock.lock();
+        try {
+            return movimientosLegales(jugadorId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getContadorDobles(int jugadorId) {
+        lock.lock();
+        try {
+            return contadorDobles.getOrDefault(jugadorId, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void resetearContadorDobles(int jugadorId) {
+        lock.lock();
+        try {
+            contadorDobles.put(jugadorId, 0);
+            partida.marcarCambio();
+        } finally {
+            terminarJugada();
+        }
+    }
+
+    /**
+     * ✅ IMPLEMENTADO: Instantanea del estado completo (partida, jugadores,
+     * fichas, bonus, dobles y turno).
+     * ✅ ACTUALIZADO: Es la que publico la ultima jugada terminada (ver
+     * terminarJugada); ya no espera al lock del motor.
+     */
+    public InstantaneaPartida obtenerEstado() {
+        return partida.getInstantanea();
     }
 
-    public synchronized int getContadorDobles(int jugadorId) {
-        return contadorDobles.getOrDefault(jugadorId, 0);
+    /**
+     * ✅ NUEVO: El hilo actual esta dentro de una jugada del motor. La
+     * Partida no publica entonces sus cambios (pueden estar a medias).
+     */
+    boolean enJugada() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    /**
+     * ✅ NUEVO: Sale del lock del motor. Al salir de la jugada mas externa
+     * (un lote cuenta como una) publica el estado de la partida con los
+     * contadores del motor; las jugadas reentrantes no publican nada.
+     */
+    private void terminarJugada() {
+        try {
+            if (lock.getHoldCount() == 1) {
+                partida.publicar(bonusMoves, contadorDobles);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public synchronized void resetearContadorDobles(int jugadorId) {
-        contadorDobles.put(jugadorId, 0);
+
+    /**
+     * ✅ NUEVO: Ejecuta varias jugadas como una sola. El lock del motor se
+     * toma una vez (las jugadas de dentro lo reentran) y, si alguna lanza
+     * excepcion, fichas, puntos, bonus, dobles, dados de la tirada, turno y
+     * estado de la partida vuelven a como estaban antes de la primera. La
+     * excepcion se relanza al llamador.
+     */
+    public <T> T ejecutarLote(Supplier<T> jugadas) {
+        lock.lock();
+        try {
+            PuntoRestauracion punto = new PuntoRestauracion();
+            try {
+                return jugadas.get();
+            } catch (RuntimeException e) {
+                punto.restaurar();
+                throw e;
+            }
+        } finally {
+            terminarJugada();
+        }
     }
 
-    public synchronized EstadoPartida obtenerEstado() {
-          throw new UnsupportedOperationException(
-            "Implementar Partida.snapshot() para obtener estado completo"
-        );
+    /**
+     * Copia de lo que una jugada puede cambiar. Solo se usa con el lock del
+     * motor tomado.
+     */
+    private final class PuntoRestauracion {
+        private final List<Jugador> jugadores;
+        private final int[] puntos;
+        private final List<Ficha> fichas;
+        private final Casilla[] casillas;
+        private final EstadoFicha[] estados;
+        private final Map<Integer, Integer> bonus;
+        private final Map<Integer, Integer> dobles;
+        private final int turnoActual;
+        private final long numeroTurno;
+        private final EstadoPartida estado;
+        private final int dadosJugador;
+        private final long turnoDados;
+        private final int pendiente1;
+        private final int pendiente2;
+
+        PuntoRestauracion() {
+            this.jugadores = partida.getJugadores();
+            this.puntos = new int[jugadores.size()];
+            this.fichas = new ArrayList<>();
+            for (int i = 0; i < jugadores.size(); i++) {
+                puntos[i] = jugadores.get(i).getPuntos();
+                fichas.addAll(jugadores.get(i).getFichas());
+            }
+            this.casillas = new Casilla[fichas.size()];
+            this.estados = new EstadoFicha[fichas.size()];
+            for (int i = 0; i < fichas.size(); i++) {
+                casillas[i] = fichas.get(i).getCasillaActual();
+                estados[i] = fichas.get(i).getEstado();
+            }
+            this.bonus = new HashMap<>(bonusMoves);
+            this.dobles = new HashMap<>(contadorDobles);
+            this.turnoActual = partida.getTurnoActual();
+            this.numeroTurno = partida.getNumeroTurno();
+            this.estado = partida.getEstado();
+            this.dadosJugador = dadosJugadorId;
+            this.turnoDados = dadosTurno;
+            this.pendiente1 = dadoPendiente1;
+            this.pendiente2 = dadoPendiente2;
+        }
+
+        void restaurar() {
+            for (int i = 0; i < fichas.size(); i++) {
+                Ficha ficha = fichas.get(i);
+                if (ficha.getCasillaActual() != casillas[i]) {
+                    ficha.setCasillaActual(casillas[i]);
+                }
+                ficha.setEstado(estados[i]);
+            }
+            for (int i = 0; i < jugadores.size(); i++) {
+                jugadores.get(i).setPuntos(puntos[i]);
+            }
+            bonusMoves.clear();
+            bonusMoves.putAll(bonus);
+            contadorDobles.clear();
+            contadorDobles.putAll(dobles);
+            dadosJugadorId = dadosJugador;
+            dadosTurno = turnoDados;
+            dadoPendiente1 = pendiente1;
+            dadoPendiente2 = pendiente2;
+            // Sin contar un turno nuevo: la tirada de antes del lote sigue valiendo
+            if (partida.getTurnoActual() != turnoActual || partida.getNumeroTurno() != numeroTurno) {
+                partida.restaurarTurno(turnoActual, numeroTurno);
+            }
+            if (partida.getEstado() != estado) {
+                partida.setEstado(estado);
+            }
+            partida.marcarCambio();
+        }
     }
 
 
@@ -0,0 +1,192 @@
+package modelo.partida;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ✅ NUEVO: Jugadas legales de un jugador con los dados que le quedan de su
+ * tirada y su bonus.
+ *
+ * Las genera MotorJuego.obtenerMovimientosLegales y las reutiliza mientras
+ * no cambien el tablero, los dados ni el bonus. mover_ficha,
+ * mover_ficha_un_dado y usar_bonus se validan con una consulta aqui, sin
+ * intentar el movimiento. El cliente las recibe en resultado_dados y
+ * movimiento_exitoso para marcar las fichas movibles.
+ *
+ * Por ficha (id 1..FICHAS) hay una mascara por tipo de jugada, con el bit p
+ * encendido si la ficha puede avanzar p casillas:
+ * - porDado: con uno de los dados que quedan (p = su valor).
+ * - porSuma: con los dos dados que quedan juntos (mover_ficha).
+ * - porBonus: con p casillas de bonus, 1 <= p <= MAX_PASOS.
+ * Y sacar: un bit por ficha en casa que puede salir con la regla del 5.
+ */
+public final class MovimientosLegales {
+
+    public enum Tipo {
+        DADO("dado"), SUMA("suma"), SACAR("sacar"), BONUS("bonus");
+
+        public final String nombre;     // en los mensajes al cliente
+
+        Tipo(String nombre) {
+            this.nombre = nombre;
+        }
+    }
+
+    public static final int FICHAS = 4;
+    public static final int MAX_PASOS = 63;
+
+    public final int jugadorId;
+    public final int dado1;               // 0 si ya se uso o no hay tirada
+    public final int dado2;
+    public final int bonus;
+    final long cambiosTablero;            // Tablero.getCambiosOcupacion() al generarlas
+
+    private final long[] porDado = new long[FICHAS + 1];
+    private final long[] porSuma = new long[FICHAS + 1];
+    private final long[] porBonus = new long[FICHAS + 1];
+    private int sacar;
+
+    MovimientosLegales(int jugadorId, int dado1, int dado2, int bonus, long cambiosTablero) {
+        this.jugadorId = jugadorId;
+        this.dado1 = dado1;
+        this.dado2 = dado2;
+        this.bonus = bonus;
+        this.cambiosTablero = cambiosTablero;
+    }
+
+    /**
+     * Solo lo usa MotorJuego mientras las genera.
+     */
+    void permitir(Tipo tipo, int fichaId, int pasos) {
+        if (!esFicha(fichaId)) {
+            return;
+        }
+        switch (tipo) {
+            case DADO:
+                porDado[fichaId] |= 1L << pasos;
+                break;
+            case SUMA:
+                porSuma[fichaId] |= 1L << pasos;
+                break;
+            case BONUS:
+                porBonus[fichaId] |= 1L << pasos;
+                break;
+            case SACAR:
+                sacar |= 1 << fichaId;
+                break;
+        }
+    }
+
+    // ==================== Consultas O(1) ====================
+
+    public boolean permiteDado(int fichaId, int valor) {
+        return esFicha(fichaId) && esPaso(valor) && (porDado[fichaId] & (1L << valor)) != 0;
+    }
+
+    /**
+     * mover_ficha: los dos dados deben ser los que quedan (en cualquier
+     * orden).
+     */
+    public boolean permiteSuma(int fichaId, int valor1, int valor2) {
+        return sonLosDados(valor1, valor2) && esFicha(fichaId)
+            && (porSuma[fichaId] & (1L << (valor1 + valor2))) != 0;
+    }
+
+    public boolean permiteSacar(int fichaId) {
+        return esFicha(fichaId) && (sacar & (1 << fichaId)) != 0;
+    }
+
+    public boolean permiteBonus(int fichaId, int pasos) {
+        return esFicha(fichaId) && esPaso(pasos) && (porBonus[fichaId] & (1L << pasos)) != 0;
+    }
+
+    public boolean puedeMover(int fichaId) {
+        return permiteSacar(fichaId)
+            || (esFicha(fichaId) && (porDado[fichaId] | porSuma[fichaId] | porBonus[fichaId]) != 0);
+    }
+
+    public boolean estaVacio() {
+        for (int fichaId = 1; fichaId <= FICHAS; fichaId++) {
+            if (puedeMover(fichaId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hayDados() {
+        return dado1 > 0 || dado2 > 0;
+    }
+
+    public boolean quedaDado(int valor) {
+        return valor > 0 && (valor == dado1 || valor == dado2);
+    }
+
+    public boolean sonLosDados(int valor1, int valor2) {
+        return dado1 > 0 && dado2 > 0
+            && ((valor1 == dado1 && valor2 == dado2) || (valor1 == dado2 && valor2 == dado1));
+    }
+
+    /**
+     * Lista para el cliente. Del bonus solo van los usos de un bonus de
+     * captura completo (multiplos de BONUS_CAPTURA) y el total; usar_bonus
+     * acepta tambien cualquier cantidad menor.
+     */
+    public List<Movimiento> listar() {
+        List<Movimiento> lista = new ArrayList<>();
+        for (int fichaId = 1; fichaId <= FICHAS; fichaId++) {
+            if (permiteSacar(fichaId)) {
+                lista.add(new Movimiento(fichaId, Tipo.SACAR, 5));
+            }
+            agregarBits(lista, fichaId, Tipo.DADO, porDado[fichaId]);
+            agregarBits(lista, fichaId, Tipo.SUMA, porSuma[fichaId]);
+
+            long usos = porBonus[fichaId];
+            while (usos != 0) {
+                int pasos = Long.numberOfTrailingZeros(usos);
+                usos &= usos - 1;
+                if (pasos == bonus || pasos % MotorJuego.BONUS_CAPTURA == 0) {
+                    lista.add(new Movimiento(fichaId, Tipo.BONUS, pasos));
+                }
+            }
+        }
+        return Collections.unmodifiableList(lista);
+    }
+
+    private static void agregarBits(List<Movimiento> lista, int fichaId, Tipo tipo, long mascara) {
+        while (mascara != 0) {
+            lista.add(new Movimiento(fichaId, tipo, Long.numberOfTrailingZeros(mascara)));
+            mascara &= mascara - 1;
+        }
+    }
+
+    private static boolean esFicha(int fichaId) {
+        return fichaId >= 1 && fichaId <= FICHAS;
+    }
+
+    private static boolean esPaso(int pasos) {
+        return pasos >= 1 && pasos <= MAX_PASOS;
+    }
+
+    /**
+     * Una jugada: la ficha, con que (tipo) y cuantas casillas avanza (5 al
+     * sacar).
+     */
+    public static final class Movimiento {
+        public final int fichaId;
+        public final Tipo tipo;
+        public final int valor;
+
+        Movimiento(int fichaId, Tipo tipo, int valor) {
+            this.fichaId = fichaId;
+            this.tipo = tipo;
+            this.valor = valor;
+        }
+
+        @Override
+        public String toString() {
+            return tipo + "(ficha:" + fichaId + " valor:" + valor + ")";
+        }
+    }
+}
@@ -4,15 +4,24 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import modelo.Jugador.Jugador;
 import modelo.Ficha.Ficha;
+import modelo.Tablero.InstantaneaTablero;
 import modelo.Tablero.Tablero;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Representa una partida de Parchis.
  * Maneja jugadores, turno actual, tablero y estado general.
  * Thread-safe mediante ReentrantLock.
+ *
+ * ✅ NUEVO: Cada cambio confirmado publica una InstantaneaPartida inmutable
+ * por una referencia volatile (ver getInstantanea). Los lectores (estado,
+ * lista de salas, registros del servidor) no toman el lock ni recorren las
+ * listas vivas.
  */
 public class Partida {
     
@@ -22,10 +31,19 @@ public class Partida {
     private int maxJugadores;
     private EstadoPartida estadoActual;
     private int turnoActual;  
-    private Tablero tablero;
+    private volatile Tablero tablero;
     private final ReentrantLock lock;
     private MotorJuego motorJuego;
     
+    // ✅ NUEVO: Cambia con cada modificacion del estado (ver marcarCambio)
+    private final AtomicLong versionEstado;
+    
+    // ✅ NUEVO: Sube cada vez que cambia el turno (ver getNumeroTurno). Se
+    // escribe con el lock y MotorJuego lo lee sin el
+    private volatile long numeroTurno;
+    
+    // ✅ NUEVO: Ultimo estado publicado (ver publicar)
+    private volatile InstantaneaPartida publicada;
   
     
     public Partida(int id, String nombre) {
@@ -42,6 +60,8 @@ public class Partida {
         this.tablero = null;
         this.motorJuego = null;
         this.lock = new ReentrantLock();
+        this.versionEstado = new AtomicLong();
+        // La primera instantanea se publica en el primer getInstantanea()
     }
     
   
@@ -52,6 +72,7 @@ public class Partida {
 
     public void setMotorJuego(MotorJuego motorJuego) {
         this.motorJuego = motorJuego;
+        marcarCambio();
     }
     
     /**
@@ -84,6 +105,7 @@ public class Partida {
             }
             
             jugadores.add(jugador);
+            marcarCambio();
             return true;
         } finally {
             lock.unlock();
@@ -103,6 +125,9 @@ public class Partida {
             if (removido && turnoActual >= jugadores.size() && !jugadores.isEmpty()) {
                 turnoActual = turnoActual % jugadores.size();
             }
+            if (removido) {
+                marcarCambio();
+            }
             
             return removido;
         } finally {
@@ -166,6 +191,8 @@ public class Partida {
             }
             
             turnoActual = (turnoActual + 1) % jugadores.size();
+            numeroTurno++;
+            marcarCambio();
         } finally {
             lock.unlock();
         }
@@ -280,6 +307,7 @@ public class Partida {
         lock.lock();
         try {
             this.estadoActual = estado;
+            marcarCambio();
         } finally {
             lock.unlock();
         }
@@ -290,22 +318,162 @@ public class Partida {
     }
     
     public void setTurnoActual(int turno) {
+        lock.lock();
+        try {
+            if (turno >= 0 && turno < jugadores.size()) {
+                if (turno != turnoActual) {
+                    numeroTurno++;
+                }
+                this.turnoActual = turno;
+                marcarCambio();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Vuelve al turno y al numero de turno guardados (rollback de
+     * un lote en MotorJuego). No cuenta como un cambio de turno, asi que la
+     * tirada vigente antes del lote sigue valiendo.
+     */
+    void restaurarTurno(int turno, long numero) {
         lock.lock();
         try {
             if (turno >= 0 && turno < jugadores.size()) {
                 this.turnoActual = turno;
+                this.numeroTurno = numero;
+                marcarCambio();
             }
         } finally {
             lock.unlock();
         }
     }
     
+    /**
+     * ✅ NUEVO: Cuantas veces ha cambiado el turno. Distingue dos turnos
+     * seguidos del mismo jugador; MotorJuego lo usa para que los dados de
+     * una tirada solo valgan en su turno.
+     */
+    public long getNumeroTurno() {
+        return numeroTurno;
+    }
+    
     public Tablero getTablero() {
         return tablero;
     }
     
     public void setTablero(Tablero tablero) {
         this.tablero = tablero;
+        marcarCambio();
+    }
+    
+    // ============================
+    // ✅ NUEVO: VERSION E INSTANTANEAS
+    // ============================
+    
+    /**
+     * Version del estado de la partida: sube con cada cambio de jugadores,
+     * turno, estado, fichas o contadores del motor. Las fichas que se mueven
+     * fuera del MotorJuego se reflejan en Tablero.getVersion() al
+     * confirmarse.
+     */
+    public long getVersionEstado() {
+        return versionEstado.get();
+    }
+    
+    /**
+     * Invalida las copias del estado hechas con versiones anteriores. La
+     * llaman la Partida, el MotorJuego y los servicios que cambian un
+     * jugador de la partida (listo, conexion).
+     *
+     * ✅ ACTUALIZADO: Ademas publica el estado nuevo, salvo dentro de una
+     * jugada del motor en este hilo: ahi la jugada puede estar a medias y
+     * publica el motor al terminar, con sus contadores.
+     */
+    public void marcarCambio() {
+        versionEstado.incrementAndGet();
+        MotorJuego motor = motorJuego;
+        if (motor == null || !motor.enJugada()) {
+            publicar(null, null);
+        }
+    }
+    
+    /**
+     * ✅ NUEVO: Ultimo estado publicado, con la ultima version publicada del
+     * tablero. Sin lock: la instantanea es inmutable.
+     */
+    public InstantaneaPartida getInstantanea() {
+        InstantaneaPartida estado = publicada;
+        if (estado == null) {
+            publicar(null, null);
+            estado = publicada;
+        }
+        Tablero t = tablero;
+        InstantaneaTablero estadoTablero = t != null ? t.getInstantanea() : null;
+        return estado.tablero == estadoTablero ? estado : estado.conTablero(estadoTablero);
+    }
+    
+    /**
+     * ✅ NUEVO: Publica el estado actual si cambio desde la ultima
+     * publicacion. Escribe quien cambia la partida: marcarCambio fuera de
+     * una jugada (con los contadores ya publicados, que solo cambia el
+     * motor) o el MotorJuego al terminar una jugada (con los suyos).
+     */
+    void publicar(Map<Integer, Integer> bonus, Map<Integer, Integer> dobles) {
+        lock.lock();
+        try {
+            InstantaneaPartida previa = publicada;
+            if (previa != null && previa.version == versionEstado.get()) {
+                return;
+            }
+            publicada = capturarInstantanea(
+                bonus != null ? bonus : previa != null ? previa.bonusPorJugador() : Collections.emptyMap(),
+                dobles != null ? dobles : previa != null ? previa.doblesPorJugador() : Collections.emptyMap());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Copia el estado bajo el lock de la partida; del tablero toma la
+     * instantanea que haya publicado.
+     */
+    InstantaneaPartida capturarInstantanea(Map<Integer, Integer> bonus, Map<Integer, Integer> dobles) {
+        long version = versionEstado.get();
+        List<InstantaneaPartida.JugadorEstado> copiaJugadores;
+        EstadoPartida estado;
+        int turno;
+        int jugadorActualId;
+        
+        lock.lock();
+        try {
+            estado = estadoActual;
+            turno = turnoActual;
+            jugadorActualId = (turnoActual >= 0 && turnoActual < jugadores.size())
+                ? jugadores.get(turnoActual).getId() : -1;
+            
+            copiaJugadores = new ArrayList<>(jugadores.size());
+            for (Jugador j : jugadores) {
+                List<InstantaneaPartida.FichaEstado> fichas = new ArrayList<>(j.getFichas().size());
+                for (Ficha f : j.getFichas()) {
+                    int casilla = f.getCasillaActual() != null ? f.getCasillaActual().getIndice() : -1;
+                    fichas.add(new InstantaneaPartida.FichaEstado(f.getId(), f.getEstado(), casilla));
+                }
+                copiaJugadores.add(new InstantaneaPartida.JugadorEstado(
+                    j.getId(), j.getNombre(), j.getColor(), j.getPuntos(), j.isListo(), j.isConectado(),
+                    j.contarFichasEnMeta(), bonus.getOrDefault(j.getId(), 0),
+                    dobles.getOrDefault(j.getId(), 0), fichas));
+            }
+        } finally {
+            lock.unlock();
+        }
+        
+        Tablero t = tablero;
+        InstantaneaTablero estadoTablero = t != null ? t.getInstantanea() : null;
+        
+        return new InstantaneaPartida(id, nombre, estado, turno, jugadorActualId, maxJugadores,
+            version, copiaJugadores, estadoTablero);
     }
     
     // ============================
@@ -356,6 +524,7 @@ public class Partida {
         try {
             estadoActual = EstadoPartida.ESPERANDO;
             turnoActual = 0;
+            numeroTurno++;
             
             // Reiniciar jugadores
             for (Jugador j : jugadores) {
@@ -369,6 +538,7 @@ public class Partida {
                 tablero.limpiar();
                 tablero.registrarJugadores(jugadores);
             }
+            marcarCambio();
         } finally {
             lock.unlock();
         }
@@ -387,31 +557,35 @@ public class Partida {
         }
     }
     
+    /**
+     * ✅ ACTUALIZADO: Se genera de la instantanea publicada, sin lock.
+     */
     public JsonObject generarEstadoJSON() {
+        InstantaneaPartida estado = getInstantanea();
         JsonObject json = new JsonObject();
-        json.addProperty("partidaId", id);
-        json.addProperty("nombre", nombre);
-        json.addProperty("estado", estadoActual.name());
-        json.addProperty("turnoActual", turnoActual);
-        json.addProperty("maxJugadores", maxJugadores);
+        json.addProperty("partidaId", estado.partidaId);
+        json.addProperty("nombre", estado.nombre);
+        json.addProperty("estado", estado.estado.name());
+        json.addProperty("turnoActual", estado.turnoActual);
+        json.addProperty("maxJugadores", estado.maxJugadores);
 
         // Jugadores
         JsonArray jugadoresArr = new JsonArray();
-        for (Jugador j : jugadores) {
+        for (InstantaneaPartida.JugadorEstado j : estado.jugadores) {
             JsonObject jObj = new JsonObject();
-            jObj.addProperty("id", j.getId());
-            jObj.addProperty("nombre", j.getNombre());
-            jObj.addProperty("color", j.getColor() != null ? j.getColor().name() : "NINGUNO");
-            jObj.addProperty("puntos", j.getPuntos());
-            jObj.addProperty("listo", j.isListo());
-            jObj.addProperty("fichasEnMeta", j.contarFichasEnMeta());
+            jObj.addProperty("id", j.id);
+            jObj.addProperty("nombre", j.nombre);
+            jObj.addProperty("color", j.color != null ? j.color.name() : "NINGUNO");
+            jObj.addProperty("puntos", j.puntos);
+            jObj.addProperty("listo", j.listo);
+            jObj.addProperty("fichasEnMeta", j.fichasEnMeta);
             jugadoresArr.add(jObj);
         }
         json.add("jugadores", jugadoresArr);
 
         // Tablero
-        if (tablero != null) {
-            json.add("tablero", tablero.generarEstadoJSON());
+        if (estado.tablero != null) {
+            json.add("tablero", estado.tablero.toJson());
         }
 
         return json;
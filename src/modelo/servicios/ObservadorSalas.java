@@ -0,0 +1,29 @@
+package modelo.servicios;
+
+import modelo.Jugador.Jugador;
+
+/**
+ * Recibe los cambios de composicion de las salas que hace SalaServicio.
+ * Permite a la capa de red mantener indices propios (p. ej. la tabla de
+ * rutas de broadcast) sin que el modelo conozca las conexiones.
+ *
+ * Se invoca dentro del lock de SalaServicio: las implementaciones deben
+ * ser rapidas y no volver a llamar a SalaServicio.
+ */
+public interface ObservadorSalas {
+
+    /**
+     * Un jugador entro en la partida (o volvio a ella).
+     */
+    void jugadorUnido(int partidaId, Jugador jugador);
+
+    /**
+     * Un jugador salio de la partida.
+     */
+    void jugadorRemovido(int partidaId, Jugador jugador);
+
+    /**
+     * La partida se elimino por quedar vacia.
+     */
+    void partidaEliminada(int partidaId);
+}
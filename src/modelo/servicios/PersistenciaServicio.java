@@ -1,5 +1,7 @@
 package modelo.servicios;
 
+import modelo.partida.EstadoPartida;
+import modelo.partida.InstantaneaPartida;
 import modelo.partida.Partida;
 import modelo.Jugador.Jugador;
 import java.util.Map;
@@ -75,11 +77,14 @@ public class PersistenciaServicio {
     
     /**
      * Obtiene partidas disponibles (que aceptan nuevos jugadores).
+     * ✅ ACTUALIZADO: Con la instantanea publicada de cada partida, sin su
+     * lock. Unirse vuelve a comprobarlo con el lock (puedeUnirseJugador).
      */
     public List<Partida> obtenerPartidasDisponibles() {
         List<Partida> disponibles = new ArrayList<>();
         for (Partida p : partidas.values()) {
-            if (p.puedeUnirseJugador()) {
+            InstantaneaPartida estado = p.getInstantanea();
+            if (estado.estado == EstadoPartida.ESPERANDO && estado.jugadores.size() < estado.maxJugadores) {
                 disponibles.add(p);
             }
         }
@@ -141,9 +146,24 @@ public class PersistenciaServicio {
         Jugador jugador = jugadores.get(jugadorId);
         if (jugador != null) {
             jugador.setConectado(conectado);
+            obtenerPartidaDeJugador(jugadorId).ifPresent(Partida::marcarCambio);
         }
     }
     
+    /**
+     * ✅ NUEVO: Pasa un jugador existente a una sesion nueva (reanudacion).
+     */
+    public synchronized void reasociarSesion(int jugadorId, String nuevaSessionId) {
+        Jugador jugador = jugadores.get(jugadorId);
+        if (jugador != null) {
+            jugadoresPorSession.remove(jugador.getSessionId());
+            jugador.setSessionId(nuevaSessionId);
+            jugador.setConectado(true);
+            jugadoresPorSession.put(nuevaSessionId, jugador);
+            obtenerPartidaDeJugador(jugadorId).ifPresent(Partida::marcarCambio);
+        }
+    }
+
     /**
      * Elimina un jugador del sistema.
      */
@@ -176,6 +196,16 @@ public class PersistenciaServicio {
         return Optional.empty();
     }
     
+    /**
+     * ✅ NUEVO: Id de la partida del jugador, o -1 si no esta en ninguna.
+     * Sin buscar la Partida: el Dispatcher solo lo necesita para elegir
+     * el buzon de la partida.
+     */
+    public int obtenerIdPartidaDeJugador(int jugadorId) {
+        Integer partidaId = jugadorEnPartida.get(jugadorId);
+        return partidaId != null ? partidaId : -1;
+    }
+    
     /**
      * Remueve a un jugador de su partida actual.
      */
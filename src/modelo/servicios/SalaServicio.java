@@ -8,6 +8,7 @@ import modelo.Tablero.Tablero;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -21,6 +22,9 @@ public class SalaServicio {
     private final PersistenciaServicio persistencia;
     private final ReentrantLock lock;
     
+    // ✅ NUEVO: Interesados en altas/bajas de jugadores (tabla de rutas del servidor)
+    private final List<ObservadorSalas> observadores;
+    
      private static final ColorJugador[] COLORES_DISPONIBLES = {
         ColorJugador.ROJO,
         ColorJugador.AMARILLO,
@@ -31,6 +35,7 @@ public class SalaServicio {
        private SalaServicio() {
         this.persistencia = PersistenciaServicio.getInstancia();
         this.lock = new ReentrantLock();
+        this.observadores = new CopyOnWriteArrayList<>();
     }
     
     /**
@@ -43,6 +48,17 @@ public class SalaServicio {
         return instancia;
     }
     
+    /**
+     * ✅ NUEVO: Registra un observador de cambios en las salas.
+     */
+    public void agregarObservador(ObservadorSalas observador) {
+        observadores.add(observador);
+    }
+    
+    public void removerObservador(ObservadorSalas observador) {
+        observadores.remove(observador);
+    }
+    
     /**
      * Crea una nueva sala/partida.
      * 
@@ -117,6 +133,10 @@ public class SalaServicio {
             // Actualizar persistencia
             persistencia.registrarJugadorEnPartida(jugadorId, partidaId);
             
+            for (ObservadorSalas observador : observadores) {
+                observador.jugadorUnido(partidaId, jugador);
+            }
+            
             return true;
         } finally {
             lock.unlock();
@@ -179,9 +199,16 @@ public class SalaServicio {
             partida.removerJugador(jugadorId);
             persistencia.removerJugadorDePartida(jugadorId);
             
+            for (ObservadorSalas observador : observadores) {
+                observador.jugadorRemovido(partida.getId(), jugador);
+            }
+            
             // Si la partida quedo vacia o esta en progreso con pocos jugadores, finalizarla
             if (partida.getJugadores().isEmpty()) {
                 persistencia.eliminarPartida(partida.getId());
+                for (ObservadorSalas observador : observadores) {
+                    observador.partidaEliminada(partida.getId());
+                }
             } else if (partida.getEstado() == EstadoPartida.EN_PROGRESO && 
                        partida.getJugadores().size() < 2) {
                 finalizarPartida(partida.getId());
@@ -213,6 +240,7 @@ public class SalaServicio {
             Optional<Partida> partidaOpt = persistencia.obtenerPartidaDeJugador(jugadorId);
             if (partidaOpt.isPresent()) {
                 Partida partida = partidaOpt.get();
+                partida.marcarCambio();
                 if (todosJugadoresListos(partida) && partida.getJugadores().size() >= 2) {
                     iniciarPartida(partida.getId());
                 }
@@ -485,8 +485,15 @@ public class TableroVista extends JPanel {
 
             boolean puedeMoverse = false;
 
+            // ✅ NUEVO: Con la lista de jugadas legales del servidor no hace
+            // falta recalcular
+            Boolean segunServidor = controlador.puedeMoverSegunServidor(
+                ficha.getId(), dado1Disponible, dado2Disponible);
+            if (segunServidor != null) {
+                puedeMoverse = segunServidor;
+            }
             // ========== FICHAS EN CASA ==========
-            if (ficha.estaEnCasa()) {
+            else if (ficha.estaEnCasa()) {
                 // Puede salir con un 5
                 if (dado1Disponible == 5 || dado2Disponible == 5) {
                     if (ReglasValidador.puedeSalirDeCasa(ficha.getCasillaSalida(), miColor, fichasEnTablero)) {
@@ -526,6 +533,17 @@ public class TableroVista extends JPanel {
         System.out.println("[TableroVista] Fichas movibles (" + miColor + "): " + fichasMovibles.size());
     }
     
+    /**
+     * ✅ NUEVO: Vuelve a marcar las fichas movibles (llego una lista nueva de
+     * jugadas legales del servidor).
+     */
+    public void refrescarFichasMovibles() {
+        SwingUtilities.invokeLater(() -> {
+            actualizarFichasMovibles();
+            repaint();
+        });
+    }
+    
     // ==================== ✅ NUEVOS MÉTODOS PARA BONUS ====================
     
     /**
@@ -2,10 +2,13 @@ package vista;
 
 import controlador.ClienteControlador;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * ✅ NUEVA VERSIÓN: Dados COMPLETAMENTE independientes
@@ -37,27 +40,25 @@ public class VistaCliente {
     
     public boolean registrarJugadorAutomatico(String nombre) {
         this.nombreJugador = nombre;
-        boolean registrado = controlador.registrar(nombre);
-        
-        if (registrado) {
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException e) { }
-        }
-        
-        return registrado;
+        return ClienteControlador.esExito(esperarRespuesta(controlador.registrarAsincrono(nombre)));
     }
     
     public boolean crearSalaAutomatica(String nombreSala, int maxJugadores) {
-        boolean creada = controlador.crearPartida(nombreSala, maxJugadores);
-        
-        if (creada) {
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException e) { }
+        return ClienteControlador.esExito(
+            esperarRespuesta(controlador.crearPartidaAsincrono(nombreSala, maxJugadores)));
+    }
+    
+    /**
+     * ✅ NUEVO: Espera la respuesta de una solicitud (en lugar de dormir un
+     * tiempo fijo). null si hubo timeout o se perdio la conexion.
+     */
+    private JsonObject esperarRespuesta(CompletableFuture<JsonObject> solicitud) {
+        try {
+            return solicitud.join();
+        } catch (CompletionException e) {
+            System.err.println("Sin respuesta del servidor: " + e.getCause());
+            return null;
         }
-        
-        return creada;
     }
     
     public void menuUnirsePartida() {
@@ -100,16 +101,14 @@ public class VistaCliente {
             int partidaId = Integer.parseInt(scanner.nextLine().trim());
             System.out.println("Uniendose a partida " + partidaId + "...");
             
-            boolean unido = controlador.unirseAPartida(partidaId);
+            // ✅ ACTUALIZADO: Espera la respuesta del servidor en lugar de dormir
+            JsonObject respuesta = esperarRespuesta(controlador.unirseAPartidaAsincrono(partidaId));
             
-            if (unido) {
+            if (ClienteControlador.esExito(respuesta)) {
                 System.out.println("Te has unido a la partida!");
                 enPartida = true;
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) { }
             } else {
-                System.out.println("Error al unirse.");
+                System.out.println("Error al unirse." + motivoError(respuesta));
                 menuUnirsePartida();
             }
             
@@ -122,14 +121,11 @@ public class VistaCliente {
     private void unirsePartidaDisponible() {
         System.out.println("\nBuscando partida disponible...");
         
-        boolean unido = controlador.unirseAPartidaDisponible();
+        JsonObject respuesta = esperarRespuesta(controlador.unirseAPartidaDisponibleAsincrono());
         
-        if (unido) {
+        if (ClienteControlador.esExito(respuesta)) {
             System.out.println("Te has unido a una partida!");
             enPartida = true;
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) { }
         } else {
             System.out.println("No hay partidas disponibles.");
             menuUnirsePartida();
@@ -144,11 +140,8 @@ public class VistaCliente {
     
     private void listarYUnirse() {
         System.out.println("\nListando partidas...");
-        controlador.listarPartidas();
-        
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) { }
+        // ✅ ACTUALIZADO: Muestra la lista cuando llega, sin dormir 500 ms
+        mostrarSalas(esperarRespuesta(controlador.listarPartidasAsincrono()));
         
         System.out.print("\nID de partida (0 para volver): ");
         try {
@@ -159,15 +152,13 @@ public class VistaCliente {
                 return;
             }
             
-            boolean unido = controlador.unirseAPartida(partidaId);
+            JsonObject respuesta = esperarRespuesta(controlador.unirseAPartidaAsincrono(partidaId));
             
-            if (unido) {
+            if (ClienteControlador.esExito(respuesta)) {
                 System.out.println("Te has unido!");
                 enPartida = true;
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException e) { }
             } else {
+                System.out.println("Error al unirse." + motivoError(respuesta));
                 menuUnirsePartida();
             }
             
@@ -176,6 +167,27 @@ public class VistaCliente {
         }
     }
     
+    private void mostrarSalas(JsonObject respuesta) {
+        if (!ClienteControlador.esExito(respuesta) || !respuesta.has("salas")) {
+            System.out.println("No se pudo obtener la lista de partidas." + motivoError(respuesta));
+            return;
+        }
+        JsonArray salas = respuesta.getAsJsonArray("salas");
+        if (salas.size() == 0) {
+            System.out.println("No hay partidas disponibles.");
+        }
+        for (JsonElement elemento : salas) {
+            JsonObject sala = elemento.getAsJsonObject();
+            System.out.println("  [" + sala.get("id").getAsInt() + "] " + sala.get("nombre").getAsString()
+                + " (" + sala.get("jugadores").getAsInt() + "/" + sala.get("maxJugadores").getAsInt()
+                + ") " + sala.get("estado").getAsString());
+        }
+    }
+    
+    private static String motivoError(JsonObject respuesta) {
+        return respuesta != null && respuesta.has("mensaje") ? " " + respuesta.get("mensaje").getAsString() : "";
+    }
+    
     
     public void esperarEnSala() {
         System.out.println("\n" + SEPARADOR);
@@ -336,12 +348,11 @@ public class VistaCliente {
     private void tirarDadosYMover() {
        System.out.println("\nTirando dados...");
 
-       controlador.tirarDados();
-
        // Esperar respuesta del servidor
-       try {
-           Thread.sleep(1500);
-       } catch (InterruptedException e) { }
+       JsonObject resultado = esperarRespuesta(controlador.tirarDadosAsincrono());
+       if (!ClienteControlador.esExito(resultado)) {
+           return;
+       }
 
        int[] dados = controlador.getUltimosDados();
 
@@ -386,11 +397,6 @@ public class VistaCliente {
            System.out.println("[INFO] Usa tus dados y podrás volver a tirar");
            usarDadosIndependientes(true); // true = es doble, no pasa turno
 
-           // Esperar respuesta del servidor
-           try {
-               Thread.sleep(500);
-           } catch (InterruptedException e) { }
-
            // Verificar si el turno sigue siendo nuestro
            if (!controlador.esmiTurno()) {
                System.out.println("\n[INFO] Tu turno ha terminado.");
@@ -468,11 +474,6 @@ public class VistaCliente {
             return;
         }
         
-        // Esperar respuesta del servidor
-        try {
-            Thread.sleep(500);
-        } catch (InterruptedException e) { }
-        
         // Verificar si el turno terminó después del primer movimiento
         if (!controlador.esmiTurno() && !esDoble) {
             System.out.println("\n[INFO] Tu turno ha terminado.");
@@ -524,15 +525,11 @@ public class VistaCliente {
             System.out.println("Moviendo ficha #" + fichaId + " (" + valorDado + " casillas)...");
             
             // Mover con un solo dado usando el parámetro pasarTurno
-            boolean movido = controlador.moverFichaConUnDado(fichaId, valorDado, pasarTurno);
+            JsonObject validacion = esperarRespuesta(
+                controlador.moverFichaConUnDadoAsincrono(fichaId, valorDado, pasarTurno));
             
-            if (movido) {
+            if (ClienteControlador.esExito(validacion)) {
                 System.out.println("Ficha movida exitosamente!");
-                
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) { }
-                
                 return true;
             } else {
                 System.out.println("No se pudo mover la ficha.");
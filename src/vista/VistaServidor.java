@@ -4,6 +4,7 @@
 package vista;
 
 import modelo.Jugador.Jugador;
+import modelo.partida.InstantaneaPartida;
 import modelo.partida.Partida;
 import modelo.Ficha.Ficha;
 import java.time.LocalDateTime;
@@ -11,6 +12,8 @@ import java.time.format.DateTimeFormatter;
 
 /**
  * Vista para el servidor - Muestra informacion en consola del servidor.
+ * ✅ ACTUALIZADO: Lo que muestra de una partida sale de su instantanea
+ * publicada (Partida.getInstantanea()), sin tomar el lock de la partida.
  */
 public class VistaServidor {
     
@@ -47,6 +50,14 @@ public class VistaServidor {
         System.out.println(SEPARADOR_DOBLE);
     }
 
+    /**
+     * Muestra invocaciones, errores y latencia por accion.
+     */
+    public static void mostrarMetricasAcciones(String resumen) {
+        System.out.println(resumen);
+        System.out.println(SEPARADOR_FINO);
+    }
+
     /**
      * Muestra nueva conexión de cliente.
      */
@@ -103,11 +114,12 @@ public class VistaServidor {
      * Muestra cuando un jugador se une a una sala.
      */
     public static void mostrarUnionSala(Jugador jugador, Partida partida) {
+        InstantaneaPartida estado = partida.getInstantanea();
         System.out.println("\n[" + obtenerHoraActual() + "] JUGADOR SE UNIO A SALA");
         System.out.println(SEPARADOR_FINO);
         System.out.println("  Jugador: " + jugador.getNombre() + " (ID: " + jugador.getId() + ")");
-        System.out.println("  Sala: " + partida.getNombre() + " (ID: " + partida.getId() + ")");
-        System.out.println("  Jugadores en sala: " + partida.getJugadores().size() + "/" + partida.getMaxJugadores());
+        System.out.println("  Sala: " + estado.nombre + " (ID: " + estado.partidaId + ")");
+        System.out.println("  Jugadores en sala: " + estado.jugadores.size() + "/" + estado.maxJugadores);
         System.out.println("  Color asignado: " + jugador.getColor());
         System.out.println(SEPARADOR_FINO);
     }
@@ -116,25 +128,26 @@ public class VistaServidor {
      * Muestra inicio de partida con todos los jugadores.
      */
     public static void mostrarInicioPartida(Partida partida) {
+        InstantaneaPartida estado = partida.getInstantanea();
         System.out.println("\n" + SEPARADOR_DOBLE);
         System.out.println("[" + obtenerHoraActual() + "] PARTIDA INICIADA");
         System.out.println(SEPARADOR_DOBLE);
-        System.out.println("  Partida ID: " + partida.getId());
-        System.out.println("  Nombre: " + partida.getNombre());
-        System.out.println("  Estado: " + partida.getEstado());
+        System.out.println("  Partida ID: " + estado.partidaId);
+        System.out.println("  Nombre: " + estado.nombre);
+        System.out.println("  Estado: " + estado.estado);
         System.out.println("");
         System.out.println("  JUGADORES:");
         System.out.println("  " + SEPARADOR_FINO);
         
-        for (Jugador j : partida.getJugadores()) {
-            System.out.println("    [" + j.getColor() + "] " + j.getNombre() + " (ID: " + j.getId() + ")");
+        for (InstantaneaPartida.JugadorEstado j : estado.jugadores) {
+            System.out.println("    [" + j.color + "] " + j.nombre + " (ID: " + j.id + ")");
         }
         
         System.out.println("  " + SEPARADOR_FINO);
         
-        Jugador primerJugador = partida.getJugadorActual();
+        InstantaneaPartida.JugadorEstado primerJugador = estado.getJugador(estado.jugadorActualId);
         if (primerJugador != null) {
-            System.out.println("  Primer turno: " + primerJugador.getNombre());
+            System.out.println("  Primer turno: " + primerJugador.nombre);
         }
         
         System.out.println(SEPARADOR_DOBLE + "\n");
@@ -267,24 +280,25 @@ public class VistaServidor {
         System.out.println("  " + SEPARADOR_FINO);
         
         // Ordenar jugadores por fichas en meta y puntos
-        java.util.List<Jugador> ranking = new java.util.ArrayList<>(partida.getJugadores());
+        InstantaneaPartida estado = partida.getInstantanea();
+        java.util.List<InstantaneaPartida.JugadorEstado> ranking = new java.util.ArrayList<>(estado.jugadores);
         ranking.sort((j1, j2) -> {
-            int compareFichas = Integer.compare(j2.contarFichasEnMeta(), j1.contarFichasEnMeta());
+            int compareFichas = Integer.compare(j2.fichasEnMeta, j1.fichasEnMeta);
             if (compareFichas != 0) return compareFichas;
-            return Integer.compare(j2.getPuntos(), j1.getPuntos());
+            return Integer.compare(j2.puntos, j1.puntos);
         });
         
         int posicion = 1;
-        for (Jugador j : ranking) {
-            System.out.println("    " + posicion + ". " + j.getNombre() + 
-                             " - Fichas: " + j.contarFichasEnMeta() + "/4" +
-                             " - Puntos: " + j.getPuntos());
+        for (InstantaneaPartida.JugadorEstado j : ranking) {
+            System.out.println("    " + posicion + ". " + j.nombre + 
+                             " - Fichas: " + j.fichasEnMeta + "/4" +
+                             " - Puntos: " + j.puntos);
             posicion++;
         }
         
         System.out.println("  " + SEPARADOR_FINO);
         System.out.println("");
-        System.out.println("  Partida ID: " + partida.getId());
+        System.out.println("  Partida ID: " + estado.partidaId);
         System.out.println("  Hora fin: " + obtenerHoraActual());
         System.out.println(SEPARADOR_DOBLE + "\n");
     }
@@ -308,20 +322,21 @@ public class VistaServidor {
      * Muestra estado de una partida.
      */
     public static void mostrarEstadoPartida(Partida partida) {
+        InstantaneaPartida estado = partida.getInstantanea();
         System.out.println("\n[" + obtenerHoraActual() + "] ESTADO DE PARTIDA");
         System.out.println(SEPARADOR_FINO);
-        System.out.println("  Partida ID: " + partida.getId());
-        System.out.println("  Nombre: " + partida.getNombre());
-        System.out.println("  Estado: " + partida.getEstado());
-        System.out.println("  Turno actual: " + partida.getTurnoActual());
+        System.out.println("  Partida ID: " + estado.partidaId);
+        System.out.println("  Nombre: " + estado.nombre);
+        System.out.println("  Estado: " + estado.estado);
+        System.out.println("  Turno actual: " + estado.turnoActual);
         System.out.println("");
-        System.out.println("  Jugadores (" + partida.getJugadores().size() + "/" + partida.getMaxJugadores() + "):");
+        System.out.println("  Jugadores (" + estado.jugadores.size() + "/" + estado.maxJugadores + "):");
         
-        for (Jugador j : partida.getJugadores()) {
-            String turno = partida.esTurnoDeJugador(j.getId()) ? " <-- TURNO" : "";
-            System.out.println("    - " + j.getNombre() + " [" + j.getColor() + "]" +
-                             " | Meta: " + j.contarFichasEnMeta() + "/4" +
-                             " | Pts: " + j.getPuntos() + turno);
+        for (InstantaneaPartida.JugadorEstado j : estado.jugadores) {
+            String turno = j.id == estado.jugadorActualId ? " <-- TURNO" : "";
+            System.out.println("    - " + j.nombre + " [" + j.color + "]" +
+                             " | Meta: " + j.fichasEnMeta + "/4" +
+                             " | Pts: " + j.puntos + turno);
         }
         
         System.out.println(SEPARADOR_FINO);
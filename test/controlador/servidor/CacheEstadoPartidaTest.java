@@ -0,0 +1,109 @@
+package controlador.servidor;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.List;
+import modelo.Jugador.Jugador;
+import modelo.Tablero.Tablero;
+import modelo.Tablero.TableroPrueba;
+import modelo.partida.EstadoPartida;
+import modelo.partida.InstantaneaPartida;
+import modelo.partida.Partida;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class CacheEstadoPartidaTest {
+
+    private Partida partida;
+    private Tablero tablero;
+    private List<Jugador> jugadores;
+    private CacheEstadoPartida cache;
+
+    @Before
+    public void setUp() {
+        tablero = new Tablero();
+        jugadores = TableroPrueba.registrarJugadores(tablero, 2);
+        partida = new Partida(1, "Prueba");
+        for (Jugador jugador : jugadores) {
+            partida.agregarJugador(jugador);
+        }
+        partida.setTablero(tablero);
+        partida.setEstado(EstadoPartida.EN_PROGRESO);
+        cache = new CacheEstadoPartida();
+    }
+
+    @Test
+    public void reutilizaMientrasNoCambie() {
+        CacheEstadoPartida.Entrada entrada = cache.obtener(partida);
+        assertSame(entrada, cache.obtener(partida));
+        assertEquals(1, cache.getSerializaciones());
+        assertEquals(1, cache.getAciertos());
+    }
+
+    @Test
+    public void seInvalidaAlPasarTurno() {
+        assertEquals(jugadores.get(0).getId(), estado().get("jugadorActualId").getAsInt());
+
+        partida.avanzarTurno();
+
+        JsonObject estado = estado();
+        assertEquals(1, estado.get("turnoActual").getAsInt());
+        assertEquals(jugadores.get(1).getId(), estado.get("jugadorActualId").getAsInt());
+        assertEquals(2, cache.getSerializaciones());
+    }
+
+    /**
+     * Basta con que el tablero publique otra version (sin marcarCambio).
+     */
+    @Test
+    public void seInvalidaConElTablero() {
+        assertEquals(0, fichasEnCasilla(estado(), 5));
+
+        jugadores.get(0).getFichas().get(0).moverA(tablero.getCasilla(5));
+        tablero.confirmarCambios();
+
+        JsonObject estado = estado();
+        assertEquals(tablero.getVersion(), estado.getAsJsonObject("tablero").get("version").getAsLong());
+        assertEquals(1, fichasEnCasilla(estado, 5));
+        assertEquals(2, cache.getSerializaciones());
+    }
+
+    /**
+     * Un hilo lento que capturo la instantanea anterior no reemplaza la
+     * entrada mas nueva.
+     */
+    @Test
+    public void noPisaUnaEntradaMasNueva() {
+        InstantaneaPartida anterior = partida.getInstantanea();
+        partida.avanzarTurno();
+        CacheEstadoPartida.Entrada nueva = cache.obtener(partida);
+
+        Partida lenta = new Partida(partida.getId(), "Prueba") {
+            @Override
+            public InstantaneaPartida getInstantanea() {
+                return anterior;
+            }
+        };
+        assertSame(nueva, cache.obtener(lenta));
+        assertSame(nueva, cache.obtener(partida));
+        assertEquals(1, cache.getSerializaciones());
+    }
+
+    private JsonObject estado() {
+        return JsonParser.parseString(cache.obtener(partida).getJson())
+            .getAsJsonObject().getAsJsonObject("partida");
+    }
+
+    private static int fichasEnCasilla(JsonObject estado, int indice) {
+        for (JsonElement casilla : estado.getAsJsonObject("tablero").getAsJsonArray("casillas")) {
+            if (casilla.getAsJsonObject().get("indice").getAsInt() == indice) {
+                return casilla.getAsJsonObject().getAsJsonArray("fichas").size();
+            }
+        }
+        throw new AssertionError("Sin casilla " + indice);
+    }
+}
@@ -0,0 +1,48 @@
+package controlador.servidor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import modelo.Tablero.Tablero;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompresionMensajesTest {
+
+    private final CompresionMensajes compresion = new CompresionMensajes();
+
+    @After
+    public void tearDown() {
+        compresion.cerrar();
+    }
+
+    @Test
+    public void estadoTableroSobreviveALaCompresion() throws DataFormatException {
+        // Las casillas vacias ya pasan del umbral
+        String json = EventoPartida.estadoTablero(new Tablero().getInstantanea()).getJson();
+
+        // Dos veces: la segunda con el compresor ya usado
+        for (int i = 0; i < 2; i++) {
+            ByteBuffer trama = compresion.comprimir(MensajeCodificado.de(json).vista());
+            assertNotNull(trama);
+            assertTrue(trama.remaining() < json.length());
+            assertEquals(json, compresion.descomprimir(comoTrama(trama)));
+        }
+    }
+
+    @Test
+    public void mensajeCortoSinComprimir() {
+        assertNull(compresion.comprimir(MensajeCodificado.de("{\"tipo\":\"ping\"}").vista()));
+    }
+
+    private static TramaBinaria comoTrama(ByteBuffer trama) {
+        byte[] datos = new byte[trama.remaining()];
+        trama.duplicate().get(datos);
+        return new TramaBinaria(datos[1], Arrays.copyOfRange(datos, ProtocoloBinario.CABECERA, datos.length));
+    }
+}
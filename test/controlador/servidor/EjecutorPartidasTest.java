@@ -0,0 +1,106 @@
+package controlador.servidor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Comandos de 16 partidas encolados desde 8 hilos de despacho.
+ */
+public class EjecutorPartidasTest {
+
+    private static final int PARTIDAS = 16;
+    private static final int HILOS = 8;
+    private static final int POR_HILO = 5000;
+
+    private final EjecutorPartidas ejecutor = new EjecutorPartidas(4, id -> false);
+
+    @After
+    public void tearDown() {
+        ejecutor.detener();
+    }
+
+    @Test
+    public void ejecutaTodosEnUnHiloPorPartida() throws InterruptedException {
+        long[] ejecutados = new long[PARTIDAS];
+        Thread[] hiloDePartida = new Thread[PARTIDAS];
+        AtomicBoolean cambioDeHilo = new AtomicBoolean();
+        AtomicInteger rechazados = new AtomicInteger();
+        CountDownLatch hechos = new CountDownLatch(HILOS * POR_HILO);
+
+        Thread[] despacho = new Thread[HILOS];
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            despacho[h] = new Thread(() -> {
+                for (int i = 0; i < POR_HILO; i++) {
+                    int partida = (hilo * 7 + i) % PARTIDAS;
+                    boolean encolado = ejecutor.encolar(partida, () -> {
+                        // Sin lock: solo lo toca el bucle de la partida
+                        ejecutados[partida]++;
+                        Thread actual = Thread.currentThread();
+                        if (hiloDePartida[partida] == null) {
+                            hiloDePartida[partida] = actual;
+                        } else if (hiloDePartida[partida] != actual) {
+                            cambioDeHilo.set(true);
+                        }
+                        hechos.countDown();
+                    });
+                    if (!encolado) rechazados.incrementAndGet();
+                }
+            });
+            despacho[h].start();
+        }
+        for (Thread t : despacho) {
+            t.join();
+        }
+        assertEquals(0, rechazados.get());
+        assertTrue(hechos.await(30, TimeUnit.SECONDS));
+
+        long total = 0;
+        for (long n : ejecutados) {
+            total += n;
+        }
+        assertEquals(HILOS * POR_HILO, total);
+        assertFalse("una partida cambio de hilo", cambioDeHilo.get());
+        assertEquals(PARTIDAS, ejecutor.getPartidasAsignadas());
+    }
+
+    @Test
+    public void reparteLasPartidasEntreLosBucles() throws InterruptedException {
+        Map<Thread, Boolean> hilos = new ConcurrentHashMap<>();
+        CountDownLatch hechos = new CountDownLatch(4);
+        for (int partida = 0; partida < 4; partida++) {
+            ejecutor.encolar(partida, () -> {
+                hilos.put(Thread.currentThread(), true);
+                hechos.countDown();
+            });
+        }
+        assertTrue(hechos.await(30, TimeUnit.SECONDS));
+        assertEquals(4, hilos.size());
+    }
+
+    @Test
+    public void liberaLaPartidaEliminada() throws InterruptedException {
+        CountDownLatch hecho = new CountDownLatch(1);
+        ejecutor.encolar(1, hecho::countDown);
+        assertTrue(hecho.await(30, TimeUnit.SECONDS));
+
+        ejecutor.partidaEliminada(1);
+        assertEquals(0, ejecutor.getPartidasAsignadas());
+    }
+
+    @Test
+    public void noEncolaDetenido() {
+        ejecutor.detener();
+        assertFalse(ejecutor.encolar(1, () -> { }));
+    }
+}
@@ -0,0 +1,62 @@
+package controlador.servidor;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.Arrays;
+import modelo.Jugador.Jugador;
+import modelo.Tablero.Tablero;
+import modelo.Tablero.TableroPrueba;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * La trama de cada EventoPartida, con el seq que pone el
+ * SecuenciadorPartida, se decodifica al mismo objeto que su linea JSON.
+ */
+public class EventoPartidaTest {
+
+    @Test
+    public void fichaMovidaIgualQueJson() {
+        comprobar(EventoPartida.fichaMovida(2, "Ana \"ñ\"", 1, 22, 26, null, null), 5);
+        comprobar(EventoPartida.fichaMovida(2, "Ana", 1, -1, 26, true, 3), 6);
+        comprobar(EventoPartida.fichaMovida(2, "Ana", 1, -2, -1, true, null), 7);
+    }
+
+    @Test
+    public void cambioTurnoIgualQueJson() {
+        comprobar(EventoPartida.cambioTurno(3, "Berta", null), 8);
+        comprobar(EventoPartida.cambioTurno(3, "Berta", "Berta no pudo jugar. Turno pasado."), 9);
+    }
+
+    @Test
+    public void tableroIgualQueJson() {
+        Tablero tablero = new Tablero();
+        Jugador jugador = TableroPrueba.registrarJugadores(tablero, 1).get(0);
+        jugador.getFichas().get(0).moverA(tablero.getCasilla(5));
+
+        comprobar(EventoPartida.tableroDelta(tablero.confirmarCambios()), 10);
+        comprobar(EventoPartida.estadoTablero(tablero.getInstantanea()), 0);
+    }
+
+    @Test
+    public void sinTramaSiNoCabe() {
+        assertNull(EventoPartida.cambioTurno(1, null, null).getTrama());
+        assertNull(ProtocoloBinario.conSecuencia(
+            EventoPartida.cambioTurno(1, "Ana", null).getTrama(), 1L << 33));
+    }
+
+    /**
+     * Con seq 0 (fuera de la secuencia) ni la linea ni la trama lo llevan.
+     */
+    private static void comprobar(EventoPartida evento, long seq) {
+        String json = seq == 0 ? evento.getJson() : SecuenciadorPartida.conSecuencia(evento.getJson(), seq);
+        byte[] trama = ProtocoloBinario.conSecuencia(evento.getTrama(), seq);
+        TramaBinaria binaria = new TramaBinaria(trama[1],
+            Arrays.copyOfRange(trama, ProtocoloBinario.CABECERA, trama.length));
+
+        JsonObject esperado = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals(esperado, ProtocoloBinario.decodificar(binaria));
+    }
+}
@@ -0,0 +1,45 @@
+package controlador.servidor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LectorEntradaTest {
+
+    @Test
+    public void separaLineas() throws IOException {
+        byte[] flujo = "{\"tipo\":\"tirar_dado\"}\n{\"tipo\":\"ping\",\"ñ\":\"á\"}\n"
+            .getBytes(StandardCharsets.UTF_8);
+        LectorEntrada lector = new LectorEntrada(new ByteArrayInputStream(flujo));
+
+        assertEquals("{\"tipo\":\"tirar_dado\"}", lector.siguiente().toString());
+        assertEquals("{\"tipo\":\"ping\",\"ñ\":\"á\"}", lector.siguiente().toString());
+        assertNull(lector.siguiente());
+    }
+
+    /**
+     * Un cliente que nunca envia '\n' no hace crecer el buffer sin limite.
+     */
+    @Test(expected = IOException.class)
+    public void cortaLineaSinFin() throws IOException {
+        InputStream sinFin = new InputStream() {
+            @Override
+            public int read() {
+                return 'a';
+            }
+
+            @Override
+            public int read(byte[] b, int desde, int longitud) {
+                Arrays.fill(b, desde, desde + longitud, (byte) 'a');
+                return longitud;
+            }
+        };
+        new LectorEntrada(sinFin).siguiente();
+    }
+}
@@ -0,0 +1,134 @@
+package controlador.servidor;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.Test;
+
+import static controlador.servidor.CamposMensaje.*;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Los mensajes escritos con PlantillaMensaje son identicos, byte a byte, a
+ * los que se construian con JsonObject.
+ */
+public class PlantillaMensajeTest {
+
+    private static final PlantillaMensaje JUGADOR_TIRO_DADOS = PlantillaMensaje.de("jugador_tiro_dados");
+    private static final PlantillaMensaje RESULTADO_DADOS = PlantillaMensaje.de("resultado_dados").fijo("exito", true);
+    private static final PlantillaMensaje MOVIMIENTO_EXITOSO = PlantillaMensaje.de("movimiento_exitoso").fijo("exito", true);
+    private static final PlantillaMensaje TU_TURNO = PlantillaMensaje.de("tu_turno");
+
+    @Test
+    public void tiroDados() {
+        JsonObject tiro = new JsonObject();
+        tiro.addProperty("tipo", "jugador_tiro_dados");
+        tiro.addProperty("jugadorId", 2);
+        tiro.addProperty("jugadorNombre", "Jugador2");
+        tiro.addProperty("dado1", 4);
+        tiro.addProperty("dado2", 3);
+        tiro.addProperty("suma", 7);
+        tiro.addProperty("esDoble", false);
+
+        assertEquals(tiro.toString(), JUGADOR_TIRO_DADOS.iniciar()
+            .entero(JUGADOR_ID, 2)
+            .texto(JUGADOR_NOMBRE, "Jugador2")
+            .entero(DADO1, 4)
+            .entero(DADO2, 3)
+            .entero(SUMA, 7)
+            .booleano(ES_DOBLE, false)
+            .json());
+    }
+
+    @Test
+    public void objetoAnidado() {
+        JsonObject resultado = new JsonObject();
+        resultado.addProperty("tipo", "resultado_dados");
+        resultado.addProperty("exito", true);
+        JsonObject dados = new JsonObject();
+        dados.addProperty("dado1", 4);
+        dados.addProperty("dado2", 3);
+        dados.addProperty("suma", 7);
+        dados.addProperty("esDoble", false);
+        dados.addProperty("contadorDobles", 0);
+        resultado.add("dados", dados);
+        resultado.addProperty("mensaje", "Dados lanzados");
+        resultado.addProperty("puedeJugar", true);
+        resultado.addProperty("tieneFichasEnJuego", true);
+
+        assertEquals(resultado.toString(), RESULTADO_DADOS.iniciar()
+            .objeto(DADOS)
+                .entero(DADO1, 4)
+                .entero(DADO2, 3)
+                .entero(SUMA, 7)
+                .booleano(ES_DOBLE, false)
+                .entero(CONTADOR_DOBLES, 0)
+            .cerrar()
+            .texto(MENSAJE, "Dados lanzados")
+            .booleano(PUEDE_JUGAR, true)
+            .booleano(TIENE_FICHAS_EN_JUEGO, true)
+            .json());
+
+        JsonObject exito = new JsonObject();
+        exito.addProperty("tipo", "movimiento_exitoso");
+        exito.addProperty("exito", true);
+        JsonObject movimiento = new JsonObject();
+        movimiento.addProperty("desde", 7);
+        movimiento.addProperty("hasta", 11);
+        exito.add("movimiento", movimiento);
+        exito.addProperty("mensaje", "Ficha movida exitosamente");
+        exito.addProperty("turnoTerminado", true);
+
+        assertEquals(exito.toString(), MOVIMIENTO_EXITOSO.iniciar()
+            .objeto(MOVIMIENTO)
+                .entero(DESDE, 7)
+                .entero(HASTA, 11)
+            .cerrar()
+            .texto(MENSAJE, "Ficha movida exitosamente")
+            .booleano(TURNO_TERMINADO, true)
+            .json());
+    }
+
+    @Test
+    public void lista() {
+        JsonObject salas = new JsonObject();
+        salas.addProperty("tipo", "lista_salas");
+        salas.addProperty("exito", true);
+        salas.addProperty("total", 2);
+        JsonArray lista = new JsonArray();
+        for (int s = 1; s <= 2; s++) {
+            JsonObject sala = new JsonObject();
+            sala.addProperty("id", s);
+            sala.addProperty("nombre", "Sala " + s);
+            lista.add(sala);
+        }
+        salas.add("salas", lista);
+
+        PlantillaMensaje.Escritor escritor = PlantillaMensaje.de("lista_salas").fijo("exito", true).iniciar()
+            .entero(TOTAL, 2)
+            .lista(SALAS);
+        for (int s = 1; s <= 2; s++) {
+            escritor.elemento()
+                .entero(ID, s)
+                .texto(NOMBRE, "Sala " + s)
+                .cerrar();
+        }
+        assertEquals(salas.toString(), escritor.cerrar().json());
+    }
+
+    /**
+     * Los textos se escapan como lo hace Gson.
+     */
+    @Test
+    public void escapaTextos() {
+        String nombre = "Ana \"la <rapida>\" ñ\\\n\t\u0001 & 'x' =";
+        JsonObject tuTurno = new JsonObject();
+        tuTurno.addProperty("tipo", "tu_turno");
+        tuTurno.addProperty("jugadorId", 3);
+        tuTurno.addProperty("jugadorNombre", nombre);
+
+        assertEquals(tuTurno.toString(), TU_TURNO.iniciar()
+            .entero(JUGADOR_ID, 3)
+            .texto(JUGADOR_NOMBRE, nombre)
+            .json());
+    }
+}
@@ -0,0 +1,1238 @@
+package controlador.servidor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Prueba de carga: cuantas sesiones simultaneas atiende cada modo.
+ *
+ * Levanta un ServidorCentral local en el modo indicado, abre N conexiones
+ * inactivas (un solo hilo cliente con Selector) y cuenta cuantas reciben
+ * la bienvenida dentro del tiempo limite.
+ *
+ * Con "DIFUSION" compara, para una mesa de 4 y para 1000 sesiones, el envio
+ * con codificacion por destinatario frente al broadcast con codificacion
+ * unica (contadores de EstadisticasRed y bytes asignados por el hilo).
+ *
+ * Con "AGRUPACION" simula jugadas en una mesa de 4 (los 7 mensajes de un
+ * movimiento con captura) y cuenta escrituras al socket por jugada, sin y
+ * con LoteSalida.
+ *
+ * Con "PROTOCOLO" compara JSON y ProtocoloBinario en un turno tipico (lo
+ * que recibe un jugador y lo que envia el que mueve): bytes por turno y
+ * nanosegundos de decodificacion por turno.
+ *
+ * Con "TABLERO" compara, por movimiento, difundir el estado_tablero
+ * completo frente al tablero_delta versionado: bytes (JSON y binario) y
+ * nanosegundos de serializacion.
+ *
+ * Con "ESTADO" simula una tormenta de obtener_estado (8 hilos pidiendo el
+ * estado completo de la misma partida) serializando cada vez frente a la
+ * CacheEstadoPartida: serializaciones y nanosegundos por solicitud.
+ *
+ * Con "LECTURA" compara la lectura de solicitudes con
+ * BufferedReader.readLine() y con LectorEntrada (DelimitadorEntrada +
+ * LineaBytes), ambas decodificadas con DecodificadorSolicitud: nanosegundos
+ * y bytes asignados por solicitud.
+ *
+ * Con "COMPRESION" reproduce una partida grabada (lista de salas, turnos
+ * con sus deltas y, de vez en cuando, un estado_tablero y un
+ * estado_completo de un cliente que se resincroniza) y compara los bytes en
+ * el cable sin compresion, con deflate sin diccionario y con
+ * CompresionMensajes, ademas del tiempo de CPU de comprimir y descomprimir.
+ *
+ * Con "OCUPACION" compara las consultas de las reglas (barrera, barrera
+ * rival y fichas de un jugador en una casilla) agrupando la lista de
+ * fichas de la casilla, como antes, y leyendo OcupacionTablero a traves de
+ * Tablero y Casilla: nanosegundos y bytes asignados por consulta
+ * (OcupacionTableroTest comprueba que ambas dan lo mismo).
+ *
+ * Con "INSTANTANEAS" mide 8 hilos que piden el estado_tablero y el
+ * estado_completo mientras otro hilo mueve fichas y pasa turnos: leyendo
+ * las casillas vivas con el monitor del tablero (el escritor tambien lo
+ * toma para no romper a los lectores) y leyendo las instantaneas
+ * publicadas, sin lock. Da los nanosegundos por solicitud y los
+ * movimientos por milisegundo del escritor (InstantaneaTableroTest
+ * comprueba que ninguna lectura ve un tablero a medias).
+ *
+ * Con "PARTIDAS" envia comandos de juego (mover, confirmar y pasar turno
+ * dentro de un lote del MotorJuego) a 1, 4, 16 y 64 partidas desde 8 hilos
+ * de despacho: ejecutados en el hilo que los recibe, con los locks del motor
+ * y de la partida, o encolados en el buzon de su partida
+ * (EjecutorPartidas). Da los comandos por milisegundo y cuantas veces
+ * cambio de hilo cada partida (EjecutorPartidasTest comprueba que no se
+ * pierde ningun comando).
+ *
+ * Con "PLANTILLAS" compara los mensajes que el servidor emite en un turno
+ * construidos con JsonObject y con PlantillaMensaje: bytes asignados y
+ * nanosegundos por turno (PlantillaMensajeTest comprueba que la salida es
+ * identica).
+ *
+ * Uso:
+ *   java -cp ... controlador.servidor.PruebaCarga [modo|TODOS] [sesiones] [segundos]
+ *   java -cp ... controlador.servidor.PruebaCarga DIFUSION [eventos]
+ *   java -cp ... controlador.servidor.PruebaCarga AGRUPACION [jugadas]
+ *   java -cp ... controlador.servidor.PruebaCarga PROTOCOLO [turnos]
+ *   java -cp ... controlador.servidor.PruebaCarga PLANTILLAS [turnos]
+ *   java -cp ... controlador.servidor.PruebaCarga TABLERO [movimientos]
+ *   java -cp ... controlador.servidor.PruebaCarga ESTADO [solicitudes]
+ *   java -cp ... controlador.servidor.PruebaCarga LECTURA [solicitudes]
+ *   java -cp ... controlador.servidor.PruebaCarga COMPRESION [turnos]
+ *   java -cp ... controlador.servidor.PruebaCarga OCUPACION [consultas]
+ *   java -cp ... controlador.servidor.PruebaCarga INSTANTANEAS [solicitudes]
+ *   java -cp ... controlador.servidor.PruebaCarga PARTIDAS [comandos]
+ *   (conviene subir "ulimit -n" por encima del numero de sesiones)
+ */
+public class PruebaCarga {
+
+    public static void main(String[] args) throws Exception {
+        String modoArg = args.length > 0 ? args[0].toUpperCase() : "TODOS";
+        if (modoArg.equals("DIFUSION")) {
+            int eventos = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+            pruebaDifusion(5750, 4, eventos);
+            pruebaDifusion(5751, 1000, eventos);
+            System.exit(0);
+        }
+        if (modoArg.equals("AGRUPACION")) {
+            int jugadas = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            pruebaAgrupacion(5760, ModoServidor.NIO, jugadas);
+            pruebaAgrupacion(5761, ModoServidor.POOL_FIJO, jugadas);
+            System.exit(0);
+        }
+        if (modoArg.equals("PROTOCOLO")) {
+            int turnos = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+            pruebaProtocolo(turnos);
+            System.exit(0);
+        }
+        if (modoArg.equals("TABLERO")) {
+            int movimientos = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+            pruebaTablero(movimientos);
+            System.exit(0);
+        }
+        if (modoArg.equals("ESTADO")) {
+            int solicitudes = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+            pruebaEstado(solicitudes);
+            System.exit(0);
+        }
+        if (modoArg.equals("LECTURA")) {
+            int solicitudes = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+            pruebaLectura(solicitudes);
+            System.exit(0);
+        }
+        if (modoArg.equals("COMPRESION")) {
+            int turnos = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+            pruebaCompresion(turnos);
+            System.exit(0);
+        }
+        if (modoArg.equals("OCUPACION")) {
+            int consultas = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+            pruebaOcupacion(consultas);
+            System.exit(0);
+        }
+        if (modoArg.equals("INSTANTANEAS")) {
+            int solicitudes = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+            pruebaInstantaneas(solicitudes);
+            System.exit(0);
+        }
+        if (modoArg.equals("PARTIDAS")) {
+            int comandos = args.length > 1 ? Integer.parseInt(args[1]) : 400000;
+            pruebaPartidas(comandos);
+            System.exit(0);
+        }
+        if (modoArg.equals("PLANTILLAS")) {
+            int turnos = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+            pruebaPlantillas(turnos);
+            System.exit(0);
+        }
+        int sesiones = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        List<ModoServidor> modos = new ArrayList<>();
+        if (modoArg.equals("TODOS")) {
+            modos.add(ModoServidor.POOL_FIJO);
+            modos.add(ModoServidor.HILOS_VIRTUALES);
+            modos.add(ModoServidor.NIO);
+        } else {
+            modos.add(ModoServidor.valueOf(modoArg));
+        }
+
+        System.out.println("================================================");
+        System.out.println("   PRUEBA DE CARGA - " + sesiones + " sesiones, " + segundos + "s");
+        System.out.println("================================================");
+
+        int puerto = 5700;
+        for (ModoServidor modo : modos) {
+            ejecutar(modo, puerto++, sesiones, segundos);
+        }
+        System.exit(0);
+    }
+
+    private static void ejecutar(ModoServidor modo, int puerto, int sesiones, int segundos)
+            throws Exception {
+        ServidorCentral servidor = new ServidorCentral(puerto, modo);
+        Thread hiloServidor = new Thread(servidor::iniciar, "servidor-" + modo);
+        hiloServidor.setDaemon(true);
+        hiloServidor.start();
+        Thread.sleep(500);
+
+        int hilosAntes = Thread.activeCount();
+        Selector selector = Selector.open();
+        List<SocketChannel> canales = new ArrayList<>(sesiones);
+        int atendidas = 0;
+
+        try {
+            for (int i = 0; i < sesiones; i++) {
+                SocketChannel canal = SocketChannel.open(new InetSocketAddress("localhost", puerto));
+                canal.configureBlocking(false);
+                canal.register(selector, SelectionKey.OP_READ);
+                canales.add(canal);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            long limite = System.currentTimeMillis() + segundos * 1000L;
+
+            while (atendidas < sesiones && System.currentTimeMillis() < limite) {
+                selector.select(200);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey clave = it.next();
+                    it.remove();
+                    buffer.clear();
+                    int leidos = ((SocketChannel) clave.channel()).read(buffer);
+                    if (leidos > 0 && contieneFinDeLinea(buffer)) {
+                        atendidas++;
+                        clave.cancel();
+                    } else if (leidos < 0) {
+                        clave.cancel();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("  Error abriendo conexiones: " + e.getMessage());
+        }
+
+        System.out.printf("  %-16s atendidas=%d/%d  hilos(JVM)=%d  abiertas=%d%n",
+            modo, atendidas, sesiones, Thread.activeCount() - hilosAntes, canales.size());
+
+        for (SocketChannel canal : canales) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Ignorar
+            }
+        }
+        selector.close();
+        servidor.detener();
+        Thread.sleep(500);
+    }
+
+    private static void pruebaDifusion(int puerto, int sesiones, int eventos) throws Exception {
+        ServidorCentral servidor = new ServidorCentral(puerto, ModoServidor.NIO);
+        Thread hiloServidor = new Thread(servidor::iniciar, "servidor-difusion");
+        hiloServidor.setDaemon(true);
+        hiloServidor.start();
+        Thread.sleep(500);
+
+        List<SocketChannel> canales = new ArrayList<>(sesiones);
+        for (int i = 0; i < sesiones; i++) {
+            canales.add(SocketChannel.open(new InetSocketAddress("localhost", puerto)));
+        }
+        while (servidor.getNumeroClientesConectados() < sesiones) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(300);
+
+        String evento = "{\"tipo\":\"ficha_movida\",\"jugadorId\":1,\"nombre\":\"Jugador\","
+            + "\"fichaId\":3,\"dado1\":4,\"dado2\":2,\"casillaDestino\":37,\"ñ\":\"áéí\"}";
+
+        System.out.println("--- Difusion: " + sesiones + " sesiones, " + eventos + " eventos ---");
+
+        // Antes: cada destinatario recodificaba el String
+        List<ClienteHandler> clientes = servidor.getClientesConectados();
+        medirDifusion("por destinatario", () -> {
+            for (int e = 0; e < eventos; e++) {
+                for (ClienteHandler cliente : clientes) {
+                    cliente.enviarMensaje(evento);
+                }
+            }
+        });
+
+        // Ahora: una codificacion por evento, vistas compartidas
+        medirDifusion("codificacion unica", () -> {
+            for (int e = 0; e < eventos; e++) {
+                servidor.broadcastATodos(evento);
+            }
+        });
+
+        for (SocketChannel canal : canales) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Ignorar
+            }
+        }
+        servidor.detener();
+        Thread.sleep(500);
+    }
+
+    private static void pruebaAgrupacion(int puerto, ModoServidor modo, int jugadas) throws Exception {
+        ServidorCentral servidor = new ServidorCentral(puerto, modo);
+        Thread hiloServidor = new Thread(servidor::iniciar, "servidor-agrupacion");
+        hiloServidor.setDaemon(true);
+        hiloServidor.start();
+        Thread.sleep(500);
+
+        int sesiones = 4;
+        List<SocketChannel> canales = new ArrayList<>(sesiones);
+        for (int i = 0; i < sesiones; i++) {
+            SocketChannel canal = SocketChannel.open(new InetSocketAddress("localhost", puerto));
+            canales.add(canal);
+            Thread lector = new Thread(() -> {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+                try {
+                    while (canal.read(buffer) >= 0) {
+                        buffer.clear();
+                    }
+                } catch (IOException e) {
+                    // Conexion cerrada
+                }
+            });
+            lector.setDaemon(true);
+            lector.start();
+        }
+        while (servidor.getNumeroClientesConectados() < sesiones) {
+            Thread.sleep(50);
+        }
+        Thread.sleep(300);
+
+        StringBuilder casillas = new StringBuilder();
+        for (int i = 0; i < 60; i++) {
+            casillas.append("{\"indice\":").append(i).append(",\"tipo\":\"NORMAL\",\"fichas\":[]},");
+        }
+        String[] jugada = {
+            "{\"tipo\":\"ficha_movida\",\"jugadorId\":1,\"fichaId\":2,\"desde\":10,\"hasta\":15}",
+            "{\"tipo\":\"ficha_capturada\",\"jugadorId\":1,\"fichaCapturadaId\":3,\"casilla\":15}",
+            "{\"tipo\":\"ficha_movida\",\"jugadorId\":1,\"fichaId\":2,\"desde\":15,\"hasta\":35}",
+            "{\"tipo\":\"aplicar_bonus_captura\",\"jugadorId\":1,\"pasos\":20}",
+            "{\"tipo\":\"estado_tablero\",\"tablero\":{\"casillas\":[" + casillas + "{}]}}",
+            "{\"tipo\":\"cambio_turno\",\"turnoActual\":1,\"jugadorId\":2}",
+            "{\"tipo\":\"tu_turno\",\"mensaje\":\"Es tu turno\"}"
+        };
+
+        System.out.println("--- Agrupacion " + modo + ": " + sesiones + " sesiones, " + jugadas + " jugadas ---");
+
+        medirAgrupacion("sin lote", servidor, jugada, jugadas, sesiones, false);
+        medirAgrupacion("lote por peticion", servidor, jugada, jugadas, sesiones, true);
+
+        for (SocketChannel canal : canales) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                // Ignorar
+            }
+        }
+        servidor.detener();
+        Thread.sleep(500);
+    }
+
+    private static void medirAgrupacion(String nombre, ServidorCentral servidor, String[] jugada,
+                                        int jugadas, int sesiones, boolean conLote) throws Exception {
+        EstadisticasRed.reiniciar();
+        for (int j = 0; j < jugadas; j++) {
+            LoteSalida lote = conLote ? LoteSalida.abrir() : null;
+            try {
+                for (String mensaje : jugada) {
+                    servidor.broadcastATodos(mensaje);
+                }
+            } finally {
+                if (lote != null) {
+                    lote.cerrar();
+                }
+            }
+            // Una jugada cada ~1 ms, como varios jugadores activos
+            Thread.sleep(1);
+        }
+        Thread.sleep(500);
+
+        System.out.printf("  %-20s escrituras=%d  por jugada y sesion=%.2f  (%d mensajes)%n",
+            nombre, EstadisticasRed.getEscrituras(),
+            EstadisticasRed.getEscrituras() / (double) (jugadas * sesiones),
+            EstadisticasRed.getEntregas());
+    }
+
+    /**
+     * Tablero real con 4 jugadores y dos fichas de cada uno fuera de casa.
+     */
+    private static modelo.Tablero.Tablero tableroDePrueba(List<modelo.Jugador.Jugador> jugadores) {
+        modelo.Tablero.Tablero tablero = new modelo.Tablero.Tablero();
+        jugadores.addAll(modelo.Tablero.TableroPrueba.registrarJugadores(tablero, 4));
+        for (int j = 0; j < 4; j++) {
+            for (int f = 0; f < 2; f++) {
+                jugadores.get(j).getFichas().get(f).moverA(tablero.getCasilla(5 + j * 17 + f * 6));
+            }
+        }
+        tablero.confirmarCambios();  // publica la instantanea con las fichas
+        return tablero;
+    }
+
+    private static void pruebaTablero(int movimientos) {
+        List<modelo.Jugador.Jugador> jugadores = new ArrayList<>();
+        modelo.Tablero.Tablero tablero = tableroDePrueba(jugadores);
+
+        long[] bytes = new long[4];
+        long[] nanos = new long[2];
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el JIT
+            java.util.Arrays.fill(bytes, 0);
+            for (int modo = 0; modo < 2; modo++) {
+                long inicio = System.nanoTime();
+                for (int t = 0; t < movimientos; t++) {
+                    modelo.Ficha.Ficha ficha = jugadores.get(t & 3).getFichas().get((t >> 2) & 1);
+                    int destino = ficha.getCasillaActual().getIndice() % 68 + 1;
+                    ficha.moverA(tablero.getCasilla(destino));
+
+                    EventoPartida mensaje;
+                    if (modo == 0) {
+                        tablero.confirmarCambios();
+                        mensaje = controlador.juego.SincronizacionTablero.crearMensajeEstado(tablero);
+                    } else {
+                        mensaje = controlador.juego.SincronizacionTablero.crearMensajeDelta(tablero.confirmarCambios());
+                    }
+                    if (ronda == 1 && t < 100) {
+                        bytes[modo * 2] += mensaje.getJson().getBytes(java.nio.charset.StandardCharsets.UTF_8).length + 1;
+                        byte[] trama = mensaje.getTrama();
+                        bytes[modo * 2 + 1] += trama != null ? trama.length : 0;
+                    }
+                }
+                nanos[modo] = System.nanoTime() - inicio;
+            }
+        }
+
+        System.out.println("--- Tablero: " + movimientos + " movimientos (bytes = media de 100) ---");
+        System.out.printf("  %-14s JSON=%d B/mov  binario=%d B/mov  serializacion=%d ns/mov%n",
+            "estado_tablero", bytes[0] / 100, bytes[1] / 100, nanos[0] / movimientos);
+        System.out.printf("  %-14s JSON=%d B/mov  binario=%d B/mov  serializacion=%d ns/mov%n",
+            "tablero_delta", bytes[2] / 100, bytes[3] / 100, nanos[1] / movimientos);
+    }
+
+    private static void pruebaEstado(int solicitudes) throws InterruptedException {
+        List<modelo.Jugador.Jugador> jugadores = new ArrayList<>();
+        modelo.Tablero.Tablero tablero = tableroDePrueba(jugadores);
+        modelo.partida.Partida partida = new modelo.partida.Partida(1, "Prueba");
+        for (modelo.Jugador.Jugador jugador : jugadores) {
+            partida.agregarJugador(jugador);
+        }
+        partida.setTablero(tablero);
+        partida.setEstado(modelo.partida.EstadoPartida.EN_PROGRESO);
+
+        CacheEstadoPartida cache = new CacheEstadoPartida();
+        System.out.println("--- Estado: " + solicitudes + " solicitudes en 8 hilos, "
+            + cache.obtener(partida).getJson().length() + " B por estado ---");
+
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el JIT
+            long sinCache = medirSolicitudes(solicitudes, () ->
+                MensajeCodificado.de(CacheEstadoPartida.serializar(partida.getInstantanea())));
+
+            long serializacionesAntes = cache.getSerializaciones();
+            partida.avanzarTurno();  // invalida la entrada
+            long conCache = medirSolicitudes(solicitudes, () -> cache.obtener(partida).getMensaje());
+
+            if (ronda == 1) {
+                System.out.printf("  %-10s serializaciones=%-7d %d ns/solicitud%n",
+                    "sin cache", solicitudes, sinCache / solicitudes);
+                System.out.printf("  %-10s serializaciones=%-7d %d ns/solicitud%n",
+                    "con cache", cache.getSerializaciones() - serializacionesAntes, conCache / solicitudes);
+            }
+        }
+    }
+
+    private static void pruebaInstantaneas(int solicitudes) throws InterruptedException {
+        List<modelo.Jugador.Jugador> jugadores = new ArrayList<>();
+        modelo.Tablero.Tablero tablero = tableroDePrueba(jugadores);
+        modelo.partida.Partida partida = new modelo.partida.Partida(1, "Prueba");
+        for (modelo.Jugador.Jugador jugador : jugadores) {
+            partida.agregarJugador(jugador);
+        }
+        partida.setTablero(tablero);
+        partida.setEstado(modelo.partida.EstadoPartida.EN_PROGRESO);
+        System.out.println("--- Instantaneas: " + solicitudes + " solicitudes en 8 hilos con un escritor ---");
+
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el JIT
+            for (int modo = 0; modo < 2; modo++) {
+                boolean conMonitor = modo == 0;
+                java.util.concurrent.atomic.AtomicBoolean parar = new java.util.concurrent.atomic.AtomicBoolean();
+                java.util.concurrent.atomic.AtomicLong movimientos = new java.util.concurrent.atomic.AtomicLong();
+
+                Thread escritor = new Thread(() -> {
+                    for (int t = 0; !parar.get(); t++) {
+                        modelo.Ficha.Ficha ficha = jugadores.get(t & 3).getFichas().get((t >> 2) & 1);
+                        if (conMonitor) {
+                            synchronized (tablero) {
+                                ficha.moverA(tablero.getCasilla(ficha.getCasillaActual().getIndice() % 68 + 1));
+                                tablero.confirmarCambios();
+                            }
+                        } else {
+                            ficha.moverA(tablero.getCasilla(ficha.getCasillaActual().getIndice() % 68 + 1));
+                            synchronized (tablero) {
+                                tablero.confirmarCambios();
+                            }
+                        }
+                        partida.avanzarTurno();
+                        movimientos.incrementAndGet();
+                    }
+                });
+                escritor.start();
+
+                long nanos = medirSolicitudes(solicitudes, () -> {
+                    String estadoTablero;
+                    if (conMonitor) {
+                        synchronized (tablero) {
+                            estadoTablero = estadoTableroReferencia(tablero);
+                        }
+                    } else {
+                        estadoTablero = controlador.juego.SincronizacionTablero.crearMensajeEstado(tablero).getJson();
+                    }
+                    String estadoCompleto = CacheEstadoPartida.serializar(partida.getInstantanea());
+                    return MensajeCodificado.de(estadoTablero.length() > estadoCompleto.length()
+                        ? estadoTablero : estadoCompleto);
+                });
+                long duracion = Math.max(1, nanos / 1000000);
+
+                parar.set(true);
+                escritor.join();
+                if (ronda == 1) {
+                    System.out.printf("  %-12s %5d ns/solicitud  escritor=%5d mov/ms%n",
+                        conMonitor ? "monitor" : "instantanea", nanos / solicitudes,
+                        movimientos.get() / duracion);
+                }
+            }
+        }
+    }
+
+    /**
+     * estado_tablero como lo generaba Tablero.generarEstadoJSON(),
+     * recorriendo las casillas vivas (el llamador tiene el monitor).
+     */
+    private static String estadoTableroReferencia(modelo.Tablero.Tablero tablero) {
+        com.google.gson.JsonObject json = new com.google.gson.JsonObject();
+        json.addProperty("version", tablero.getVersion());
+        com.google.gson.JsonArray casillasArr = new com.google.gson.JsonArray();
+        for (modelo.Tablero.Casilla c : tablero.getCasillas()) {
+            com.google.gson.JsonObject cObj = new com.google.gson.JsonObject();
+            cObj.addProperty("indice", c.getIndice());
+            cObj.addProperty("tipo", c.getTipo().name());
+            cObj.addProperty("color", c.getColor().name());
+            cObj.addProperty("bloqueada", c.isBloqueada());
+            com.google.gson.JsonArray fichasArr = new com.google.gson.JsonArray();
+            for (modelo.Ficha.Ficha f : c.getFichas()) {
+                com.google.gson.JsonObject fObj = new com.google.gson.JsonObject();
+                fObj.addProperty("id", f.getId());
+                fObj.addProperty("jugadorId", f.getIdJugador());
+                fObj.addProperty("color", f.getColor().name());
+                fObj.addProperty("estado", f.getEstado().name());
+                fichasArr.add(fObj);
+            }
+            cObj.add("fichas", fichasArr);
+            casillasArr.add(cObj);
+        }
+        json.add("casillas", casillasArr);
+        com.google.gson.JsonObject mensaje = new com.google.gson.JsonObject();
+        mensaje.addProperty("tipo", "estado_tablero");
+        mensaje.add("tablero", json);
+        return mensaje.toString();
+    }
+
+    private static void pruebaPartidas(int comandos) throws InterruptedException {
+        int hilos = 8;
+        int porHilo = comandos / hilos;
+        System.out.println("--- Partidas: " + porHilo * hilos + " comandos desde " + hilos +
+            " hilos, " + EjecutorPartidas.BUCLES + " bucles de partida ---");
+
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el JIT
+            for (int numero : new int[] {1, 4, 16, 64}) {
+                for (int modo = 0; modo < 2; modo++) {
+                    boolean conBuzones = modo == 1;
+                    MesaPrueba[] mesas = new MesaPrueba[numero];
+                    for (int i = 0; i < numero; i++) {
+                        mesas[i] = new MesaPrueba(i + 1);
+                    }
+                    EjecutorPartidas ejecutor = conBuzones ? new EjecutorPartidas(id -> false) : null;
+                    java.util.concurrent.CountDownLatch hechos =
+                        new java.util.concurrent.CountDownLatch(conBuzones ? porHilo * hilos : 0);
+
+                    Thread[] despacho = new Thread[hilos];
+                    long inicio = System.nanoTime();
+                    for (int h = 0; h < hilos; h++) {
+                        int hilo = h;
+                        despacho[h] = new Thread(() -> {
+                            for (int i = 0; i < porHilo; i++) {
+                                MesaPrueba mesa = mesas[(hilo * 7 + i) % numero];
+                                if (conBuzones) {
+                                    ejecutor.encolar(mesa.partida.getId(), () -> {
+                                        mesa.jugada();
+                                        hechos.countDown();
+                                    });
+                                } else {
+                                    mesa.jugada();
+                                }
+                            }
+                        });
+                        despacho[h].start();
+                    }
+                    for (Thread t : despacho) {
+                        t.join();
+                    }
+                    hechos.await();
+                    long nanos = System.nanoTime() - inicio;
+
+                    long cambiosDeHilo = 0;
+                    for (MesaPrueba mesa : mesas) {
+                        cambiosDeHilo += mesa.cambiosDeHilo;
+                    }
+                    if (ronda == 1) {
+                        System.out.printf("  %2d partidas  %-8s %5d comandos/ms  cambios de hilo por partida=%.1f%n",
+                            numero, conBuzones ? "buzones" : "hilos", porHilo * hilos * 1000000L / Math.max(1, nanos),
+                            (double) cambiosDeHilo / numero);
+                        if (conBuzones && numero == 64) {
+                            System.out.println("  " + ejecutor.resumen());
+                        }
+                    }
+                    if (ejecutor != null) {
+                        ejecutor.detener();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Partida de 4 jugadores con su motor para pruebaPartidas. Los campos
+     * de conteo solo se tocan dentro del lote del motor.
+     */
+    private static final class MesaPrueba {
+        final modelo.partida.Partida partida;
+        final modelo.Tablero.Tablero tablero;
+        final List<modelo.Jugador.Jugador> jugadores = new ArrayList<>();
+        final modelo.partida.MotorJuego motor;
+        long movimientos;
+        long cambiosDeHilo;
+        Thread ultimoHilo;
+
+        MesaPrueba(int id) {
+            this.tablero = tableroDePrueba(jugadores);
+            this.partida = new modelo.partida.Partida(id, "Prueba" + id);
+            for (modelo.Jugador.Jugador jugador : jugadores) {
+                partida.agregarJugador(jugador);
+            }
+            partida.setTablero(tablero);
+            partida.setEstado(modelo.partida.EstadoPartida.EN_PROGRESO);
+            this.motor = new modelo.partida.MotorJuego(partida);
+        }
+
+        void jugada() {
+            motor.ejecutarLote(() -> {
+                Thread hilo = Thread.currentThread();
+                if (hilo != ultimoHilo) {
+                    cambiosDeHilo++;
+                    ultimoHilo = hilo;
+                }
+                long t = movimientos++;
+                modelo.Ficha.Ficha ficha = jugadores.get((int) (t & 3)).getFichas().get((int) ((t >> 2) & 1));
+                ficha.moverA(tablero.getCasilla(ficha.getCasillaActual().getIndice() % 68 + 1));
+                tablero.confirmarCambios();
+                partida.avanzarTurno();
+                return null;
+            });
+        }
+    }
+
+    private static long medirSolicitudes(int solicitudes, java.util.function.Supplier<MensajeCodificado> solicitud)
+            throws InterruptedException {
+        int hilos = 8;
+        Thread[] trabajadores = new Thread[hilos];
+        long inicio = System.nanoTime();
+        for (int h = 0; h < hilos; h++) {
+            trabajadores[h] = new Thread(() -> {
+                for (int i = 0; i < solicitudes / hilos; i++) {
+                    if (solicitud.get().getLongitud() == 0) {
+                        throw new IllegalStateException("Estado vacio");
+                    }
+                }
+            });
+            trabajadores[h].start();
+        }
+        for (Thread t : trabajadores) {
+            t.join();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private static void pruebaLectura(int solicitudes) throws IOException {
+        String[] lineas = {
+            "{\"tipo\":\"tirar_dado\"}",
+            "{\"tipo\":\"mover_ficha_un_dado\",\"fichaId\":2,\"valorDado\":4,\"pasarTurno\":false}",
+            "{\"tipo\":\"mover_ficha_un_dado\",\"fichaId\":3,\"valorDado\":3,\"pasarTurno\":true,\"reqId\":17}",
+            "{\"tipo\":\"ping\"}"
+        };
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < solicitudes; i++) {
+            texto.append(lineas[i % lineas.length]).append('\n');
+        }
+        byte[] flujo = texto.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        System.out.println("--- Lectura: " + solicitudes + " solicitudes, " + flujo.length / 1024 + " KB ---");
+
+        for (int ronda = 0; ronda < 3; ronda++) {
+            // Las primeras rondas calientan el JIT
+            long[] conReadLine = medirLectura(solicitudes, () -> {
+                java.io.BufferedReader lector = new java.io.BufferedReader(new java.io.InputStreamReader(
+                    new java.io.ByteArrayInputStream(flujo), java.nio.charset.StandardCharsets.UTF_8));
+                controlador.DecodificadorSolicitud decodificador = new controlador.DecodificadorSolicitud();
+                int leidas = 0;
+                String linea;
+                while ((linea = lector.readLine()) != null) {
+                    if (decodificador.decodificar(linea) != null) leidas++;
+                }
+                return leidas;
+            });
+            long[] conDelimitador = medirLectura(solicitudes, () -> {
+                LectorEntrada lector = new LectorEntrada(new java.io.ByteArrayInputStream(flujo));
+                controlador.DecodificadorSolicitud decodificador = new controlador.DecodificadorSolicitud();
+                int leidas = 0;
+                Object mensaje;
+                while ((mensaje = lector.siguiente()) != null) {
+                    if (decodificador.decodificar((CharSequence) mensaje) != null) leidas++;
+                }
+                return leidas;
+            });
+
+            if (ronda == 2) {
+                System.out.printf("  %-12s %4d ns/solicitud  %4d B asignados/solicitud%n",
+                    "readLine", conReadLine[0], conReadLine[1]);
+                System.out.printf("  %-12s %4d ns/solicitud  %4d B asignados/solicitud%n",
+                    "delimitador", conDelimitador[0], conDelimitador[1]);
+            }
+        }
+    }
+
+    private interface Lectura {
+        int leer() throws IOException;
+    }
+
+    /**
+     * @return {nanosegundos, bytes asignados} por solicitud
+     */
+    private static long[] medirLectura(int solicitudes, Lectura lectura) throws IOException {
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().threadId();
+        boolean medirAsignacion = mx instanceof com.sun.management.ThreadMXBean;
+
+        long asignadoAntes = medirAsignacion
+            ? ((com.sun.management.ThreadMXBean) mx).getThreadAllocatedBytes(hilo) : 0;
+        long inicio = System.nanoTime();
+        int leidas = lectura.leer();
+        long nanos = System.nanoTime() - inicio;
+        long asignado = medirAsignacion
+            ? ((com.sun.management.ThreadMXBean) mx).getThreadAllocatedBytes(hilo) - asignadoAntes : -1;
+
+        if (leidas != solicitudes) {
+            throw new IllegalStateException("Se leyeron " + leidas + " de " + solicitudes + " solicitudes");
+        }
+        return new long[] { nanos / solicitudes, asignado / solicitudes };
+    }
+
+    private static void pruebaOcupacion(int consultas) throws IOException {
+        List<modelo.Jugador.Jugador> jugadores = new ArrayList<>();
+        modelo.Tablero.Tablero tablero = tableroDePrueba(jugadores);
+        // Una barrera de cada jugador y una casilla compartida con un rival
+        for (int j = 0; j < 4; j++) {
+            List<modelo.Ficha.Ficha> fichas = jugadores.get(j).getFichas();
+            fichas.get(2).moverA(fichas.get(0).getCasillaActual());
+            fichas.get(3).moverA(jugadores.get((j + 1) % 4).getFichas().get(1).getCasillaActual());
+        }
+        int casillas = tablero.getNumeroCasillas();
+        System.out.println("--- Ocupacion: " + consultas + " consultas ---");
+
+        long[] resultados = new long[2];
+        for (int ronda = 0; ronda < 3; ronda++) {
+            // Las primeras rondas calientan el JIT
+            long[] conListas = medirLectura(consultas, () -> {
+                resultados[0] = 0;
+                for (int i = 0; i < consultas; i++) {
+                    int jugadorId = (i & 3) + 1;
+                    List<modelo.Ficha.Ficha> fichas = tablero.getCasilla(i % casillas + 1).getFichas();
+                    if (barreraAgrupando(fichas, -1)) resultados[0]++;
+                    if (barreraAgrupando(fichas, jugadorId)) resultados[0] += 2;
+                    resultados[0] += 4 * fichas.stream().filter(f -> f.getIdJugador() == jugadorId).count();
+                }
+                return consultas;
+            });
+            long[] conContadores = medirLectura(consultas, () -> {
+                resultados[1] = 0;
+                for (int i = 0; i < consultas; i++) {
+                    int jugadorId = (i & 3) + 1;
+                    int casilla = i % casillas + 1;
+                    if (tablero.esBarrera(casilla)) resultados[1]++;
+                    if (tablero.esBarreraRival(casilla, jugadorId)) resultados[1] += 2;
+                    resultados[1] += 4 * tablero.getCasilla(casilla).contarFichasDeJugador(jugadorId);
+                }
+                return consultas;
+            });
+
+            if (ronda == 2) {
+                System.out.printf("  %-12s %4d ns/consulta  %4d B asignados/consulta%n",
+                    "listas", conListas[0], conListas[1]);
+                System.out.printf("  %-12s %4d ns/consulta  %4d B asignados/consulta%n",
+                    "contadores", conContadores[0], conContadores[1]);
+            }
+        }
+    }
+
+    /**
+     * Barrera (2+ fichas de un jugador distinto de "excluido") agrupando la
+     * lista, como lo hacian Tablero y MotorJuego.
+     */
+    private static boolean barreraAgrupando(List<modelo.Ficha.Ficha> fichas, int excluido) {
+        if (fichas.size() < 2) return false;
+        return fichas.stream()
+            .filter(f -> f.getIdJugador() != excluido)
+            .collect(java.util.stream.Collectors.groupingBy(
+                modelo.Ficha.Ficha::getIdJugador, java.util.stream.Collectors.counting()))
+            .values().stream().anyMatch(n -> n >= 2);
+    }
+
+    private static void pruebaCompresion(int turnos) throws java.util.zip.DataFormatException {
+        List<MensajeCodificado> partida = partidaGrabada(turnos);
+        CompresionMensajes compresion = new CompresionMensajes();
+
+        long bytesJson = 0;
+        long bytesSinDiccionario = 0;
+        long bytesDeflate = 0;
+        int comprimidos = 0;
+        java.util.zip.Deflater sinDiccionario = new java.util.zip.Deflater(CompresionMensajes.NIVEL);
+        byte[] buffer = new byte[64 * 1024];
+        for (MensajeCodificado mensaje : partida) {
+            int longitud = mensaje.getLongitud();
+            bytesJson += longitud;
+
+            ByteBuffer trama = compresion.comprimir(mensaje.vista());
+            bytesDeflate += trama != null ? trama.remaining() : longitud;
+            if (trama != null) {
+                comprimidos++;
+            }
+
+            if (longitud - 1 >= CompresionMensajes.UMBRAL) {
+                sinDiccionario.reset();
+                sinDiccionario.setInput(bytes(mensaje.vista()), 0, longitud - 1);
+                sinDiccionario.finish();
+                int n = ProtocoloBinario.CABECERA + sinDiccionario.deflate(buffer);
+                bytesSinDiccionario += Math.min(n, longitud);
+            } else {
+                bytesSinDiccionario += longitud;
+            }
+        }
+        sinDiccionario.end();
+
+        System.out.println("--- Compresion: partida grabada de " + turnos + " turnos, " + partida.size()
+            + " mensajes (" + comprimidos + " de " + CompresionMensajes.UMBRAL + " B o mas) ---");
+        System.out.printf("  %-16s %8d B%n", "sin compresion", bytesJson);
+        System.out.printf("  %-16s %8d B  (%d%%)%n", "deflate", bytesSinDiccionario, bytesSinDiccionario * 100 / bytesJson);
+        System.out.printf("  %-16s %8d B  (%d%%)%n", "deflate + dicc.", bytesDeflate, bytesDeflate * 100 / bytesJson);
+
+        List<TramaBinaria> tramas = new ArrayList<>();
+        for (MensajeCodificado mensaje : partida) {
+            ByteBuffer trama = compresion.comprimir(mensaje.vista());
+            if (trama != null) {
+                tramas.add(comoTrama(trama));
+            }
+        }
+        long mejorComprimir = Long.MAX_VALUE;
+        long mejorDescomprimir = Long.MAX_VALUE;
+        for (int ronda = 0; ronda < 20; ronda++) {
+            // Se queda con la mejor ronda (las primeras calientan el JIT)
+            long inicio = System.nanoTime();
+            int sumidero = 0;
+            for (MensajeCodificado mensaje : partida) {
+                ByteBuffer trama = compresion.comprimir(mensaje.vista());
+                sumidero += trama != null ? trama.remaining() : 0;
+            }
+            long nanosComprimir = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (TramaBinaria trama : tramas) {
+                sumidero += compresion.descomprimir(trama).length();
+            }
+            long nanosDescomprimir = System.nanoTime() - inicio;
+
+            if (sumidero == 42) System.out.print("");
+            mejorComprimir = Math.min(mejorComprimir, nanosComprimir);
+            mejorDescomprimir = Math.min(mejorDescomprimir, nanosDescomprimir);
+        }
+        System.out.printf("  CPU: comprimir=%d us/partida (%d ns/mensaje grande)  descomprimir=%d us/partida%n",
+            mejorComprimir / 1000, mejorComprimir / Math.max(1, comprimidos), mejorDescomprimir / 1000);
+        compresion.cerrar();
+    }
+
+    /**
+     * Mensajes que recibe un jugador en una partida de 4: la lista de salas
+     * y el estado completo al entrar, y por turno los mensajes de
+     * turnoConPlantillas mas el tablero_delta. Cada 20 turnos, un
+     * estado_tablero y un estado_completo (un cliente que se resincroniza).
+     */
+    private static List<MensajeCodificado> partidaGrabada(int turnos) {
+        List<modelo.Jugador.Jugador> jugadores = new ArrayList<>();
+        modelo.Tablero.Tablero tablero = tableroDePrueba(jugadores);
+        tablero.confirmarCambios();
+        modelo.partida.Partida partida = new modelo.partida.Partida(1, "Sala de prueba");
+        for (modelo.Jugador.Jugador jugador : jugadores) {
+            partida.agregarJugador(jugador);
+        }
+        partida.setTablero(tablero);
+        partida.setEstado(modelo.partida.EstadoPartida.EN_PROGRESO);
+
+        List<String> mensajes = new ArrayList<>();
+        PlantillaMensaje.Escritor salas = PlantillaMensaje.de("lista_salas").fijo("exito", true).iniciar()
+            .entero(CamposMensaje.TOTAL, 6)
+            .lista(CamposMensaje.SALAS);
+        for (int s = 1; s <= 6; s++) {
+            salas.elemento()
+                .entero(CamposMensaje.ID, s)
+                .texto(CamposMensaje.NOMBRE, "Sala " + s)
+                .entero(CamposMensaje.JUGADORES, s % 4 + 1)
+                .entero(CamposMensaje.MAX_JUGADORES, 4)
+                .texto(CamposMensaje.ESTADO, "ESPERANDO")
+                .cerrar();
+        }
+        mensajes.add(salas.cerrar().json());
+        mensajes.add(CacheEstadoPartida.serializar(partida.getInstantanea()));
+
+        java.util.Random dados = new java.util.Random(42);
+        long seq = 1;
+        for (int t = 0; t < turnos; t++) {
+            modelo.Jugador.Jugador jugador = jugadores.get(t & 3);
+            modelo.Ficha.Ficha ficha = jugador.getFichas().get((t >> 2) & 1);
+            int desde = ficha.getCasillaActual().getIndice();
+            int destino = (desde + 1 + dados.nextInt(12)) % 68 + 1;
+
+            for (String mensaje : turnoConPlantillas(jugador.getId(), jugador.getNombre(), desde)) {
+                mensajes.add(SecuenciadorPartida.conSecuencia(mensaje, seq++));
+            }
+            ficha.moverA(tablero.getCasilla(destino));
+            String delta = controlador.juego.SincronizacionTablero.crearMensajeDelta(tablero.confirmarCambios()).getJson();
+            mensajes.add(SecuenciadorPartida.conSecuencia(delta, seq++));
+            partida.avanzarTurno();
+
+            if (t % 20 == 19) {
+                mensajes.add(controlador.juego.SincronizacionTablero.crearMensajeEstado(tablero).getJson());
+                mensajes.add(CacheEstadoPartida.serializar(partida.getInstantanea()));
+            }
+        }
+
+        List<MensajeCodificado> codificados = new ArrayList<>(mensajes.size());
+        for (String mensaje : mensajes) {
+            codificados.add(MensajeCodificado.de(mensaje));
+        }
+        return codificados;
+    }
+
+    private static TramaBinaria comoTrama(ByteBuffer trama) {
+        byte[] datos = bytes(trama.duplicate());
+        return new TramaBinaria(datos[1], java.util.Arrays.copyOfRange(datos, ProtocoloBinario.CABECERA, datos.length));
+    }
+
+    private static void pruebaProtocolo(int turnos) {
+        modelo.Tablero.Tablero tablero = tableroDePrueba(new ArrayList<>());
+        EventoPartida estado = EventoPartida.estadoTablero(tablero.getInstantanea());
+
+        // Lo que recibe un jugador en un turno ajeno (con seq, como en una partida);
+        // jugador_tiro_dados no tiene trama
+        String tiroDados = "{\"tipo\":\"jugador_tiro_dados\",\"jugadorId\":2,\"jugadorNombre\":\"Jugador2\",\"dado1\":4,\"dado2\":3,\"suma\":7,\"esDoble\":false}";
+        EventoPartida[] recibidos = {
+            null,
+            EventoPartida.fichaMovida(2, "Jugador2", 1, 22, 26, null, null),
+            estado,
+            EventoPartida.fichaMovida(2, "Jugador2", 2, 28, 31, null, null),
+            estado,
+            EventoPartida.cambioTurno(3, "Jugador3", null),
+        };
+        // Lo que envia el jugador que mueve
+        String[] enviados = {
+            "{\"tipo\":\"tirar_dado\"}",
+            "{\"tipo\":\"mover_ficha_un_dado\",\"fichaId\":1,\"valorDado\":4,\"pasarTurno\":false}",
+            "{\"tipo\":\"mover_ficha_un_dado\",\"fichaId\":2,\"valorDado\":3,\"pasarTurno\":true}",
+        };
+
+        List<byte[]> lineas = new ArrayList<>();
+        List<Object> binarios = new ArrayList<>();
+        long seq = 1000;
+        for (EventoPartida evento : recibidos) {
+            String json = evento != null ? evento.getJson() : tiroDados;
+            byte[] trama = evento != null ? ProtocoloBinario.conSecuencia(evento.getTrama(), seq) : null;
+            MensajeCodificado mensaje = MensajeCodificado.de(SecuenciadorPartida.conSecuencia(json, seq++), trama);
+            lineas.add(bytes(mensaje.vista()));
+            binarios.add(comoEntrada(bytes(mensaje.vistaBinaria())));
+        }
+        for (String json : enviados) {
+            byte[] linea = (json + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8);
+            byte[] trama = ProtocoloBinario.codificarSolicitud(
+                com.google.gson.JsonParser.parseString(json).getAsJsonObject());
+            lineas.add(linea);
+            binarios.add(comoEntrada(trama != null ? trama : linea));
+        }
+
+        long bytesJson = 0;
+        long bytesBinario = 0;
+        for (int i = 0; i < lineas.size(); i++) {
+            bytesJson += lineas.get(i).length;
+            Object b = binarios.get(i);
+            bytesBinario += b instanceof TramaBinaria
+                ? ((TramaBinaria) b).getLongitud()
+                : ((String) b).getBytes(java.nio.charset.StandardCharsets.UTF_8).length + 1;
+        }
+
+        List<String> textos = new ArrayList<>();
+        for (byte[] linea : lineas) {
+            textos.add(new String(linea, 0, linea.length - 1, java.nio.charset.StandardCharsets.UTF_8));
+        }
+
+        System.out.println("--- Protocolo: turno de " + lineas.size() + " mensajes, " + turnos + " turnos ---");
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el JIT
+            long nsJson = medirDecodificacion(textos, turnos);
+            long nsBinario = medirDecodificacion(binarios, turnos);
+            if (ronda == 1) {
+                System.out.printf("  %-10s bytes/turno=%d  decodificacion=%d ns/turno%n", "JSON", bytesJson, nsJson);
+                System.out.printf("  %-10s bytes/turno=%d  decodificacion=%d ns/turno%n", "binario", bytesBinario, nsBinario);
+            }
+        }
+    }
+
+    private static final PlantillaMensaje JUGADOR_TIRO_DADOS = PlantillaMensaje.de("jugador_tiro_dados");
+    private static final PlantillaMensaje RESULTADO_DADOS = PlantillaMensaje.de("resultado_dados").fijo("exito", true);
+    private static final PlantillaMensaje FICHA_MOVIDA = PlantillaMensaje.de("ficha_movida");
+    private static final PlantillaMensaje MOVIMIENTO_EXITOSO = PlantillaMensaje.de("movimiento_exitoso").fijo("exito", true);
+    private static final PlantillaMensaje CAMBIO_TURNO = PlantillaMensaje.de("cambio_turno");
+    private static final PlantillaMensaje TU_TURNO = PlantillaMensaje.de("tu_turno");
+
+    private static void pruebaPlantillas(int turnos) {
+        int mensajes = turnoConPlantillas(2, "Jugador2", 7).length;
+
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean mxAsignacion = mx instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) mx : null;
+        long hilo = Thread.currentThread().threadId();
+
+        System.out.println("--- Plantillas: turno de " + mensajes + " mensajes, " + turnos + " turnos ---");
+        for (int ronda = 0; ronda < 2; ronda++) {
+            // La primera ronda calienta el JIT
+            for (int modo = 0; modo < 2; modo++) {
+                int sumidero = 0;
+                long asignadoAntes = mxAsignacion != null ? mxAsignacion.getThreadAllocatedBytes(hilo) : 0;
+                long inicio = System.nanoTime();
+                for (int t = 0; t < turnos; t++) {
+                    String[] turno = modo == 0
+                        ? turnoConJsonObject(t & 3, "Jugador" + (t & 3), t % 80)
+                        : turnoConPlantillas(t & 3, "Jugador" + (t & 3), t % 80);
+                    sumidero += turno[turno.length - 1].length();
+                }
+                long nanos = System.nanoTime() - inicio;
+                long asignado = mxAsignacion != null ? mxAsignacion.getThreadAllocatedBytes(hilo) - asignadoAntes : -1;
+                if (sumidero == 42) System.out.print("");
+                if (ronda == 1) {
+                    System.out.printf("  %-12s asignado=%d B/turno  tiempo=%d ns/turno%n",
+                        modo == 0 ? "JsonObject" : "plantillas", asignado / turnos, nanos / turnos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Los mensajes de un turno con dos movimientos, como se construian antes.
+     */
+    private static String[] turnoConJsonObject(int jugadorId, String nombre, int casilla) {
+        com.google.gson.JsonObject tiro = new com.google.gson.JsonObject();
+        tiro.addProperty("tipo", "jugador_tiro_dados");
+        tiro.addProperty("jugadorId", jugadorId);
+        tiro.addProperty("jugadorNombre", nombre);
+        tiro.addProperty("dado1", 4);
+        tiro.addProperty("dado2", 3);
+        tiro.addProperty("suma", 7);
+        tiro.addProperty("esDoble", false);
+
+        com.google.gson.JsonObject resultado = new com.google.gson.JsonObject();
+        resultado.addProperty("tipo", "resultado_dados");
+        resultado.addProperty("exito", true);
+        com.google.gson.JsonObject dados = new com.google.gson.JsonObject();
+        dados.addProperty("dado1", 4);
+        dados.addProperty("dado2", 3);
+        dados.addProperty("suma", 7);
+        dados.addProperty("esDoble", false);
+        dados.addProperty("contadorDobles", 0);
+        resultado.add("dados", dados);
+        resultado.addProperty("mensaje", "Dados lanzados");
+        resultado.addProperty("puedeJugar", true);
+        resultado.addProperty("tieneFichasEnJuego", true);
+
+        String[] turno = new String[8];
+        turno[0] = tiro.toString();
+        turno[1] = resultado.toString();
+        for (int m = 0; m < 2; m++) {
+            com.google.gson.JsonObject movida = new com.google.gson.JsonObject();
+            movida.addProperty("tipo", "ficha_movida");
+            movida.addProperty("jugadorId", jugadorId);
+            movida.addProperty("jugadorNombre", nombre);
+            movida.addProperty("fichaId", m + 1);
+            movida.addProperty("desde", casilla);
+            movida.addProperty("hasta", casilla + 4 - m);
+
+            com.google.gson.JsonObject exito = new com.google.gson.JsonObject();
+            exito.addProperty("tipo", "movimiento_exitoso");
+            exito.addProperty("exito", true);
+            com.google.gson.JsonObject movimiento = new com.google.gson.JsonObject();
+            movimiento.addProperty("desde", casilla);
+            movimiento.addProperty("hasta", casilla + 4 - m);
+            exito.add("movimiento", movimiento);
+            exito.addProperty("mensaje", "Ficha movida exitosamente");
+            exito.addProperty("turnoTerminado", m == 1);
+
+            turno[2 + m * 2] = movida.toString();
+            turno[3 + m * 2] = exito.toString();
+        }
+
+        com.google.gson.JsonObject cambio = new com.google.gson.JsonObject();
+        cambio.addProperty("tipo", "cambio_turno");
+        cambio.addProperty("jugadorId", jugadorId + 1);
+        cambio.addProperty("jugadorNombre", nombre);
+        com.google.gson.JsonObject tuTurno = new com.google.gson.JsonObject();
+        tuTurno.addProperty("tipo", "tu_turno");
+        tuTurno.addProperty("jugadorId", jugadorId + 1);
+        tuTurno.addProperty("jugadorNombre", nombre);
+        turno[6] = cambio.toString();
+        turno[7] = tuTurno.toString();
+        return turno;
+    }
+
+    /**
+     * Los mismos mensajes escritos con PlantillaMensaje.
+     */
+    private static String[] turnoConPlantillas(int jugadorId, String nombre, int casilla) {
+        String[] turno = new String[8];
+        turno[0] = JUGADOR_TIRO_DADOS.iniciar()
+            .entero(CamposMensaje.JUGADOR_ID, jugadorId)
+            .texto(CamposMensaje.JUGADOR_NOMBRE, nombre)
+            .entero(CamposMensaje.DADO1, 4)
+            .entero(CamposMensaje.DADO2, 3)
+            .entero(CamposMensaje.SUMA, 7)
+            .booleano(CamposMensaje.ES_DOBLE, false)
+            .json();
+        turno[1] = RESULTADO_DADOS.iniciar()
+            .objeto(CamposMensaje.DADOS)
+                .entero(CamposMensaje.DADO1, 4)
+                .entero(CamposMensaje.DADO2, 3)
+                .entero(CamposMensaje.SUMA, 7)
+                .booleano(CamposMensaje.ES_DOBLE, false)
+                .entero(CamposMensaje.CONTADOR_DOBLES, 0)
+            .cerrar()
+            .texto(CamposMensaje.MENSAJE, "Dados lanzados")
+            .booleano(CamposMensaje.PUEDE_JUGAR, true)
+            .booleano(CamposMensaje.TIENE_FICHAS_EN_JUEGO, true)
+            .json();
+        for (int m = 0; m < 2; m++) {
+            turno[2 + m * 2] = FICHA_MOVIDA.iniciar()
+                .entero(CamposMensaje.JUGADOR_ID, jugadorId)
+                .texto(CamposMensaje.JUGADOR_NOMBRE, nombre)
+                .entero(CamposMensaje.FICHA_ID, m + 1)
+                .entero(CamposMensaje.DESDE, casilla)
+                .entero(CamposMensaje.HASTA, casilla + 4 - m)
+                .json();
+            turno[3 + m * 2] = MOVIMIENTO_EXITOSO.iniciar()
+                .objeto(CamposMensaje.MOVIMIENTO)
+                    .entero(CamposMensaje.DESDE, casilla)
+                    .entero(CamposMensaje.HASTA, casilla + 4 - m)
+                .cerrar()
+                .texto(CamposMensaje.MENSAJE, "Ficha movida exitosamente")
+                .booleano(CamposMensaje.TURNO_TERMINADO, m == 1)
+                .json();
+        }
+        turno[6] = CAMBIO_TURNO.iniciar()
+            .entero(CamposMensaje.JUGADOR_ID, jugadorId + 1)
+            .texto(CamposMensaje.JUGADOR_NOMBRE, nombre)
+            .json();
+        turno[7] = TU_TURNO.iniciar()
+            .entero(CamposMensaje.JUGADOR_ID, jugadorId + 1)
+            .texto(CamposMensaje.JUGADOR_NOMBRE, nombre)
+            .json();
+        return turno;
+    }
+
+    private static long medirDecodificacion(List<?> mensajes, int turnos) {
+        int sumidero = 0;
+        long inicio = System.nanoTime();
+        for (int t = 0; t < turnos; t++) {
+            for (Object m : mensajes) {
+                com.google.gson.JsonObject json = m instanceof TramaBinaria
+                    ? ProtocoloBinario.decodificar((TramaBinaria) m)
+                    : com.google.gson.JsonParser.parseString((String) m).getAsJsonObject();
+                sumidero += json.size();
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        if (sumidero == 42) System.out.print("");
+        return nanos / turnos;
+    }
+
+    private static byte[] bytes(ByteBuffer vista) {
+        byte[] datos = new byte[vista.remaining()];
+        vista.get(datos);
+        return datos;
+    }
+
+    /**
+     * Lo que entregaria LectorEntrada para estos bytes (trama o linea, esta
+     * como String).
+     */
+    private static Object comoEntrada(byte[] datos) {
+        try {
+            Object mensaje = new LectorEntrada(new java.io.ByteArrayInputStream(datos)).siguiente();
+            return mensaje instanceof LineaBytes ? mensaje.toString() : mensaje;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void medirDifusion(String nombre, Runnable envio) {
+        java.lang.management.ThreadMXBean mx = java.lang.management.ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().threadId();
+        boolean medirAsignacion = mx instanceof com.sun.management.ThreadMXBean;
+
+        EstadisticasRed.reiniciar();
+        long asignadoAntes = medirAsignacion
+            ? ((com.sun.management.ThreadMXBean) mx).getThreadAllocatedBytes(hilo) : 0;
+        long inicio = System.nanoTime();
+
+        envio.run();
+
+        long nanos = System.nanoTime() - inicio;
+        long asignado = medirAsignacion
+            ? ((com.sun.management.ThreadMXBean) mx).getThreadAllocatedBytes(hilo) - asignadoAntes : -1;
+
+        System.out.printf("  %-20s %s  asignado=%d KB  tiempo=%.1f ms%n",
+            nombre, EstadisticasRed.resumen(), asignado / 1024, nanos / 1_000_000.0);
+    }
+
+    private static boolean contieneFinDeLinea(ByteBuffer buffer) {
+        for (int i = 0; i < buffer.position(); i++) {
+            if (buffer.get(i) == '\n') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package modelo.Tablero;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import modelo.Ficha.Ficha;
+import modelo.Jugador.Jugador;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lectores sin lock de la instantanea publicada mientras otro hilo mueve
+ * fichas y confirma cambios: nunca ven un tablero a medias ni una version
+ * anterior a la que ya vieron.
+ */
+public class InstantaneaTableroTest {
+
+    private static final int LECTORES = 8;
+    private static final int LECTURAS = 20000;
+
+    @Test
+    public void lecturasSinTablerosAMedias() throws InterruptedException {
+        Tablero tablero = new Tablero();
+        List<Jugador> jugadores = TableroPrueba.registrarJugadores(tablero, 4);
+        for (int j = 0; j < 4; j++) {
+            for (int f = 0; f < 2; f++) {
+                jugadores.get(j).getFichas().get(f).moverA(tablero.getCasilla(5 + j * 17 + f * 6));
+            }
+        }
+        tablero.confirmarCambios();
+        int enTablero = 2 * jugadores.size();
+
+        AtomicBoolean parar = new AtomicBoolean();
+        AtomicLong movimientos = new AtomicLong();
+        Thread escritor = new Thread(() -> {
+            for (int t = 0; !parar.get(); t++) {
+                Ficha ficha = jugadores.get(t & 3).getFichas().get((t >> 2) & 1);
+                ficha.moverA(tablero.getCasilla(ficha.getCasillaActual().getIndice() % 68 + 1));
+                tablero.confirmarCambios();
+                movimientos.incrementAndGet();
+            }
+        });
+        escritor.start();
+
+        AtomicLong aMedias = new AtomicLong();
+        AtomicLong retrocesos = new AtomicLong();
+        Thread[] lectores = new Thread[LECTORES];
+        for (int h = 0; h < LECTORES; h++) {
+            lectores[h] = new Thread(() -> {
+                long ultimaVersion = -1;
+                for (int i = 0; i < LECTURAS; i++) {
+                    InstantaneaTablero instantanea = tablero.getInstantanea();
+                    if (contarFichas(instantanea) != enTablero) aMedias.incrementAndGet();
+                    if (instantanea.version < ultimaVersion) retrocesos.incrementAndGet();
+                    ultimaVersion = instantanea.version;
+                }
+            });
+            lectores[h].start();
+        }
+        for (Thread lector : lectores) {
+            lector.join();
+        }
+        parar.set(true);
+        escritor.join();
+
+        assertTrue(movimientos.get() > 0);
+        assertEquals(0, aMedias.get());
+        assertEquals(0, retrocesos.get());
+    }
+
+    private static int contarFichas(InstantaneaTablero tablero) {
+        int fichas = 0;
+        for (InstantaneaTablero.CasillaEstado casilla : tablero.getCasillas()) {
+            fichas += casilla.fichas.size();
+        }
+        return fichas;
+    }
+}
@@ -0,0 +1,64 @@
+package modelo.Tablero;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import modelo.Ficha.Ficha;
+import modelo.Jugador.Jugador;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Las consultas de las reglas leidas de OcupacionTablero (barrera, barrera
+ * rival y fichas de un jugador en una casilla) dan lo mismo que agrupando
+ * la lista de fichas de la casilla, como antes.
+ */
+public class OcupacionTableroTest {
+
+    @Test
+    public void igualQueAgrupandoLaLista() {
+        Tablero tablero = new Tablero();
+        List<Jugador> jugadores = TableroPrueba.registrarJugadores(tablero, 4);
+
+        // Recorre cada ficha por el tablero: pasan por barreras propias,
+        // casillas compartidas con rivales y casillas vacias
+        for (int paso = 0; paso < 200; paso++) {
+            for (int j = 0; j < 4; j++) {
+                List<Ficha> fichas = jugadores.get(j).getFichas();
+                fichas.get(0).moverA(tablero.getCasilla((paso + j * 17) % 68 + 1));
+                fichas.get(1).moverA(paso % 3 == 0 ? fichas.get(0).getCasillaActual()
+                    : tablero.getCasilla((paso * 5 + j) % 96 + 1));
+                fichas.get(2).moverA(jugadores.get((j + 1) % 4).getFichas().get(0).getCasillaActual());
+                fichas.get(3).moverA(paso % 7 == 0 ? null : tablero.getCasilla((paso * 11 + j) % 68 + 1));
+            }
+            comprobar(tablero);
+        }
+    }
+
+    private static void comprobar(Tablero tablero) {
+        for (int casilla = 1; casilla <= tablero.getNumeroCasillas(); casilla++) {
+            List<Ficha> fichas = tablero.getCasilla(casilla).getFichas();
+            assertEquals("casilla " + casilla, barreraAgrupando(fichas, -1), tablero.esBarrera(casilla));
+            for (int jugadorId = 1; jugadorId <= 4; jugadorId++) {
+                int id = jugadorId;
+                assertEquals("casilla " + casilla + " jugador " + id,
+                    barreraAgrupando(fichas, id), tablero.esBarreraRival(casilla, id));
+                assertEquals("casilla " + casilla + " jugador " + id,
+                    fichas.stream().filter(f -> f.getIdJugador() == id).count(),
+                    tablero.getCasilla(casilla).contarFichasDeJugador(id));
+            }
+        }
+    }
+
+    /**
+     * Barrera (2+ fichas de un jugador distinto de "excluido") agrupando la
+     * lista, como lo hacian Tablero y MotorJuego.
+     */
+    private static boolean barreraAgrupando(List<Ficha> fichas, int excluido) {
+        if (fichas.size() < 2) return false;
+        return fichas.stream()
+            .filter(f -> f.getIdJugador() != excluido)
+            .collect(Collectors.groupingBy(Ficha::getIdJugador, Collectors.counting()))
+            .values().stream().anyMatch(n -> n >= 2);
+    }
+}
@@ -0,0 +1,132 @@
+package modelo.Tablero;
+
+import java.util.List;
+import java.util.Map;
+import modelo.Ficha.Ficha;
+import modelo.Jugador.Jugador;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Las tablas de RutasTablero (calcularDestino y
+ * rutaContieneBarreraExcluyendoOrigen) dan lo mismo que las reglas
+ * originales de Tablero: los mapas de colores y el recorrido casilla a
+ * casilla con esBarrera.
+ */
+public class RutasTableroTest {
+
+    // Mapas de colores de Tablero, para las reglas de referencia
+    private static final Map<ColorCasilla, Integer> SALIDA_REFERENCIA = Map.of(
+        ColorCasilla.ROJO, 1, ColorCasilla.VERDE, 18,
+        ColorCasilla.AMARILLO, 35, ColorCasilla.AZUL, 52);
+    private static final Map<ColorCasilla, Integer> PASILLO_REFERENCIA = Map.of(
+        ColorCasilla.ROJO, 69, ColorCasilla.VERDE, 76,
+        ColorCasilla.AMARILLO, 83, ColorCasilla.AZUL, 90);
+    private static final Map<ColorCasilla, Integer> ENTRADA_META_REFERENCIA = Map.of(
+        ColorCasilla.ROJO, 68, ColorCasilla.VERDE, 17,
+        ColorCasilla.AMARILLO, 34, ColorCasilla.AZUL, 51);
+
+    private static final int SIN_DESTINO = Integer.MIN_VALUE;
+
+    private Tablero tablero;
+    private List<Jugador> jugadores;
+
+    @Before
+    public void setUp() {
+        tablero = new Tablero();
+        jugadores = TableroPrueba.registrarJugadores(tablero, 4);
+    }
+
+    /**
+     * Todos los colores, origenes y pasos (y algo mas alla de la tabla).
+     */
+    @Test
+    public void destinosIgualesALasReglas() {
+        for (Jugador jugador : jugadores) {
+            for (int origen = 1; origen <= tablero.getNumeroCasillas(); origen++) {
+                for (int pasos = 0; pasos <= 80; pasos++) {
+                    int esperado;
+                    int obtenido;
+                    try {
+                        esperado = destinoReferencia(origen, pasos, jugador.getColorCasilla());
+                    } catch (IllegalArgumentException e) {
+                        esperado = SIN_DESTINO;
+                    }
+                    try {
+                        obtenido = tablero.calcularDestino(origen, pasos, jugador.getId());
+                    } catch (IllegalArgumentException e) {
+                        obtenido = SIN_DESTINO;
+                    }
+                    assertEquals(jugador.getColorCasilla() + " origen " + origen + " pasos " + pasos,
+                        esperado, obtenido);
+                }
+            }
+        }
+    }
+
+    /**
+     * Todos los pares origen/destino, sin barrera y con una barrera en cada
+     * casilla (el resultado con varias es el OR).
+     */
+    @Test
+    public void rutasIgualesAlRecorrido() {
+        List<Ficha> barrera = jugadores.get(0).getFichas().subList(0, 2);
+        for (int casilla = 0; casilla <= tablero.getNumeroCasillas(); casilla++) {
+            for (Ficha ficha : barrera) {
+                ficha.moverA(casilla == 0 ? null : tablero.getCasilla(casilla));
+            }
+            for (int origen = 1; origen <= tablero.getNumeroCasillas(); origen++) {
+                for (int destino = 0; destino < 128; destino++) {
+                    assertEquals("barrera " + casilla + " origen " + origen + " destino " + destino,
+                        barreraEnRutaReferencia(origen, destino),
+                        tablero.rutaContieneBarreraExcluyendoOrigen(origen, destino));
+                }
+            }
+        }
+    }
+
+    /**
+     * calcularDestino como lo hacia Tablero, con tres consultas a mapas.
+     */
+    private static int destinoReferencia(int origen, int pasos, ColorCasilla color) {
+        Integer casillaSalida = SALIDA_REFERENCIA.get(color);
+        Integer entradaPasillo = ENTRADA_META_REFERENCIA.get(color);
+
+        if (origen >= 69) {
+            int nueva = origen + pasos;
+            if (nueva > PASILLO_REFERENCIA.get(color) + 6) {
+                throw new IllegalArgumentException("Movimiento excede el final del pasillo");
+            }
+            return nueva;
+        }
+
+        int nueva = origen + pasos;
+        if (casillaSalida != null && origen == casillaSalida) {
+            return nueva > 68 ? nueva - 68 : nueva;
+        }
+        if (entradaPasillo != null && origen < entradaPasillo && nueva >= entradaPasillo && nueva <= 68) {
+            return PASILLO_REFERENCIA.get(color) + nueva - entradaPasillo;
+        }
+        return nueva > 68 ? nueva - 68 : nueva;
+    }
+
+    /**
+     * rutaContieneBarreraExcluyendoOrigen como lo hacia Tablero, casilla a
+     * casilla con esBarrera.
+     */
+    private boolean barreraEnRutaReferencia(int origen, int destino) {
+        int actual = origen;
+        for (int contador = 0; actual != destino && contador < 70; contador++) {
+            actual = actual >= 69 ? actual + 1 : (actual == 68 ? 1 : actual + 1);
+            if (actual == origen) {
+                break;
+            }
+            if (actual != destino && tablero.esBarrera(actual)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package modelo.Tablero;
+
+import java.util.ArrayList;
+import java.util.List;
+import modelo.Jugador.ColorJugador;
+import modelo.Jugador.Jugador;
+
+/**
+ * Jugadores de prueba registrados en un tablero.
+ */
+public final class TableroPrueba {
+
+    private TableroPrueba() {
+    }
+
+    /**
+     * Registra "numero" jugadores (ids 1..numero, un color cada uno) con sus
+     * 4 fichas en casa.
+     */
+    public static List<Jugador> registrarJugadores(Tablero tablero, int numero) {
+        List<Jugador> jugadores = new ArrayList<>(numero);
+        ColorJugador[] colores = ColorJugador.values();
+        for (int j = 0; j < numero; j++) {
+            Jugador jugador = new Jugador(j + 1, "Jugador" + (j + 1), colores[j], "default.png");
+            jugador.inicializarFichas(4);
+            tablero.registrarJugador(jugador);
+            jugadores.add(jugador);
+        }
+        return jugadores;
+    }
+}